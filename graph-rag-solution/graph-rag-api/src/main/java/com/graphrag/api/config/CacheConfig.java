@@ -1,7 +1,11 @@
 package com.graphrag.api.config;
 
+import com.google.common.cache.CacheBuilder;
+import com.graphrag.common.config.GraphRagProperties;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
 import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -20,12 +24,26 @@ import java.time.Duration;
 @EnableCaching
 public class CacheConfig {
 
+    @Autowired
+    private GraphRagProperties properties;
+
     /**
      * Memory Cache Manager (Development Environment)
+     * Each cache is backed by a size-bounded Guava map; entries keyed by an old graph version are cleared by
+     * CacheService when the version changes.
      */
     @Bean
     public CacheManager memoryCacheManager() {
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+        GraphRagProperties.ResultCache config = properties.getResultCache();
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager() {
+            @Override
+            protected org.springframework.cache.Cache createConcurrentMapCache(String name) {
+                return new ConcurrentMapCache(name, CacheBuilder.newBuilder()
+                        .maximumSize(config.getMaximumSize())
+                        .<Object, Object>build()
+                        .asMap(), isAllowNullValues());
+            }
+        };
         cacheManager.setCacheNames(java.util.Arrays.asList(
                 "queryResults",
                 "documentEmbeddings",
@@ -1,12 +1,18 @@
 package com.graphrag.api.controller;
 
 import com.graphrag.api.controller.registry.AsyncTaskRegistry;
+import com.graphrag.api.service.CacheService;
+import com.graphrag.common.config.GraphRagProperties;
 import com.graphrag.common.model.ApiResponse;
 import com.graphrag.core.algorithm.*;
 import com.graphrag.core.model.GraphRagRequest;
 import com.graphrag.core.model.GraphRagResponse;
+import com.graphrag.core.service.DocumentChunkService;
+import com.graphrag.core.service.EntityResolutionService;
 import com.graphrag.core.service.GraphRagRetrievalService;
+import com.graphrag.core.service.IngestionJobService;
 import com.graphrag.core.service.KnowledgeGraphService;
+import com.graphrag.core.service.NearDuplicateService;
 import com.graphrag.data.service.DocumentService;
 import com.graphrag.data.service.EntityService;
 import com.graphrag.data.service.GraphService;
@@ -21,16 +27,19 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 /**
@@ -70,6 +79,24 @@ public class GraphRagController {
     @Autowired
     private GraphTraversalAlgorithm traversal;
 
+    @Autowired
+    private GraphRagProperties properties;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private IngestionJobService ingestionJobService;
+
+    @Autowired
+    private DocumentChunkService documentChunkService;
+
+    @Autowired
+    private NearDuplicateService nearDuplicateService;
+
+    @Autowired
+    private EntityResolutionService entityResolutionService;
+
     @Autowired
     public GraphRagController(AsyncTaskRegistry taskRegistry) {
         this.taskRegistry = taskRegistry;
@@ -109,10 +136,13 @@ public class GraphRagController {
 
     /**
      * Graph RAG Query Stream Interface
+     * Events: retrieval-complete and sources once retrieval finishes, token for each answer chunk as the model
+     * produces it, then complete with the full response (or error). Once the client disconnects nothing more is
+     * forwarded, and if retrieval is still running the answer is not requested from the model.
      */
     @GetMapping(value = "/query/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @Operation(summary = "Graph RAG Query Stream")
-    public Flux<ApiResponse<GraphRagResponse>> queryStream(
+    public Flux<ServerSentEvent<Object>> queryStream(
             @RequestParam("question") String question,
             @RequestParam(value = "retrievalMode", defaultValue = "hybrid") String retrievalMode) {
 
@@ -120,20 +150,54 @@ public class GraphRagController {
         request.setQuestion(question);
         request.setRetrievalMode(retrievalMode);
 
-        return Mono.fromCallable(() -> {
+        return Flux.<ServerSentEvent<Object>>create(sink -> {
                     long startTime = System.currentTimeMillis();
-                    GraphRagResponse response;
-                    if ("hybrid".equalsIgnoreCase(request.getRetrievalMode())) {
-                        response = retrievalService.hybridRetrieve(request);
-                    } else {
-                        response = retrievalService.retrieve(request);
-                    }
-                    response.setProcessingTimeMs(System.currentTimeMillis() - startTime);
-                    return ApiResponse.success(response);
+                    AtomicBoolean cancelled = new AtomicBoolean();
+                    sink.onCancel(() -> {
+                        cancelled.set(true);
+                        logger.info("Streaming query cancelled by client: {}", question);
+                    });
+                    retrievalService.streamRetrieve(request,
+                                    sources -> {
+                                        Map<String, Object> retrieval = new LinkedHashMap<>();
+                                        retrieval.put("retrievalTimeMs", System.currentTimeMillis() - startTime);
+                                        retrieval.put("documentCount", sources.getRelevantDocuments().size());
+                                        retrieval.put("entityCount", sources.getRelevantEntities().size());
+                                        retrieval.put("contextTokens", sources.getContextTokens());
+                                        retrieval.put("promptTokens", sources.getPromptTokens());
+                                        sink.next(event("retrieval-complete", retrieval));
+
+                                        Map<String, Object> sourceData = new LinkedHashMap<>();
+                                        sourceData.put("relevantDocuments", sources.getRelevantDocuments());
+                                        sourceData.put("relevantEntities", sources.getRelevantEntities());
+                                        sink.next(event("sources", sourceData));
+                                    },
+                                    // Wrapped in JSON so leading spaces and newlines in chunks survive SSE framing
+                                    token -> {
+                                        if (!cancelled.get()) {
+                                            sink.next(event("token", Map.of("text", token)));
+                                        }
+                                    },
+                                    cancelled::get)
+                            .whenComplete((response, error) -> {
+                                if (cancelled.get()) {
+                                    return;
+                                }
+                                if (error != null) {
+                                    logger.error("Streaming query failed", error);
+                                    sink.next(event("error", ApiResponse.error("Query failed: " + error.getMessage())));
+                                } else {
+                                    response.setProcessingTimeMs(System.currentTimeMillis() - startTime);
+                                    sink.next(event("complete", ApiResponse.success(response)));
+                                }
+                                sink.complete();
+                            });
                 })
-                .onErrorResume(e -> Mono.just(ApiResponse.error("Query failed: " + e.getMessage())))
-                .subscribeOn(Schedulers.boundedElastic())
-                .flux();
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static ServerSentEvent<Object> event(String name, Object data) {
+        return ServerSentEvent.builder(data).event(name).build();
     }
 
     /**
@@ -191,14 +255,30 @@ public class GraphRagController {
         }
     }
 
+    /**
+     * Query Analysis Metrics Interface
+     */
+    @GetMapping("/analyze/metrics")
+    @Operation(summary = "Query Analysis Metrics", description = "Local Classifier Fast-Path Hit Rate Versus LLM Analyses")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getAnalysisMetrics() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(queryUnderstanding.getMetrics()));
+
+        } catch (Exception e) {
+            logger.error("Failed to get query analysis metrics", e);
+            return ResponseEntity.ok(ApiResponse.error("Failed to get metrics: " + e.getMessage()));
+        }
+    }
+
     /**
      * Document Upload and Knowledge Graph Construction Interface
      */
     @PostMapping("/documents/upload")
-    @Operation(summary = "Upload Document", description = "Upload Document and Build Knowledge Graph")
+    @Operation(summary = "Upload Document", description = "Upload Document and Queue Knowledge Graph Construction")
     public ResponseEntity<ApiResponse<String>> uploadDocument(
             @RequestParam("file") @Parameter(description = "Document File") MultipartFile file,
-            @RequestParam(value = "source", required = false) @Parameter(description = "Document Source") String source) {
+            @RequestParam(value = "source", required = false) @Parameter(description = "Document Source") String source,
+            @RequestParam(value = "priority", defaultValue = "0") @Parameter(description = "Job Priority") int priority) {
 
         logger.info("Received document upload request, filename: {}", file.getOriginalFilename());
 
@@ -208,10 +288,10 @@ public class GraphRagController {
                 document.metadata().add("source", source);
             }
 
-            knowledgeGraphService.buildKnowledgeGraphFromDocument(document);
-
-            return ResponseEntity
-                    .ok(ApiResponse.success("Document upload and knowledge graph construction successful"));
+            String jobId = ingestionJobService.submit(
+                    List.of(IngestionJobService.JobDocument.from(file.getOriginalFilename(), document)),
+                    IngestionJobService.MODE_STANDARD, priority);
+            return acceptedJob(jobId);
 
         } catch (Exception e) {
             logger.error("Document upload failed", e);
@@ -223,34 +303,34 @@ public class GraphRagController {
      * Batch Document Upload Interface
      */
     @PostMapping("/documents/batch-upload")
-    @Operation(summary = "Batch Upload Documents", description = "Batch Upload Documents and Build Knowledge Graph")
+    @Operation(summary = "Batch Upload Documents", description = "Batch Upload Documents and Queue Knowledge Graph Construction")
     public ResponseEntity<ApiResponse<String>> batchUploadDocuments(
             @RequestParam("files") @Parameter(description = "Document Files List") MultipartFile[] files,
-            @RequestParam(value = "source", required = false) @Parameter(description = "Document Source") String source) {
+            @RequestParam(value = "source", required = false) @Parameter(description = "Document Source") String source,
+            @RequestParam(value = "priority", defaultValue = "0") @Parameter(description = "Job Priority") int priority) {
 
         logger.info("Received batch document upload request, file count: {}", files.length);
 
         try {
-            int successCount = 0;
-            int failCount = 0;
-
+            // Parse the files, then hand them to one durable job; ingestion runs off the request thread
+            List<IngestionJobService.JobDocument> documents = new ArrayList<>();
             for (MultipartFile file : files) {
                 try {
                     Document document = documentLoaderService.loadFromMultipartFile(file);
                     if (source != null) {
                         document.metadata().add("source", source);
                     }
-                    knowledgeGraphService.buildKnowledgeGraphFromDocument(document);
-
-                    successCount++;
+                    documents.add(IngestionJobService.JobDocument.from(file.getOriginalFilename(), document));
                 } catch (Exception e) {
-                    logger.error("Failed to process file: {}", file.getOriginalFilename(), e);
-                    failCount++;
+                    logger.error("Failed to parse file: {}", file.getOriginalFilename(), e);
                 }
             }
 
-            String message = String.format("Batch upload completed, success: %d, failed: %d", successCount, failCount);
-            return ResponseEntity.ok(ApiResponse.success(message));
+            if (documents.isEmpty()) {
+                return ResponseEntity.ok(ApiResponse.error("Batch upload failed: no readable documents"));
+            }
+            String jobId = ingestionJobService.submit(documents, IngestionJobService.MODE_STANDARD, priority);
+            return acceptedJob(jobId);
 
         } catch (Exception e) {
             logger.error("Batch document upload failed", e);
@@ -258,6 +338,83 @@ public class GraphRagController {
         }
     }
 
+    /**
+     * Ingestion Job Status Interface
+     */
+    @GetMapping("/documents/jobs/{jobId}")
+    @Operation(summary = "Get Ingestion Job", description = "Get Ingestion Job Progress and Throughput")
+    public ResponseEntity<ApiResponse<IngestionJobService.JobStatus>> getIngestionJob(
+            @PathVariable("jobId") @Parameter(description = "Job ID") String jobId) {
+        return ingestionJobService.getStatus(jobId)
+                .map(status -> ResponseEntity.ok(ApiResponse.success(status)))
+                .orElseGet(() -> ResponseEntity.ok(ApiResponse.error("Job not found: " + jobId)));
+    }
+
+    /**
+     * List Ingestion Jobs Interface
+     */
+    @GetMapping("/documents/jobs")
+    @Operation(summary = "List Ingestion Jobs", description = "List All Known Ingestion Jobs")
+    public ResponseEntity<ApiResponse<List<IngestionJobService.JobStatus>>> listIngestionJobs() {
+        return ResponseEntity.ok(ApiResponse.success(ingestionJobService.listJobs()));
+    }
+
+    /**
+     * Cancel Ingestion Job Interface
+     */
+    @DeleteMapping("/documents/jobs/{jobId}")
+    @Operation(summary = "Cancel Ingestion Job", description = "Cancel a Queued or Running Ingestion Job")
+    public ResponseEntity<ApiResponse<String>> cancelIngestionJob(
+            @PathVariable("jobId") @Parameter(description = "Job ID") String jobId) {
+        if (ingestionJobService.cancel(jobId)) {
+            return ResponseEntity.ok(ApiResponse.success("Job cancelled: " + jobId));
+        }
+        return ResponseEntity.ok(ApiResponse.error("Job not found or already finished: " + jobId));
+    }
+
+    /**
+     * Change Ingestion Job Priority Interface
+     */
+    @PutMapping("/documents/jobs/{jobId}/priority")
+    @Operation(summary = "Set Ingestion Job Priority", description = "Higher Priority Jobs Run First")
+    public ResponseEntity<ApiResponse<String>> setIngestionJobPriority(
+            @PathVariable("jobId") @Parameter(description = "Job ID") String jobId,
+            @RequestParam("priority") @Parameter(description = "Job Priority") int priority) {
+        if (ingestionJobService.setPriority(jobId, priority)) {
+            return ResponseEntity.ok(ApiResponse.success("Job priority updated: " + jobId));
+        }
+        return ResponseEntity.ok(ApiResponse.error("Job not found or already finished: " + jobId));
+    }
+
+    /**
+     * Delete Document Interface
+     */
+    @DeleteMapping("/documents/{id}")
+    @Operation(summary = "Delete Document", description = "Delete a Document with Its Chunks and Near-Duplicate Fingerprints")
+    public ResponseEntity<ApiResponse<String>> deleteDocument(
+            @PathVariable("id") @Parameter(description = "Document ID") Long id) {
+        logger.info("Received delete document request, id: {}", id);
+
+        try {
+            documentChunkService.deleteDocument(id);
+            return ResponseEntity.ok(ApiResponse.success("Document deleted: " + id));
+
+        } catch (Exception e) {
+            logger.error("Failed to delete document", e);
+            return ResponseEntity.ok(ApiResponse.error("Delete failed: " + e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<ApiResponse<String>> acceptedJob(String jobId) {
+        URI location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                                                  .path("/documents/jobs/{id}")
+                                                  .build(jobId);
+        return ResponseEntity
+                .accepted()
+                .location(location)
+                .body(ApiResponse.success(jobId));
+    }
+
     /**
      * Get Database Statistics
      */
@@ -308,6 +465,8 @@ public class GraphRagController {
         try {
             String cypher = "MATCH (n) DETACH DELETE n";
             graphService.executeCypherWrite(cypher, Map.of());
+            nearDuplicateService.clear();
+            entityResolutionService.resetIndex();
 
             return ResponseEntity.ok(ApiResponse.success("Knowledge graph cleared"));
 
@@ -330,7 +489,7 @@ public class GraphRagController {
         logger.info("Received related entities query request, entity: {}", entityName);
 
         try {
-            List<Map<String, Object>> relatedEntities = traversal.multiHopEntityRetrieval(
+            List<Map<String, Object>> relatedEntities = cacheService.getCachedGraphTraversal(
                     entityName, maxHops, maxResults);
 
             return ResponseEntity.ok(ApiResponse.success(relatedEntities));
@@ -340,4 +499,58 @@ public class GraphRagController {
             return ResponseEntity.ok(ApiResponse.error("Failed to get related entities: " + e.getMessage()));
         }
     }
+
+    /**
+     * Get Subgraph for Visualisation
+     */
+    @GetMapping("/graph/subgraph")
+    @Operation(summary = "Get Subgraph", description = "Extract Nodes and Relationships Around Specified Entities")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getSubgraph(
+        @RequestParam("entities") @Parameter(description = "Seed Entity Names") List<String> entityNames,
+        @RequestParam(value = "maxDepth", defaultValue = "2") @Parameter(description = "Maximum Depth") int maxDepth) {
+
+        logger.info("Received subgraph request, entities: {}, max depth: {}", entityNames, maxDepth);
+
+        try {
+            Map<String, Object> subgraph = traversal.extractSubgraph(entityNames, maxDepth);
+            return ResponseEntity.ok(ApiResponse.success(subgraph));
+
+        } catch (Exception e) {
+            logger.error("Failed to extract subgraph", e);
+            return ResponseEntity.ok(ApiResponse.error("Failed to extract subgraph: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Beam Traversal from Entity with Fanout and Visit Budget Caps
+     */
+    @GetMapping("/entities/{entityName}/traverse")
+    @Operation(summary = "Beam Traversal", description = "Traverse from Entity with Bounded Beam Width, Fanout and Visited Budget")
+    public ResponseEntity<ApiResponse<GraphTraversalAlgorithm.BeamTraversalResult>> beamTraversal(
+        @PathVariable("entityName") @Parameter(description = "Entity Name") String entityName,
+        @RequestParam(value = "maxHops", defaultValue = "2") @Parameter(description = "Maximum Hops") int maxHops,
+        @RequestParam(value = "relationshipTypes", required = false) @Parameter(description = "Relationship Types") List<String> relationshipTypes,
+        @RequestParam(value = "beamWidth", required = false) @Parameter(description = "Nodes Kept per Hop") Integer beamWidth,
+        @RequestParam(value = "maxFanout", required = false) @Parameter(description = "Edges Expanded per Node") Integer maxFanout,
+        @RequestParam(value = "maxVisited", required = false) @Parameter(description = "Total Visited Node Budget") Integer maxVisited) {
+
+        logger.info("Received beam traversal request, entity: {}, max hops: {}", entityName, maxHops);
+
+        try {
+            GraphRagProperties.Traversal defaults = properties.getTraversal();
+            GraphTraversalAlgorithm.BeamTraversalResult result = traversal.beamTraversal(
+                    entityName,
+                    relationshipTypes != null ? relationshipTypes : List.of(),
+                    maxHops,
+                    beamWidth != null ? beamWidth : defaults.getBeamWidth(),
+                    maxFanout != null ? maxFanout : defaults.getMaxFanout(),
+                    maxVisited != null ? maxVisited : defaults.getMaxVisited());
+
+            return ResponseEntity.ok(ApiResponse.success(result));
+
+        } catch (Exception e) {
+            logger.error("Failed to run beam traversal", e);
+            return ResponseEntity.ok(ApiResponse.error("Failed to run beam traversal: " + e.getMessage()));
+        }
+    }
 }
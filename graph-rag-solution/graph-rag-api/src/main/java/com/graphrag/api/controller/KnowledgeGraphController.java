@@ -1,7 +1,14 @@
 package com.graphrag.api.controller;
 
+import com.graphrag.core.service.BulkGraphBuildService;
+import com.graphrag.core.service.DirectoryCrawlerService;
 import com.graphrag.core.service.EnhancedKnowledgeGraphService;
+import com.graphrag.core.service.EntityResolutionService;
+import com.graphrag.core.service.IngestionJobService;
+import com.graphrag.core.service.IngestionPipelineService;
 import com.graphrag.core.service.KnowledgeGraphService;
+import com.graphrag.core.service.LlmGateway;
+import com.graphrag.core.service.NearDuplicateService;
 import com.graphrag.data.entity.DocumentNode;
 import com.graphrag.data.service.DocumentService;
 import com.graphrag.data.service.GraphService;
@@ -13,10 +20,13 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
@@ -43,6 +53,27 @@ public class KnowledgeGraphController {
     @Autowired
     private GraphService graphService;
 
+    @Autowired
+    private IngestionPipelineService ingestionPipeline;
+
+    @Autowired
+    private IngestionJobService ingestionJobService;
+
+    @Autowired
+    private LlmGateway llmGateway;
+
+    @Autowired
+    private EntityResolutionService entityResolutionService;
+
+    @Autowired
+    private DirectoryCrawlerService directoryCrawlerService;
+
+    @Autowired
+    private NearDuplicateService nearDuplicateService;
+
+    @Autowired
+    private BulkGraphBuildService bulkGraphBuildService;
+
     /**
      * Build knowledge graph from text (Enhanced version)
      */
@@ -62,20 +93,17 @@ public class KnowledgeGraphController {
             }
             Document document = Document.from(request.getText(), metadata);
 
-            // Build knowledge graph asynchronously
-            CompletableFuture<DocumentNode> future = enhancedKnowledgeGraphService.buildEnhancedKnowledgeGraph(document);
-            DocumentNode documentNode = future.get(); // Can be changed to async processing
-
-            // Get build statistics
-            Map<String, Object> stats = graphService.getDatabaseStats();
+            // Queue a durable job; progress is reported by the job status endpoint
+            String jobId = ingestionJobService.submit(
+                    List.of(IngestionJobService.JobDocument.from(request.getSource(), document)),
+                    IngestionJobService.MODE_ENHANCED, request.getPriority() != null ? request.getPriority() : 0);
 
             // Build response
             Map<String, Object> response = new HashMap<>();
-            response.put("status", "success");
-            response.put("message", "Enhanced knowledge graph build completed");
-            response.put("document_id", documentNode.getId());
-            response.put("document_title", documentNode.getTitle());
-            response.put("stats", stats);
+            response.put("status", "accepted");
+            response.put("message", "Enhanced knowledge graph build queued");
+            response.put("job_id", jobId);
+            response.put("job_status_url", "/documents/jobs/" + jobId);
             response.put("enhanced_features", Map.of(
                 "entity_validation", "enabled",
                 "relationship_confidence", "enabled",
@@ -83,7 +111,7 @@ public class KnowledgeGraphController {
                 "vector_embedding", "enabled"
             ));
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.accepted().body(response);
 
         } catch (Exception e) {
             logger.error("Enhanced knowledge graph build failed", e);
@@ -114,7 +142,7 @@ public class KnowledgeGraphController {
             Document document = Document.from(request.getText(), metadata);
 
             // Build knowledge graph
-            knowledgeGraphService.buildKnowledgeGraphFromDocument(document);
+            IngestionPipelineService.IngestionResult result = ingestionPipeline.submit(document).join();
 
             // Get build statistics
             Map<String, Object> stats = graphService.getDatabaseStats();
@@ -123,6 +151,9 @@ public class KnowledgeGraphController {
             Map<String, Object> response = new HashMap<>();
             response.put("status", "success");
             response.put("message", "Standard knowledge graph build completed");
+            response.put("document_id", result.getDocumentId());
+            response.put("document_title", result.getDocumentTitle());
+            response.put("ingestion", result);
             response.put("stats", stats);
 
             return ResponseEntity.ok(response);
@@ -161,6 +192,213 @@ public class KnowledgeGraphController {
         }
     }
 
+    /**
+     * Get ingestion pipeline metrics
+     */
+    @GetMapping("/pipeline/metrics")
+    @Operation(summary = "Get Ingestion Pipeline Metrics",
+               description = "View per-stage throughput, batch and queue statistics of the ingestion pipeline")
+    public ResponseEntity<Map<String, Object>> getPipelineMetrics() {
+        try {
+            List<Map<String, Object>> stages = ingestionPipeline.getStageMetrics();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "success");
+            response.put("stages", stages);
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("Failed to get pipeline metrics", e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("status", "error");
+            errorResponse.put("message", "Failed to get pipeline metrics: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(errorResponse);
+        }
+    }
+
+    /**
+     * Crawl a server-side directory and queue new or changed files for ingestion
+     */
+    @PostMapping("/crawl")
+    @Operation(summary = "Crawl Directory",
+               description = "Walk a directory, skip files unchanged since the last crawl and queue the rest as ingestion jobs")
+    public ResponseEntity<Map<String, Object>> crawlDirectory(
+            @RequestBody @Parameter(description = "Crawl Request") CrawlRequest request) {
+
+        logger.info("Received directory crawl request: {}", request.getDirectory());
+
+        try {
+            String mode = request.getMode() != null ? request.getMode() : IngestionJobService.MODE_ENHANCED;
+            DirectoryCrawlerService.CrawlResult result = directoryCrawlerService.crawlIntoJobs(
+                    Path.of(request.getDirectory()), mode, request.getPriority() != null ? request.getPriority() : 0);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "accepted");
+            response.put("message", "Directory crawled, changed files queued");
+            response.put("scanned", result.getScanned());
+            response.put("unchanged", result.getUnchanged());
+            response.put("filtered", result.getFiltered());
+            response.put("queued", result.getIngested());
+            response.put("failed", result.getFailed());
+            response.put("deleted", result.getDeleted());
+            response.put("job_ids", result.getJobIds());
+            response.put("elapsed_millis", result.getElapsedMillis());
+
+            return ResponseEntity.accepted().body(response);
+
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("status", "error");
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        } catch (Exception e) {
+            logger.error("Directory crawl failed", e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("status", "error");
+            errorResponse.put("message", "Directory crawl failed: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(errorResponse);
+        }
+    }
+
+    /**
+     * Run an entity resolution sweep
+     */
+    @PostMapping("/entities/resolve")
+    @Operation(summary = "Resolve Duplicate Entities",
+               description = "Match existing entities by alias, name shingles and embeddings, and merge duplicates")
+    public ResponseEntity<Map<String, Object>> resolveEntities() {
+        try {
+            EntityResolutionService.SweepResult result = entityResolutionService.sweep();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", result.isRan() ? "success" : "skipped");
+            response.put("message", result.isRan() ? "Entity resolution sweep completed" : "A sweep is already running");
+            response.put("scanned", result.getScanned());
+            response.put("candidate_pairs", result.getCandidatePairs());
+            response.put("merged", result.getMerged());
+            response.put("elapsed_millis", result.getElapsedMillis());
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("Entity resolution sweep failed", e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("status", "error");
+            errorResponse.put("message", "Entity resolution sweep failed: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(errorResponse);
+        }
+    }
+
+    /**
+     * Start a bulk build of the configured source directory into an empty graph
+     */
+    @PostMapping("/bulk-import")
+    @Operation(summary = "Start Bulk Graph Build",
+               description = "Extract every file under graph-rag.bulk-import.source-directory into bulk-import CSV, "
+                       + "then load it with LOAD CSV or return the neo4j-admin import command")
+    public ResponseEntity<Map<String, Object>> startBulkImport(
+            @RequestBody(required = false) @Parameter(description = "Bulk Import Request") BulkImportRequest request) {
+
+        boolean load = request == null || request.getLoad() == null || request.getLoad();
+        logger.info("Received bulk graph build request, load: {}", load);
+
+        try {
+            bulkGraphBuildService.start(load);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "accepted");
+            response.put("message", "Bulk graph build started");
+            response.put("status_url", "/api/knowledge-graph/bulk-import");
+            return ResponseEntity.accepted().body(response);
+
+        } catch (IllegalStateException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("status", "error");
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+        }
+    }
+
+    /**
+     * Status of the running or most recent bulk build
+     */
+    @GetMapping("/bulk-import")
+    @Operation(summary = "Get Bulk Graph Build Status",
+               description = "View whether a bulk build is running and the outcome of the last one")
+    public ResponseEntity<Map<String, Object>> getBulkImportStatus() {
+        Map<String, Object> response = new HashMap<>();
+        CompletableFuture<BulkGraphBuildService.BuildResult> build = bulkGraphBuildService.getCurrent().orElse(null);
+        if (build == null) {
+            response.put("status", "idle");
+        } else if (!build.isDone()) {
+            response.put("status", "running");
+        } else if (build.isCompletedExceptionally()) {
+            response.put("status", "failed");
+            build.exceptionally(e -> {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                response.put("message", cause.getMessage());
+                return null;
+            });
+        } else {
+            BulkGraphBuildService.BuildResult result = build.join();
+            response.put("status", "completed");
+            response.put("source", result.getSource());
+            response.put("documents", result.getDocuments());
+            response.put("skipped", result.getSkipped());
+            response.put("failed", result.getFailed());
+            response.put("row_counts", result.getRowCounts());
+            response.put("load_stats", result.getLoadStats());
+            response.put("admin_import_command", result.getAdminImportCommand());
+            response.put("elapsed_millis", result.getElapsedMillis());
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Get LLM gateway metrics
+     */
+    @GetMapping("/llm/metrics")
+    @Operation(summary = "Get LLM Gateway Metrics",
+               description = "View the adaptive concurrency limit and per-lane queue wait versus model time")
+    public ResponseEntity<Map<String, Object>> getLlmMetrics() {
+        try {
+            Map<String, Object> response = new HashMap<>(llmGateway.getMetrics());
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("Failed to get LLM gateway metrics", e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("status", "error");
+            errorResponse.put("message", "Failed to get LLM gateway metrics: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(errorResponse);
+        }
+    }
+
+    /**
+     * Get near-duplicate detection metrics
+     */
+    @GetMapping("/dedup/metrics")
+    @Operation(summary = "Get Near-Duplicate Metrics",
+               description = "View how many chunks and documents were near duplicates and how many LLM extraction calls that saved")
+    public ResponseEntity<Map<String, Object>> getDeduplicationMetrics() {
+        try {
+            Map<String, Object> response = new HashMap<>(nearDuplicateService.getMetrics());
+            response.put("status", "success");
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("Failed to get near-duplicate metrics", e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("status", "error");
+            errorResponse.put("message", "Failed to get near-duplicate metrics: " + e.getMessage());
+            return ResponseEntity.internalServerError().body(errorResponse);
+        }
+    }
+
     /**
      * Initialize knowledge graph database
      */
@@ -237,6 +475,7 @@ public class KnowledgeGraphController {
         private String text;
         private String source;
         private Map<String, String> metadata;
+        private Integer priority;
 
         // Getters and Setters
         public String getText() { return text; }
@@ -247,6 +486,39 @@ public class KnowledgeGraphController {
 
         public Map<String, String> getMetadata() { return metadata; }
         public void setMetadata(Map<String, String> metadata) { this.metadata = metadata; }
+
+        public Integer getPriority() { return priority; }
+        public void setPriority(Integer priority) { this.priority = priority; }
+    }
+
+    /**
+     * Directory Crawl Request Class
+     */
+    public static class CrawlRequest {
+        private String directory;
+        private String mode;
+        private Integer priority;
+
+        // Getters and Setters
+        public String getDirectory() { return directory; }
+        public void setDirectory(String directory) { this.directory = directory; }
+
+        public String getMode() { return mode; }
+        public void setMode(String mode) { this.mode = mode; }
+
+        public Integer getPriority() { return priority; }
+        public void setPriority(Integer priority) { this.priority = priority; }
+    }
+
+    /**
+     * Bulk Import Request Class
+     */
+    public static class BulkImportRequest {
+        private Boolean load;
+
+        // Getters and Setters
+        public Boolean getLoad() { return load; }
+        public void setLoad(Boolean load) { this.load = load; }
     }
 
     /**
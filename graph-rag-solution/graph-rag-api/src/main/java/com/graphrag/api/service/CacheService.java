@@ -1,16 +1,30 @@
 package com.graphrag.api.service;
 
+import com.graphrag.core.algorithm.GraphTraversalAlgorithm;
 import com.graphrag.core.model.GraphRagRequest;
 import com.graphrag.core.model.GraphRagResponse;
+import com.graphrag.core.service.EmbeddingService;
 import com.graphrag.core.service.GraphRagRetrievalService;
+import com.graphrag.core.service.KnowledgeGraphService;
+import com.graphrag.data.entity.DocumentNode;
+import com.graphrag.data.entity.EntityNode;
+import com.graphrag.data.service.DocumentService;
+import com.graphrag.data.service.EntityService;
+import com.graphrag.data.service.GraphService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Cache Service
@@ -20,16 +34,42 @@ public class CacheService {
 
     private static final Logger logger = LoggerFactory.getLogger(CacheService.class);
 
+    /** Caches whose contents depend on the graph and are keyed by graph version */
+    private static final List<String> GRAPH_VERSIONED_CACHES = List.of(
+            "queryResults", "documentEmbeddings", "entityEmbeddings", "graphTraversalResults");
+
     @Autowired
     private GraphRagRetrievalService retrievalService;
 
+    @Autowired
+    private GraphTraversalAlgorithm traversal;
+
+    @Autowired
+    private EmbeddingService embeddingService;
+
+    @Autowired
+    private DocumentService documentService;
+
+    @Autowired
+    private EntityService entityService;
+
+    @Autowired
+    private GraphService graphService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private final AtomicLong observedGraphVersion = new AtomicLong(-1);
+
     /**
      * Cache query results
      */
-    @Cacheable(value = "queryResults", key = "#request.question + '_' + #request.retrievalMode")
+    @Cacheable(value = "queryResults",
+            key = "#request.question + '_' + #request.retrievalMode + '_' + #root.target.currentGraphVersion()")
     public GraphRagResponse getCachedQueryResult(GraphRagRequest request) {
         logger.debug("Cache miss, executing query: {}", request.getQuestion());
-        
+        evictOlderVersions();
+
         if ("hybrid".equals(request.getRetrievalMode())) {
             return retrievalService.hybridRetrieve(request);
         } else {
@@ -58,33 +98,83 @@ public class CacheService {
         return CompletableFuture.completedFuture(null);
     }
 
+    /**
+     * Current graph version used in graph-dependent cache keys
+     */
+    public long currentGraphVersion() {
+        return graphService.getGraphVersion();
+    }
+
+    /**
+     * Cache graph traversal results
+     */
+    @Cacheable(value = "graphTraversalResults",
+            key = "#entityName + '_' + #maxHops + '_' + #maxResults + '_' + #root.target.currentGraphVersion()")
+    public List<Map<String, Object>> getCachedGraphTraversal(String entityName, int maxHops, int maxResults) {
+        logger.debug("Cache miss, executing graph traversal: {}, max hops: {}", entityName, maxHops);
+        evictOlderVersions();
+        return traversal.multiHopEntityRetrieval(entityName, maxHops, maxResults);
+    }
+
     /**
      * Cache document embedding vectors
      */
-    @Cacheable(value = "documentEmbeddings", key = "#documentId")
-    public java.util.List<Double> getCachedDocumentEmbedding(Long documentId) {
-        // Should call actual embedding generation service
-        logger.debug("Generating document embedding vector: {}", documentId);
-        return null; // Should return embedding vector in actual implementation
+    @Cacheable(value = "documentEmbeddings", key = "#documentId + '_' + #root.target.currentGraphVersion()",
+            unless = "#result == null")
+    public List<Double> getCachedDocumentEmbedding(Long documentId) {
+        logger.debug("Cache miss, loading document embedding vector: {}", documentId);
+        evictOlderVersions();
+
+        Optional<DocumentNode> document = documentService.findById(documentId);
+        if (document.isEmpty()) {
+            return null;
+        }
+
+        DocumentNode documentNode = document.get();
+        if (documentNode.getEmbedding() != null && !documentNode.getEmbedding().isEmpty()) {
+            return documentNode.getEmbedding();
+        }
+        String content = documentNode.getContent() != null ? documentNode.getContent() : "";
+        return embeddingService.embedText(KnowledgeGraphService.documentEmbeddingText(documentNode.getTitle(), content));
     }
 
     /**
      * Cache entity embedding vectors
      */
-    @Cacheable(value = "entityEmbeddings", key = "#entityId")
-    public java.util.List<Double> getCachedEntityEmbedding(Long entityId) {
-        // Should call actual embedding generation service
-        logger.debug("Generating entity embedding vector: {}", entityId);
-        return null; // Should return embedding vector in actual implementation
+    @Cacheable(value = "entityEmbeddings", key = "#entityId + '_' + #root.target.currentGraphVersion()",
+            unless = "#result == null")
+    public List<Double> getCachedEntityEmbedding(Long entityId) {
+        logger.debug("Cache miss, loading entity embedding vector: {}", entityId);
+        evictOlderVersions();
+
+        Optional<EntityNode> entity = entityService.findById(entityId);
+        if (entity.isEmpty()) {
+            return null;
+        }
+
+        EntityNode entityNode = entity.get();
+        if (entityNode.getEmbedding() != null && !entityNode.getEmbedding().isEmpty()) {
+            return entityNode.getEmbedding();
+        }
+        return embeddingService.embedText(
+                KnowledgeGraphService.entityEmbeddingText(entityNode.getName(), entityNode.getDescription()));
     }
 
     /**
-     * Cache graph traversal results
+     * Entries from older graph versions can never be hit again, so the first miss after a version change clears
+     * the graph-dependent caches; otherwise entries are evicted only by the caches' size bound
      */
-    @Cacheable(value = "graphTraversalResults", key = "#entityName + '_' + #maxHops")
-    public java.util.List<java.util.Map<String, Object>> getCachedGraphTraversal(String entityName, int maxHops) {
-        // Should call actual graph traversal service
-        logger.debug("Executing graph traversal: {}, max hops: {}", entityName, maxHops);
-        return null; // Should return traversal results in actual implementation
+    private void evictOlderVersions() {
+        long version = graphService.getGraphVersion();
+        long previous = observedGraphVersion.getAndSet(version);
+        if (previous != version) {
+            logger.debug("Graph version changed {} -> {}, evicting graph-dependent caches", previous, version);
+            for (String cacheName : GRAPH_VERSIONED_CACHES) {
+                Cache cache = cacheManager.getCache(cacheName);
+                if (cache != null) {
+                    cache.clear();
+                }
+            }
+        }
     }
 }
@@ -3,6 +3,9 @@ package com.graphrag.common.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 应用配置属性
  */
@@ -12,13 +15,25 @@ public class GraphRagProperties {
 
     private Neo4j neo4j = new Neo4j();
     private Llm llm = new Llm();
+    private LlmGateway llmGateway = new LlmGateway();
     private Embedding embedding = new Embedding();
+    private Traversal traversal = new Traversal();
+    private Ingestion ingestion = new Ingestion();
+    private Retrieval retrieval = new Retrieval();
+    private BulkImport bulkImport = new BulkImport();
+    private EntityResolution entityResolution = new EntityResolution();
+    private Crawler crawler = new Crawler();
+    private Chunking chunking = new Chunking();
+    private Deduplication deduplication = new Deduplication();
+    private QueryUnderstanding queryUnderstanding = new QueryUnderstanding();
+    private ResultCache resultCache = new ResultCache();
 
     public static class Neo4j {
         private String uri = "bolt://localhost:7687";
         private String username = "neo4j";
         private String password = "password";
         private String database = "neo4j";
+        private Integer writeBatchSize = 500;
 
         // Getters and Setters
         public String getUri() { return uri; }
@@ -32,6 +47,9 @@ public class GraphRagProperties {
         
         public String getDatabase() { return database; }
         public void setDatabase(String database) { this.database = database; }
+        
+        public Integer getWriteBatchSize() { return writeBatchSize; }
+        public void setWriteBatchSize(Integer writeBatchSize) { this.writeBatchSize = writeBatchSize; }
     }
 
     public static class Llm {
@@ -62,6 +80,50 @@ public class GraphRagProperties {
         public void setMaxTokens(Integer maxTokens) { this.maxTokens = maxTokens; }
     }
 
+    public static class LlmGateway {
+        private Integer initialConcurrency = 4;
+        private Integer minConcurrency = 1;
+        private Integer maxConcurrency = 16;
+        private Long latencyTargetMillis = 15000L;
+        private Double decreaseFactor = 0.7;
+        private Integer interactiveQueueLimit = 64;
+        private Integer backgroundQueueLimit = 1024;
+        private Long interactiveTimeoutMillis = 30000L;
+        private Long backgroundTimeoutMillis = 600000L;
+        private Integer interactiveShare = 4;
+
+        // Getters and Setters
+        public Integer getInitialConcurrency() { return initialConcurrency; }
+        public void setInitialConcurrency(Integer initialConcurrency) { this.initialConcurrency = initialConcurrency; }
+        
+        public Integer getMinConcurrency() { return minConcurrency; }
+        public void setMinConcurrency(Integer minConcurrency) { this.minConcurrency = minConcurrency; }
+        
+        public Integer getMaxConcurrency() { return maxConcurrency; }
+        public void setMaxConcurrency(Integer maxConcurrency) { this.maxConcurrency = maxConcurrency; }
+        
+        public Long getLatencyTargetMillis() { return latencyTargetMillis; }
+        public void setLatencyTargetMillis(Long latencyTargetMillis) { this.latencyTargetMillis = latencyTargetMillis; }
+        
+        public Double getDecreaseFactor() { return decreaseFactor; }
+        public void setDecreaseFactor(Double decreaseFactor) { this.decreaseFactor = decreaseFactor; }
+        
+        public Integer getInteractiveQueueLimit() { return interactiveQueueLimit; }
+        public void setInteractiveQueueLimit(Integer interactiveQueueLimit) { this.interactiveQueueLimit = interactiveQueueLimit; }
+        
+        public Integer getBackgroundQueueLimit() { return backgroundQueueLimit; }
+        public void setBackgroundQueueLimit(Integer backgroundQueueLimit) { this.backgroundQueueLimit = backgroundQueueLimit; }
+        
+        public Long getInteractiveTimeoutMillis() { return interactiveTimeoutMillis; }
+        public void setInteractiveTimeoutMillis(Long interactiveTimeoutMillis) { this.interactiveTimeoutMillis = interactiveTimeoutMillis; }
+        
+        public Long getBackgroundTimeoutMillis() { return backgroundTimeoutMillis; }
+        public void setBackgroundTimeoutMillis(Long backgroundTimeoutMillis) { this.backgroundTimeoutMillis = backgroundTimeoutMillis; }
+        
+        public Integer getInteractiveShare() { return interactiveShare; }
+        public void setInteractiveShare(Integer interactiveShare) { this.interactiveShare = interactiveShare; }
+    }
+
     public static class Embedding {
         private String provider = "openai";
         private String model = "text-embedding-ada-002";
@@ -78,6 +140,338 @@ public class GraphRagProperties {
         public void setDimensions(Integer dimensions) { this.dimensions = dimensions; }
     }
 
+    public static class Traversal {
+        private Integer subgraphNodeLimit = 200;
+        private Integer subgraphEdgeLimit = 500;
+        private Integer subgraphCacheSize = 256;
+        private Integer beamWidth = 20;
+        private Integer maxFanout = 25;
+        private Integer maxVisited = 500;
+
+        // Getters and Setters
+        public Integer getSubgraphNodeLimit() { return subgraphNodeLimit; }
+        public void setSubgraphNodeLimit(Integer subgraphNodeLimit) { this.subgraphNodeLimit = subgraphNodeLimit; }
+        
+        public Integer getSubgraphEdgeLimit() { return subgraphEdgeLimit; }
+        public void setSubgraphEdgeLimit(Integer subgraphEdgeLimit) { this.subgraphEdgeLimit = subgraphEdgeLimit; }
+        
+        public Integer getSubgraphCacheSize() { return subgraphCacheSize; }
+        public void setSubgraphCacheSize(Integer subgraphCacheSize) { this.subgraphCacheSize = subgraphCacheSize; }
+        
+        public Integer getBeamWidth() { return beamWidth; }
+        public void setBeamWidth(Integer beamWidth) { this.beamWidth = beamWidth; }
+        
+        public Integer getMaxFanout() { return maxFanout; }
+        public void setMaxFanout(Integer maxFanout) { this.maxFanout = maxFanout; }
+        
+        public Integer getMaxVisited() { return maxVisited; }
+        public void setMaxVisited(Integer maxVisited) { this.maxVisited = maxVisited; }
+    }
+
+    public static class Ingestion {
+        private Integer loadParallelism = 2;
+        private Integer splitParallelism = 2;
+        private Integer extractParallelism = 8;
+        private Integer embedParallelism = 2;
+        private Integer resolveParallelism = 2;
+        private Integer writeParallelism = 1;
+        private Integer queueCapacity = 256;
+        private Integer embedBatchSize = 64;
+        private Integer writeBatchSize = 4;
+        private Integer validationBatchSize = 20;
+        private Integer validationCacheSize = 10000;
+        private String jobJournalPath = "data/ingestion-jobs.journal";
+        private Integer jobWorkers = 2;
+        private Integer jobDocumentWindow = 4;
+        private Integer finishedJobRetention = 1000;
+        private Integer journalCompactionEvents = 10000;
+        private Long streamingThresholdBytes = 16777216L;
+
+        // Getters and Setters
+        public Integer getLoadParallelism() { return loadParallelism; }
+        public void setLoadParallelism(Integer loadParallelism) { this.loadParallelism = loadParallelism; }
+        
+        public Integer getSplitParallelism() { return splitParallelism; }
+        public void setSplitParallelism(Integer splitParallelism) { this.splitParallelism = splitParallelism; }
+        
+        public Integer getExtractParallelism() { return extractParallelism; }
+        public void setExtractParallelism(Integer extractParallelism) { this.extractParallelism = extractParallelism; }
+        
+        public Integer getEmbedParallelism() { return embedParallelism; }
+        public void setEmbedParallelism(Integer embedParallelism) { this.embedParallelism = embedParallelism; }
+        
+        public Integer getResolveParallelism() { return resolveParallelism; }
+        public void setResolveParallelism(Integer resolveParallelism) { this.resolveParallelism = resolveParallelism; }
+        
+        public Integer getWriteParallelism() { return writeParallelism; }
+        public void setWriteParallelism(Integer writeParallelism) { this.writeParallelism = writeParallelism; }
+        
+        public Integer getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(Integer queueCapacity) { this.queueCapacity = queueCapacity; }
+        
+        public Integer getEmbedBatchSize() { return embedBatchSize; }
+        public void setEmbedBatchSize(Integer embedBatchSize) { this.embedBatchSize = embedBatchSize; }
+        
+        public Integer getWriteBatchSize() { return writeBatchSize; }
+        public void setWriteBatchSize(Integer writeBatchSize) { this.writeBatchSize = writeBatchSize; }
+        
+        public Integer getValidationBatchSize() { return validationBatchSize; }
+        public void setValidationBatchSize(Integer validationBatchSize) { this.validationBatchSize = validationBatchSize; }
+        
+        public Integer getValidationCacheSize() { return validationCacheSize; }
+        public void setValidationCacheSize(Integer validationCacheSize) { this.validationCacheSize = validationCacheSize; }
+        
+        public String getJobJournalPath() { return jobJournalPath; }
+        public void setJobJournalPath(String jobJournalPath) { this.jobJournalPath = jobJournalPath; }
+        
+        public Integer getJobWorkers() { return jobWorkers; }
+        public void setJobWorkers(Integer jobWorkers) { this.jobWorkers = jobWorkers; }
+        
+        public Integer getJobDocumentWindow() { return jobDocumentWindow; }
+        public void setJobDocumentWindow(Integer jobDocumentWindow) { this.jobDocumentWindow = jobDocumentWindow; }
+        
+        public Integer getFinishedJobRetention() { return finishedJobRetention; }
+        public void setFinishedJobRetention(Integer finishedJobRetention) { this.finishedJobRetention = finishedJobRetention; }
+        
+        public Integer getJournalCompactionEvents() { return journalCompactionEvents; }
+        public void setJournalCompactionEvents(Integer journalCompactionEvents) { this.journalCompactionEvents = journalCompactionEvents; }
+        
+        public Long getStreamingThresholdBytes() { return streamingThresholdBytes; }
+        public void setStreamingThresholdBytes(Long streamingThresholdBytes) { this.streamingThresholdBytes = streamingThresholdBytes; }
+    }
+
+    public static class Retrieval {
+        private Integer chunkLimit = 8;
+        private Double chunkThreshold = 0.0;
+        private Boolean parallelStages = true;
+        private Integer stageParallelism = 16;
+        private Integer stageMaxThreads = 256;
+        private Long stageTimeoutMillis = 30000L;
+        private Integer contextTokenBudget = 3000;
+        private Double contextDiversityPenalty = 0.5;
+
+        // Getters and Setters
+        public Integer getChunkLimit() { return chunkLimit; }
+        public void setChunkLimit(Integer chunkLimit) { this.chunkLimit = chunkLimit; }
+        
+        public Double getChunkThreshold() { return chunkThreshold; }
+        public void setChunkThreshold(Double chunkThreshold) { this.chunkThreshold = chunkThreshold; }
+        
+        public Boolean getParallelStages() { return parallelStages; }
+        public void setParallelStages(Boolean parallelStages) { this.parallelStages = parallelStages; }
+        
+        public Integer getStageParallelism() { return stageParallelism; }
+        public void setStageParallelism(Integer stageParallelism) { this.stageParallelism = stageParallelism; }
+        
+        public Integer getStageMaxThreads() { return stageMaxThreads; }
+        public void setStageMaxThreads(Integer stageMaxThreads) { this.stageMaxThreads = stageMaxThreads; }
+        
+        public Long getStageTimeoutMillis() { return stageTimeoutMillis; }
+        public void setStageTimeoutMillis(Long stageTimeoutMillis) { this.stageTimeoutMillis = stageTimeoutMillis; }
+        
+        public Integer getContextTokenBudget() { return contextTokenBudget; }
+        public void setContextTokenBudget(Integer contextTokenBudget) { this.contextTokenBudget = contextTokenBudget; }
+        
+        public Double getContextDiversityPenalty() { return contextDiversityPenalty; }
+        public void setContextDiversityPenalty(Double contextDiversityPenalty) { this.contextDiversityPenalty = contextDiversityPenalty; }
+    }
+
+    public static class BulkImport {
+        private String directory = "data/bulk-import";
+        private String loadUrl = "file:///";
+        private Integer transactionRows = 10000;
+        private Boolean deferSchema = false;
+        private String sourceDirectory = "data/bulk-source";
+
+        // Getters and Setters
+        public String getDirectory() { return directory; }
+        public void setDirectory(String directory) { this.directory = directory; }
+        
+        public String getLoadUrl() { return loadUrl; }
+        public void setLoadUrl(String loadUrl) { this.loadUrl = loadUrl; }
+        
+        public Integer getTransactionRows() { return transactionRows; }
+        public void setTransactionRows(Integer transactionRows) { this.transactionRows = transactionRows; }
+        
+        public Boolean getDeferSchema() { return deferSchema; }
+        public void setDeferSchema(Boolean deferSchema) { this.deferSchema = deferSchema; }
+        
+        public String getSourceDirectory() { return sourceDirectory; }
+        public void setSourceDirectory(String sourceDirectory) { this.sourceDirectory = sourceDirectory; }
+    }
+
+    public static class EntityResolution {
+        private Boolean enabled = true;
+        private Integer shingleSize = 3;
+        private Integer minHashPermutations = 64;
+        private Integer lshBands = 16;
+        private Double jaccardThreshold = 0.5;
+        private Double embeddingThreshold = 0.88;
+        private Integer sweepIntervalMinutes = 60;
+        private Integer sweepPageSize = 500;
+
+        // Getters and Setters
+        public Boolean getEnabled() { return enabled; }
+        public void setEnabled(Boolean enabled) { this.enabled = enabled; }
+        
+        public Integer getShingleSize() { return shingleSize; }
+        public void setShingleSize(Integer shingleSize) { this.shingleSize = shingleSize; }
+        
+        public Integer getMinHashPermutations() { return minHashPermutations; }
+        public void setMinHashPermutations(Integer minHashPermutations) { this.minHashPermutations = minHashPermutations; }
+        
+        public Integer getLshBands() { return lshBands; }
+        public void setLshBands(Integer lshBands) { this.lshBands = lshBands; }
+        
+        public Double getJaccardThreshold() { return jaccardThreshold; }
+        public void setJaccardThreshold(Double jaccardThreshold) { this.jaccardThreshold = jaccardThreshold; }
+        
+        public Double getEmbeddingThreshold() { return embeddingThreshold; }
+        public void setEmbeddingThreshold(Double embeddingThreshold) { this.embeddingThreshold = embeddingThreshold; }
+        
+        public Integer getSweepIntervalMinutes() { return sweepIntervalMinutes; }
+        public void setSweepIntervalMinutes(Integer sweepIntervalMinutes) { this.sweepIntervalMinutes = sweepIntervalMinutes; }
+        
+        public Integer getSweepPageSize() { return sweepPageSize; }
+        public void setSweepPageSize(Integer sweepPageSize) { this.sweepPageSize = sweepPageSize; }
+    }
+
+    public static class Crawler {
+        private Integer parallelism = 8;
+        private List<String> extensions = new ArrayList<>(List.of("txt", "md", "markdown", "pdf", "doc", "docx", "rtf", "odt", "html", "htm", "pptx", "xlsx", "csv", "json", "xml"));
+        private List<String> mimeTypes = new ArrayList<>();
+        private String manifestPath = "data/crawl-manifest.json";
+        private Integer jobBatchSize = 16;
+        private List<String> allowedRoots = new ArrayList<>();
+
+        // Getters and Setters
+        public Integer getParallelism() { return parallelism; }
+        public void setParallelism(Integer parallelism) { this.parallelism = parallelism; }
+        
+        public List<String> getExtensions() { return extensions; }
+        public void setExtensions(List<String> extensions) { this.extensions = extensions; }
+        
+        public List<String> getMimeTypes() { return mimeTypes; }
+        public void setMimeTypes(List<String> mimeTypes) { this.mimeTypes = mimeTypes; }
+        
+        public String getManifestPath() { return manifestPath; }
+        public void setManifestPath(String manifestPath) { this.manifestPath = manifestPath; }
+        
+        public Integer getJobBatchSize() { return jobBatchSize; }
+        public void setJobBatchSize(Integer jobBatchSize) { this.jobBatchSize = jobBatchSize; }
+        
+        public List<String> getAllowedRoots() { return allowedRoots; }
+        public void setAllowedRoots(List<String> allowedRoots) { this.allowedRoots = allowedRoots; }
+    }
+
+    public static class Chunking {
+        private Boolean tokenBudget = true;
+        private Integer targetTokens = 512;
+        private Integer overlapTokens = 64;
+        private String fallbackEncoding = "cl100k_base";
+        private Boolean semantic = false;
+        private Double semanticBreakpointPercentile = 10.0;
+        private Integer semanticMinTokens = 128;
+
+        // Getters and Setters
+        public Boolean getTokenBudget() { return tokenBudget; }
+        public void setTokenBudget(Boolean tokenBudget) { this.tokenBudget = tokenBudget; }
+        
+        public Integer getTargetTokens() { return targetTokens; }
+        public void setTargetTokens(Integer targetTokens) { this.targetTokens = targetTokens; }
+        
+        public Integer getOverlapTokens() { return overlapTokens; }
+        public void setOverlapTokens(Integer overlapTokens) { this.overlapTokens = overlapTokens; }
+        
+        public String getFallbackEncoding() { return fallbackEncoding; }
+        public void setFallbackEncoding(String fallbackEncoding) { this.fallbackEncoding = fallbackEncoding; }
+        
+        public Boolean getSemantic() { return semantic; }
+        public void setSemantic(Boolean semantic) { this.semantic = semantic; }
+        
+        public Double getSemanticBreakpointPercentile() { return semanticBreakpointPercentile; }
+        public void setSemanticBreakpointPercentile(Double semanticBreakpointPercentile) { this.semanticBreakpointPercentile = semanticBreakpointPercentile; }
+        
+        public Integer getSemanticMinTokens() { return semanticMinTokens; }
+        public void setSemanticMinTokens(Integer semanticMinTokens) { this.semanticMinTokens = semanticMinTokens; }
+    }
+
+    public static class Deduplication {
+        private Boolean enabled = true;
+        private String action = "link";
+        private Integer shingleSize = 5;
+        private Integer minHashPermutations = 64;
+        private Integer lshBands = 8;
+        private Double jaccardThreshold = 0.85;
+        private Integer simHashMaxDistance = 6;
+        private String indexPath = "data/near-duplicate-index.json";
+        private Integer flushIntervalSeconds = 30;
+
+        // Getters and Setters
+        public Boolean getEnabled() { return enabled; }
+        public void setEnabled(Boolean enabled) { this.enabled = enabled; }
+        
+        public String getAction() { return action; }
+        public void setAction(String action) { this.action = action; }
+        
+        public Integer getShingleSize() { return shingleSize; }
+        public void setShingleSize(Integer shingleSize) { this.shingleSize = shingleSize; }
+        
+        public Integer getMinHashPermutations() { return minHashPermutations; }
+        public void setMinHashPermutations(Integer minHashPermutations) { this.minHashPermutations = minHashPermutations; }
+        
+        public Integer getLshBands() { return lshBands; }
+        public void setLshBands(Integer lshBands) { this.lshBands = lshBands; }
+        
+        public Double getJaccardThreshold() { return jaccardThreshold; }
+        public void setJaccardThreshold(Double jaccardThreshold) { this.jaccardThreshold = jaccardThreshold; }
+        
+        public Integer getSimHashMaxDistance() { return simHashMaxDistance; }
+        public void setSimHashMaxDistance(Integer simHashMaxDistance) { this.simHashMaxDistance = simHashMaxDistance; }
+        
+        public String getIndexPath() { return indexPath; }
+        public void setIndexPath(String indexPath) { this.indexPath = indexPath; }
+        
+        public Integer getFlushIntervalSeconds() { return flushIntervalSeconds; }
+        public void setFlushIntervalSeconds(Integer flushIntervalSeconds) { this.flushIntervalSeconds = flushIntervalSeconds; }
+    }
+
+    public static class QueryUnderstanding {
+        private Boolean fastPathEnabled = true;
+        private Double fastPathConfidence = 0.75;
+        private Integer dictionaryRefreshMinutes = 10;
+        private Integer dictionaryPageSize = 5000;
+        private Integer analysisCacheSize = 10000;
+        private Integer analysisCacheTtlMinutes = 30;
+
+        // Getters and Setters
+        public Boolean getFastPathEnabled() { return fastPathEnabled; }
+        public void setFastPathEnabled(Boolean fastPathEnabled) { this.fastPathEnabled = fastPathEnabled; }
+        
+        public Double getFastPathConfidence() { return fastPathConfidence; }
+        public void setFastPathConfidence(Double fastPathConfidence) { this.fastPathConfidence = fastPathConfidence; }
+        
+        public Integer getDictionaryRefreshMinutes() { return dictionaryRefreshMinutes; }
+        public void setDictionaryRefreshMinutes(Integer dictionaryRefreshMinutes) { this.dictionaryRefreshMinutes = dictionaryRefreshMinutes; }
+        
+        public Integer getDictionaryPageSize() { return dictionaryPageSize; }
+        public void setDictionaryPageSize(Integer dictionaryPageSize) { this.dictionaryPageSize = dictionaryPageSize; }
+        
+        public Integer getAnalysisCacheSize() { return analysisCacheSize; }
+        public void setAnalysisCacheSize(Integer analysisCacheSize) { this.analysisCacheSize = analysisCacheSize; }
+        
+        public Integer getAnalysisCacheTtlMinutes() { return analysisCacheTtlMinutes; }
+        public void setAnalysisCacheTtlMinutes(Integer analysisCacheTtlMinutes) { this.analysisCacheTtlMinutes = analysisCacheTtlMinutes; }
+    }
+
+    public static class ResultCache {
+        private Integer maximumSize = 10000;
+
+        // Getters and Setters
+        public Integer getMaximumSize() { return maximumSize; }
+        public void setMaximumSize(Integer maximumSize) { this.maximumSize = maximumSize; }
+    }
+
     // Main class getters and setters
     public Neo4j getNeo4j() { return neo4j; }
     public void setNeo4j(Neo4j neo4j) { this.neo4j = neo4j; }
@@ -85,7 +479,39 @@ public class GraphRagProperties {
     public Llm getLlm() { return llm; }
     public void setLlm(Llm llm) { this.llm = llm; }
     
+    public LlmGateway getLlmGateway() { return llmGateway; }
+    public void setLlmGateway(LlmGateway llmGateway) { this.llmGateway = llmGateway; }
+    
     public Embedding getEmbedding() { return embedding; }
     public void setEmbedding(Embedding embedding) { this.embedding = embedding; }
+    
+    public Traversal getTraversal() { return traversal; }
+    public void setTraversal(Traversal traversal) { this.traversal = traversal; }
+    
+    public Ingestion getIngestion() { return ingestion; }
+    public void setIngestion(Ingestion ingestion) { this.ingestion = ingestion; }
+    
+    public Retrieval getRetrieval() { return retrieval; }
+    public void setRetrieval(Retrieval retrieval) { this.retrieval = retrieval; }
+    
+    public BulkImport getBulkImport() { return bulkImport; }
+    public void setBulkImport(BulkImport bulkImport) { this.bulkImport = bulkImport; }
+    
+    public EntityResolution getEntityResolution() { return entityResolution; }
+    public void setEntityResolution(EntityResolution entityResolution) { this.entityResolution = entityResolution; }
+    
+    public Crawler getCrawler() { return crawler; }
+    public void setCrawler(Crawler crawler) { this.crawler = crawler; }
+    
+    public Chunking getChunking() { return chunking; }
+    public void setChunking(Chunking chunking) { this.chunking = chunking; }
+    
+    public Deduplication getDeduplication() { return deduplication; }
+    public void setDeduplication(Deduplication deduplication) { this.deduplication = deduplication; }
+    
+    public QueryUnderstanding getQueryUnderstanding() { return queryUnderstanding; }
+    public void setQueryUnderstanding(QueryUnderstanding queryUnderstanding) { this.queryUnderstanding = queryUnderstanding; }
+    
+    public ResultCache getResultCache() { return resultCache; }
+    public void setResultCache(ResultCache resultCache) { this.resultCache = resultCache; }
 }
-
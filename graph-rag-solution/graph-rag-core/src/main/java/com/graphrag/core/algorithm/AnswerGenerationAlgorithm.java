@@ -2,15 +2,22 @@ package com.graphrag.core.algorithm;
 
 import com.graphrag.core.algorithm.ContextFusionAlgorithm.FusedContext;
 import com.graphrag.core.algorithm.QueryUnderstandingAlgorithm.QueryAnalysis;
-import dev.langchain4j.model.chat.ChatLanguageModel;
+import com.graphrag.core.service.LlmGateway;
+import com.graphrag.core.service.TokenTextSplitterService;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
 import dev.langchain4j.model.input.Prompt;
 import dev.langchain4j.model.input.PromptTemplate;
+import dev.langchain4j.model.output.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * Answer Generation Strategy Algorithm
@@ -21,7 +28,10 @@ public class AnswerGenerationAlgorithm {
     private static final Logger logger = LoggerFactory.getLogger(AnswerGenerationAlgorithm.class);
 
     @Autowired
-    private ChatLanguageModel chatLanguageModel;
+    private LlmGateway llmGateway;
+
+    @Autowired
+    private TokenTextSplitterService tokenTextSplitterService;
 
     // Prompt templates for different query types
     private static final PromptTemplate FACTUAL_TEMPLATE = PromptTemplate.from("""
@@ -96,17 +106,11 @@ public class AnswerGenerationAlgorithm {
         logger.debug("Start generating answer, query type: {}", queryAnalysis.getQueryType());
 
         try {
-            // Select appropriate template based on query type
-            PromptTemplate template = selectTemplate(queryAnalysis.getQueryType());
-            
-            // Build prompt
-            Prompt prompt = template.apply(Map.of(
-                    "question", question,
-                    "context", context.getContextText()
-            ));
+            // Build prompt from the template for the query type
+            Prompt prompt = buildPrompt(question, context, queryAnalysis);
 
             // Generate answer
-            String answer = chatLanguageModel.generate(prompt.text());
+            String answer = llmGateway.generate(prompt.text(), LlmGateway.Lane.INTERACTIVE);
             
             // Post-process answer
             answer = postProcessAnswer(answer, queryAnalysis);
@@ -120,6 +124,78 @@ public class AnswerGenerationAlgorithm {
         }
     }
 
+    /**
+     * Stream the answer, passing each token chunk to {@code onToken} as the model produces it. The future
+     * completes with the full post-processed answer. If generation fails before the first token, the fallback
+     * answer is sent as a single chunk instead.
+     */
+    public CompletableFuture<String> generateAnswerStream(String question, FusedContext context,
+                                                          QueryAnalysis queryAnalysis, Consumer<String> onToken) {
+        logger.debug("Start streaming answer, query type: {}", queryAnalysis.getQueryType());
+
+        CompletableFuture<String> result = new CompletableFuture<>();
+        AtomicBoolean started = new AtomicBoolean();
+        Consumer<Throwable> fail = error -> {
+            if (started.get()) {
+                logger.error("Answer streaming failed mid-answer", error);
+                result.completeExceptionally(error);
+            } else {
+                logger.error("Answer streaming failed", error);
+                String fallback = generateFallbackAnswer(question, context);
+                onToken.accept(fallback);
+                result.complete(fallback);
+            }
+        };
+
+        try {
+            Prompt prompt = buildPrompt(question, context, queryAnalysis);
+            llmGateway.stream(prompt.text(), LlmGateway.Lane.INTERACTIVE, new StreamingResponseHandler<AiMessage>() {
+                @Override
+                public void onNext(String token) {
+                    started.set(true);
+                    onToken.accept(token);
+                }
+
+                @Override
+                public void onComplete(Response<AiMessage> response) {
+                    try {
+                        String answer = postProcessAnswer(response.content().text(), queryAnalysis);
+                        logger.info("Answer streaming completed, length: {}", answer.length());
+                        result.complete(answer);
+                    } catch (Exception e) {
+                        fail.accept(e);
+                    }
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    fail.accept(error);
+                }
+            });
+        } catch (Exception e) {
+            fail.accept(e);
+        }
+        return result;
+    }
+
+    /**
+     * Size in tokens of the prompt {@link #generateAnswer} sends for this question and context
+     */
+    public int countPromptTokens(String question, FusedContext context, QueryAnalysis queryAnalysis) {
+        return tokenTextSplitterService.countTokens(buildPrompt(question, context, queryAnalysis).text());
+    }
+
+    /**
+     * Build the prompt from the template for the query type
+     */
+    private Prompt buildPrompt(String question, FusedContext context, QueryAnalysis queryAnalysis) {
+        PromptTemplate template = selectTemplate(queryAnalysis.getQueryType());
+        return template.apply(Map.of(
+                "question", question,
+                "context", context.getContextText()
+        ));
+    }
+
     /**
      * Select prompt template
      */
@@ -256,7 +332,7 @@ public class AnswerGenerationAlgorithm {
                     "history", conversationHistory != null ? conversationHistory : "None"
             ));
 
-            return chatLanguageModel.generate(prompt.text());
+            return llmGateway.generate(prompt.text(), LlmGateway.Lane.INTERACTIVE);
 
         } catch (Exception e) {
             logger.error("Conversational answer generation failed", e);
@@ -294,7 +370,7 @@ public class AnswerGenerationAlgorithm {
                     "context", context.getContextText()
             ));
 
-            return chatLanguageModel.generate(prompt.text());
+            return llmGateway.generate(prompt.text(), LlmGateway.Lane.INTERACTIVE);
 
         } catch (Exception e) {
             logger.error("Explanatory answer generation failed", e);
@@ -1,6 +1,10 @@
 package com.graphrag.core.algorithm;
 
+import com.graphrag.common.config.GraphRagProperties;
+import com.graphrag.core.service.DocumentChunkService.ChunkMatch;
 import com.graphrag.core.service.EmbeddingService;
+import com.graphrag.core.service.TokenTextSplitterService;
+import com.graphrag.core.utils.KeywordMatcher;
 import com.graphrag.data.entity.DocumentNode;
 import com.graphrag.data.entity.EntityNode;
 import org.slf4j.Logger;
@@ -9,10 +13,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
  * Context Fusion Algorithm
+ * Segments are packed into a token budget rather than fixed per-type counts, so prompt size (and with it answer
+ * latency and cost) stays bounded regardless of segment length.
  */
 @Component
 public class ContextFusionAlgorithm {
@@ -22,6 +29,19 @@ public class ContextFusionAlgorithm {
     @Autowired
     private EmbeddingService embeddingService;
 
+    @Autowired
+    private TokenTextSplitterService tokenTextSplitterService;
+
+    @Autowired
+    private GraphRagProperties properties;
+
+    // Layout cost of a section header line and of each "- " bullet line
+    private static final int SECTION_HEADER_TOKENS = 8;
+    private static final int LINE_OVERHEAD_TOKENS = 2;
+    // Floor so unscored segments can still fill leftover budget, after every scored one
+    private static final double MIN_SEGMENT_VALUE = 0.01;
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
     /**
      * Multi-source context fusion
      */
@@ -29,17 +49,44 @@ public class ContextFusionAlgorithm {
                                               List<EntityNode> entities, 
                                               List<Map<String, Object>> graphRelations,
                                               String query) {
-        logger.debug("Fusing multi-source context, documents: {}, entities: {}, relations: {}", 
-                documents.size(), entities.size(), graphRelations.size());
+        return fuseMultiSourceContext(documents, List.of(), entities, graphRelations, query);
+    }
+
+    /**
+     * Multi-source context fusion over retrieved chunks with the configured token budget
+     */
+    public FusedContext fuseMultiSourceContext(List<DocumentNode> documents,
+                                              List<ChunkMatch> chunks,
+                                              List<EntityNode> entities,
+                                              List<Map<String, Object>> graphRelations,
+                                              String query) {
+        return fuseMultiSourceContext(documents, chunks, entities, graphRelations, query,
+                properties.getRetrieval().getContextTokenBudget());
+    }
+
+    /**
+     * Multi-source context fusion over retrieved chunks; documents are only re-split when no chunks were found.
+     * The context holds at most {@code tokenBudget} tokens; a non-positive budget means no limit.
+     */
+    public FusedContext fuseMultiSourceContext(List<DocumentNode> documents,
+                                              List<ChunkMatch> chunks,
+                                              List<EntityNode> entities,
+                                              List<Map<String, Object>> graphRelations,
+                                              String query,
+                                              int tokenBudget) {
+        logger.debug("Fusing multi-source context, documents: {}, chunks: {}, entities: {}, relations: {}", 
+                documents.size(), chunks.size(), entities.size(), graphRelations.size());
 
         // 1. Process document context
-        List<ContextSegment> documentSegments = processDocumentContext(documents, query);
+        List<ContextSegment> documentSegments = chunks.isEmpty()
+                ? processDocumentContext(documents, query)
+                : processChunkContext(chunks);
 
         // 2. Process entity context
         List<ContextSegment> entitySegments = processEntityContext(entities, query);
 
         // 3. Process relation context
-        List<ContextSegment> relationSegments = processRelationContext(graphRelations, query);
+        List<ContextSegment> relationSegments = processRelationContext(graphRelations, KeywordMatcher.forQuery(query));
 
         // 4. Deduplicate and rank context
         List<ContextSegment> allSegments = new ArrayList<>();
@@ -50,8 +97,8 @@ public class ContextFusionAlgorithm {
         List<ContextSegment> deduplicatedSegments = deduplicateSegments(allSegments);
         List<ContextSegment> rankedSegments = rankSegments(deduplicatedSegments, query);
 
-        // 5. Build fused context
-        return buildFusedContext(rankedSegments, query);
+        // 5. Pack into the token budget and build fused context
+        return buildFusedContext(rankedSegments, query, tokenBudget);
     }
 
     /**
@@ -60,6 +107,7 @@ public class ContextFusionAlgorithm {
     private List<ContextSegment> processDocumentContext(List<DocumentNode> documents, String query) {
         List<ContextSegment> segments = new ArrayList<>();
         List<Double> queryVector = embeddingService.embedText(query);
+        KeywordMatcher queryMatcher = KeywordMatcher.forQuery(query);
 
         for (DocumentNode doc : documents) {
             if (doc.getEmbedding() == null) {
@@ -69,7 +117,7 @@ public class ContextFusionAlgorithm {
             double relevanceScore = embeddingService.cosineSimilarity(queryVector, doc.getEmbedding());
             
             // Extract key paragraphs
-            List<String> keyParagraphs = extractKeyParagraphs(doc.getContent(), query, 3);
+            List<String> keyParagraphs = extractKeyParagraphs(doc.getContent(), queryMatcher, 3);
             
             for (String paragraph : keyParagraphs) {
                 ContextSegment segment = new ContextSegment(
@@ -89,6 +137,31 @@ public class ContextFusionAlgorithm {
         return segments;
     }
 
+    /**
+     * Process chunk context, scored by the chunk's own similarity to the query
+     */
+    private List<ContextSegment> processChunkContext(List<ChunkMatch> chunks) {
+        List<ContextSegment> segments = new ArrayList<>();
+
+        for (ChunkMatch chunk : chunks) {
+            if (chunk.getText() == null || chunk.getText().isBlank()) {
+                continue;
+            }
+
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("documentId", chunk.getDocumentId());
+            metadata.put("title", chunk.getTitle());
+            metadata.put("source", chunk.getSource());
+            metadata.put("chunkIndex", chunk.getChunkIndex());
+            metadata.put("startOffset", chunk.getStartOffset());
+            metadata.put("endOffset", chunk.getEndOffset());
+
+            segments.add(new ContextSegment(chunk.getText(), "document", chunk.getScore(), metadata));
+        }
+
+        return segments;
+    }
+
     /**
      * Process entity context
      */
@@ -124,14 +197,14 @@ public class ContextFusionAlgorithm {
     /**
      * Process relation context
      */
-    private List<ContextSegment> processRelationContext(List<Map<String, Object>> relations, String query) {
+    private List<ContextSegment> processRelationContext(List<Map<String, Object>> relations, KeywordMatcher queryMatcher) {
         List<ContextSegment> segments = new ArrayList<>();
 
         for (Map<String, Object> relation : relations) {
             String contextText = buildRelationContextText(relation);
             
             // Simple keyword matching score
-            double relevanceScore = calculateKeywordRelevance(contextText, query);
+            double relevanceScore = calculateKeywordRelevance(contextText, queryMatcher);
             
             ContextSegment segment = new ContextSegment(
                     contextText,
@@ -146,31 +219,45 @@ public class ContextFusionAlgorithm {
     }
 
     /**
-     * Extract key paragraphs
+     * Extract key paragraphs: the blank-line separated paragraphs of more than 50 non-blank-edged characters,
+     * each scored once by query keyword occurrences, best first (ties keep document order)
      */
-    private List<String> extractKeyParagraphs(String content, String query, int maxParagraphs) {
-        String[] paragraphs = content.split("\n\n");
-        List<String> queryKeywords = Arrays.asList(query.toLowerCase().split("\\s+"));
-
-        return Arrays.stream(paragraphs)
-                .filter(p -> p.trim().length() > 50) // Filter too short paragraphs
-                .sorted((p1, p2) -> {
-                    int score1 = calculateParagraphScore(p1, queryKeywords);
-                    int score2 = calculateParagraphScore(p2, queryKeywords);
-                    return Integer.compare(score2, score1);
-                })
-                .limit(maxParagraphs)
-                .collect(Collectors.toList());
+    private List<String> extractKeyParagraphs(String content, KeywordMatcher queryMatcher, int maxParagraphs) {
+        List<int[]> paragraphs = new ArrayList<>();
+        int start = 0;
+        while (start <= content.length()) {
+            int end = content.indexOf("\n\n", start);
+            if (end < 0) {
+                end = content.length();
+            }
+            // Trimmed bounds, so the length filter matches trim() without copying
+            int from = start;
+            int to = end;
+            while (from < to && content.charAt(from) <= ' ') {
+                from++;
+            }
+            while (to > from && content.charAt(to - 1) <= ' ') {
+                to--;
+            }
+            if (to - from > 50) { // Filter too short paragraphs
+                paragraphs.add(new int[]{start, end, calculateParagraphScore(content, start, end, queryMatcher)});
+            }
+            start = end + 2;
+        }
+
+        paragraphs.sort((p1, p2) -> Integer.compare(p2[2], p1[2]));
+        List<String> keyParagraphs = new ArrayList<>(Math.min(maxParagraphs, paragraphs.size()));
+        for (int i = 0; i < paragraphs.size() && i < maxParagraphs; i++) {
+            keyParagraphs.add(content.substring(paragraphs.get(i)[0], paragraphs.get(i)[1]));
+        }
+        return keyParagraphs;
     }
 
     /**
-     * Calculate paragraph score
+     * Calculate paragraph score: query keyword occurrences in {@code content[start, end)}
      */
-    private int calculateParagraphScore(String paragraph, List<String> keywords) {
-        String lowerParagraph = paragraph.toLowerCase();
-        return (int) keywords.stream()
-                .mapToLong(keyword -> lowerParagraph.split(keyword, -1).length - 1)
-                .sum();
+    private int calculateParagraphScore(String content, int start, int end, KeywordMatcher queryMatcher) {
+        return queryMatcher.count(content, start, end);
     }
 
     /**
@@ -207,17 +294,13 @@ public class ContextFusionAlgorithm {
     }
 
     /**
-     * Calculate keyword relevance
+     * Calculate keyword relevance: query keyword occurrences per query word, capped at 1
      */
-    private double calculateKeywordRelevance(String text, String query) {
-        String[] queryWords = query.toLowerCase().split("\\s+");
-        String lowerText = text.toLowerCase();
-        
-        long matchCount = Arrays.stream(queryWords)
-                .mapToLong(word -> lowerText.split(word, -1).length - 1)
-                .sum();
-        
-        return Math.min(1.0, matchCount / (double) queryWords.length);
+    private double calculateKeywordRelevance(String text, KeywordMatcher queryMatcher) {
+        if (queryMatcher.keywordCount() == 0) {
+            return 0.0;
+        }
+        return Math.min(1.0, queryMatcher.count(text) / (double) queryMatcher.keywordCount());
     }
 
     /**
@@ -253,11 +336,13 @@ public class ContextFusionAlgorithm {
     }
 
     /**
-     * Build fused context
+     * Build fused context from the segments that fit the token budget
      */
-    private FusedContext buildFusedContext(List<ContextSegment> segments, String query) {
-        // Group by type
-        Map<String, List<ContextSegment>> segmentsByType = segments.stream()
+    private FusedContext buildFusedContext(List<ContextSegment> segments, String query, int tokenBudget) {
+        List<ContextSegment> packedSegments = packSegments(segments, tokenBudget);
+
+        // Group by type, keeping rank order within each group
+        Map<String, List<ContextSegment>> segmentsByType = packedSegments.stream()
                 .collect(Collectors.groupingBy(ContextSegment::getType));
 
         // Build structured context
@@ -267,7 +352,7 @@ public class ContextFusionAlgorithm {
         List<ContextSegment> documentSegments = segmentsByType.getOrDefault("document", List.of());
         if (!documentSegments.isEmpty()) {
             contextText.append("Related Document Content:\n");
-            for (ContextSegment segment : documentSegments.stream().limit(5).collect(Collectors.toList())) {
+            for (ContextSegment segment : documentSegments) {
                 contextText.append("- ").append(segment.getContent()).append("\n");
             }
             contextText.append("\n");
@@ -277,7 +362,7 @@ public class ContextFusionAlgorithm {
         List<ContextSegment> entitySegments = segmentsByType.getOrDefault("entity", List.of());
         if (!entitySegments.isEmpty()) {
             contextText.append("Related Entities:\n");
-            for (ContextSegment segment : entitySegments.stream().limit(10).collect(Collectors.toList())) {
+            for (ContextSegment segment : entitySegments) {
                 contextText.append("- ").append(segment.getContent()).append("\n");
             }
             contextText.append("\n");
@@ -287,19 +372,117 @@ public class ContextFusionAlgorithm {
         List<ContextSegment> relationSegments = segmentsByType.getOrDefault("relation", List.of());
         if (!relationSegments.isEmpty()) {
             contextText.append("Related Relations:\n");
-            for (ContextSegment segment : relationSegments.stream().limit(15).collect(Collectors.toList())) {
+            for (ContextSegment segment : relationSegments) {
                 contextText.append("- ").append(segment.getContent()).append("\n");
             }
         }
 
+        String text = contextText.toString();
+        int contextTokens = tokenTextSplitterService.countTokens(text);
+        logger.debug("Context packed, segments: {}/{}, tokens: {}, budget: {}",
+                packedSegments.size(), segments.size(), contextTokens, tokenBudget);
+
         return new FusedContext(
-                contextText.toString(),
-                segments,
-                calculateOverallRelevance(segments),
-                segmentsByType
+                text,
+                packedSegments,
+                calculateOverallRelevance(packedSegments),
+                segmentsByType,
+                contextTokens,
+                tokenBudget
         );
     }
 
+    /**
+     * Greedy knapsack over the ranked segments: repeatedly take the segment with the highest relevance per token,
+     * its relevance discounted by its word overlap with the segments already taken, until nothing else fits.
+     * Returns the chosen segments in their original rank order.
+     */
+    List<ContextSegment> packSegments(List<ContextSegment> segments, int tokenBudget) {
+        long budget = tokenBudget > 0 ? tokenBudget : Long.MAX_VALUE;
+        double penalty = properties.getRetrieval().getContextDiversityPenalty();
+
+        int n = segments.size();
+        int[] cost = new int[n];
+        List<Set<String>> words = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String content = segments.get(i).getContent();
+            cost[i] = tokenTextSplitterService.countTokens(content) + LINE_OVERHEAD_TOKENS;
+            words.add(wordSet(content));
+        }
+
+        double[] redundancy = new double[n];
+        boolean[] taken = new boolean[n];
+        Set<String> sections = new HashSet<>();
+        long used = 0;
+        while (true) {
+            int best = -1;
+            int bestCost = 0;
+            double bestDensity = 0.0;
+            for (int i = 0; i < n; i++) {
+                if (taken[i]) {
+                    continue;
+                }
+                int total = cost[i] + (sections.contains(segments.get(i).getType()) ? 0 : SECTION_HEADER_TOKENS);
+                if (used + total > budget) {
+                    continue;
+                }
+                double value = Math.max(segments.get(i).getRelevanceScore(), MIN_SEGMENT_VALUE)
+                        * (1.0 - penalty * redundancy[i]);
+                double density = value / total;
+                if (density > bestDensity) {
+                    best = i;
+                    bestCost = total;
+                    bestDensity = density;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+
+            taken[best] = true;
+            used += bestCost;
+            sections.add(segments.get(best).getType());
+            for (int i = 0; i < n; i++) {
+                if (!taken[i]) {
+                    redundancy[i] = Math.max(redundancy[i], jaccard(words.get(i), words.get(best)));
+                }
+            }
+        }
+
+        List<ContextSegment> packed = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (taken[i]) {
+                packed.add(segments.get(i));
+            }
+        }
+        return packed;
+    }
+
+    private static Set<String> wordSet(String text) {
+        Set<String> words = new HashSet<>();
+        for (String word : WORD_SEPARATOR.split(text.toLowerCase())) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static double jaccard(Set<String> a, Set<String> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0.0;
+        }
+        Set<String> smaller = a.size() <= b.size() ? a : b;
+        Set<String> larger = smaller == a ? b : a;
+        int intersection = 0;
+        for (String word : smaller) {
+            if (larger.contains(word)) {
+                intersection++;
+            }
+        }
+        return (double) intersection / (a.size() + b.size() - intersection);
+    }
+
     /**
      * Calculate overall relevance
      */
@@ -345,13 +528,17 @@ public class ContextFusionAlgorithm {
         private final List<ContextSegment> segments;
         private final double overallRelevance;
         private final Map<String, List<ContextSegment>> segmentsByType;
+        private final int contextTokens;
+        private final int tokenBudget;
 
-        public FusedContext(String contextText, List<ContextSegment> segments, 
-                           double overallRelevance, Map<String, List<ContextSegment>> segmentsByType) {
+        public FusedContext(String contextText, List<ContextSegment> segments, double overallRelevance,
+                           Map<String, List<ContextSegment>> segmentsByType, int contextTokens, int tokenBudget) {
             this.contextText = contextText;
             this.segments = segments;
             this.overallRelevance = overallRelevance;
             this.segmentsByType = segmentsByType;
+            this.contextTokens = contextTokens;
+            this.tokenBudget = tokenBudget;
         }
 
         // Getters
@@ -359,5 +546,7 @@ public class ContextFusionAlgorithm {
         public List<ContextSegment> getSegments() { return segments; }
         public double getOverallRelevance() { return overallRelevance; }
         public Map<String, List<ContextSegment>> getSegmentsByType() { return segmentsByType; }
+        public int getContextTokens() { return contextTokens; }
+        public int getTokenBudget() { return tokenBudget; }
     }
 }
@@ -1,12 +1,17 @@
 package com.graphrag.core.algorithm;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.graphrag.common.config.GraphRagProperties;
 import com.graphrag.data.service.GraphService;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -20,29 +25,27 @@ public class GraphTraversalAlgorithm {
     @Autowired
     private GraphService graphService;
 
+    @Autowired
+    private GraphRagProperties properties;
+
+    private Cache<List<Object>, Map<String, Object>> subgraphCache;
+    private final AtomicLong subgraphCacheVersion = new AtomicLong(-1);
+
+    @PostConstruct
+    void initCaches() {
+        subgraphCache = CacheBuilder.newBuilder()
+                .maximumSize(properties.getTraversal().getSubgraphCacheSize())
+                .build();
+    }
+
     /**
      * 多跳实体检索
+     * 通过束搜索遍历，扇出、束宽和访问预算均有上限，超级节点不会被完全展开
      */
     public List<Map<String, Object>> multiHopEntityRetrieval(String startEntity, int maxHops, int maxResults) {
         logger.debug("开始多跳实体检索，起始实体: {}, 最大跳数: {}", startEntity, maxHops);
 
-        String cypher = """
-                MATCH path = (start:Entity {name: $startEntity})-[*1..%d]-(end:Entity)
-                WHERE start <> end
-                WITH path, end, length(path) as pathLength
-                ORDER BY pathLength, end.name
-                LIMIT $maxResults
-                RETURN end.name as entityName, end.type as entityType, end.description as description, 
-                       pathLength, [node in nodes(path) | node.name] as pathNodes,
-                       [rel in relationships(path) | type(rel)] as relationshipTypes
-                """.formatted(maxHops);
-
-        Map<String, Object> parameters = Map.of(
-                "startEntity", startEntity,
-                "maxResults", maxResults
-        );
-
-        List<Map<String, Object>> results = graphService.executeCypher(cypher, parameters);
+        List<Map<String, Object>> results = boundedTraversal(startEntity, List.of(), maxHops, maxResults).getEntities();
         logger.info("多跳检索完成，找到 {} 个相关实体", results.size());
         return results;
     }
@@ -149,39 +152,92 @@ public class GraphTraversalAlgorithm {
      * Subgraph extraction
      */
     public Map<String, Object> extractSubgraph(List<String> entityNames, int maxDepth) {
+        return extractSubgraph(entityNames, maxDepth,
+                properties.getTraversal().getSubgraphNodeLimit(),
+                properties.getTraversal().getSubgraphEdgeLimit());
+    }
+
+    /**
+     * Subgraph extraction with node and edge limits.
+     * Nodes and edges are collected in a single round trip, and results are cached per graph version.
+     */
+    public Map<String, Object> extractSubgraph(List<String> entityNames, int maxDepth, int nodeLimit, int edgeLimit) {
         logger.debug("Extracting subgraph, entity count: {}, max depth: {}", entityNames.size(), maxDepth);
 
-        // Get nodes
-        String nodesCypher = """
-                MATCH (e:Entity)
-                WHERE e.name IN $entityNames
-                OPTIONAL MATCH (e)-[*1..%d]-(connected:Entity)
-                WITH collect(DISTINCT e) + collect(DISTINCT connected) as allNodes
-                UNWIND allNodes as node
-                RETURN DISTINCT node.name as name, node.type as type, node.description as description
-                """.formatted(maxDepth);
-
-        // Get relationships
-        String relationshipsCypher = """
-                MATCH (e1:Entity)-[r]-(e2:Entity)
-                WHERE e1.name IN $entityNames
-                OPTIONAL MATCH (e1)-[*1..%d]-(intermediate:Entity)-[r2]-(e2)
-                WHERE intermediate.name IN $entityNames OR e2.name IN $entityNames
-                RETURN DISTINCT e1.name as source, e2.name as target, type(r) as relationshipType, 
-                       r.description as description, r.weight as weight
-                """.formatted(maxDepth);
+        long graphVersion = graphService.getGraphVersion();
+        List<Object> cacheKey = List.of(new TreeSet<>(entityNames), maxDepth, nodeLimit, edgeLimit, graphVersion);
 
-        Map<String, Object> parameters = Map.of("entityNames", entityNames);
+        Map<String, Object> cached = subgraphCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            logger.debug("Subgraph cache hit, graph version: {}", graphVersion);
+            return cached;
+        }
 
-        List<Map<String, Object>> nodes = graphService.executeCypher(nodesCypher, parameters);
-        List<Map<String, Object>> relationships = graphService.executeCypher(relationshipsCypher, parameters);
+        // Entries for older graph versions can never be hit again
+        if (subgraphCacheVersion.getAndSet(graphVersion) != graphVersion) {
+            subgraphCache.invalidateAll();
+        }
 
-        return Map.of(
+        // The breadth-first expansion stops after nodeLimit + 1 nodes (one extra to detect truncation), so the
+        // limit bounds the work done in the database; edges among the kept nodes come from a set-based cover.
+        String cypher = """
+                MATCH (seed:Entity)
+                WHERE seed.name IN $entityNames
+                WITH collect(seed) AS seeds
+                CALL apoc.path.subgraphNodes(seeds, {maxLevel: $maxDepth, labelFilter: '+Entity', limit: $nodeFetchLimit})
+                YIELD node
+                WITH collect(node) AS reached
+                WITH reached[0..$nodeLimit] AS nodes, size(reached) > $nodeLimit AS nodesTruncated
+                CALL {
+                    WITH nodes
+                    CALL apoc.algo.cover(nodes) YIELD rel
+                    WITH rel
+                    LIMIT $edgeFetchLimit
+                    RETURN collect(rel) AS rels
+                }
+                RETURN [n IN nodes | {name: n.name, type: n.type, description: n.description}] AS nodes,
+                       [r IN rels[0..$edgeLimit] | {source: startNode(r).name, target: endNode(r).name,
+                                                   relationshipType: type(r), description: r.description,
+                                                   weight: r.weight}] AS relationships,
+                       nodesTruncated OR size(rels) > $edgeLimit AS truncated
+                """;
+
+        Map<String, Object> parameters = Map.of(
+                "entityNames", entityNames,
+                "maxDepth", maxDepth,
+                "nodeLimit", nodeLimit,
+                "nodeFetchLimit", nodeLimit + 1,
+                "edgeLimit", edgeLimit,
+                "edgeFetchLimit", edgeLimit + 1
+        );
+
+        List<Map<String, Object>> rows = graphService.executeCypher(cypher, parameters);
+
+        List<Map<String, Object>> nodes = List.of();
+        List<Map<String, Object>> relationships = List.of();
+        boolean truncated = false;
+        if (!rows.isEmpty()) {
+            Map<String, Object> row = rows.get(0);
+            nodes = castRows(row.get("nodes"));
+            relationships = castRows(row.get("relationships"));
+            truncated = Boolean.TRUE.equals(row.get("truncated"));
+        }
+
+        Map<String, Object> subgraph = Map.of(
                 "nodes", nodes,
                 "relationships", relationships,
                 "nodeCount", nodes.size(),
-                "relationshipCount", relationships.size()
+                "relationshipCount", relationships.size(),
+                "truncated", truncated,
+                "graphVersion", graphVersion
         );
+        subgraphCache.put(cacheKey, subgraph);
+        return subgraph;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> castRows(Object value) {
+        return value instanceof List ? (List<Map<String, Object>>) value : List.of();
     }
 
     /**
@@ -282,30 +338,214 @@ public class GraphTraversalAlgorithm {
     }
 
     /**
-     * Dynamic graph traversal
+     * Dynamic graph traversal, bounded like {@link #beamTraversal}
      */
     public List<Map<String, Object>> dynamicTraversal(String startEntity, List<String> relationshipTypes, 
                                                      int maxDepth, int maxResults) {
         logger.debug("Dynamic graph traversal, start entity: {}, relationship types: {}", startEntity, relationshipTypes);
 
-        String relationshipFilter = relationshipTypes.isEmpty() ? "" : 
-                "WHERE type(r) IN " + relationshipTypes.toString().replace("[", "['").replace("]", "']").replace(", ", "', '");
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Map<String, Object> entity : boundedTraversal(startEntity, relationshipTypes, maxDepth, maxResults).getEntities()) {
+            Map<String, Object> result = new LinkedHashMap<>(entity);
+            result.put("depth", entity.get("pathLength"));
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * Beam traversal with the configured beam width and fanout, visiting at most {@code maxResults} entities
+     */
+    private BeamTraversalResult boundedTraversal(String startEntity, List<String> relationshipTypes, int maxDepth,
+                                                 int maxResults) {
+        GraphRagProperties.Traversal config = properties.getTraversal();
+        return beamTraversal(startEntity, relationshipTypes, maxDepth, config.getBeamWidth(), config.getMaxFanout(),
+                Math.min(config.getMaxVisited(), maxResults));
+    }
 
+    /**
+     * Beam traversal using the configured beam width, fanout cap and visited budget
+     */
+    public BeamTraversalResult beamTraversal(String startEntity, List<String> relationshipTypes, int maxDepth) {
+        return beamTraversal(startEntity, relationshipTypes, maxDepth,
+                properties.getTraversal().getBeamWidth(),
+                properties.getTraversal().getMaxFanout(),
+                properties.getTraversal().getMaxVisited());
+    }
+
+    /**
+     * Supernode-aware beam traversal.
+     * Each hop keeps at most {@code maxFanout} edges per node (highest {@code r.weight} first) and at most
+     * {@code beamWidth} nodes overall, and the traversal stops once {@code maxVisited} nodes have been reached,
+     * so latency stays bounded regardless of node degree.
+     */
+    public BeamTraversalResult beamTraversal(String startEntity, List<String> relationshipTypes, int maxDepth,
+                                             int beamWidth, int maxFanout, int maxVisited) {
+        logger.debug("Beam traversal, start entity: {}, max depth: {}, beam width: {}, max fanout: {}, max visited: {}",
+                startEntity, maxDepth, beamWidth, maxFanout, maxVisited);
+
+        // Per source: the top maxFanout edges by weight (a bounded top-k sort), and a degree count that stops
+        // one past the cap. Visited names are a map parameter so each neighbour check is a key lookup.
         String cypher = """
-                MATCH path = (start:Entity {name: $startEntity})-[r*1..%d]-(end:Entity)
-                %s
-                WITH path, end, length(path) as depth
-                ORDER BY depth, end.name
-                LIMIT $maxResults
-                RETURN end.name as entityName, end.type as entityType, end.description as description,
-                       depth, [node in nodes(path) | node.name] as pathNodes
-                """.formatted(maxDepth, relationshipFilter);
-
-        Map<String, Object> params = Map.of(
-                "startEntity", startEntity,
-                "maxResults", maxResults
-        );
+                UNWIND $frontier AS sourceName
+                MATCH (src:Entity {name: sourceName})
+                CALL {
+                    WITH src
+                    MATCH (src)-[r]-(nbr:Entity)
+                    WHERE $visited[nbr.name] IS NULL
+                      AND (size($relationshipTypes) = 0 OR type(r) IN $relationshipTypes)
+                    WITH r, nbr
+                    ORDER BY coalesce(r.weight, 1.0) DESC
+                    LIMIT $maxFanout
+                    RETURN collect({name: nbr.name, type: nbr.type, description: nbr.description,
+                                    relationshipType: type(r), weight: coalesce(r.weight, 1.0)}) AS neighbours
+                }
+                CALL {
+                    WITH src
+                    MATCH (src)-[r]-(nbr:Entity)
+                    WHERE $visited[nbr.name] IS NULL
+                      AND (size($relationshipTypes) = 0 OR type(r) IN $relationshipTypes)
+                    WITH r
+                    LIMIT $fanoutProbe
+                    RETURN count(r) AS degree
+                }
+                RETURN sourceName, degree, neighbours
+                """;
+
+        List<String> types = relationshipTypes != null ? relationshipTypes : List.of();
+        Set<String> visited = new LinkedHashSet<>();
+        visited.add(startEntity);
+
+        List<BeamState> frontier = List.of(new BeamState(startEntity, null, null, 1.0, List.of(startEntity), List.of()));
+        List<Map<String, Object>> entities = new ArrayList<>();
+        boolean fanoutTruncated = false;
+        boolean beamTruncated = false;
+        boolean budgetExhausted = false;
+
+        for (int depth = 1; depth <= maxDepth && !frontier.isEmpty() && !budgetExhausted; depth++) {
+            Map<String, BeamState> frontierByName = frontier.stream()
+                    .collect(Collectors.toMap(state -> state.name, state -> state, (a, b) -> a));
+
+            Map<String, Object> visitedLookup = new HashMap<>();
+            for (String name : visited) {
+                visitedLookup.put(name, Boolean.TRUE);
+            }
+            Map<String, Object> parameters = Map.of(
+                    "frontier", new ArrayList<>(frontierByName.keySet()),
+                    "visited", visitedLookup,
+                    "relationshipTypes", types,
+                    "maxFanout", maxFanout,
+                    "fanoutProbe", maxFanout + 1
+            );
+
+            // Best-scoring path to each candidate across the whole frontier
+            Map<String, BeamState> candidates = new HashMap<>();
+            for (Map<String, Object> row : graphService.executeCypher(cypher, parameters)) {
+                if (((Number) row.get("degree")).longValue() > maxFanout) {
+                    fanoutTruncated = true;
+                }
+                BeamState parent = frontierByName.get((String) row.get("sourceName"));
+                for (Map<String, Object> neighbour : castRows(row.get("neighbours"))) {
+                    String name = (String) neighbour.get("name");
+                    double weight = ((Number) neighbour.get("weight")).doubleValue();
+                    BeamState candidate = parent.extend(name, (String) neighbour.get("type"),
+                            (String) neighbour.get("description"), (String) neighbour.get("relationshipType"), weight);
+                    candidates.merge(name, candidate, (a, b) -> a.score >= b.score ? a : b);
+                }
+            }
+
+            List<BeamState> ranked = candidates.values().stream()
+                    .sorted(Comparator.comparingDouble((BeamState state) -> state.score).reversed())
+                    .collect(Collectors.toList());
+
+            if (ranked.size() > beamWidth) {
+                beamTruncated = true;
+                ranked = ranked.subList(0, beamWidth);
+            }
+
+            // The start entity does not count against the budget
+            int remainingBudget = maxVisited - (visited.size() - 1);
+            if (ranked.size() >= remainingBudget) {
+                budgetExhausted = ranked.size() > remainingBudget || depth < maxDepth;
+                ranked = ranked.subList(0, Math.max(0, remainingBudget));
+            }
+
+            for (BeamState state : ranked) {
+                visited.add(state.name);
+                entities.add(state.toResult(depth));
+            }
+            frontier = ranked;
+        }
+
+        logger.info("Beam traversal completed, found {} entities, fanout truncated: {}, beam truncated: {}, budget exhausted: {}",
+                entities.size(), fanoutTruncated, beamTruncated, budgetExhausted);
+        return new BeamTraversalResult(entities, fanoutTruncated, beamTruncated, budgetExhausted);
+    }
+
+    /**
+     * Partial path kept in the beam
+     */
+    private static class BeamState {
+        final String name;
+        final String type;
+        final String description;
+        final double score;
+        final List<String> pathNodes;
+        final List<String> relationshipTypes;
+
+        BeamState(String name, String type, String description, double score,
+                  List<String> pathNodes, List<String> relationshipTypes) {
+            this.name = name;
+            this.type = type;
+            this.description = description;
+            this.score = score;
+            this.pathNodes = pathNodes;
+            this.relationshipTypes = relationshipTypes;
+        }
+
+        BeamState extend(String nextName, String nextType, String nextDescription, String relationshipType, double weight) {
+            List<String> nextPath = new ArrayList<>(pathNodes);
+            nextPath.add(nextName);
+            List<String> nextRelationships = new ArrayList<>(relationshipTypes);
+            nextRelationships.add(relationshipType);
+            return new BeamState(nextName, nextType, nextDescription, score * weight, nextPath, nextRelationships);
+        }
+
+        Map<String, Object> toResult(int depth) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("entityName", name);
+            result.put("entityType", type);
+            result.put("description", description);
+            result.put("pathLength", depth);
+            result.put("score", score);
+            result.put("pathNodes", pathNodes);
+            result.put("relationshipTypes", relationshipTypes);
+            return result;
+        }
+    }
+
+    /**
+     * Beam traversal result with truncation report
+     */
+    public static class BeamTraversalResult {
+        private final List<Map<String, Object>> entities;
+        private final boolean fanoutTruncated;
+        private final boolean beamTruncated;
+        private final boolean budgetExhausted;
+
+        public BeamTraversalResult(List<Map<String, Object>> entities, boolean fanoutTruncated,
+                                   boolean beamTruncated, boolean budgetExhausted) {
+            this.entities = entities;
+            this.fanoutTruncated = fanoutTruncated;
+            this.beamTruncated = beamTruncated;
+            this.budgetExhausted = budgetExhausted;
+        }
 
-        return graphService.executeCypher(cypher, params);
+        // Getters
+        public List<Map<String, Object>> getEntities() { return entities; }
+        public boolean isFanoutTruncated() { return fanoutTruncated; }
+        public boolean isBeamTruncated() { return beamTruncated; }
+        public boolean isBudgetExhausted() { return budgetExhausted; }
+        public boolean isTruncated() { return fanoutTruncated || beamTruncated || budgetExhausted; }
     }
 }
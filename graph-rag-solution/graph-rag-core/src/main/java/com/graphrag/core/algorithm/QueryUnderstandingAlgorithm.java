@@ -1,15 +1,23 @@
 package com.graphrag.core.algorithm;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.graphrag.common.config.GraphRagProperties;
 import com.graphrag.core.service.EmbeddingService;
-import dev.langchain4j.model.chat.ChatLanguageModel;
+import com.graphrag.core.service.LlmGateway;
 import dev.langchain4j.model.input.Prompt;
 import dev.langchain4j.model.input.PromptTemplate;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.text.Normalizer;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -22,11 +30,32 @@ public class QueryUnderstandingAlgorithm {
     private static final Logger logger = LoggerFactory.getLogger(QueryUnderstandingAlgorithm.class);
 
     @Autowired
-    private ChatLanguageModel chatLanguageModel;
+    private LlmGateway llmGateway;
 
     @Autowired
     private EmbeddingService embeddingService;
 
+    @Autowired
+    private RuleBasedQueryClassifier classifier;
+
+    @Autowired
+    private GraphRagProperties properties;
+
+    private final AtomicLong fastPathHits = new AtomicLong();
+    private final AtomicLong llmAnalyses = new AtomicLong();
+
+    // Analyses and query vectors shared by queries with the same normalised text
+    private Cache<String, QueryAnalysis> analysisCache;
+    private Cache<String, List<Double>> vectorCache;
+
+    // Sentence punctuation, quotes and brackets around a token; symbols inside or after a word ("c++", "c#") are kept
+    private static final Pattern EDGE_PUNCTUATION_PATTERN = Pattern.compile(
+            "(?<![^\\s])[\\p{Ps}\\p{Pe}\\p{Pi}\\p{Pf}.,!?;:\"'。、…]+|[\\p{Ps}\\p{Pe}\\p{Pi}\\p{Pf}.,!?;:\"'。、…]+(?![^\\s])");
+    private static final Pattern SYMBOL_ONLY_PATTERN = Pattern.compile("(?<![^\\s])[\\p{P}\\p{S}]+(?![^\\s])");
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+    private static final Pattern TIME_PATTERN = Pattern.compile("\\b(\\d{4})\\s*year|\\b(\\d{1,2})\\s*month|\\b(\\d{1,2})\\s*day|\\b(today|yesterday|tomorrow|recent|now|current|past|future)\\b");
+    private static final Pattern ENTITY_PATTERN = Pattern.compile("\\b[A-Z][a-z]+(?:\\s+[A-Z][a-z]+)*\\b");
+
     // Query analysis prompt template
     private static final PromptTemplate QUERY_ANALYSIS_TEMPLATE = PromptTemplate.from("""
             Please analyze the following user query and extract key information:
@@ -45,30 +74,125 @@ public class QueryUnderstandingAlgorithm {
             Note: Please ensure the extracted information is accurate and useful.
             """);
 
+    @PostConstruct
+    void initCaches() {
+        GraphRagProperties.QueryUnderstanding config = properties.getQueryUnderstanding();
+        analysisCache = CacheBuilder.newBuilder()
+                .maximumSize(config.getAnalysisCacheSize())
+                .expireAfterWrite(config.getAnalysisCacheTtlMinutes(), TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+        vectorCache = CacheBuilder.newBuilder()
+                .maximumSize(config.getAnalysisCacheSize())
+                .expireAfterWrite(config.getAnalysisCacheTtlMinutes(), TimeUnit.MINUTES)
+                .build();
+    }
+
     /**
-     * Analyze query
+     * Analyze query; repeated queries are served from the analysis cache, and concurrent identical
+     * queries wait for a single analysis
      */
     public QueryAnalysis analyzeQuery(String query) {
-        logger.debug("Start analyzing query: {}", query);
+        try {
+            return analysisCache.get(normalizeQuery(query), () -> computeAnalysis(query));
+        } catch (Exception e) {
+            // Fallback analyses are not cached, so the next request retries
+            logger.error("Query analysis failed", e);
+            return createFallbackAnalysis(query);
+        }
+    }
 
+    /**
+     * Query embedding, shared with the cached analysis of the same normalised query
+     */
+    public List<Double> queryVector(String query) {
         try {
-            // 1. Use LLM for query analysis
+            return vectorCache.get(normalizeQuery(query), () -> embeddingService.embedText(query));
+        } catch (Exception e) {
+            throw new RuntimeException("Query embedding failed", e);
+        }
+    }
+
+    /**
+     * Cache key: Unicode-normalised, case-folded, punctuation around tokens and symbol-only tokens stripped,
+     * whitespace collapsed
+     */
+    static String normalizeQuery(String query) {
+        String normalized = Normalizer.normalize(query, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        normalized = EDGE_PUNCTUATION_PATTERN.matcher(normalized).replaceAll("");
+        normalized = SYMBOL_ONLY_PATTERN.matcher(normalized).replaceAll(" ");
+        normalized = WHITESPACE_PATTERN.matcher(normalized).replaceAll(" ").trim();
+        return normalized.isEmpty() ? query.trim() : normalized;
+    }
+
+    /**
+     * Uncached analysis; a failure propagates so that the fallback is not cached
+     */
+    private QueryAnalysis computeAnalysis(String query) {
+        logger.debug("Start analyzing query: {}", query);
+
+        // 1. Calculate query vector, used by the local classifier and downstream retrieval
+        List<Double> queryVector = queryVector(query);
+
+        // 2. Classify locally; use LLM analysis only when the classifier is unsure
+        QueryAnalysis analysis = null;
+        GraphRagProperties.QueryUnderstanding config = properties.getQueryUnderstanding();
+        if (config.getFastPathEnabled()) {
+            RuleBasedQueryClassifier.Classification classification = classifier.classify(query, queryVector);
+            if (classification.getConfidence() >= config.getFastPathConfidence()) {
+                analysis = fromClassification(classification, query);
+                fastPathHits.incrementAndGet();
+            }
+        }
+        if (analysis == null) {
             Prompt prompt = QUERY_ANALYSIS_TEMPLATE.apply(Map.of("query", query));
-            String response = chatLanguageModel.generate(prompt.text());
+            String response = llmGateway.generate(prompt.text(), LlmGateway.Lane.INTERACTIVE);
+            analysis = parseQueryAnalysis(response, query);
+            analysis.setAnalysisSource("llm");
+            llmAnalyses.incrementAndGet();
+        }
 
-            // 2. Parse LLM response
-            QueryAnalysis analysis = parseQueryAnalysis(response, query);
+        // 3. Enhance analysis information
+        enhanceAnalysis(analysis, query, queryVector);
 
-            // 3. Enhance analysis information
-            enhanceAnalysis(analysis, query);
+        logger.info("Query analysis completed, type: {}, complexity: {}, source: {}",
+                analysis.getQueryType(), analysis.getComplexity(), analysis.getAnalysisSource());
+        return analysis;
+    }
 
-            logger.info("Query analysis completed, type: {}, complexity: {}", analysis.getQueryType(), analysis.getComplexity());
-            return analysis;
+    /**
+     * Cache hit rate, and for cache misses the analyses answered by the local classifier versus LLM calls
+     */
+    public Map<String, Object> getMetrics() {
+        long hits = fastPathHits.get();
+        long total = hits + llmAnalyses.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("fastPathEnabled", properties.getQueryUnderstanding().getFastPathEnabled());
+        metrics.put("fastPathHits", hits);
+        metrics.put("llmAnalyses", llmAnalyses.get());
+        metrics.put("fastPathHitRate", total > 0 ? (double) hits / total : 0.0);
+        CacheStats stats = analysisCache.stats();
+        metrics.put("cacheHits", stats.hitCount());
+        metrics.put("cacheMisses", stats.missCount());
+        metrics.put("cacheHitRate", stats.hitRate());
+        metrics.put("cacheEvictions", stats.evictionCount());
+        metrics.put("cacheSize", analysisCache.size());
+        return metrics;
+    }
 
-        } catch (Exception e) {
-            logger.error("Query analysis failed", e);
-            return createFallbackAnalysis(query);
-        }
+    /**
+     * Analysis from a confident local classification
+     */
+    private QueryAnalysis fromClassification(RuleBasedQueryClassifier.Classification classification, String query) {
+        QueryAnalysis analysis = new QueryAnalysis(query);
+        analysis.setQueryType(classification.getQueryType());
+        analysis.setKeyEntities(new ArrayList<>(classification.getKeyEntities()));
+        analysis.setIntent(classification.getQueryType());
+        analysis.setComplexity(classification.getComplexity());
+        analysis.setExpectedAnswerType(classification.getExpectedAnswerType());
+        analysis.setAnalysisSource("rules");
+        analysis.setConfidence(classification.getConfidence());
+        return analysis;
     }
 
     /**
@@ -139,9 +263,9 @@ public class QueryUnderstandingAlgorithm {
     /**
      * Enhance analysis information
      */
-    private void enhanceAnalysis(QueryAnalysis analysis, String query) {
+    private void enhanceAnalysis(QueryAnalysis analysis, String query, List<Double> queryVector) {
         // 1. Detect query patterns
-        analysis.setQueryPatterns(detectQueryPatterns(query));
+        analysis.setQueryPatterns(classifier.detectPatterns(query));
 
         // 2. Extract temporal information
         analysis.setTemporalInfo(extractTemporalInfo(query));
@@ -149,54 +273,13 @@ public class QueryUnderstandingAlgorithm {
         // 3. Detect comparative intent
         analysis.setComparative(detectComparative(query));
 
-        // 4. Calculate query vector
-        List<Double> queryVector = embeddingService.embedText(query);
+        // 4. Query vector
         analysis.setQueryVector(queryVector);
 
         // 5. Generate expanded queries
         analysis.setExpandedQueries(generateExpandedQueries(analysis));
     }
 
-    /**
-     * Detect query patterns
-     */
-    private List<String> detectQueryPatterns(String query) {
-        List<String> patterns = new ArrayList<>();
-        String lowerQuery = query.toLowerCase();
-
-        // Question word pattern
-        if (lowerQuery.matches(".*\\b(what|what is|how|why|which|who|when|where)\\b.*")) {
-            patterns.add("Question Word Query");
-        }
-
-        // Definition pattern
-        if (lowerQuery.matches(".*\\b(is|define|meaning|concept)\\b.*")) {
-            patterns.add("Definition Query");
-        }
-
-        // Comparison pattern
-        if (lowerQuery.matches(".*\\b(compare|contrast|difference|similarity|different|same)\\b.*")) {
-            patterns.add("Comparison Query");
-        }
-
-        // List pattern
-        if (lowerQuery.matches(".*\\b(list|enumerate|what are|include|types)\\b.*")) {
-            patterns.add("List Query");
-        }
-
-        // Causal pattern
-        if (lowerQuery.matches(".*\\b(cause|lead to|impact|result|effect)\\b.*")) {
-            patterns.add("Causal Query");
-        }
-
-        // Process pattern
-        if (lowerQuery.matches(".*\\b(steps|process|procedure|method|how to)\\b.*")) {
-            patterns.add("Process Query");
-        }
-
-        return patterns;
-    }
-
     /**
      * Extract temporal information
      */
@@ -204,8 +287,7 @@ public class QueryUnderstandingAlgorithm {
         Map<String, String> temporalInfo = new HashMap<>();
 
         // Detect time expressions
-        Pattern timePattern = Pattern.compile("\\b(\\d{4})\\s*year|\\b(\\d{1,2})\\s*month|\\b(\\d{1,2})\\s*day|\\b(today|yesterday|tomorrow|recent|now|current|past|future)\\b");
-        Matcher matcher = timePattern.matcher(query);
+        Matcher matcher = TIME_PATTERN.matcher(query);
 
         while (matcher.find()) {
             String timeExpr = matcher.group();
@@ -298,8 +380,7 @@ public class QueryUnderstandingAlgorithm {
         List<String> entities = new ArrayList<>();
         
         // Extract potential entities (capitalized word groups)
-        Pattern entityPattern = Pattern.compile("\\b[A-Z][a-z]+(?:\\s+[A-Z][a-z]+)*\\b");
-        Matcher matcher = entityPattern.matcher(query);
+        Matcher matcher = ENTITY_PATTERN.matcher(query);
         
         while (matcher.find()) {
             entities.add(matcher.group());
@@ -324,6 +405,8 @@ public class QueryUnderstandingAlgorithm {
         private boolean comparative;
         private List<Double> queryVector;
         private List<String> expandedQueries = new ArrayList<>();
+        private String analysisSource = "fallback";
+        private double confidence;
 
         public QueryAnalysis(String originalQuery) {
             this.originalQuery = originalQuery;
@@ -364,6 +447,12 @@ public class QueryUnderstandingAlgorithm {
         
         public List<String> getExpandedQueries() { return expandedQueries; }
         public void setExpandedQueries(List<String> expandedQueries) { this.expandedQueries = expandedQueries; }
+        
+        public String getAnalysisSource() { return analysisSource; }
+        public void setAnalysisSource(String analysisSource) { this.analysisSource = analysisSource; }
+        
+        public double getConfidence() { return confidence; }
+        public void setConfidence(double confidence) { this.confidence = confidence; }
 
         @Override
         public String toString() {
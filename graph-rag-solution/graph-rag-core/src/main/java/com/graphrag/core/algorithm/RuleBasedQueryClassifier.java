@@ -0,0 +1,404 @@
+package com.graphrag.core.algorithm;
+
+import com.graphrag.common.config.GraphRagProperties;
+import com.graphrag.core.service.EmbeddingService;
+import com.graphrag.core.utils.EntityNameUtil;
+import com.graphrag.data.service.GraphService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Local query classifier
+ * Classifies query type, complexity and key entities from precompiled patterns, a dictionary of graph entity
+ * names and the query embedding's nearest query-type prototype, with a confidence score so callers can fall
+ * back to LLM analysis when the rules are unsure.
+ */
+@Component
+public class RuleBasedQueryClassifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuleBasedQueryClassifier.class);
+
+    private static final int MAX_ENTITY_NAME_LENGTH = 64;
+    private static final long PROTOTYPE_RETRY_MIN_MILLIS = 30_000;
+    private static final long PROTOTYPE_RETRY_MAX_MILLIS = 600_000;
+
+    // Query patterns reported on every analysis, in report order
+    private static final Map<String, Pattern> QUERY_PATTERNS = new LinkedHashMap<>();
+    static {
+        QUERY_PATTERNS.put("Question Word Query", Pattern.compile("\\b(what|what is|how|why|which|who|when|where)\\b"));
+        QUERY_PATTERNS.put("Definition Query", Pattern.compile("\\b(is|define|meaning|concept)\\b"));
+        QUERY_PATTERNS.put("Comparison Query", Pattern.compile("\\b(compare|contrast|difference|similarity|different|same)\\b"));
+        QUERY_PATTERNS.put("List Query", Pattern.compile("\\b(list|enumerate|what are|include|types)\\b"));
+        QUERY_PATTERNS.put("Causal Query", Pattern.compile("\\b(cause|lead to|impact|result|effect)\\b"));
+        QUERY_PATTERNS.put("Process Query", Pattern.compile("\\b(steps|process|procedure|method|how to)\\b"));
+    }
+
+    // Query type rules, in priority order when several match
+    private static final Map<String, Pattern> TYPE_PATTERNS = new LinkedHashMap<>();
+    static {
+        TYPE_PATTERNS.put("Comparative Analysis", Pattern.compile(
+                "\\b(compare|comparison|contrast|differences?|versus|vs\\.?|better than|pros and cons)\\b|区别|差异|对比|比较|相比"));
+        TYPE_PATTERNS.put("List Query", Pattern.compile(
+                "\\b(list|enumerate|what are the|types of|kinds of|examples of|name (some|all))\\b|有哪些|列举|列出|哪几"));
+        TYPE_PATTERNS.put("Reasoning Q&A", Pattern.compile(
+                "\\b(why|what causes?|lead to|leads to|impact of|effect of|consequences?|reason)\\b|为什么|为何|原因|导致|影响"));
+        TYPE_PATTERNS.put("Concept Explanation", Pattern.compile(
+                "\\b(what is|what's|what are|define|definition|meaning of|explain|describe|how does|how to)\\b|什么是|是什么|定义|含义|解释|介绍|如何"));
+        TYPE_PATTERNS.put("Factual Query", Pattern.compile(
+                "\\b(who|when|where|which|how many|how much|what year|what date)\\b|谁|何时|什么时候|哪里|哪个|多少|几"));
+    }
+
+    private static final Map<String, String> ANSWER_TYPES = Map.of(
+            "Factual Query", "Brief Answer",
+            "Concept Explanation", "Detailed Explanation",
+            "Comparative Analysis", "Comparison Table",
+            "List Query", "List",
+            "Reasoning Q&A", "Detailed Explanation",
+            "Others", "Detailed Explanation");
+
+    // Exemplar questions whose mean embedding is each type's prototype
+    private static final Map<String, List<String>> PROTOTYPE_QUERIES = new LinkedHashMap<>();
+    static {
+        PROTOTYPE_QUERIES.put("Factual Query", List.of("Who founded the company?", "When was it released?",
+                "Where is the headquarters located?", "谁发明了这项技术？"));
+        PROTOTYPE_QUERIES.put("Concept Explanation", List.of("What is a knowledge graph?", "Explain how transformers work",
+                "Define retrieval augmented generation", "什么是机器学习？"));
+        PROTOTYPE_QUERIES.put("Comparative Analysis", List.of("Compare Neo4j and PostgreSQL",
+                "What is the difference between supervised and unsupervised learning?", "Python vs Java for data science",
+                "深度学习和机器学习有什么区别？"));
+        PROTOTYPE_QUERIES.put("List Query", List.of("List the main types of neural networks",
+                "What are some examples of graph databases?", "Enumerate the steps of the pipeline", "人工智能有哪些应用？"));
+        PROTOTYPE_QUERIES.put("Reasoning Q&A", List.of("Why did the project fail?", "What caused the outage?",
+                "How does inflation impact interest rates?", "为什么模型会过拟合？"));
+    }
+
+    private static final Pattern CLAUSE_SEPARATOR = Pattern.compile("\\b(and|or|but|then|also)\\b|[,;，；、]|以及|并且|或者");
+    private static final Pattern CAPITALISED_TERM = Pattern.compile("\\b[A-Z][\\w-]*(?:\\s+[A-Z][\\w-]*)*\\b");
+
+    @Autowired
+    private EmbeddingService embeddingService;
+
+    @Autowired
+    private GraphService graphService;
+
+    @Autowired
+    private GraphRagProperties properties;
+
+    private volatile Map<String, String> entityDictionary = Map.of();
+    private volatile Map<String, List<Double>> prototypes;
+    // Embedding failures back off exponentially before the prototypes are tried again
+    private volatile long prototypesRetryAt;
+    private int prototypeFailures;
+    private ScheduledExecutorService refreshExecutor;
+
+    @PostConstruct
+    void init() {
+        GraphRagProperties.QueryUnderstanding config = properties.getQueryUnderstanding();
+        if (!config.getFastPathEnabled()) {
+            return;
+        }
+        refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "query-entity-dictionary");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, config.getDictionaryRefreshMinutes());
+        refreshExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                refreshDictionary();
+            } catch (Exception e) {
+                logger.warn("Failed to refresh entity dictionary: {}", e.getMessage());
+            }
+        }, 0, interval, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Classify the query; the vector may be null, in which case only the rules are used
+     */
+    public Classification classify(String query, List<Double> queryVector) {
+        String lowerQuery = query.toLowerCase(Locale.ROOT);
+
+        // 1. Pattern rules
+        String ruleType = null;
+        int ruleMatches = 0;
+        for (Map.Entry<String, Pattern> entry : TYPE_PATTERNS.entrySet()) {
+            if (entry.getValue().matcher(lowerQuery).find()) {
+                ruleMatches++;
+                if (ruleType == null) {
+                    ruleType = entry.getKey();
+                }
+            }
+        }
+
+        // 2. Nearest type prototype
+        String embeddingType = null;
+        double margin = 0.0;
+        Map<String, List<Double>> currentPrototypes = queryVector != null ? prototypes() : null;
+        if (currentPrototypes != null && !currentPrototypes.isEmpty()) {
+            double best = -1.0;
+            double second = -1.0;
+            for (Map.Entry<String, List<Double>> entry : currentPrototypes.entrySet()) {
+                double similarity = embeddingService.cosineSimilarity(queryVector, entry.getValue());
+                if (similarity > best) {
+                    second = best;
+                    best = similarity;
+                    embeddingType = entry.getKey();
+                } else if (similarity > second) {
+                    second = similarity;
+                }
+            }
+            margin = best - second;
+        }
+
+        double confidence;
+        String type;
+        if (ruleType != null) {
+            type = ruleType;
+            confidence = ruleMatches == 1 ? 0.8 : 0.6;
+            if (ruleType.equals(embeddingType)) {
+                confidence += 0.15;
+            } else if (embeddingType != null && margin > 0.05) {
+                confidence -= 0.2;
+            }
+        } else if (embeddingType != null) {
+            type = embeddingType;
+            confidence = Math.min(0.7, 0.4 + margin * 4);
+        } else {
+            type = "Others";
+            confidence = 0.3;
+        }
+
+        // 3. Key entities from the dictionary; unknown capitalised terms are left to the LLM
+        List<String> entities = matchEntities(query);
+        if (entities.isEmpty() && CAPITALISED_TERM.matcher(query).find()) {
+            confidence -= 0.15;
+        }
+
+        // 4. Complexity from length and clause count
+        int words = wordCount(query);
+        int clauses = 1 + (int) CLAUSE_SEPARATOR.matcher(lowerQuery).results().count();
+        String complexity;
+        if (words > 25 || clauses > 3 || (type.equals("Comparative Analysis") && entities.size() > 2)) {
+            complexity = "Complex";
+            confidence -= 0.1;
+        } else if (words <= 8 && clauses == 1 && entities.size() <= 1) {
+            complexity = "Simple";
+        } else {
+            complexity = "Medium";
+        }
+
+        return new Classification(type, complexity, entities, ANSWER_TYPES.get(type),
+                Math.max(0.0, Math.min(1.0, confidence)));
+    }
+
+    /**
+     * Query patterns, matched with precompiled expressions
+     */
+    public List<String> detectPatterns(String query) {
+        String lowerQuery = query.toLowerCase(Locale.ROOT);
+        List<String> patterns = new ArrayList<>();
+        for (Map.Entry<String, Pattern> entry : QUERY_PATTERNS.entrySet()) {
+            if (entry.getValue().matcher(lowerQuery).find()) {
+                patterns.add(entry.getKey());
+            }
+        }
+        return patterns;
+    }
+
+    /**
+     * Reload entity names from the graph
+     */
+    public void refreshDictionary() {
+        int pageSize = properties.getQueryUnderstanding().getDictionaryPageSize();
+        Map<String, String> dictionary = new HashMap<>();
+        long afterId = -1;
+        List<Map<String, Object>> page;
+        do {
+            page = graphService.findEntityPage(afterId, pageSize);
+            for (Map<String, Object> row : page) {
+                String name = (String) row.get("name");
+                String key = EntityNameUtil.normalise(name);
+                if (key.length() >= 2 && key.length() <= MAX_ENTITY_NAME_LENGTH) {
+                    dictionary.putIfAbsent(key, name);
+                }
+            }
+            if (!page.isEmpty()) {
+                afterId = ((Number) page.get(page.size() - 1).get("id")).longValue();
+            }
+        } while (page.size() == pageSize);
+
+        entityDictionary = dictionary;
+        logger.info("Entity dictionary loaded - names: {}", dictionary.size());
+    }
+
+    /**
+     * Longest dictionary names found in the query, left to right, on word boundaries
+     */
+    private List<String> matchEntities(String query) {
+        Map<String, String> dictionary = entityDictionary;
+        List<String> entities = new ArrayList<>();
+        if (dictionary.isEmpty()) {
+            return entities;
+        }
+        String text = EntityNameUtil.normalise(query);
+        int i = 0;
+        while (i < text.length()) {
+            if (!isBoundary(text, i)) {
+                i++;
+                continue;
+            }
+            int matchedEnd = -1;
+            for (int end = Math.min(text.length(), i + MAX_ENTITY_NAME_LENGTH); end > i + 1; end--) {
+                if (isBoundary(text, end) && dictionary.containsKey(text.substring(i, end))) {
+                    matchedEnd = end;
+                    break;
+                }
+            }
+            if (matchedEnd > 0) {
+                String name = dictionary.get(text.substring(i, matchedEnd));
+                if (!entities.contains(name)) {
+                    entities.add(name);
+                }
+                i = matchedEnd;
+            } else {
+                i++;
+            }
+        }
+        return entities;
+    }
+
+    /**
+     * A name may start or end here: at the text edges, next to a non-word character, or beside CJK text
+     */
+    private static boolean isBoundary(String text, int index) {
+        if (index <= 0 || index >= text.length()) {
+            return true;
+        }
+        char before = text.charAt(index - 1);
+        char after = text.charAt(index);
+        return !Character.isLetterOrDigit(before) || !Character.isLetterOrDigit(after)
+                || isCjk(before) || isCjk(after);
+    }
+
+    private static boolean isCjk(char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+
+    private static int wordCount(String query) {
+        int words = 0;
+        int cjk = 0;
+        boolean inWord = false;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (isCjk(c)) {
+                cjk++;
+                inWord = false;
+            } else if (Character.isLetterOrDigit(c)) {
+                if (!inWord) {
+                    words++;
+                }
+                inWord = true;
+            } else {
+                inWord = false;
+            }
+        }
+        // Roughly two Han characters per word
+        return words + (cjk + 1) / 2;
+    }
+
+    /**
+     * Type prototypes, embedded once in a single batch; null while embedding is unavailable, retried with backoff
+     */
+    private Map<String, List<Double>> prototypes() {
+        Map<String, List<Double>> current = prototypes;
+        if (current != null || System.currentTimeMillis() < prototypesRetryAt) {
+            return current;
+        }
+        synchronized (this) {
+            if (prototypes != null || System.currentTimeMillis() < prototypesRetryAt) {
+                return prototypes;
+            }
+            try {
+                List<String> texts = new ArrayList<>();
+                PROTOTYPE_QUERIES.values().forEach(texts::addAll);
+                List<List<Double>> vectors = embeddingService.embedTexts(texts);
+                Map<String, List<Double>> built = new LinkedHashMap<>();
+                int offset = 0;
+                for (Map.Entry<String, List<String>> entry : PROTOTYPE_QUERIES.entrySet()) {
+                    built.put(entry.getKey(), mean(vectors.subList(offset, offset + entry.getValue().size())));
+                    offset += entry.getValue().size();
+                }
+                prototypes = built;
+                prototypeFailures = 0;
+                return built;
+            } catch (Exception e) {
+                long delay = Math.min(PROTOTYPE_RETRY_MAX_MILLIS,
+                        PROTOTYPE_RETRY_MIN_MILLIS << Math.min(prototypeFailures, 10));
+                prototypeFailures++;
+                prototypesRetryAt = System.currentTimeMillis() + delay;
+                logger.warn("Failed to embed query type prototypes, classifying by rules only for {} s: {}",
+                        delay / 1000, e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    private static List<Double> mean(List<List<Double>> vectors) {
+        int dimension = vectors.get(0).size();
+        double[] sum = new double[dimension];
+        for (List<Double> vector : vectors) {
+            for (int i = 0; i < dimension; i++) {
+                sum[i] += vector.get(i);
+            }
+        }
+        List<Double> mean = new ArrayList<>(dimension);
+        for (double value : sum) {
+            mean.add(value / vectors.size());
+        }
+        return mean;
+    }
+
+    /**
+     * Local classification result
+     */
+    public static class Classification {
+        private final String queryType;
+        private final String complexity;
+        private final List<String> keyEntities;
+        private final String expectedAnswerType;
+        private final double confidence;
+
+        public Classification(String queryType, String complexity, List<String> keyEntities,
+                              String expectedAnswerType, double confidence) {
+            this.queryType = queryType;
+            this.complexity = complexity;
+            this.keyEntities = keyEntities;
+            this.expectedAnswerType = expectedAnswerType;
+            this.confidence = confidence;
+        }
+
+        // Getters
+        public String getQueryType() { return queryType; }
+        public String getComplexity() { return complexity; }
+        public List<String> getKeyEntities() { return keyEntities; }
+        public String getExpectedAnswerType() { return expectedAnswerType; }
+        public double getConfidence() { return confidence; }
+    }
+}
@@ -2,11 +2,14 @@ package com.graphrag.core.config;
 
 import com.graphrag.common.config.GraphRagProperties;
 import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
 import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.model.openai.OpenAiChatModel;
 import dev.langchain4j.model.openai.OpenAiEmbeddingModel;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
 import dev.langchain4j.model.azure.AzureOpenAiChatModel;
 import dev.langchain4j.model.azure.AzureOpenAiEmbeddingModel;
+import dev.langchain4j.model.azure.AzureOpenAiStreamingChatModel;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,6 +53,24 @@ public class LangChain4jConfig {
         }
     }
 
+    /**
+     * 配置串流聊天語言模型
+     * 逐 token 回傳答案，與聊天模型使用相同的端點與參數
+     */
+    @Bean
+    @Order(1)
+    public StreamingChatLanguageModel streamingChatLanguageModel() {
+        String baseUrl = properties.getLlm().getBaseUrl();
+        String apiKey = properties.getLlm().getApiKey();
+        
+        // 檢測是否為 Azure OpenAI
+        if (isAzureOpenAI(baseUrl)) {
+            return createAzureStreamingChatModel(baseUrl, apiKey);
+        } else {
+            return createStandardStreamingChatModel(baseUrl, apiKey);
+        }
+    }
+
     /**
      * 配置嵌入模型
      * 自動檢測是否為 Azure OpenAI 或標準 OpenAI
@@ -120,6 +141,51 @@ public class LangChain4jConfig {
                 .build();
     }
 
+    /**
+     * 創建 Azure OpenAI 串流聊天模型
+     */
+    private StreamingChatLanguageModel createAzureStreamingChatModel(String baseUrl, String apiKey) {
+        // 從環境變量獲取 API 版本，默認為 2023-05-15
+        String apiVersion = System.getenv("AZURE_OPENAI_API_VERSION");
+        if (apiVersion == null || apiVersion.isEmpty()) {
+            apiVersion = "2023-05-15";
+        }
+        
+        // 確保 baseUrl 以 / 結尾
+        if (!baseUrl.endsWith("/")) {
+            baseUrl = baseUrl + "/";
+        }
+        
+        logger.info("創建 Azure OpenAI 串流聊天模型 - Endpoint: {}, Deployment: {}, API Version: {}", 
+                baseUrl, properties.getLlm().getModel(), apiVersion);
+        
+        return AzureOpenAiStreamingChatModel.builder()
+                .endpoint(baseUrl)
+                .deploymentName(properties.getLlm().getModel())
+                .serviceVersion(apiVersion)
+                .apiKey(apiKey)
+                .temperature(properties.getLlm().getTemperature())
+                .maxTokens(properties.getLlm().getMaxTokens())
+                .timeout(Duration.ofMinutes(2))
+                .maxRetries(3)
+                .build();
+    }
+
+    /**
+     * 創建標準 OpenAI 串流聊天模型
+     * 串流請求不支援重試，失敗時由呼叫端回退
+     */
+    private StreamingChatLanguageModel createStandardStreamingChatModel(String baseUrl, String apiKey) {
+        return OpenAiStreamingChatModel.builder()
+                .apiKey(apiKey)
+                .baseUrl(baseUrl)
+                .modelName(properties.getLlm().getModel())
+                .temperature(properties.getLlm().getTemperature())
+                .maxTokens(properties.getLlm().getMaxTokens())
+                .timeout(Duration.ofMinutes(2))
+                .build();
+    }
+
     /**
      * 創建 Azure OpenAI 嵌入模型
      */
@@ -13,6 +13,7 @@ public class GraphRagRequest {
     private Integer maxEntities = 10;
     private Double similarityThreshold = 0.7;
     private String retrievalMode = "hybrid"; // vector, graph, hybrid
+    private Integer contextTokenBudget; // null: graph-rag.retrieval.context-token-budget
     private Map<String, Object> parameters;
 
     public GraphRagRequest() {}
@@ -37,6 +38,9 @@ public class GraphRagRequest {
     public String getRetrievalMode() { return retrievalMode; }
     public void setRetrievalMode(String retrievalMode) { this.retrievalMode = retrievalMode; }
 
+    public Integer getContextTokenBudget() { return contextTokenBudget; }
+    public void setContextTokenBudget(Integer contextTokenBudget) { this.contextTokenBudget = contextTokenBudget; }
+
     public Map<String, Object> getParameters() { return parameters; }
     public void setParameters(Map<String, Object> parameters) { this.parameters = parameters; }
 }
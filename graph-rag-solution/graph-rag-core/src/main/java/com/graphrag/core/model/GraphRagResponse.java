@@ -16,6 +16,8 @@ public class GraphRagResponse {
     private List<Map<String, Object>> graphContext;
     private Double confidence;
     private Long processingTimeMs;
+    private Integer contextTokens;
+    private Integer promptTokens;
     private LocalDateTime timestamp;
 
     public GraphRagResponse() {
@@ -44,6 +46,12 @@ public class GraphRagResponse {
     public Long getProcessingTimeMs() { return processingTimeMs; }
     public void setProcessingTimeMs(Long processingTimeMs) { this.processingTimeMs = processingTimeMs; }
 
+    public Integer getContextTokens() { return contextTokens; }
+    public void setContextTokens(Integer contextTokens) { this.contextTokens = contextTokens; }
+
+    public Integer getPromptTokens() { return promptTokens; }
+    public void setPromptTokens(Integer promptTokens) { this.promptTokens = promptTokens; }
+
     public LocalDateTime getTimestamp() { return timestamp; }
     public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
 }
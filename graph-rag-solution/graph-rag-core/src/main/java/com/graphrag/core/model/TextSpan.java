@@ -0,0 +1,70 @@
+package com.graphrag.core.model;
+
+/**
+ * 文本片段视图
+ * 只保存所在文档文本的引用和 [start, end) 偏移，不复制字符；调用 toString() 时才生成副本
+ */
+public class TextSpan implements CharSequence {
+
+    private final String source;
+    private final int start;
+    private final int end;
+    private final int index;
+
+    public TextSpan(String source, int start, int end, int index) {
+        if (start < 0 || end > source.length() || start > end) {
+            throw new IndexOutOfBoundsException("span [" + start + ", " + end + ") of length " + source.length());
+        }
+        this.source = source;
+        this.start = start;
+        this.end = end;
+        this.index = index;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int position) {
+        if (position < 0 || position >= length()) {
+            throw new IndexOutOfBoundsException("index " + position + " of length " + length());
+        }
+        return source.charAt(start + position);
+    }
+
+    /**
+     * 子片段同样是视图，偏移仍相对于整个文档；范围必须落在本片段之内
+     */
+    @Override
+    public TextSpan subSequence(int from, int to) {
+        if (from < 0 || from > to || to > length()) {
+            throw new IndexOutOfBoundsException("subSequence [" + from + ", " + to + ") of length " + length());
+        }
+        return new TextSpan(source, start + from, start + to, index);
+    }
+
+    /**
+     * 是否只含空白字符
+     */
+    public boolean isBlank() {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(source.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return source.substring(start, end);
+    }
+
+    // Getters
+    public String getSource() { return source; }
+    public int getStart() { return start; }
+    public int getEnd() { return end; }
+    public int getIndex() { return index; }
+}
@@ -0,0 +1,261 @@
+package com.graphrag.core.service;
+
+import com.graphrag.common.config.GraphRagProperties;
+import com.graphrag.core.model.TextSpan;
+import com.graphrag.core.utils.ContentHashUtil;
+import com.graphrag.data.entity.EntityNode;
+import com.graphrag.data.service.BulkImportService;
+import com.graphrag.data.service.BulkImportWriter;
+import dev.langchain4j.data.document.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Bulk Graph Build Service
+ * First build of a large corpus into an empty graph. Files are split, extracted, resolved and embedded as in the
+ * ingestion pipeline, but the results stream into bulk-import CSV (see {@link BulkImportWriter}) and are loaded in
+ * one pass afterwards instead of being merged document by document. Entities are not resolved against the graph,
+ * which is expected to be empty.
+ */
+@Service
+public class BulkGraphBuildService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkGraphBuildService.class);
+
+    @Autowired
+    private GraphRagProperties properties;
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Autowired
+    private DocumentLoaderService documentLoaderService;
+
+    @Autowired
+    private TokenTextSplitterService tokenTextSplitterService;
+
+    @Autowired
+    private KnowledgeGraphService knowledgeGraphService;
+
+    @Autowired
+    private DocumentChunkService documentChunkService;
+
+    @Autowired
+    private EmbeddingService embeddingService;
+
+    @Autowired
+    private EntityResolutionService entityResolutionService;
+
+    private volatile CompletableFuture<BuildResult> current;
+
+    /**
+     * Start a build of the configured source directory in the background; only one build runs at a time.
+     * With {@code load} the CSV is loaded through LOAD CSV afterwards, otherwise the result carries the
+     * neo4j-admin import command for an offline load.
+     */
+    public synchronized CompletableFuture<BuildResult> start(boolean load) {
+        if (current != null && !current.isDone()) {
+            throw new IllegalStateException("A bulk build is already running");
+        }
+        Path source = Path.of(properties.getBulkImport().getSourceDirectory());
+        current = CompletableFuture.supplyAsync(() -> build(source, load), runnable -> {
+            Thread thread = new Thread(runnable, "bulk-graph-build");
+            thread.setDaemon(true);
+            thread.start();
+        });
+        return current;
+    }
+
+    /**
+     * The running or most recent build, if any
+     */
+    public Optional<CompletableFuture<BuildResult>> getCurrent() {
+        return Optional.ofNullable(current);
+    }
+
+    /**
+     * Write every file under {@code source} to bulk-import CSV, then load it or prepare the offline import command
+     */
+    public BuildResult build(Path source, boolean load) {
+        if (!Files.isDirectory(source)) {
+            throw new IllegalArgumentException("Bulk build source is not a directory: " + source);
+        }
+        long start = System.currentTimeMillis();
+        logger.info("Starting bulk graph build from {}", source.toAbsolutePath());
+
+        BuildResult result = new BuildResult(source.toString());
+        int extractParallelism = Math.max(1, properties.getIngestion().getExtractParallelism());
+        ExecutorService extractors = Executors.newFixedThreadPool(extractParallelism, new ThreadFactory() {
+            private final AtomicInteger index = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "bulk-extract-" + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        Path directory;
+        try (BulkImportWriter writer = bulkImportService.openWriter();
+             Stream<Path> files = Files.walk(source)) {
+            directory = writer.getDirectory();
+            Iterator<Path> iterator = files.filter(Files::isRegularFile).sorted().iterator();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                try {
+                    if (writeDocument(writer, documentLoaderService.loadFromFile(file), extractors)) {
+                        result.documents.incrementAndGet();
+                    } else {
+                        result.skipped.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    logger.error("Bulk build failed on file {}", file, e);
+                    result.failed.incrementAndGet();
+                }
+            }
+            result.rowCounts = writer.getRowCounts();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to walk bulk build source " + source, e);
+        } finally {
+            extractors.shutdownNow();
+        }
+
+        if (load) {
+            result.loadStats = bulkImportService.loadWithCypher(directory);
+            // Entities were loaded around entity resolution; rebuild its LSH index from the graph
+            entityResolutionService.resetIndex();
+        } else {
+            result.adminImportCommand = bulkImportService.adminImportCommand(directory,
+                    properties.getNeo4j().getDatabase());
+        }
+        result.elapsedMillis = System.currentTimeMillis() - start;
+        logger.info("Bulk graph build finished, documents: {}, skipped: {}, failed: {}, elapsed: {} ms",
+                result.getDocuments(), result.getSkipped(), result.getFailed(), result.getElapsedMillis());
+        return result;
+    }
+
+    /**
+     * Extract, resolve and embed one document and write it; false when a document with the same title was written
+     */
+    private boolean writeDocument(BulkImportWriter writer, Document document, ExecutorService extractors) {
+        String text = document.text();
+        String title = KnowledgeGraphService.extractTitle(text);
+        if (writer.containsDocument(title)) {
+            logger.warn("Skipping document with duplicate title: {}", title);
+            return false;
+        }
+
+        Map<String, DocumentChunkService.Chunk> chunks = new LinkedHashMap<>();
+        List<TextSpan> spans = tokenTextSplitterService.split(text);
+        for (int i = 0; i < spans.size(); i++) {
+            TextSpan span = spans.get(i);
+            String hash = ContentHashUtil.sha256(span);
+            chunks.putIfAbsent(hash, new DocumentChunkService.Chunk(hash, i, span.getStart(), span.getEnd(), span));
+        }
+
+        // Extract chunks in parallel; a failed chunk is left out, as in the pipeline
+        List<CompletableFuture<KnowledgeGraphService.ExtractionResult>> extractions = chunks.values().stream()
+                .map(chunk -> CompletableFuture.supplyAsync(
+                                () -> knowledgeGraphService.extractFromText(chunk.getText()).forChunk(chunk.getHash()),
+                                extractors)
+                        .exceptionally(e -> {
+                            logger.error("Failed to extract chunk {} of {}", chunk.getIndex(), title, e);
+                            return null;
+                        }))
+                .collect(Collectors.toList());
+        List<KnowledgeGraphService.ExtractionResult> results = extractions.stream()
+                .map(CompletableFuture::join)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        KnowledgeGraphService.ResolvedEntities resolved = knowledgeGraphService.resolveEntities(results);
+        // Entities written by an earlier document keep that document's embedding
+        knowledgeGraphService.embedEntities(resolved.entities.stream()
+                .filter(entity -> !writer.containsEntity(entity.getName(), entity.getType()))
+                .collect(Collectors.toList()));
+        List<DocumentChunkService.Chunk> extracted = chunks.values().stream()
+                .filter(chunk -> resolved.extractedChunkHashes.contains(chunk.getHash()))
+                .collect(Collectors.toList());
+        documentChunkService.embedChunks(extracted);
+        List<Double> documentEmbedding = embeddingService.embedText(
+                KnowledgeGraphService.documentEmbeddingText(title, text));
+
+        String documentId = writer.addDocument(title, text, (String) document.metadata().get("source"),
+                ContentHashUtil.sha256(text), documentEmbedding);
+        for (EntityNode entity : resolved.entities) {
+            String entityId = writer.addEntity(entity.getName(), entity.getType(), entity.getDescription(),
+                    entity.getEmbedding());
+            writer.addDocumentEntity(documentId, entityId);
+        }
+
+        Map<String, String> chunkIds = new HashMap<>();
+        for (DocumentChunkService.Chunk chunk : extracted) {
+            chunkIds.put(chunk.getHash(), writer.addChunk(documentId, chunk.getHash(), chunk.getIndex(),
+                    chunk.getStartOffset(), chunk.getEndOffset(), chunk.getText().toString(), chunk.getEmbedding()));
+        }
+        for (Map<String, Object> mention : resolved.mentions) {
+            String chunkId = chunkIds.get((String) mention.get("hash"));
+            if (chunkId != null) {
+                writer.addMention(chunkId, writer.addEntity((String) mention.get("name"),
+                        (String) mention.get("type"), null, null));
+            }
+        }
+
+        // Relationship endpoints that were not extracted as entities are created bare, as createRelationships does
+        for (Map<String, Object> relationship : resolved.relationships) {
+            String sourceId = writer.addEntity((String) relationship.get("entity1Name"),
+                    (String) relationship.get("entity1Type"), null, null);
+            String targetId = writer.addEntity((String) relationship.get("entity2Name"),
+                    (String) relationship.get("entity2Type"), null, null);
+            writer.addRelationship(sourceId, targetId, (String) relationship.get("relationshipType"),
+                    (String) relationship.get("description"), ((Number) relationship.get("weight")).doubleValue());
+        }
+        logger.debug("Bulk build wrote document {}: {} chunks, {} entities, {} relationships",
+                title, extracted.size(), resolved.entities.size(), resolved.relationships.size());
+        return true;
+    }
+
+    /**
+     * Outcome of one bulk build
+     */
+    public static class BuildResult {
+        private final String source;
+        private final AtomicInteger documents = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private Map<String, Long> rowCounts = Map.of();
+        private Map<String, Object> loadStats;
+        private String adminImportCommand;
+        private long elapsedMillis;
+
+        BuildResult(String source) {
+            this.source = source;
+        }
+
+        // Getters
+        public String getSource() { return source; }
+        public int getDocuments() { return documents.get(); }
+        public int getSkipped() { return skipped.get(); }
+        public int getFailed() { return failed.get(); }
+        public Map<String, Long> getRowCounts() { return rowCounts; }
+        public Map<String, Object> getLoadStats() { return loadStats; }
+        public String getAdminImportCommand() { return adminImportCommand; }
+        public long getElapsedMillis() { return elapsedMillis; }
+    }
+}
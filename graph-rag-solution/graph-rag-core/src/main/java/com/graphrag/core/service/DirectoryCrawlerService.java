@@ -0,0 +1,394 @@
+package com.graphrag.core.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graphrag.common.config.GraphRagProperties;
+import com.graphrag.core.utils.ContentHashUtil;
+import dev.langchain4j.data.document.Document;
+import org.apache.tika.Tika;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Directory Crawler Service
+ * Walks a directory tree and hands new or changed files to ingestion as they are parsed. A manifest of
+ * path, size, modification time and content hash is kept on disk: files whose size and mtime are unchanged are
+ * skipped from the walk's attributes alone, and files that were touched but have the same hash are not re-parsed.
+ * Only directories under graph-rag.crawler.allowed-roots can be crawled.
+ */
+@Service
+public class DirectoryCrawlerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryCrawlerService.class);
+
+    @Autowired
+    private DocumentLoaderService documentLoaderService;
+
+    @Autowired
+    private IngestionJobService ingestionJobService;
+
+    @Autowired
+    private GraphRagProperties properties;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Tika tika = new Tika();
+
+    /**
+     * Crawl the directory and submit changed documents as ingestion jobs of job-batch-size documents each,
+     * so at most one batch of parsed text is held in memory. Files above the streaming threshold go in by path
+     * and are parsed as a stream when the job runs.
+     */
+    public CrawlResult crawlIntoJobs(Path root, String mode, int priority) {
+        int batchSize = Math.max(1, properties.getCrawler().getJobBatchSize());
+        List<String> jobIds = Collections.synchronizedList(new ArrayList<>());
+
+        CrawlResult result = crawl(root, new CrawlSink() {
+            private final List<IngestionJobService.JobDocument> batch = new ArrayList<>(batchSize);
+            private final List<Runnable> batchAccepted = new ArrayList<>(batchSize);
+
+            @Override
+            public void accept(IngestionJobService.JobDocument document, Runnable accepted) {
+                List<IngestionJobService.JobDocument> full = null;
+                List<Runnable> fullAccepted = null;
+                synchronized (this) {
+                    batch.add(document);
+                    batchAccepted.add(accepted);
+                    if (batch.size() >= batchSize) {
+                        full = new ArrayList<>(batch);
+                        fullAccepted = new ArrayList<>(batchAccepted);
+                        batch.clear();
+                        batchAccepted.clear();
+                    }
+                }
+                if (full != null) {
+                    submit(full, fullAccepted);
+                }
+            }
+
+            @Override
+            public void flush() {
+                List<IngestionJobService.JobDocument> rest;
+                List<Runnable> restAccepted;
+                synchronized (this) {
+                    rest = new ArrayList<>(batch);
+                    restAccepted = new ArrayList<>(batchAccepted);
+                    batch.clear();
+                    batchAccepted.clear();
+                }
+                if (!rest.isEmpty()) {
+                    submit(rest, restAccepted);
+                }
+            }
+
+            // The job is journaled before submit returns, so its files can go into the manifest
+            private void submit(List<IngestionJobService.JobDocument> documents, List<Runnable> accepted) {
+                jobIds.add(ingestionJobService.submit(documents, mode, priority));
+                accepted.forEach(Runnable::run);
+            }
+        });
+        result.jobIds.addAll(jobIds);
+        return result;
+    }
+
+    /**
+     * Crawl the directory, passing each new or changed document to the sink from a worker thread.
+     * A file is recorded in the manifest only when the sink reports it accepted; the manifest is written after
+     * {@link CrawlSink#flush()}.
+     */
+    public CrawlResult crawl(Path root, CrawlSink sink) {
+        if (!Files.isDirectory(root)) {
+            throw new IllegalArgumentException("Not a directory: " + root);
+        }
+        GraphRagProperties.Crawler config = properties.getCrawler();
+        root = checkAllowed(root, config.getAllowedRoots());
+
+        long start = System.currentTimeMillis();
+        Path manifestPath = Path.of(config.getManifestPath());
+        Map<String, ManifestEntry> manifest = readManifest(manifestPath);
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        Set<String> extensions = config.getExtensions().stream()
+                .filter(extension -> extension != null && !extension.isBlank())
+                .map(extension -> extension.trim().toLowerCase(Locale.ROOT).replaceFirst("^\\.", ""))
+                .collect(Collectors.toSet());
+        List<String> mimeTypes = config.getMimeTypes().stream()
+                .filter(mimeType -> mimeType != null && !mimeType.isBlank())
+                .map(mimeType -> mimeType.trim().toLowerCase(Locale.ROOT))
+                .collect(Collectors.toList());
+
+        CrawlResult result = new CrawlResult(root.toString());
+        int parallelism = Math.max(1, config.getParallelism());
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "directory-crawler-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        // Bound in-flight files so parsed text never piles up ahead of the sink
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    if (!attributes.isRegularFile()) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    result.scanned.incrementAndGet();
+                    String key = file.toAbsolutePath().normalize().toString();
+                    String extension = extension(file);
+                    boolean extensionMatch = extensions.contains(extension);
+                    if (!extensionMatch && mimeTypes.isEmpty() && !extensions.isEmpty()) {
+                        result.filtered.incrementAndGet();
+                        return FileVisitResult.CONTINUE;
+                    }
+                    boolean checkMimeType = !extensionMatch && !mimeTypes.isEmpty();
+                    seen.add(key);
+
+                    long size = attributes.size();
+                    long modified = attributes.lastModifiedTime().toMillis();
+                    ManifestEntry previous = manifest.get(key);
+                    if (previous != null && previous.size == size && previous.modified == modified) {
+                        result.unchanged.incrementAndGet();
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    try {
+                        inFlight.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return FileVisitResult.TERMINATE;
+                    }
+                    futures.add(workers.submit(() -> {
+                        try {
+                            processFile(file, key, size, modified, previous, checkMimeType, mimeTypes, manifest,
+                                    sink, result);
+                        } finally {
+                            inFlight.release();
+                        }
+                    }));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    logger.warn("Cannot read {}: {}", file, e.getMessage());
+                    result.failed.incrementAndGet();
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            sink.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to walk " + root, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Crawl interrupted: " + root, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Crawl failed: " + root, e.getCause());
+        } finally {
+            workers.shutdownNow();
+
+            // Files under this root that were not seen any more
+            String prefix = root.toString();
+            Iterator<String> keys = manifest.keySet().iterator();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                if (isUnder(key, prefix) && !seen.contains(key)) {
+                    keys.remove();
+                    result.deleted.incrementAndGet();
+                }
+            }
+            writeManifest(manifestPath, manifest);
+        }
+
+        result.elapsedMillis = System.currentTimeMillis() - start;
+        logger.info("Crawl completed: {} - scanned: {}, unchanged: {}, filtered: {}, ingested: {}, failed: {}, deleted: {}, {} ms",
+                root, result.scanned.get(), result.unchanged.get(), result.filtered.get(), result.ingested.get(),
+                result.failed.get(), result.deleted.get(), result.elapsedMillis);
+        return result;
+    }
+
+    private void processFile(Path file, String key, long size, long modified, ManifestEntry previous,
+                             boolean checkMimeType, List<String> mimeTypes, Map<String, ManifestEntry> manifest,
+                             CrawlSink sink, CrawlResult result) {
+        try {
+            if (checkMimeType && !matchesMimeType(file, mimeTypes)) {
+                result.filtered.incrementAndGet();
+                return;
+            }
+
+            // Touched but identical content: refresh size and mtime only
+            String hash = ContentHashUtil.sha256(file);
+            if (previous != null && hash.equals(previous.hash)) {
+                manifest.put(key, new ManifestEntry(size, modified, hash));
+                result.unchanged.incrementAndGet();
+                return;
+            }
+
+            IngestionJobService.JobDocument document;
+            long threshold = properties.getIngestion().getStreamingThresholdBytes();
+            if (threshold > 0 && size >= threshold) {
+                document = IngestionJobService.JobDocument.fromFile(file);
+            } else {
+                Document loaded = documentLoaderService.loadFromFile(file);
+                if (!documentLoaderService.validateDocument(loaded)) {
+                    result.filtered.incrementAndGet();
+                    return;
+                }
+                document = IngestionJobService.JobDocument.from(loaded.metadata().get("source"), loaded);
+            }
+            sink.accept(document, () -> {
+                manifest.put(key, new ManifestEntry(size, modified, hash));
+                result.ingested.incrementAndGet();
+            });
+        } catch (Exception e) {
+            logger.warn("Failed to crawl {}: {}", file, e.getMessage());
+            result.failed.incrementAndGet();
+        }
+    }
+
+    /**
+     * The real path of the root, which must lie under one of the allowed roots
+     */
+    private static Path checkAllowed(Path root, List<String> allowedRoots) {
+        try {
+            Path real = root.toRealPath();
+            for (String allowed : allowedRoots) {
+                if (allowed == null || allowed.isBlank()) {
+                    continue;
+                }
+                Path allowedPath = Path.of(allowed.trim());
+                if (Files.isDirectory(allowedPath) && real.startsWith(allowedPath.toRealPath())) {
+                    return real;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot resolve crawl root " + root, e);
+        }
+        throw new IllegalArgumentException("Directory is not under an allowed crawl root: " + root);
+    }
+
+    private boolean matchesMimeType(Path file, List<String> mimeTypes) throws IOException {
+        String detected = tika.detect(file).toLowerCase(Locale.ROOT);
+        return mimeTypes.stream().anyMatch(mimeType -> mimeType.endsWith("/")
+                ? detected.startsWith(mimeType)
+                : detected.equals(mimeType) || detected.startsWith(mimeType + ";"));
+    }
+
+    private static String extension(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isUnder(String path, String root) {
+        return path.equals(root) || path.startsWith(root.endsWith(File.separator) ? root : root + File.separator);
+    }
+
+    // Manifest
+
+    private Map<String, ManifestEntry> readManifest(Path path) {
+        Map<String, ManifestEntry> manifest = new ConcurrentHashMap<>();
+        if (!Files.exists(path)) {
+            return manifest;
+        }
+        try {
+            Map<String, List<Object>> stored = objectMapper.readValue(path.toFile(),
+                    new TypeReference<Map<String, List<Object>>>() {});
+            stored.forEach((file, values) -> manifest.put(file, new ManifestEntry(
+                    ((Number) values.get(0)).longValue(), ((Number) values.get(1)).longValue(), (String) values.get(2))));
+        } catch (Exception e) {
+            logger.warn("Unreadable crawl manifest {}, starting a full crawl: {}", path, e.getMessage());
+        }
+        return manifest;
+    }
+
+    /**
+     * Written as {path: [size, mtime, hash]} to a temporary file and moved into place
+     */
+    private void writeManifest(Path path, Map<String, ManifestEntry> manifest) {
+        Map<String, List<Object>> stored = new TreeMap<>();
+        manifest.forEach((file, entry) -> stored.put(file, List.of(entry.size, entry.modified, entry.hash)));
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            objectMapper.writeValue(temporary.toFile(), stored);
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Failed to write crawl manifest {}", path, e);
+        }
+    }
+
+    // Inner data classes
+
+    /**
+     * Receives crawled documents; {@code accepted} is run once the document is durably queued, which records the
+     * file in the manifest. A sink that buffers documents hands the rest over in {@link #flush()}.
+     */
+    public interface CrawlSink {
+        void accept(IngestionJobService.JobDocument document, Runnable accepted);
+
+        default void flush() {
+        }
+    }
+
+    private static class ManifestEntry {
+        final long size;
+        final long modified;
+        final String hash;
+
+        ManifestEntry(long size, long modified, String hash) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+        }
+    }
+
+    public static class CrawlResult {
+        private final String root;
+        private final AtomicInteger scanned = new AtomicInteger();
+        private final AtomicInteger unchanged = new AtomicInteger();
+        private final AtomicInteger filtered = new AtomicInteger();
+        private final AtomicInteger ingested = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger deleted = new AtomicInteger();
+        private final List<String> jobIds = new ArrayList<>();
+        private long elapsedMillis;
+
+        CrawlResult(String root) {
+            this.root = root;
+        }
+
+        public String getRoot() { return root; }
+        public int getScanned() { return scanned.get(); }
+        public int getUnchanged() { return unchanged.get(); }
+        public int getFiltered() { return filtered.get(); }
+        public int getIngested() { return ingested.get(); }
+        public int getFailed() { return failed.get(); }
+        public int getDeleted() { return deleted.get(); }
+        public List<String> getJobIds() { return jobIds; }
+        public long getElapsedMillis() { return elapsedMillis; }
+    }
+}
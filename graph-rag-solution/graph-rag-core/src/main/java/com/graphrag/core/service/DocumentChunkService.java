@@ -0,0 +1,361 @@
+package com.graphrag.core.service;
+
+import com.graphrag.common.config.GraphRagProperties;
+import com.graphrag.core.model.TextSpan;
+import com.graphrag.core.utils.ContentHashUtil;
+import com.graphrag.data.entity.DocumentNode;
+import com.graphrag.data.service.DocumentService;
+import com.graphrag.data.service.GraphService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Document Chunk Service
+ * Tracks the chunks of each ingested document by content hash so re-ingestion only extracts what changed,
+ * and stores each chunk's offsets, text and embedding so retrieval can fetch chunks instead of whole documents
+ */
+@Service
+public class DocumentChunkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentChunkService.class);
+
+    @Autowired
+    private GraphService graphService;
+
+    @Autowired
+    private EmbeddingService embeddingService;
+
+    @Autowired
+    private GraphRagProperties properties;
+
+    @Autowired
+    private NearDuplicateService nearDuplicateService;
+
+    @Autowired
+    private DocumentService documentService;
+
+    /**
+     * Diff the document's current chunks against the chunks stored by the previous ingestion.
+     * Spans carry their offsets into the document text, so chunks map back to the source without searching it.
+     */
+    public ChunkPlan planChunks(DocumentNode documentNode, List<TextSpan> spans) {
+        Map<String, Chunk> current = new LinkedHashMap<>();
+        for (int i = 0; i < spans.size(); i++) {
+            TextSpan span = spans.get(i);
+            String hash = ContentHashUtil.sha256(span);
+            current.putIfAbsent(hash, new Chunk(hash, i, span.getStart(), span.getEnd(), span));
+        }
+
+        Set<String> stored = new HashSet<>(graphService.findChunkHashes(documentNode.getId()));
+
+        List<Chunk> changed = new ArrayList<>();
+        List<Chunk> unchanged = new ArrayList<>();
+        for (Chunk chunk : current.values()) {
+            (stored.contains(chunk.hash) ? unchanged : changed).add(chunk);
+        }
+        List<String> removed = stored.stream()
+                .filter(hash -> !current.containsKey(hash))
+                .collect(Collectors.toList());
+
+        // Changed chunks that nearly duplicate already-extracted content skip extraction
+        List<NearDuplicateService.ChunkDuplicate> duplicates = List.of();
+        NearDuplicateService.DocumentDuplicate documentDuplicate = null;
+        if (nearDuplicateService.isEnabled() && documentNode.getUid() != null && !changed.isEmpty()) {
+            documentDuplicate = nearDuplicateService.findDuplicateDocument(documentNode.getUid(),
+                    documentNode.getContent() != null ? documentNode.getContent() : "");
+            duplicates = existingSources(nearDuplicateService.findDuplicateChunks(documentNode.getUid(), changed));
+            Set<Chunk> duplicated = duplicates.stream()
+                    .map(NearDuplicateService.ChunkDuplicate::getChunk)
+                    .collect(Collectors.toSet());
+            changed.removeIf(duplicated::contains);
+        }
+
+        logger.info("Chunk diff for document {}: {} unchanged, {} new or changed, {} near-duplicate, {} removed",
+                documentNode.getTitle(), unchanged.size(), changed.size(), duplicates.size(), removed.size());
+        return new ChunkPlan(changed, unchanged, removed, duplicates, documentDuplicate);
+    }
+
+    /**
+     * Duplicates whose source chunk is still in the graph. A source that is gone (its document was deleted or
+     * re-ingested elsewhere) has nothing to link to, so the chunk is extracted normally and the stale key dropped.
+     */
+    private List<NearDuplicateService.ChunkDuplicate> existingSources(List<NearDuplicateService.ChunkDuplicate> duplicates) {
+        if (duplicates.isEmpty()) {
+            return duplicates;
+        }
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (NearDuplicateService.ChunkDuplicate duplicate : duplicates) {
+            rows.add(Map.of("documentUid", duplicate.getSourceDocumentUid(), "hash", duplicate.getSourceHash()));
+        }
+        Set<String> existing = new HashSet<>();
+        for (Map<String, Object> row : graphService.findExistingChunks(rows)) {
+            existing.add(row.get("documentUid") + ":" + row.get("hash"));
+        }
+
+        List<NearDuplicateService.ChunkDuplicate> found = new ArrayList<>();
+        for (NearDuplicateService.ChunkDuplicate duplicate : duplicates) {
+            if (existing.contains(duplicate.getSourceDocumentUid() + ":" + duplicate.getSourceHash())) {
+                found.add(duplicate);
+            } else {
+                nearDuplicateService.removeChunks(duplicate.getSourceDocumentUid(), List.of(duplicate.getSourceHash()));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Delete a document with its chunks and near-duplicate fingerprints
+     */
+    public void deleteDocument(Long documentId) {
+        String uid = documentService.findById(documentId).map(DocumentNode::getUid).orElse(null);
+        documentService.deleteDocument(documentId);
+        if (uid != null) {
+            nearDuplicateService.removeDocument(uid);
+        }
+    }
+
+    /**
+     * Embed chunks that have no embedding yet, with batched embedAll calls
+     */
+    public void embedChunks(List<Chunk> chunks) {
+        List<Chunk> pending = chunks.stream().filter(chunk -> chunk.embedding == null).collect(Collectors.toList());
+        int batchSize = Math.max(1, properties.getIngestion().getEmbedBatchSize());
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            List<Chunk> batch = pending.subList(from, Math.min(pending.size(), from + batchSize));
+            List<List<Double>> embeddings = embeddingService.embedTexts(batch.stream()
+                    .map(chunk -> chunk.text.toString())
+                    .collect(Collectors.toList()));
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).embedding = embeddings.get(i);
+            }
+        }
+    }
+
+    /**
+     * Write chunks of a streamed document as they are cut or extracted; a chunk without an embedding keeps the
+     * stored one
+     */
+    public void writeChunks(DocumentNode documentNode, List<Chunk> chunks) {
+        graphService.mergeChunks(documentNode.getId(),
+                chunks.stream().map(this::chunkRow).collect(Collectors.toList()));
+    }
+
+    /**
+     * Changed chunks whose extraction succeeded
+     */
+    public List<Chunk> extractedChunks(ChunkPlan plan, Set<String> extractedHashes) {
+        return plan.changed.stream()
+                .filter(chunk -> extractedHashes.contains(chunk.hash))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Record kept chunks and successfully extracted ones with their entity mentions, then retract removed chunks.
+     * Chunks whose extraction failed are not recorded, so the next ingestion retries them.
+     */
+    public void applyChunkPlan(DocumentNode documentNode, ChunkPlan plan, Set<String> extractedHashes,
+                               List<Map<String, Object>> mentions) {
+        List<Chunk> extracted = extractedChunks(plan, extractedHashes);
+        boolean linkDuplicates = nearDuplicateService.isLinking() && !plan.duplicates.isEmpty();
+        List<Chunk> linked = linkDuplicates
+                ? plan.duplicates.stream().map(NearDuplicateService.ChunkDuplicate::getChunk).collect(Collectors.toList())
+                : List.of();
+        List<Chunk> toEmbed = new ArrayList<>(extracted);
+        toEmbed.addAll(linked);
+        embedChunks(toEmbed);
+
+        List<Map<String, Object>> chunkRows = new ArrayList<>();
+        for (Chunk chunk : plan.unchanged) {
+            chunkRows.add(chunkRow(chunk));
+        }
+        for (Chunk chunk : toEmbed) {
+            chunkRows.add(chunkRow(chunk));
+        }
+
+        graphService.mergeChunks(documentNode.getId(), chunkRows);
+        graphService.createChunkMentions(documentNode.getId(), mentions);
+        if (linkDuplicates) {
+            // Near duplicates take over their source chunk's entity mentions
+            List<Map<String, Object>> duplicateRows = new ArrayList<>();
+            for (NearDuplicateService.ChunkDuplicate duplicate : plan.duplicates) {
+                Map<String, Object> row = new HashMap<>();
+                row.put("hash", duplicate.getChunk().hash);
+                row.put("sourceDocumentUid", duplicate.getSourceDocumentUid());
+                row.put("sourceHash", duplicate.getSourceHash());
+                row.put("similarity", duplicate.getSimilarity());
+                duplicateRows.add(row);
+            }
+            graphService.linkNearDuplicateChunks(documentNode.getId(), duplicateRows);
+        }
+        if (nearDuplicateService.isLinking() && plan.documentDuplicate != null) {
+            graphService.linkNearDuplicateDocument(documentNode.getId(), plan.documentDuplicate.getSourceDocumentUid(),
+                    plan.documentDuplicate.getSimilarity());
+        }
+        if (!plan.removedHashes.isEmpty()) {
+            graphService.retractChunks(documentNode.getId(), plan.removedHashes);
+        }
+
+        if (nearDuplicateService.isEnabled() && documentNode.getUid() != null) {
+            nearDuplicateService.recordChunks(documentNode.getUid(), extracted);
+            nearDuplicateService.removeChunks(documentNode.getUid(), plan.removedHashes);
+            // A streamed document's content is only its first segment, which would make a misleading fingerprint
+            if (documentNode.getContent() != null && !plan.streamed) {
+                nearDuplicateService.recordDocument(documentNode.getUid(), documentNode.getContent());
+            }
+        }
+    }
+
+    /**
+     * Chunks most similar to the query, restricted to the given documents when any are passed
+     */
+    public List<ChunkMatch> findRelevantChunks(List<Double> queryVector, List<DocumentNode> documents, int limit) {
+        List<Long> documentIds = documents == null || documents.isEmpty() ? null
+                : documents.stream().map(DocumentNode::getId).filter(Objects::nonNull).collect(Collectors.toList());
+        double threshold = properties.getRetrieval().getChunkThreshold();
+
+        List<ChunkMatch> matches = new ArrayList<>();
+        for (Map<String, Object> row : graphService.findSimilarChunks(queryVector, documentIds, threshold, limit)) {
+            matches.add(new ChunkMatch(
+                    (Long) row.get("documentId"),
+                    (String) row.get("title"),
+                    (String) row.get("source"),
+                    (String) row.get("hash"),
+                    row.get("chunkIndex") != null ? ((Number) row.get("chunkIndex")).intValue() : -1,
+                    row.get("startOffset") != null ? ((Number) row.get("startOffset")).intValue() : -1,
+                    row.get("endOffset") != null ? ((Number) row.get("endOffset")).intValue() : -1,
+                    (String) row.get("text"),
+                    ((Number) row.get("similarity")).doubleValue()));
+        }
+        logger.debug("Chunk similarity search returned {} chunk(s)", matches.size());
+        return matches;
+    }
+
+    private Map<String, Object> chunkRow(Chunk chunk) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("hash", chunk.hash);
+        row.put("index", chunk.index);
+        row.put("start", chunk.startOffset);
+        row.put("end", chunk.endOffset);
+        row.put("text", chunk.text.toString());
+        row.put("embedding", chunk.embedding);
+        return row;
+    }
+
+    /**
+     * One chunk of a document, identified by the hash of its text
+     */
+    public static class Chunk {
+        private final String hash;
+        private final int index;
+        private final int startOffset;
+        private final int endOffset;
+        private final CharSequence text;
+        private volatile List<Double> embedding;
+
+        public Chunk(String hash, int index, int startOffset, int endOffset, CharSequence text) {
+            this.hash = hash;
+            this.index = index;
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.text = text;
+        }
+
+        // Getters
+        public String getHash() { return hash; }
+        public int getIndex() { return index; }
+        public int getStartOffset() { return startOffset; }
+        public int getEndOffset() { return endOffset; }
+        public CharSequence getText() { return text; }
+        public List<Double> getEmbedding() { return embedding; }
+    }
+
+    /**
+     * A stored chunk returned by similarity search
+     */
+    public static class ChunkMatch {
+        private final Long documentId;
+        private final String title;
+        private final String source;
+        private final String hash;
+        private final int chunkIndex;
+        private final int startOffset;
+        private final int endOffset;
+        private final String text;
+        private final double score;
+
+        public ChunkMatch(Long documentId, String title, String source, String hash, int chunkIndex,
+                          int startOffset, int endOffset, String text, double score) {
+            this.documentId = documentId;
+            this.title = title;
+            this.source = source;
+            this.hash = hash;
+            this.chunkIndex = chunkIndex;
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.text = text;
+            this.score = score;
+        }
+
+        // Getters
+        public Long getDocumentId() { return documentId; }
+        public String getTitle() { return title; }
+        public String getSource() { return source; }
+        public String getHash() { return hash; }
+        public int getChunkIndex() { return chunkIndex; }
+        public int getStartOffset() { return startOffset; }
+        public int getEndOffset() { return endOffset; }
+        public String getText() { return text; }
+        public double getScore() { return score; }
+    }
+
+    /**
+     * Result of diffing a document's chunks against the stored ones
+     */
+    public static class ChunkPlan {
+        private final List<Chunk> changed;
+        private final List<Chunk> unchanged;
+        private final List<String> removedHashes;
+        private final List<NearDuplicateService.ChunkDuplicate> duplicates;
+        private final NearDuplicateService.DocumentDuplicate documentDuplicate;
+        private final boolean streamed;
+
+        public ChunkPlan(List<Chunk> changed, List<Chunk> unchanged, List<String> removedHashes,
+                         List<NearDuplicateService.ChunkDuplicate> duplicates,
+                         NearDuplicateService.DocumentDuplicate documentDuplicate) {
+            this(changed, unchanged, removedHashes, duplicates, documentDuplicate, false);
+        }
+
+        private ChunkPlan(List<Chunk> changed, List<Chunk> unchanged, List<String> removedHashes,
+                          List<NearDuplicateService.ChunkDuplicate> duplicates,
+                          NearDuplicateService.DocumentDuplicate documentDuplicate, boolean streamed) {
+            this.changed = changed;
+            this.unchanged = unchanged;
+            this.removedHashes = removedHashes;
+            this.duplicates = duplicates;
+            this.documentDuplicate = documentDuplicate;
+            this.streamed = streamed;
+        }
+
+        /**
+         * Plan for a streamed document: its chunks were written as they streamed in, only removals are left.
+         * Streamed documents skip near-duplicate detection.
+         */
+        public static ChunkPlan streamed(List<String> removedHashes) {
+            return new ChunkPlan(List.of(), List.of(), removedHashes, List.of(), null, true);
+        }
+
+        // Getters
+        public List<Chunk> getChanged() { return changed; }
+        public List<Chunk> getUnchanged() { return unchanged; }
+        public List<String> getRemovedHashes() { return removedHashes; }
+        public List<NearDuplicateService.ChunkDuplicate> getDuplicates() { return duplicates; }
+        public NearDuplicateService.DocumentDuplicate getDocumentDuplicate() { return documentDuplicate; }
+        public boolean isStreamed() { return streamed; }
+        public boolean hasChanges() { return !changed.isEmpty() || !removedHashes.isEmpty() || !duplicates.isEmpty(); }
+    }
+}
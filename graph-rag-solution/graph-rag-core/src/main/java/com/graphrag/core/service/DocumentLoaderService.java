@@ -4,7 +4,10 @@ import dev.langchain4j.data.document.Document;
 import dev.langchain4j.data.document.DocumentParser;
 import dev.langchain4j.data.document.Metadata;
 import dev.langchain4j.data.document.parser.TextDocumentParser;
+import dev.langchain4j.data.segment.TextSegment;
 import org.apache.tika.Tika;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.multipart.MultipartFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,11 +16,14 @@ import org.springframework.stereotype.Service;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 文档加载服務
@@ -27,8 +33,20 @@ public class DocumentLoaderService {
 
     private static final Logger logger = LoggerFactory.getLogger(DocumentLoaderService.class);
 
+    // 流式分割的塊大小與重疊
+    private static final int STREAMING_CHUNK_SIZE = 2000;
+    private static final int STREAMING_OVERLAP = 300;
+
     private final Tika tika = new Tika();
 
+    @Autowired
+    private TextSplitterService textSplitterService;
+
+    public DocumentLoaderService() {
+        // 取消 Tika 默認 100k 字符的寫入上限，避免長文檔被靜默截斷
+        tika.setMaxStringLength(-1);
+    }
+
     /**
      * 從文件路徑加載文檔
      */
@@ -103,6 +121,42 @@ public class DocumentLoaderService {
         }
     }
 
+    /**
+     * 流式加載文件：經 Tika 的 Reader 邊解析邊分割，片段逐個交給 sink，不在內存中保留全文
+     *
+     * @return 片段數量
+     */
+    public int loadStreaming(Path filePath, Consumer<TextSegment> sink) {
+        try (InputStream is = Files.newInputStream(filePath)) {
+            return loadStreaming(is, filePath.toString(), sink);
+        } catch (IOException e) {
+            logger.error("流式加載文件失敗: {}", filePath, e);
+            throw new RuntimeException("文件加載失敗", e);
+        }
+    }
+
+    /**
+     * 流式加載輸入流，片段元數據包含 source 及在全文中的字符偏移
+     *
+     * @return 片段數量
+     */
+    public int loadStreaming(InputStream inputStream, String source, Consumer<TextSegment> sink) {
+        org.apache.tika.metadata.Metadata tikaMetadata = new org.apache.tika.metadata.Metadata();
+        tikaMetadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, source);
+        Metadata metadata = new Metadata();
+        metadata.add("source", source);
+
+        try (Reader reader = tika.parse(inputStream, tikaMetadata)) {
+            int segments = textSplitterService.splitStreaming(reader, STREAMING_CHUNK_SIZE, STREAMING_OVERLAP,
+                    metadata, sink);
+            logger.info("流式加載文檔成功: {}, 片段數量: {}", source, segments);
+            return segments;
+        } catch (IOException e) {
+            logger.error("流式加載文檔失敗: {}", source, e);
+            throw new RuntimeException("文檔加載失敗", e);
+        }
+    }
+
     /**
      * 從文本創建文檔
      */
@@ -1,18 +1,24 @@
 package com.graphrag.core.service;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.graphrag.common.config.GraphRagProperties;
+import com.graphrag.core.model.TextSpan;
+import com.graphrag.core.utils.ContentHashUtil;
+import com.graphrag.core.utils.EntityNameUtil;
 import com.graphrag.data.entity.DocumentNode;
 import com.graphrag.data.entity.EntityNode;
 import com.graphrag.data.service.DocumentService;
 import com.graphrag.data.service.EntityService;
 import com.graphrag.data.service.GraphService;
 import dev.langchain4j.data.document.Document;
-import dev.langchain4j.data.segment.TextSegment;
-import dev.langchain4j.model.chat.ChatLanguageModel;
 import dev.langchain4j.model.input.Prompt;
 import dev.langchain4j.model.input.PromptTemplate;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,13 +40,16 @@ public class EnhancedKnowledgeGraphService {
     private static final Logger logger = LoggerFactory.getLogger(EnhancedKnowledgeGraphService.class);
 
     @Autowired
-    private ChatLanguageModel chatLanguageModel;
+    private LlmGateway llmGateway;
 
     @Autowired
     private EmbeddingService embeddingService;
 
     @Autowired
-    private TextSplitterService textSplitterService;
+    private EntityResolutionService entityResolutionService;
+
+    @Autowired
+    private TokenTextSplitterService tokenTextSplitterService;
 
     @Autowired
     private DocumentService documentService;
@@ -51,9 +60,25 @@ public class EnhancedKnowledgeGraphService {
     @Autowired
     private GraphService graphService;
 
+    @Autowired
+    private GraphRagProperties properties;
+
+    @Autowired
+    private DocumentChunkService documentChunkService;
+
     private final ExecutorService executorService = Executors.newFixedThreadPool(5);
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    /** Validation results by normalised name and type; an empty value means the entity was rejected */
+    private Cache<String, Optional<ValidationResponse>> validationCache;
+
+    @PostConstruct
+    void initValidationCache() {
+        validationCache = CacheBuilder.newBuilder()
+            .maximumSize(properties.getIngestion().getValidationCacheSize())
+            .build();
+    }
+
     // Improved entity and relationship extraction prompt template - using JSON format output
     private static final PromptTemplate ENHANCED_EXTRACTION_TEMPLATE = PromptTemplate.from("""
             You are a professional knowledge graph construction expert. Please extract entities and relationships from the following text and output in JSON format.
@@ -113,20 +138,23 @@ public class EnhancedKnowledgeGraphService {
             4. Relationship direction: directed or undirected
             """);
 
-    // Entity type validation and standardization prompt
+    // Entity type validation and standardization prompt, one call per batch of entities
     private static final PromptTemplate ENTITY_VALIDATION_TEMPLATE = PromptTemplate.from("""
-            Please validate and standardize the following entity information:
+            Please validate and standardize each of the following entities:
             
-            Entity Name: {{entity_name}}
-            Current Type: {{current_type}}
-            Description: {{description}}
+            {{entities}}
             
-            Please output standardized JSON format:
+            Please output standardized JSON format with one result per entity, keeping its index:
             {
-              "standardized_name": "Standardized Name",
-              "verified_type": "Verified Type",
-              "enhanced_description": "Enhanced Description",
-              "confidence": 0.9
+              "entities": [
+                {
+                  "index": 0,
+                  "standardized_name": "Standardized Name",
+                  "verified_type": "Verified Type",
+                  "enhanced_description": "Enhanced Description",
+                  "confidence": 0.9
+                }
+              ]
             }
             
             If entity information has issues, set confidence < 0.5
@@ -139,75 +167,70 @@ public class EnhancedKnowledgeGraphService {
         return CompletableFuture.supplyAsync(() -> {
             logger.info("Starting to build enhanced knowledge graph, source: {}", document.metadata().get("source"));
 
-            try {
-                // 1. Save document to database
-                DocumentNode documentNode = saveDocumentToDatabase(document);
-
-                // 2. Split document
-                List<TextSegment> segments = textSplitterService.splitDocumentOptimized(document);
-                logger.info("Document splitting completed, generated {} segments", segments.size());
+            // 1. Save document to database
+            DocumentNode documentNode = saveDocumentToDatabase(document);
 
-                // 3. Process all segments in parallel
-                List<CompletableFuture<ExtractionResult>> futures = segments.stream()
-                    .map(segment -> extractEntitiesAndRelationsAsync(segment, documentNode))
-                    .collect(Collectors.toList());
+            // 2. Split document and diff chunk hashes against the previous ingestion
+            List<TextSpan> spans = tokenTextSplitterService.split(document.text());
+            logger.info("Document splitting completed, generated {} segments", spans.size());
+            return new SplitDocument(documentNode, documentChunkService.planChunks(documentNode, spans));
 
-                // 4. Collect all results
-                List<ExtractionResult> results = futures.stream()
-                    .map(CompletableFuture::join)
-                    .collect(Collectors.toList());
-
-                // 5. Merge and deduplicate entities
-                mergeAndDeduplicateEntities(results, documentNode);
-
-                // 6. Generate document embedding
-                generateDocumentEmbedding(documentNode);
-
-                logger.info("Enhanced knowledge graph construction completed, document: {}", documentNode.getTitle());
-                return documentNode;
-
-            } catch (Exception e) {
-                logger.error("Failed to build enhanced knowledge graph", e);
-                throw new RuntimeException("Enhanced knowledge graph construction failed", e);
+        }, executorService).thenCompose(split -> {
+            if (!split.plan.hasChanges()) {
+                logger.info("Document unchanged since last ingestion, skipping extraction: {}", split.documentNode.getTitle());
+                return CompletableFuture.completedFuture(split.documentNode);
             }
-        }, executorService);
+
+            // 3. Process new or changed chunks in parallel; completion is composed rather than joined,
+            // so no pool thread blocks waiting for segment tasks queued behind it
+            List<CompletableFuture<ExtractionResult>> futures = split.plan.getChanged().stream()
+                .map(this::extractEntitiesAndRelationsAsync)
+                .collect(Collectors.toList());
+
+            return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApplyAsync(ignored -> {
+                    // 4. Collect all results
+                    List<ExtractionResult> results = futures.stream()
+                        .map(CompletableFuture::join)
+                        .collect(Collectors.toList());
+
+                    // 5. Merge mentions across segments, then validate, embed and write unique entities once
+                    resolveAndPersistEntities(results, split.documentNode, split.plan);
+
+                    // 6. Generate document embedding
+                    generateDocumentEmbedding(split.documentNode);
+
+                    logger.info("Enhanced knowledge graph construction completed, document: {}", split.documentNode.getTitle());
+                    return split.documentNode;
+                }, executorService);
+
+        }).exceptionally(e -> {
+            logger.error("Failed to build enhanced knowledge graph", e);
+            throw new RuntimeException("Enhanced knowledge graph construction failed", e);
+        });
     }
 
     /**
      * Extract entities and relationships asynchronously
      */
-    private CompletableFuture<ExtractionResult> extractEntitiesAndRelationsAsync(
-            TextSegment segment, DocumentNode documentNode) {
+    private CompletableFuture<ExtractionResult> extractEntitiesAndRelationsAsync(DocumentChunkService.Chunk chunk) {
         return CompletableFuture.supplyAsync(() -> {
             try {
                 // Use enhanced LLM extraction
-                Prompt prompt = ENHANCED_EXTRACTION_TEMPLATE.apply(Map.of("text", segment.text()));
-                String response = chatLanguageModel.generate(prompt.text());
+                Prompt prompt = ENHANCED_EXTRACTION_TEMPLATE.apply(Map.of("text", chunk.getText().toString()));
+                String response = llmGateway.generate(prompt.text(), LlmGateway.Lane.BACKGROUND);
 
-                // Parse JSON response
+                // Parse JSON response; only a successful extraction is attributed to its chunk
                 ExtractionResult result = parseEnhancedExtractionResponse(response);
+                result.chunkHash = chunk.getHash();
 
-                // Validate and standardize entities
-                List<ValidatedEntity> validatedEntities = validateEntities(result.entities);
-
-                // Process entities
-                List<EntityNode> processedEntities = processEntities(validatedEntities, documentNode);
-
-                // Process relationships
-                processRelationships(result.relationships, processedEntities);
-
-                logger.debug("Segment processing completed - Entities: {}, Relationships: {}", 
-                    processedEntities.size(), result.relationships.size());
-
-                return new ExtractionResult(
-                    result.entities, 
-                    result.relationships, 
-                    processedEntities
-                );
+                logger.debug("Segment extraction completed - Entities: {}, Relationships: {}",
+                    result.entities.size(), result.relationships.size());
+                return result;
 
             } catch (Exception e) {
                 logger.error("Failed to extract entities and relationships asynchronously", e);
-                return new ExtractionResult(Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+                return new ExtractionResult(Collections.emptyList(), Collections.emptyList());
             }
         }, executorService);
     }
@@ -227,7 +250,7 @@ public class EnhancedKnowledgeGraphService {
             List<EnhancedRelationInfo> relationships = extractionResponse.relationships != null ? 
                 extractionResponse.relationships : Collections.emptyList();
 
-            return new ExtractionResult(entities, relationships, Collections.emptyList());
+            return new ExtractionResult(entities, relationships);
 
         } catch (JsonProcessingException e) {
             logger.warn("JSON parsing failed, falling back to text parsing: {}", e.getMessage());
@@ -256,142 +279,328 @@ public class EnhancedKnowledgeGraphService {
     private ExtractionResult parseTextExtractionResponse(String response) {
         // Use original text parsing logic as fallback
         logger.info("Using text parsing as fallback");
-        return new ExtractionResult(Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+        return new ExtractionResult(Collections.emptyList(), Collections.emptyList());
     }
 
     /**
      * Validate entity information
+     * Entities already validated (memoised or marked in the graph) skip the LLM; the rest are validated
+     * in batches of validation-batch-size entities per prompt.
      */
-    private List<ValidatedEntity> validateEntities(List<EnhancedEntityInfo> entities) {
-        return entities.stream()
-            .filter(entity -> entity.importance > 0.5) // Only keep high importance entities
-            .map(this::validateSingleEntity)
-            .filter(Objects::nonNull)
+    private Map<EnhancedEntityInfo, ValidatedEntity> validateEntities(List<EnhancedEntityInfo> entities) {
+        Map<String, EnhancedEntityInfo> candidates = new LinkedHashMap<>();
+        for (EnhancedEntityInfo entity : entities) {
+            if (entity.importance > 0.5 && entity.name != null && !entity.name.isBlank()) { // Only keep high importance entities
+                candidates.putIfAbsent(validationKey(entity.name, entity.type), entity);
+            }
+        }
+
+        List<String> pending = candidates.keySet().stream()
+            .filter(key -> validationCache.getIfPresent(key) == null)
             .collect(Collectors.toList());
+
+        if (!pending.isEmpty()) {
+            lookupValidatedInGraph(pending, candidates);
+            pending.removeIf(key -> validationCache.getIfPresent(key) != null);
+        }
+
+        int batchSize = Math.max(1, properties.getIngestion().getValidationBatchSize());
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            validateBatch(pending.subList(from, Math.min(pending.size(), from + batchSize)), candidates);
+        }
+
+        logger.debug("Entity validation - candidates: {}, validated by LLM: {}, LLM calls: {}",
+            candidates.size(), pending.size(), (pending.size() + batchSize - 1) / batchSize);
+
+        Map<EnhancedEntityInfo, ValidatedEntity> validatedEntities = new LinkedHashMap<>();
+        for (EnhancedEntityInfo entity : entities) {
+            if (entity.importance <= 0.5 || entity.name == null || entity.name.isBlank()) {
+                continue;
+            }
+            Optional<ValidationResponse> validation = validationCache.getIfPresent(validationKey(entity.name, entity.type));
+            if (validation != null && validation.isPresent()) {
+                ValidationResponse response = validation.get();
+                // Fields the LLM left out keep the extracted values, so names and MERGE keys are never null
+                validatedEntities.put(entity, new ValidatedEntity(
+                    orElse(response.standardizedName, entity.name),
+                    orElse(response.verifiedType, entity.type),
+                    orElse(response.enhancedDescription, entity.description),
+                    response.confidence,
+                    entity.aliases
+                ));
+            }
+        }
+        return validatedEntities;
     }
 
     /**
-     * Validate single entity
+     * Reuse entities that an earlier run already validated and wrote to the graph
      */
-    private ValidatedEntity validateSingleEntity(EnhancedEntityInfo entity) {
+    private void lookupValidatedInGraph(List<String> keys, Map<String, EnhancedEntityInfo> candidates) {
         try {
-            Prompt prompt = ENTITY_VALIDATION_TEMPLATE.apply(Map.of(
-                "entity_name", entity.name,
-                "current_type", entity.type,
-                "description", entity.description != null ? entity.description : ""
-            ));
-
-            String response = chatLanguageModel.generate(prompt.text());
-            String jsonText = extractJsonFromResponse(response);
-            
-            ValidationResponse validation = objectMapper.readValue(jsonText, ValidationResponse.class);
-            
-            if (validation.confidence > 0.5) {
-                return new ValidatedEntity(
-                    validation.standardizedName,
-                    validation.verifiedType,
-                    validation.enhancedDescription,
-                    validation.confidence,
-                    entity.aliases
-                );
+            List<EntityNode> lookups = keys.stream()
+                .map(candidates::get)
+                .map(entity -> new EntityNode(entity.name, entity.type))
+                .collect(Collectors.toList());
+
+            for (Map<String, Object> row : graphService.findValidatedEntities(lookups)) {
+                ValidationResponse response = new ValidationResponse();
+                response.standardizedName = (String) row.get("name");
+                response.verifiedType = (String) row.get("type");
+                response.enhancedDescription = (String) row.get("description");
+                response.confidence = 1.0;
+                validationCache.put(validationKey(response.standardizedName, response.verifiedType), Optional.of(response));
             }
-            
         } catch (Exception e) {
-            logger.warn("Entity validation failed: {}", entity.name, e);
+            logger.warn("Failed to look up validated entities in graph", e);
         }
-        
-        return null;
     }
 
     /**
-     * Process entities
+     * Validate a batch of entities with a single LLM call
      */
-    private List<EntityNode> processEntities(List<ValidatedEntity> validatedEntities, DocumentNode documentNode) {
-        List<EntityNode> processedEntities = new ArrayList<>();
+    private void validateBatch(List<String> keys, Map<String, EnhancedEntityInfo> candidates) {
+        try {
+            StringBuilder entityList = new StringBuilder();
+            for (int i = 0; i < keys.size(); i++) {
+                EnhancedEntityInfo entity = candidates.get(keys.get(i));
+                entityList.append(i).append(". Entity Name: ").append(entity.name)
+                    .append(" | Current Type: ").append(entity.type)
+                    .append(" | Description: ").append(entity.description != null ? entity.description : "")
+                    .append("\n");
+            }
 
-        for (ValidatedEntity validatedEntity : validatedEntities) {
-            try {
-                // Find or create entity
-                EntityNode entity = entityService.findOrCreateEntity(
-                    validatedEntity.name, 
-                    validatedEntity.type
-                );
-                
-                // Update entity information
-                entity.setDescription(validatedEntity.description);
-                
-                // Generate entity embedding
-                String embeddingText = String.format("%s %s %s", 
-                    validatedEntity.name, 
-                    validatedEntity.type, 
-                    validatedEntity.description);
-                
-                List<Double> embedding = embeddingService.embedText(embeddingText);
-                entity.setEmbedding(embedding);
-                
-                // Save entity
-                EntityNode savedEntity = entityService.saveEntity(entity);
-                processedEntities.add(savedEntity);
-                
-                // Create document-entity relationship
-                graphService.createDocumentEntityRelationship(
-                    documentNode.getId(), 
-                    savedEntity.getName(), 
-                    savedEntity.getType()
-                );
-                
-            } catch (Exception e) {
-                logger.error("Failed to process entity: {}", validatedEntity.name, e);
+            Prompt prompt = ENTITY_VALIDATION_TEMPLATE.apply(Map.of("entities", entityList.toString()));
+            String response = llmGateway.generate(prompt.text(), LlmGateway.Lane.BACKGROUND);
+            String jsonText = extractJsonFromResponse(response);
+
+            BatchValidationResponse validations = objectMapper.readValue(jsonText, BatchValidationResponse.class);
+            if (validations.entities == null) {
+                return;
             }
+
+            for (ValidationResponse validation : validations.entities) {
+                if (validation.index < 0 || validation.index >= keys.size()) {
+                    continue;
+                }
+                validationCache.put(keys.get(validation.index),
+                    validation.confidence > 0.5 ? Optional.of(validation) : Optional.empty());
+            }
+
+        } catch (Exception e) {
+            logger.warn("Entity batch validation failed, batch size: {}", keys.size(), e);
         }
+    }
 
-        return processedEntities;
+    private static String orElse(String value, String fallback) {
+        return value != null && !value.isBlank() ? value : fallback;
     }
 
     /**
-     * Process relationships
+     * Memo key: case-folded, whitespace-collapsed name and type
      */
-    private void processRelationships(List<EnhancedRelationInfo> relationships, List<EntityNode> entities) {
-        Map<String, String> entityTypeMap = entities.stream()
-            .collect(Collectors.toMap(EntityNode::getName, EntityNode::getType, (a, b) -> a));
+    private String validationKey(String name, String type) {
+        return EntityNameUtil.key(name, type);
+    }
 
-        for (EnhancedRelationInfo relation : relationships) {
-            try {
-                if (relation.confidence > 0.7) { // Only keep high confidence relationships
-                    String sourceType = entityTypeMap.getOrDefault(relation.source, "UNKNOWN");
-                    String targetType = entityTypeMap.getOrDefault(relation.target, "UNKNOWN");
-                    
-                    graphService.createRelationship(
-                        relation.source, sourceType,
-                        relation.target, targetType,
-                        relation.relationType, 
-                        relation.description, 
-                        relation.confidence
-                    );
+    /**
+     * Document-level entity resolution
+     * Merges mentions from all segments by normalised name, type and aliases, validates and embeds each unique
+     * entity once, and writes entities, document links and relationships in batch
+     */
+    private void resolveAndPersistEntities(List<ExtractionResult> results, DocumentNode documentNode,
+                                           DocumentChunkService.ChunkPlan plan) {
+        // 1. Merge mentions
+        List<EnhancedEntityInfo> mergedEntities = new ArrayList<>();
+        Map<String, EnhancedEntityInfo> mergedByKey = new HashMap<>();
+        int mentionCount = 0;
+        for (ExtractionResult result : results) {
+            for (EnhancedEntityInfo mention : result.entities) {
+                if (mention.name == null || mention.name.isBlank()) {
+                    continue;
+                }
+                mentionCount++;
+
+                EnhancedEntityInfo merged = mentionKeys(mention).stream()
+                    .map(mergedByKey::get)
+                    .filter(Objects::nonNull)
+                    .findFirst()
+                    .orElse(null);
+                if (merged == null) {
+                    merged = new EnhancedEntityInfo();
+                    merged.name = mention.name;
+                    merged.type = mention.type;
+                    merged.description = mention.description;
+                    merged.importance = mention.importance;
+                    merged.aliases = new ArrayList<>();
+                    mergedEntities.add(merged);
+                }
+                mergeMention(merged, mention);
+                for (String key : mentionKeys(merged)) {
+                    mergedByKey.putIfAbsent(key, merged);
                 }
-            } catch (Exception e) {
-                logger.error("Failed to process relationship: {} -> {}", relation.source, relation.target, e);
             }
         }
-    }
 
-    /**
-     * Merge and deduplicate entities
-     */
-    private void mergeAndDeduplicateEntities(List<ExtractionResult> results, DocumentNode documentNode) {
-        Map<String, EntityNode> entityMap = new HashMap<>();
+        // 2. Validate unique entities
+        Map<EnhancedEntityInfo, ValidatedEntity> validatedEntities = validateEntities(mergedEntities);
+
+        // 3. Map every mentioned name and alias to its validated entity, and collect unique nodes
+        Map<String, ValidatedEntity> validatedByName = new HashMap<>();
+        Map<String, EntityNode> entities = new LinkedHashMap<>();
+        Map<String, List<String>> aliasesByKey = new HashMap<>();
+        for (Map.Entry<EnhancedEntityInfo, ValidatedEntity> entry : validatedEntities.entrySet()) {
+            ValidatedEntity validated = entry.getValue();
+            validatedByName.putIfAbsent(EntityNameUtil.normalise(entry.getKey().name), validated);
+            validatedByName.putIfAbsent(EntityNameUtil.normalise(validated.name), validated);
+            for (String alias : entry.getKey().aliases) {
+                validatedByName.putIfAbsent(EntityNameUtil.normalise(alias), validated);
+            }
+            String key = EntityNameUtil.key(validated.name, validated.type);
+            entities.putIfAbsent(key, new EntityNode(validated.name, validated.type, validated.description));
+
+            List<String> aliases = aliasesByKey.computeIfAbsent(key, k -> new ArrayList<>());
+            aliases.add(entry.getKey().name);
+            aliases.addAll(entry.getKey().aliases);
+            aliases.addAll(validated.aliases);
+        }
+
+        // 4. Embed unique entities with batched embedAll calls, resolve them against existing entities,
+        //    then write them in batch
+        List<EntityNode> entityList = new ArrayList<>(entities.values());
+        EntityResolutionService.Resolution resolution = null;
+        try {
+            int batchSize = Math.max(1, properties.getIngestion().getEmbedBatchSize());
+            for (int from = 0; from < entityList.size(); from += batchSize) {
+                List<EntityNode> batch = entityList.subList(from, Math.min(entityList.size(), from + batchSize));
+                List<List<Double>> embeddings = embeddingService.embedTexts(batch.stream()
+                    .map(entity -> String.format("%s %s %s", entity.getName(), entity.getType(), entity.getDescription()))
+                    .collect(Collectors.toList()));
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).setEmbedding(embeddings.get(i));
+                }
+            }
+
+            resolution = entityResolutionService.resolve(entityList, aliasesByKey);
+            List<EntityNode> resolvedEntities = resolution.getEntities();
+            if (!resolvedEntities.isEmpty()) {
+                graphService.mergeEntities(resolvedEntities, true);
+                graphService.createDocumentEntityRelationships(documentNode.getId(), resolvedEntities);
+                entityResolutionService.recordAliases(resolution);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to process entities, count: {}", entityList.size(), e);
+        }
+
+        // 5. Point relationships at the resolved entities and write them in batch
+        Map<String, Map<String, Object>> relationships = new LinkedHashMap<>();
+        for (ExtractionResult result : results) {
+            for (EnhancedRelationInfo relation : result.relationships) {
+                if (relation.confidence <= 0.7) { // Only keep high confidence relationships
+                    continue;
+                }
+                ValidatedEntity source = validatedByName.get(EntityNameUtil.normalise(relation.source));
+                ValidatedEntity target = validatedByName.get(EntityNameUtil.normalise(relation.target));
+
+                Map<String, Object> row = new HashMap<>();
+                row.put("entity1Name", source != null ? source.name : relation.source);
+                row.put("entity1Type", source != null ? typeOrEmpty(source.type) : "UNKNOWN");
+                row.put("entity2Name", target != null ? target.name : relation.target);
+                row.put("entity2Type", target != null ? typeOrEmpty(target.type) : "UNKNOWN");
+                row.put("relationshipType", relation.relationType);
+                row.put("description", relation.description != null ? relation.description : "");
+                row.put("weight", relation.confidence);
+
+                String key = row.get("entity1Name") + "|" + row.get("entity1Type") + "|" + relation.relationType
+                    + "|" + row.get("entity2Name") + "|" + row.get("entity2Type");
+                relationships.merge(key, row, (a, b) ->
+                    ((Double) a.get("weight")) >= ((Double) b.get("weight")) ? a : b);
+            }
+        }
+
+        List<Map<String, Object>> relationshipRows = new ArrayList<>(relationships.values());
+        if (resolution != null) {
+            relationshipRows = resolution.remap(resolution.remap(relationshipRows, "entity1Name", "entity1Type"),
+                "entity2Name", "entity2Type");
+        }
+        try {
+            graphService.createRelationships(relationshipRows);
+        } catch (Exception e) {
+            logger.error("Failed to process relationships, count: {}", relationships.size(), e);
+        }
 
+        // 6. Record chunk mentions of the resolved entities and retract removed chunks
+        Map<String, Map<String, Object>> mentions = new LinkedHashMap<>();
+        Set<String> extractedHashes = new HashSet<>();
         for (ExtractionResult result : results) {
-            // Merge entities
-            for (EntityNode entity : result.processedEntities) {
-                String key = entity.getName() + ":" + entity.getType();
-                if (!entityMap.containsKey(key)) {
-                    entityMap.put(key, entity);
+            if (result.chunkHash == null) {
+                continue;
+            }
+            extractedHashes.add(result.chunkHash);
+            for (EnhancedEntityInfo mention : result.entities) {
+                ValidatedEntity validated = mention.name != null
+                    ? validatedByName.get(EntityNameUtil.normalise(mention.name)) : null;
+                if (validated != null) {
+                    mentions.computeIfAbsent(result.chunkHash + "|" + EntityNameUtil.key(validated.name, validated.type),
+                        key -> {
+                            Map<String, Object> row = new HashMap<>();
+                            row.put("hash", result.chunkHash);
+                            row.put("name", validated.name);
+                            row.put("type", typeOrEmpty(validated.type));
+                            return row;
+                        });
                 }
             }
         }
+        List<Map<String, Object>> mentionRows = new ArrayList<>(mentions.values());
+        if (resolution != null) {
+            mentionRows = resolution.remap(mentionRows, "name", "type");
+        }
+        documentChunkService.applyChunkPlan(documentNode, plan, extractedHashes, mentionRows);
+
+        logger.info("Entity resolution completed - mentions: {}, merged: {}, validated: {}, resolved onto existing: {}, relationships: {}",
+            mentionCount, mergedEntities.size(), entityList.size(), resolution != null ? resolution.getMerged() : 0,
+            relationships.size());
+    }
+
+    /**
+     * Keys a mention can be matched by: its name and each alias, with its type
+     */
+    private List<String> mentionKeys(EnhancedEntityInfo entity) {
+        List<String> keys = new ArrayList<>();
+        keys.add(EntityNameUtil.key(entity.name, entity.type));
+        if (entity.aliases != null) {
+            for (String alias : entity.aliases) {
+                keys.add(EntityNameUtil.key(alias, entity.type));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Fold a mention into the merged entity
+     */
+    private void mergeMention(EnhancedEntityInfo merged, EnhancedEntityInfo mention) {
+        merged.importance = Math.max(merged.importance, mention.importance);
+        if (mention.description != null
+                && (merged.description == null || mention.description.length() > merged.description.length())) {
+            merged.description = mention.description;
+        }
+
+        Set<String> known = new HashSet<>();
+        known.add(EntityNameUtil.normalise(merged.name));
+        merged.aliases.forEach(alias -> known.add(EntityNameUtil.normalise(alias)));
 
-        logger.info("Number of entities after deduplication: {}", entityMap.size());
+        List<String> names = new ArrayList<>();
+        names.add(mention.name);
+        if (mention.aliases != null) {
+            names.addAll(mention.aliases);
+        }
+        for (String name : names) {
+            if (name != null && !name.isBlank() && known.add(EntityNameUtil.normalise(name))) {
+                merged.aliases.add(name);
+            }
+        }
     }
 
     /**
@@ -403,6 +612,7 @@ public class EnhancedKnowledgeGraphService {
         
         DocumentNode documentNode = new DocumentNode(title, document.text(), source);
         documentNode.setMetadata(document.metadata().asMap().toString());
+        documentNode.setContentHash(ContentHashUtil.sha256(document.text()));
         
         return documentService.findOrCreateDocument(documentNode);
     }
@@ -418,6 +628,13 @@ public class EnhancedKnowledgeGraphService {
         return text.substring(0, Math.min(50, text.length())).trim() + "...";
     }
 
+    /**
+     * Untyped entities are merged with an empty type, as in GraphService.mergeEntities
+     */
+    private static String typeOrEmpty(String type) {
+        return type != null ? type : "";
+    }
+
     /**
      * Generate document embedding
      */
@@ -481,7 +698,17 @@ public class EnhancedKnowledgeGraphService {
         public String direction = "directed";
     }
 
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class BatchValidationResponse {
+        @JsonProperty("entities")
+        public List<ValidationResponse> entities;
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
     static class ValidationResponse {
+        @JsonProperty("index")
+        public int index = -1;
+        
         @JsonProperty("standardized_name")
         public String standardizedName;
         
@@ -511,15 +738,24 @@ public class EnhancedKnowledgeGraphService {
         }
     }
 
+    static class SplitDocument {
+        final DocumentNode documentNode;
+        final DocumentChunkService.ChunkPlan plan;
+
+        SplitDocument(DocumentNode documentNode, DocumentChunkService.ChunkPlan plan) {
+            this.documentNode = documentNode;
+            this.plan = plan;
+        }
+    }
+
     static class ExtractionResult {
         final List<EnhancedEntityInfo> entities;
         final List<EnhancedRelationInfo> relationships;
-        final List<EntityNode> processedEntities;
+        String chunkHash;
 
-        ExtractionResult(List<EnhancedEntityInfo> entities, List<EnhancedRelationInfo> relationships, List<EntityNode> processedEntities) {
+        ExtractionResult(List<EnhancedEntityInfo> entities, List<EnhancedRelationInfo> relationships) {
             this.entities = entities != null ? entities : Collections.emptyList();
             this.relationships = relationships != null ? relationships : Collections.emptyList();
-            this.processedEntities = processedEntities != null ? processedEntities : Collections.emptyList();
         }
     }
 
@@ -0,0 +1,553 @@
+package com.graphrag.core.service;
+
+import com.graphrag.common.config.GraphRagProperties;
+import com.graphrag.core.utils.EntityNameUtil;
+import com.graphrag.core.utils.MinHashLsh;
+import com.graphrag.data.entity.EntityNode;
+import com.graphrag.data.service.GraphService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Entity Resolution Service
+ * Maps extracted entities onto existing canonical entities before they are written. Candidates come from the
+ * persisted alias index first, then from MinHash/LSH blocking on name shingles; embedding similarity is only
+ * computed within a block. A background sweep applies the same matching to entities already in the graph and
+ * merges duplicates into the best-connected node, re-pointing their relationships.
+ */
+@Service
+public class EntityResolutionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntityResolutionService.class);
+
+    private static final long LSH_SEED = 42L;
+
+    @Autowired
+    private GraphService graphService;
+
+    @Autowired
+    private EmbeddingService embeddingService;
+
+    @Autowired
+    private GraphRagProperties properties;
+
+    private volatile MinHashLsh<Canonical> index;
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private ScheduledExecutorService sweepExecutor;
+
+    @PostConstruct
+    void init() {
+        GraphRagProperties.EntityResolution config = properties.getEntityResolution();
+        if (config.getEnabled() && config.getSweepIntervalMinutes() > 0) {
+            sweepExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "entity-resolution-sweep");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sweepExecutor.scheduleWithFixedDelay(() -> {
+                try {
+                    sweep();
+                } catch (Exception e) {
+                    logger.error("Entity resolution sweep failed", e);
+                }
+            }, config.getSweepIntervalMinutes(), config.getSweepIntervalMinutes(), TimeUnit.MINUTES);
+        }
+    }
+
+    /**
+     * Resolve a document's entities against the graph. Aliases are extra surface forms keyed by
+     * {@link EntityNameUtil#key}. Falls back to writing the entities as-is if resolution fails.
+     */
+    public Resolution resolve(List<EntityNode> entities, Map<String, List<String>> aliasesByKey) {
+        if (!properties.getEntityResolution().getEnabled() || entities.isEmpty()) {
+            return Resolution.identity(entities);
+        }
+
+        try {
+            MinHashLsh<Canonical> lsh = index();
+
+            // 1. Alias index lookup for every surface form
+            Map<EntityNode, List<String>> surfaces = new LinkedHashMap<>();
+            Set<String> keys = new LinkedHashSet<>();
+            for (EntityNode entity : entities) {
+                List<String> names = new ArrayList<>();
+                names.add(entity.getName());
+                for (String alias : aliasesByKey.getOrDefault(EntityNameUtil.key(entity.getName(), entity.getType()), List.of())) {
+                    if (alias != null && !alias.isBlank() && !names.contains(alias)) {
+                        names.add(alias);
+                    }
+                }
+                surfaces.put(entity, names);
+                names.forEach(name -> keys.add(EntityNameUtil.key(name, entity.getType())));
+            }
+            Map<String, Canonical> aliasTargets = new HashMap<>();
+            for (Map<String, Object> row : graphService.findAliasTargets(new ArrayList<>(keys))) {
+                aliasTargets.put((String) row.get("key"), new Canonical((String) row.get("name"), (String) row.get("type")));
+            }
+
+            // 2. Resolve each entity: alias hit, then LSH block with embedding check, else it is canonical itself
+            Resolution resolution = new Resolution();
+            Map<Canonical, List<Double>> batchEmbeddings = new HashMap<>();
+            for (Map.Entry<EntityNode, List<String>> entry : surfaces.entrySet()) {
+                EntityNode entity = entry.getKey();
+                Canonical self = new Canonical(entity.getName(), entity.getType());
+
+                Canonical target = entry.getValue().stream()
+                        .map(name -> aliasTargets.get(EntityNameUtil.key(name, entity.getType())))
+                        .filter(Objects::nonNull)
+                        .findFirst()
+                        .orElse(null);
+                if (target == null) {
+                    target = findBlockMatch(lsh, self, entity.getEmbedding(), batchEmbeddings);
+                }
+                if (target == null) {
+                    target = self;
+                }
+
+                resolution.add(entity, target, entry.getValue());
+                batchEmbeddings.putIfAbsent(target, entity.getEmbedding());
+                for (String name : entry.getValue()) {
+                    lsh.add(EntityNameUtil.compact(name), target);
+                }
+            }
+
+            if (resolution.merged > 0) {
+                logger.info("Entity resolution mapped {} of {} entities onto existing entities",
+                        resolution.merged, entities.size());
+            }
+            return resolution;
+        } catch (Exception e) {
+            logger.warn("Entity resolution failed, writing entities unresolved: {}", e.getMessage());
+            return Resolution.identity(entities);
+        }
+    }
+
+    /**
+     * Persist the surface forms seen during resolution into the alias index; call after the entities are written
+     */
+    public void recordAliases(Resolution resolution) {
+        if (resolution.aliases.isEmpty()) {
+            return;
+        }
+        try {
+            graphService.mergeEntityAliases(new ArrayList<>(resolution.aliases.values()));
+        } catch (Exception e) {
+            logger.warn("Failed to record entity aliases: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Match existing entities against each other page by page and merge duplicates.
+     * Only one sweep runs at a time; a concurrent call returns immediately.
+     */
+    public SweepResult sweep() {
+        if (!sweeping.compareAndSet(false, true)) {
+            logger.info("Entity resolution sweep already running");
+            return new SweepResult(0, 0, 0, 0, false);
+        }
+
+        long start = System.currentTimeMillis();
+        int scanned = 0;
+        int candidatePairs = 0;
+        int merged = 0;
+        try {
+            MinHashLsh<Canonical> lsh = index();
+            GraphRagProperties.EntityResolution config = properties.getEntityResolution();
+            Set<Canonical> removed = new HashSet<>();
+            long afterId = -1;
+
+            List<Map<String, Object>> page;
+            do {
+                page = graphService.findEntityPage(afterId, config.getSweepPageSize());
+                if (page.isEmpty()) {
+                    break;
+                }
+                afterId = ((Number) page.get(page.size() - 1).get("id")).longValue();
+                scanned += page.size();
+
+                // Block: candidate pairs within the page's LSH buckets
+                Map<Canonical, Set<Canonical>> pairs = new LinkedHashMap<>();
+                for (Map<String, Object> row : page) {
+                    Canonical entity = new Canonical((String) row.get("name"), (String) row.get("type"));
+                    if (removed.contains(entity)) {
+                        continue;
+                    }
+                    for (Canonical candidate : blockCandidates(lsh, entity)) {
+                        if (!removed.contains(candidate) && entity.compareTo(candidate) < 0) {
+                            pairs.computeIfAbsent(entity, key -> new LinkedHashSet<>()).add(candidate);
+                        }
+                    }
+                }
+                if (pairs.isEmpty()) {
+                    continue;
+                }
+
+                // Compare embeddings within blocks only
+                Set<Canonical> involved = new LinkedHashSet<>(pairs.keySet());
+                pairs.values().forEach(involved::addAll);
+                Map<Canonical, EntityStats> stats = loadStats(involved);
+
+                for (Map.Entry<Canonical, Set<Canonical>> entry : pairs.entrySet()) {
+                    for (Canonical candidate : entry.getValue()) {
+                        candidatePairs++;
+                        Canonical left = entry.getKey();
+                        if (removed.contains(left) || removed.contains(candidate)) {
+                            continue;
+                        }
+                        EntityStats leftStats = stats.get(left);
+                        EntityStats rightStats = stats.get(candidate);
+                        if (leftStats == null || rightStats == null
+                                || !sameEntity(left, candidate, leftStats.embedding, rightStats.embedding)) {
+                            continue;
+                        }
+
+                        boolean keepLeft = leftStats.degree >= rightStats.degree;
+                        Canonical canonical = keepLeft ? left : candidate;
+                        Canonical duplicate = keepLeft ? candidate : left;
+                        mergeInto(lsh, canonical, duplicate);
+                        removed.add(duplicate);
+                        merged++;
+                    }
+                }
+            } while (page.size() == config.getSweepPageSize());
+
+            if (merged > 0) {
+                graphService.bumpGraphVersion();
+            }
+            SweepResult result = new SweepResult(scanned, candidatePairs, merged,
+                    System.currentTimeMillis() - start, true);
+            logger.info("Entity resolution sweep completed - scanned: {}, candidate pairs: {}, merged: {}, {} ms",
+                    scanned, candidatePairs, merged, result.getElapsedMillis());
+            return result;
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    /**
+     * Drop the in-memory LSH index; it is rebuilt from the graph on next use
+     */
+    public void resetIndex() {
+        index = null;
+    }
+
+    // Matching
+
+    private Canonical findBlockMatch(MinHashLsh<Canonical> lsh, Canonical self, List<Double> embedding,
+                                     Map<Canonical, List<Double>> batchEmbeddings) {
+        Set<Canonical> candidates = blockCandidates(lsh, self);
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        if (candidates.contains(self)) {
+            return self;
+        }
+
+        Map<Canonical, List<Double>> embeddings = new HashMap<>();
+        List<Canonical> missing = new ArrayList<>();
+        for (Canonical candidate : candidates) {
+            if (batchEmbeddings.containsKey(candidate)) {
+                embeddings.put(candidate, batchEmbeddings.get(candidate));
+            } else {
+                missing.add(candidate);
+            }
+        }
+        loadStats(missing).forEach((candidate, stats) -> embeddings.put(candidate, stats.embedding));
+
+        Canonical best = null;
+        double bestScore = -1;
+        for (Canonical candidate : candidates) {
+            if (!sameEntity(self, candidate, embedding, embeddings.get(candidate))) {
+                continue;
+            }
+            double score = similarity(embedding, embeddings.get(candidate));
+            if (score > bestScore) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Indexed entities of the same type whose names share an LSH bucket and pass the Jaccard estimate
+     */
+    private Set<Canonical> blockCandidates(MinHashLsh<Canonical> lsh, Canonical entity) {
+        String text = EntityNameUtil.compact(entity.name);
+        Set<Canonical> result = new LinkedHashSet<>();
+        if (text.isEmpty()) {
+            return result;
+        }
+        int[] signature = lsh.signature(text);
+        String type = EntityNameUtil.normalise(entity.type);
+        double threshold = properties.getEntityResolution().getJaccardThreshold();
+        for (Canonical candidate : lsh.candidates(text)) {
+            if (!type.equals(EntityNameUtil.normalise(candidate.type))) {
+                continue;
+            }
+            if (candidate.equals(entity)) {
+                result.add(candidate);
+                continue;
+            }
+            for (String candidateText : lsh.textsOf(candidate)) {
+                if (candidateText.equals(text) || MinHashLsh.similarity(signature, lsh.signature(candidateText)) >= threshold) {
+                    result.add(candidate);
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Identical compact names match outright; otherwise both embeddings must be close
+     */
+    private boolean sameEntity(Canonical left, Canonical right, List<Double> leftEmbedding, List<Double> rightEmbedding) {
+        if (EntityNameUtil.compact(left.name).equals(EntityNameUtil.compact(right.name))) {
+            return true;
+        }
+        return similarity(leftEmbedding, rightEmbedding) >= properties.getEntityResolution().getEmbeddingThreshold();
+    }
+
+    private double similarity(List<Double> left, List<Double> right) {
+        if (left == null || right == null || left.isEmpty() || left.size() != right.size()) {
+            return 0.0;
+        }
+        return embeddingService.cosineSimilarity(left, right);
+    }
+
+    private void mergeInto(MinHashLsh<Canonical> lsh, Canonical canonical, Canonical duplicate) {
+        graphService.mergeDuplicateEntity(canonical.name, canonical.type, duplicate.name, duplicate.type);
+        graphService.mergeEntityAliases(List.of(Map.of(
+                "key", EntityNameUtil.key(duplicate.name, duplicate.type),
+                "alias", duplicate.name,
+                "name", canonical.name,
+                "type", canonical.type)));
+        for (String text : lsh.remove(duplicate)) {
+            lsh.add(text, canonical);
+        }
+    }
+
+    private Map<Canonical, EntityStats> loadStats(Collection<Canonical> entities) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Canonical entity : entities) {
+            rows.add(Map.of("name", entity.name, "type", entity.type));
+        }
+        Map<Canonical, EntityStats> stats = new HashMap<>();
+        for (Map<String, Object> row : graphService.findEntityEmbeddings(rows)) {
+            @SuppressWarnings("unchecked")
+            List<Double> embedding = (List<Double>) row.get("embedding");
+            Number degree = (Number) row.get("degree");
+            stats.put(new Canonical((String) row.get("name"), (String) row.get("type")),
+                    new EntityStats(embedding, degree != null ? degree.longValue() : 0L));
+        }
+        return stats;
+    }
+
+    /**
+     * Lazily build the LSH index from entity names and persisted aliases
+     */
+    private MinHashLsh<Canonical> index() {
+        MinHashLsh<Canonical> current = index;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (index != null) {
+                return index;
+            }
+            GraphRagProperties.EntityResolution config = properties.getEntityResolution();
+            MinHashLsh<Canonical> built = new MinHashLsh<>(config.getShingleSize(), config.getMinHashPermutations(),
+                    config.getLshBands(), LSH_SEED);
+
+            long afterId = -1;
+            List<Map<String, Object>> page;
+            do {
+                page = graphService.findEntityPage(afterId, config.getSweepPageSize());
+                for (Map<String, Object> row : page) {
+                    String name = (String) row.get("name");
+                    built.add(EntityNameUtil.compact(name), new Canonical(name, (String) row.get("type")));
+                }
+                if (!page.isEmpty()) {
+                    afterId = ((Number) page.get(page.size() - 1).get("id")).longValue();
+                }
+            } while (page.size() == config.getSweepPageSize());
+
+            for (Map<String, Object> row : graphService.findAllAliases()) {
+                built.add(EntityNameUtil.compact((String) row.get("alias")),
+                        new Canonical((String) row.get("name"), (String) row.get("type")));
+            }
+
+            logger.info("Entity resolution index built - entities: {}", built.size());
+            index = built;
+            return built;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweepExecutor != null) {
+            sweepExecutor.shutdownNow();
+        }
+    }
+
+    // Inner data classes
+
+    /**
+     * Canonical entity identity: exact name and type, as constrained in the graph.
+     * Untyped entities carry an empty type, as written by GraphService.mergeEntities
+     */
+    static class Canonical implements Comparable<Canonical> {
+        final String name;
+        final String type;
+
+        Canonical(String name, String type) {
+            this.name = name;
+            this.type = type != null ? type : "";
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Canonical)) return false;
+            Canonical other = (Canonical) o;
+            return Objects.equals(name, other.name) && Objects.equals(type, other.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, type);
+        }
+
+        @Override
+        public int compareTo(Canonical other) {
+            int byName = String.valueOf(name).compareTo(String.valueOf(other.name));
+            return byName != 0 ? byName : String.valueOf(type).compareTo(String.valueOf(other.type));
+        }
+    }
+
+    private static class EntityStats {
+        final List<Double> embedding;
+        final long degree;
+
+        EntityStats(List<Double> embedding, long degree) {
+            this.embedding = embedding;
+            this.degree = degree;
+        }
+    }
+
+    /**
+     * Outcome of resolving one document's entities: the nodes to write under canonical names, and a mapping
+     * used to point relationship and mention rows at them
+     */
+    public static class Resolution {
+        private final Map<Canonical, EntityNode> entities = new LinkedHashMap<>();
+        private final Map<String, Canonical> canonicalByKey = new HashMap<>();
+        private final Map<String, Map<String, Object>> aliases = new LinkedHashMap<>();
+        private int merged;
+
+        static Resolution identity(List<EntityNode> entities) {
+            Resolution resolution = new Resolution();
+            for (EntityNode entity : entities) {
+                resolution.entities.putIfAbsent(new Canonical(entity.getName(), entity.getType()), entity);
+            }
+            return resolution;
+        }
+
+        void add(EntityNode entity, Canonical target, List<String> names) {
+            Canonical self = new Canonical(entity.getName(), entity.getType());
+            if (target.equals(self)) {
+                entities.putIfAbsent(target, entity);
+            } else {
+                merged++;
+                // Existing canonical nodes keep their own description and embedding
+                entities.putIfAbsent(target, new EntityNode(target.name, target.type));
+            }
+            for (String name : names) {
+                String key = EntityNameUtil.key(name, entity.getType());
+                canonicalByKey.putIfAbsent(key, target);
+                aliases.putIfAbsent(key, Map.of("key", key, "alias", name, "name", target.name, "type", target.type));
+            }
+        }
+
+        /**
+         * Entities to write, one per canonical entity
+         */
+        public List<EntityNode> getEntities() {
+            return new ArrayList<>(entities.values());
+        }
+
+        /**
+         * The canonical entities the given entities resolved to, one per canonical entity
+         */
+        public List<EntityNode> canonicalOf(List<EntityNode> resolved) {
+            Map<Canonical, EntityNode> canonical = new LinkedHashMap<>();
+            for (EntityNode entity : resolved) {
+                Canonical target = canonicalByKey.getOrDefault(EntityNameUtil.key(entity.getName(), entity.getType()),
+                        new Canonical(entity.getName(), entity.getType()));
+                canonical.putIfAbsent(target, entities.getOrDefault(target, entity));
+            }
+            return new ArrayList<>(canonical.values());
+        }
+
+        /**
+         * Number of entities mapped onto a different canonical entity
+         */
+        public int getMerged() { return merged; }
+
+        /**
+         * Copy the rows with the given name and type fields pointed at canonical entities
+         */
+        public List<Map<String, Object>> remap(List<Map<String, Object>> rows, String nameField, String typeField) {
+            if (merged == 0) {
+                return rows;
+            }
+            List<Map<String, Object>> remapped = new ArrayList<>(rows.size());
+            for (Map<String, Object> row : rows) {
+                Canonical target = canonicalByKey.get(
+                        EntityNameUtil.key((String) row.get(nameField), (String) row.get(typeField)));
+                if (target == null) {
+                    remapped.add(row);
+                    continue;
+                }
+                Map<String, Object> copy = new HashMap<>(row);
+                copy.put(nameField, target.name);
+                copy.put(typeField, target.type);
+                remapped.add(copy);
+            }
+            return remapped;
+        }
+    }
+
+    public static class SweepResult {
+        private final int scanned;
+        private final int candidatePairs;
+        private final int merged;
+        private final long elapsedMillis;
+        private final boolean ran;
+
+        SweepResult(int scanned, int candidatePairs, int merged, long elapsedMillis, boolean ran) {
+            this.scanned = scanned;
+            this.candidatePairs = candidatePairs;
+            this.merged = merged;
+            this.elapsedMillis = elapsedMillis;
+            this.ran = ran;
+        }
+
+        public int getScanned() { return scanned; }
+        public int getCandidatePairs() { return candidatePairs; }
+        public int getMerged() { return merged; }
+        public long getElapsedMillis() { return elapsedMillis; }
+        public boolean isRan() { return ran; }
+    }
+}
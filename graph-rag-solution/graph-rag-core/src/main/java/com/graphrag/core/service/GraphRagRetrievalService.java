@@ -1,9 +1,11 @@
 package com.graphrag.core.service;
 
+import com.graphrag.common.config.GraphRagProperties;
 import com.graphrag.core.algorithm.*;
 import com.graphrag.core.algorithm.ContextFusionAlgorithm.FusedContext;
 import com.graphrag.core.algorithm.QueryUnderstandingAlgorithm.QueryAnalysis;
 import com.graphrag.core.algorithm.VectorRetrievalAlgorithm.ScoredResult;
+import com.graphrag.core.service.DocumentChunkService.ChunkMatch;
 import com.graphrag.core.context.ContextBuilder;
 import com.graphrag.core.graph.GraphContextService;
 import com.graphrag.core.utils.MergeUtil;
@@ -13,13 +15,21 @@ import com.graphrag.data.entity.DocumentNode;
 import com.graphrag.data.entity.EntityNode;
 import com.graphrag.data.service.DocumentService;
 import com.graphrag.data.service.EntityService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -40,7 +50,10 @@ public class GraphRagRetrievalService {
     private final VectorRetrievalAlgorithm vectorAlgorithm;
     private final ResultRankingAlgorithm rankingAlgorithm;
     private final AnswerGenerationAlgorithm answerAlgorithm;
+    private final DocumentChunkService chunkSvc;
+    private final GraphRagProperties properties;
     private final ContextBuilder ctxBuilder = new ContextBuilder();
+    private ExecutorService stageExecutor;
 
     public GraphRagRetrievalService(
             EmbeddingService embedSvc,
@@ -51,7 +64,9 @@ public class GraphRagRetrievalService {
             QueryUnderstandingAlgorithm queryAlgorithm,
             VectorRetrievalAlgorithm vectorAlgorithm,
             ResultRankingAlgorithm rankingAlgorithm,
-            AnswerGenerationAlgorithm answerAlgorithm) {
+            AnswerGenerationAlgorithm answerAlgorithm,
+            DocumentChunkService chunkSvc,
+            GraphRagProperties properties) {
         this.embedSvc = embedSvc;
         this.docSvc = docSvc;
         this.entitySvc = entitySvc;
@@ -61,6 +76,33 @@ public class GraphRagRetrievalService {
         this.vectorAlgorithm = vectorAlgorithm;
         this.rankingAlgorithm = rankingAlgorithm;
         this.answerAlgorithm = answerAlgorithm;
+        this.chunkSvc = chunkSvc;
+        this.properties = properties;
+    }
+
+    /**
+     * Stages block on Neo4j, embedding and LLM calls, so the pool is elastic: stage-parallelism threads are kept,
+     * more are started up to stage-max-threads with no queue to wait in, and beyond that a stage runs on the
+     * thread that forked it, so one request's slow stages cannot hold other requests' stages in a queue.
+     */
+    @PostConstruct
+    void init() {
+        GraphRagProperties.Retrieval config = properties.getRetrieval();
+        int coreThreads = Math.max(1, config.getStageParallelism());
+        AtomicInteger threads = new AtomicInteger();
+        stageExecutor = new ThreadPoolExecutor(coreThreads, Math.max(coreThreads, config.getStageMaxThreads()),
+                60L, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "retrieval-stage-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (stageExecutor != null) {
+            stageExecutor.shutdownNow();
+        }
     }
 
     /**
@@ -69,22 +111,7 @@ public class GraphRagRetrievalService {
     public GraphRagResponse retrieve(GraphRagRequest req) {
         log.info("Graph RAG retrieve – question: {}", req.getQuestion());
         try {
-            QueryAnalysis analysis = queryAlgorithm.analyzeQuery(req.getQuestion());
-
-            List<Double> qEmbed = embedSvc.embedText(req.getQuestion());
-            List<DocumentNode> docs = docSvc.findSimilarDocuments(qEmbed, 0.7, 5);
-            List<EntityNode> ents = entitySvc.findSimilarEntities(qEmbed, 0.7, 10);
-            List<Map<String, Object>> relations = graphCtxSvc.retrieve(ents);
-
-            // Rerank documents based on expanded queries
-            List<ScoredResult<DocumentNode>> scored = vectorAlgorithm.rerank(docs, req.getQuestion(), analysis.getExpandedQueries());
-            Map<String, Double> weights = Map.of("recency", 0.1, "authority", 0.1, "completeness", 0.1, "popularity", 0.1);
-            List<ScoredResult<DocumentNode>> ranked = rankingAlgorithm.multiFactorRanking(scored, weights);
-            docs = ranked.stream().map(ScoredResult::getItem).collect(Collectors.toList());
-
-            FusedContext fused = fusionAlgorithm.fuseMultiSourceContext(docs, ents, relations, req.getQuestion());
-            String answer = answerAlgorithm.generateAnswer(req.getQuestion(), fused, analysis);
-            return buildResponse(req.getQuestion(), answer, docs, ents);
+            return answer(req, properties.getRetrieval().getParallelStages() ? retrieveParallel(req) : retrieveSequential(req));
         } catch (Exception ex) {
             log.error("Graph RAG retrieve failed", ex);
             throw new RuntimeException("Retrieval failed", ex);
@@ -97,32 +124,182 @@ public class GraphRagRetrievalService {
     public GraphRagResponse hybridRetrieve(GraphRagRequest req) {
         log.info("Hybrid RAG retrieve – question: {}", req.getQuestion());
         try {
-            QueryAnalysis analysis = queryAlgorithm.analyzeQuery(req.getQuestion());
-
-            List<Double> qEmbed = embedSvc.embedText(req.getQuestion());
-            List<DocumentNode> vecDocs = docSvc.findSimilarDocuments(qEmbed, 0.6, 3);
-            List<EntityNode> vecEnts = entitySvc.findSimilarEntities(qEmbed, 0.6, 5);
-            List<DocumentNode> kwDocs = docSvc.searchByContent(req.getQuestion());
-            List<EntityNode> graphEnts = findEntitiesByGraphTraversal(req.getQuestion());
-
-            List<DocumentNode> allDocs = MergeUtil.merge(10, vecDocs, kwDocs);
-            List<EntityNode> allEnts = MergeUtil.merge(15, vecEnts, graphEnts);
-            List<Map<String, Object>> relations = graphCtxSvc.retrieve(allEnts);
-
-            List<ScoredResult<DocumentNode>> scored = vectorAlgorithm.rerank(allDocs, req.getQuestion(), analysis.getExpandedQueries());
-            Map<String, Double> weights = Map.of("recency", 0.1, "authority", 0.1, "completeness", 0.1, "popularity", 0.1);
-            List<ScoredResult<DocumentNode>> ranked = rankingAlgorithm.multiFactorRanking(scored, weights);
-            allDocs = ranked.stream().map(ScoredResult::getItem).collect(Collectors.toList());
-
-            FusedContext fused = fusionAlgorithm.fuseMultiSourceContext(allDocs, allEnts, relations, req.getQuestion());
-            String answer = answerAlgorithm.generateAnswer(req.getQuestion(), fused, analysis);
-            return buildResponse(req.getQuestion(), answer, allDocs, allEnts);
+            return answer(req, properties.getRetrieval().getParallelStages() ? hybridParallel(req) : hybridSequential(req));
         } catch (Exception ex) {
             log.error("Hybrid RAG retrieve failed", ex);
             throw new RuntimeException("Hybrid retrieval failed", ex);
         }
     }
 
+    /**
+     * Streaming retrieval: runs the retrieval stages of the request's mode, passes the response with its sources
+     * (answer not yet set) to {@code onRetrieved}, then streams the answer token by token to {@code onToken}.
+     * The future completes with the full response once the answer is complete, or exceptionally on any failure.
+     * When {@code cancelled} reports true after retrieval, no answer is requested from the model.
+     */
+    public CompletableFuture<GraphRagResponse> streamRetrieve(GraphRagRequest req, Consumer<GraphRagResponse> onRetrieved,
+                                                              Consumer<String> onToken, BooleanSupplier cancelled) {
+        log.info("Streaming RAG retrieve – question: {}, mode: {}", req.getQuestion(), req.getRetrievalMode());
+        RetrievedContext retrieved;
+        FusedContext fused;
+        GraphRagResponse response;
+        try {
+            boolean parallel = properties.getRetrieval().getParallelStages();
+            if ("hybrid".equalsIgnoreCase(req.getRetrievalMode())) {
+                retrieved = parallel ? hybridParallel(req) : hybridSequential(req);
+            } else {
+                retrieved = parallel ? retrieveParallel(req) : retrieveSequential(req);
+            }
+            fused = fuse(req, retrieved);
+            response = buildResponse(req.getQuestion(), null, retrieved.docs, retrieved.ents);
+            reportPromptSize(response, req, fused, retrieved.analysis);
+        } catch (Exception ex) {
+            log.error("Streaming RAG retrieve failed", ex);
+            return CompletableFuture.failedFuture(new RuntimeException("Retrieval failed", ex));
+        }
+
+        if (cancelled.getAsBoolean()) {
+            log.info("Streaming RAG retrieve cancelled before answer generation");
+            return CompletableFuture.failedFuture(new CancellationException("Streaming query cancelled"));
+        }
+        try {
+            onRetrieved.accept(response);
+            return answerAlgorithm.generateAnswerStream(req.getQuestion(), fused, retrieved.analysis, onToken)
+                    .thenApply(answer -> {
+                        response.setAnswer(answer);
+                        return response;
+                    });
+        } catch (Exception ex) {
+            log.error("Streaming RAG answer failed", ex);
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private RetrievedContext retrieveSequential(GraphRagRequest req) {
+        QueryAnalysis analysis = queryAlgorithm.analyzeQuery(req.getQuestion());
+
+        List<Double> qEmbed = queryVector(analysis, req.getQuestion());
+        List<DocumentNode> docs = docSvc.findSimilarDocuments(qEmbed, 0.7, 5);
+        List<EntityNode> ents = entitySvc.findSimilarEntities(qEmbed, 0.7, 10);
+        List<Map<String, Object>> relations = graphCtxSvc.retrieve(ents);
+
+        docs = rank(docs, req.getQuestion(), analysis);
+        List<ChunkMatch> chunks = chunkSvc.findRelevantChunks(qEmbed, docs, properties.getRetrieval().getChunkLimit());
+        return new RetrievedContext(analysis, docs, chunks, ents, relations);
+    }
+
+    private RetrievedContext hybridSequential(GraphRagRequest req) {
+        QueryAnalysis analysis = queryAlgorithm.analyzeQuery(req.getQuestion());
+
+        List<Double> qEmbed = queryVector(analysis, req.getQuestion());
+        List<DocumentNode> vecDocs = docSvc.findSimilarDocuments(qEmbed, 0.6, 3);
+        List<EntityNode> vecEnts = entitySvc.findSimilarEntities(qEmbed, 0.6, 5);
+        List<DocumentNode> kwDocs = docSvc.searchByContent(req.getQuestion());
+        List<EntityNode> graphEnts = findEntitiesByGraphTraversal(req.getQuestion());
+
+        List<DocumentNode> allDocs = MergeUtil.merge(10, vecDocs, kwDocs);
+        List<EntityNode> allEnts = MergeUtil.merge(15, vecEnts, graphEnts);
+        List<Map<String, Object>> relations = graphCtxSvc.retrieve(allEnts);
+
+        allDocs = rank(allDocs, req.getQuestion(), analysis);
+        List<ChunkMatch> chunks = chunkSvc.findRelevantChunks(qEmbed, allDocs, properties.getRetrieval().getChunkLimit());
+        return new RetrievedContext(analysis, allDocs, chunks, allEnts, relations);
+    }
+
+    /**
+     * Same stages as {@link #retrieveSequential} run as a dependency graph: query analysis runs beside
+     * embedding and the vector searches, graph context starts as soon as entities are found, and everything
+     * joins before rerank.
+     */
+    private RetrievedContext retrieveParallel(GraphRagRequest req) throws Exception {
+        String question = req.getQuestion();
+        try (StageScope scope = new StageScope(stageExecutor)) {
+            CompletableFuture<QueryAnalysis> analysis = scope.fork("analyze", () -> queryAlgorithm.analyzeQuery(question));
+            CompletableFuture<List<Double>> qEmbed = scope.fork("embed", () -> queryAlgorithm.queryVector(question));
+            CompletableFuture<List<DocumentNode>> docs = scope.then("documentSearch", qEmbed,
+                    embedding -> docSvc.findSimilarDocuments(embedding, 0.7, 5));
+            CompletableFuture<List<EntityNode>> ents = scope.then("entitySearch", qEmbed,
+                    embedding -> entitySvc.findSimilarEntities(embedding, 0.7, 10));
+            CompletableFuture<List<Map<String, Object>>> relations = scope.then("graphContext", ents, graphCtxSvc::retrieve);
+            CompletableFuture<List<DocumentNode>> ranked = scope.then("rerank", docs.thenCombine(analysis, Pair::new),
+                    pair -> rank(pair.left, question, pair.right));
+            CompletableFuture<List<ChunkMatch>> chunks = scope.then("chunkSearch", ranked.thenCombine(qEmbed, Pair::new),
+                    pair -> chunkSvc.findRelevantChunks(pair.right, pair.left, properties.getRetrieval().getChunkLimit()));
+
+            scope.join(properties.getRetrieval().getStageTimeoutMillis(), chunks, relations);
+            return new RetrievedContext(analysis.join(), ranked.join(), chunks.join(), ents.join(), relations.join());
+        }
+    }
+
+    /**
+     * Same stages as {@link #hybridSequential} run as a dependency graph: query analysis, vector, keyword and
+     * graph-traversal searches run concurrently and join before rerank.
+     */
+    private RetrievedContext hybridParallel(GraphRagRequest req) throws Exception {
+        String question = req.getQuestion();
+        try (StageScope scope = new StageScope(stageExecutor)) {
+            CompletableFuture<QueryAnalysis> analysis = scope.fork("analyze", () -> queryAlgorithm.analyzeQuery(question));
+            CompletableFuture<List<Double>> qEmbed = scope.fork("embed", () -> queryAlgorithm.queryVector(question));
+            CompletableFuture<List<DocumentNode>> vecDocs = scope.then("documentSearch", qEmbed,
+                    embedding -> docSvc.findSimilarDocuments(embedding, 0.6, 3));
+            CompletableFuture<List<EntityNode>> vecEnts = scope.then("entitySearch", qEmbed,
+                    embedding -> entitySvc.findSimilarEntities(embedding, 0.6, 5));
+            CompletableFuture<List<DocumentNode>> kwDocs = scope.fork("keywordSearch", () -> docSvc.searchByContent(question));
+            CompletableFuture<List<EntityNode>> graphEnts = scope.fork("entityLinking", () -> findEntitiesByGraphTraversal(question));
+
+            CompletableFuture<List<EntityNode>> allEnts = vecEnts.thenCombine(graphEnts, (left, right) -> MergeUtil.merge(15, left, right));
+            CompletableFuture<List<DocumentNode>> allDocs = vecDocs.thenCombine(kwDocs, (left, right) -> MergeUtil.merge(10, left, right));
+            CompletableFuture<List<Map<String, Object>>> relations = scope.then("graphContext", allEnts, graphCtxSvc::retrieve);
+            CompletableFuture<List<DocumentNode>> ranked = scope.then("rerank", allDocs.thenCombine(analysis, Pair::new),
+                    pair -> rank(pair.left, question, pair.right));
+            CompletableFuture<List<ChunkMatch>> chunks = scope.then("chunkSearch", ranked.thenCombine(qEmbed, Pair::new),
+                    pair -> chunkSvc.findRelevantChunks(pair.right, pair.left, properties.getRetrieval().getChunkLimit()));
+
+            scope.join(properties.getRetrieval().getStageTimeoutMillis(), chunks, relations);
+            return new RetrievedContext(analysis.join(), ranked.join(), chunks.join(), allEnts.join(), relations.join());
+        }
+    }
+
+    /**
+     * The analysis carries the query vector unless it fell back; otherwise use the shared vector cache
+     */
+    private List<Double> queryVector(QueryAnalysis analysis, String question) {
+        return analysis.getQueryVector() != null ? analysis.getQueryVector() : queryAlgorithm.queryVector(question);
+    }
+
+    private List<DocumentNode> rank(List<DocumentNode> docs, String question, QueryAnalysis analysis) {
+        // Rerank documents based on expanded queries
+        List<ScoredResult<DocumentNode>> scored = vectorAlgorithm.rerank(docs, question, analysis.getExpandedQueries());
+        Map<String, Double> weights = Map.of("recency", 0.1, "authority", 0.1, "completeness", 0.1, "popularity", 0.1);
+        List<ScoredResult<DocumentNode>> ranked = rankingAlgorithm.multiFactorRanking(scored, weights);
+        return ranked.stream().map(ScoredResult::getItem).collect(Collectors.toList());
+    }
+
+    private GraphRagResponse answer(GraphRagRequest req, RetrievedContext retrieved) {
+        FusedContext fused = fuse(req, retrieved);
+        String answer = answerAlgorithm.generateAnswer(req.getQuestion(), fused, retrieved.analysis);
+        GraphRagResponse response = buildResponse(req.getQuestion(), answer, retrieved.docs, retrieved.ents);
+        reportPromptSize(response, req, fused, retrieved.analysis);
+        return response;
+    }
+
+    /**
+     * Fuse the retrieved context within the request's token budget, or the configured one
+     */
+    private FusedContext fuse(GraphRagRequest req, RetrievedContext retrieved) {
+        int tokenBudget = req.getContextTokenBudget() != null
+                ? req.getContextTokenBudget()
+                : properties.getRetrieval().getContextTokenBudget();
+        return fusionAlgorithm.fuseMultiSourceContext(retrieved.docs, retrieved.chunks, retrieved.ents,
+                retrieved.relations, req.getQuestion(), tokenBudget);
+    }
+
+    private void reportPromptSize(GraphRagResponse response, GraphRagRequest req, FusedContext fused,
+                                  QueryAnalysis analysis) {
+        response.setContextTokens(fused.getContextTokens());
+        response.setPromptTokens(answerAlgorithm.countPromptTokens(req.getQuestion(), fused, analysis));
+    }
+
     // -------------------------------------------
     // Internal helpers
     // -------------------------------------------
@@ -162,4 +339,109 @@ public class GraphRagRetrievalService {
                 .limit(5)
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    // -------------------------------------------
+    // Stage execution
+    // -------------------------------------------
+
+    /**
+     * Stages of one request. Each stage runs on the stage pool as its own task, so closing the scope, when the
+     * request is abandoned (caller interrupted), times out or a stage fails, interrupts running stages and stops
+     * pending ones from starting.
+     */
+    static class StageScope implements AutoCloseable {
+        private final ExecutorService executor;
+        private final List<Future<?>> tasks = new ArrayList<>();
+        private final Map<String, Long> stageMillis = new ConcurrentHashMap<>();
+        private final long startNanos = System.nanoTime();
+        private volatile boolean closed;
+
+        StageScope(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        <T> CompletableFuture<T> fork(String name, Callable<T> task) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            synchronized (tasks) {
+                if (closed) {
+                    result.cancel(false);
+                    return result;
+                }
+                tasks.add(executor.submit(() -> {
+                    long started = System.nanoTime();
+                    try {
+                        result.complete(task.call());
+                    } catch (Throwable e) {
+                        result.completeExceptionally(e);
+                    } finally {
+                        stageMillis.put(name, (System.nanoTime() - started) / 1_000_000);
+                    }
+                }));
+            }
+            return result;
+        }
+
+        <A, T> CompletableFuture<T> then(String name, CompletableFuture<A> dependency, Function<A, T> stage) {
+            return dependency.thenCompose(value -> fork(name, () -> stage.apply(value)));
+        }
+
+        /**
+         * Wait for the final stages; any failure, the deadline or an interrupt of the caller cancels the rest
+         */
+        void join(long timeoutMillis, CompletableFuture<?>... stages) throws Exception {
+            try {
+                CompletableFuture.allOf(stages).get(timeoutMillis, TimeUnit.MILLISECONDS);
+                log.debug("Retrieval stages completed in {} ms: {}", (System.nanoTime() - startNanos) / 1_000_000, stageMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.info("Retrieval abandoned, cancelling stages; completed: {}", stageMillis);
+                throw e;
+            } catch (TimeoutException e) {
+                log.warn("Retrieval stages exceeded {} ms, cancelling; completed: {}", timeoutMillis, stageMillis);
+                throw e;
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (tasks) {
+                closed = true;
+                for (Future<?> task : tasks) {
+                    task.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Output of the retrieval stages, input to answer generation
+     */
+    private static class RetrievedContext {
+        final QueryAnalysis analysis;
+        final List<DocumentNode> docs;
+        final List<ChunkMatch> chunks;
+        final List<EntityNode> ents;
+        final List<Map<String, Object>> relations;
+
+        RetrievedContext(QueryAnalysis analysis, List<DocumentNode> docs, List<ChunkMatch> chunks,
+                         List<EntityNode> ents, List<Map<String, Object>> relations) {
+            this.analysis = analysis;
+            this.docs = docs;
+            this.chunks = chunks;
+            this.ents = ents;
+            this.relations = relations;
+        }
+    }
+
+    private static class Pair<L, R> {
+        final L left;
+        final R right;
+
+        Pair(L left, R right) {
+            this.left = left;
+            this.right = right;
+        }
+    }
+}
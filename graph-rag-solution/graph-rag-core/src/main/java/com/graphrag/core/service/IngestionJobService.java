@@ -0,0 +1,805 @@
+package com.graphrag.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graphrag.common.config.GraphRagProperties;
+import com.graphrag.data.entity.DocumentNode;
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.Metadata;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Durable Ingestion Job Service
+ * Jobs and their progress are recorded in an append-only journal and run by a worker pool in priority order.
+ * Progress is checkpointed per document and, for standard jobs, per extracted chunk, so after a restart
+ * unfinished jobs resume without repeating finished documents or LLM extraction of finished chunks.
+ */
+@Service
+public class IngestionJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionJobService.class);
+
+    public static final String MODE_STANDARD = "standard";
+    public static final String MODE_ENHANCED = "enhanced";
+
+    @Autowired
+    private GraphRagProperties properties;
+
+    @Autowired
+    private IngestionPipelineService ingestionPipeline;
+
+    @Autowired
+    private EnhancedKnowledgeGraphService enhancedKnowledgeGraphService;
+
+    @Autowired
+    private DocumentLoaderService documentLoaderService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final PriorityBlockingQueue<Job> queue = new PriorityBlockingQueue<>(16,
+            Comparator.comparingInt((Job job) -> job.priority).reversed().thenComparingLong(job -> job.sequence));
+
+    private IngestionJournal journal;
+    private ExecutorService workers;
+    private volatile boolean stopping;
+
+    @PostConstruct
+    public void start() {
+        GraphRagProperties.Ingestion config = properties.getIngestion();
+        journal = new IngestionJournal(Path.of(config.getJobJournalPath()), objectMapper, this::snapshot,
+                config.getJournalCompactionEvents());
+
+        try {
+            for (Map<String, Object> event : journal.replay()) {
+                replay(event);
+            }
+            for (Job job : jobs.values()) {
+                if (job.state.isTerminal()) {
+                    job.release();
+                }
+            }
+            evictFinishedJobs();
+            journal.compact();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open ingestion journal " + config.getJobJournalPath(), e);
+        }
+
+        int resumed = 0;
+        for (Job job : orderedJobs()) {
+            if (!job.state.isTerminal()) {
+                job.state = JobState.QUEUED;
+                queue.add(job);
+                resumed++;
+            }
+        }
+
+        int workerCount = Math.max(1, config.getJobWorkers());
+        AtomicInteger threadIndex = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "ingest-job-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::runWorker);
+        }
+
+        logger.info("Ingestion job service started, workers: {}, known jobs: {}, resumed: {}",
+                workerCount, jobs.size(), resumed);
+    }
+
+    /**
+     * Stop the workers, leaving interrupted jobs RUNNING in the journal so they are queued again on restart
+     */
+    @PreDestroy
+    public void shutdown() {
+        stopping = true;
+        if (workers != null) {
+            workers.shutdownNow();
+            try {
+                if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                    logger.warn("Ingestion job workers did not stop within 10 s");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Persist a job and queue it; returns the job id immediately
+     */
+    public String submit(List<JobDocument> documents, String mode, int priority) {
+        if (!MODE_STANDARD.equals(mode) && !MODE_ENHANCED.equals(mode)) {
+            throw new IllegalArgumentException("Unknown ingestion mode: " + mode);
+        }
+        if (documents.isEmpty()) {
+            throw new IllegalArgumentException("An ingestion job needs at least one document");
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), mode, priority, System.currentTimeMillis(),
+                sequence.incrementAndGet(), documents);
+        // Register before journaling so a compaction triggered by the append already sees the job
+        jobs.put(job.jobId, job);
+        journal.append(job.submittedEvent(true));
+        queue.add(job);
+
+        logger.info("Ingestion job queued: {}, mode: {}, documents: {}, priority: {}",
+                job.jobId, mode, documents.size(), priority);
+        return job.jobId;
+    }
+
+    /**
+     * Progress and throughput of one job
+     */
+    public Optional<JobStatus> getStatus(String jobId) {
+        Job job = jobs.get(jobId);
+        return job == null ? Optional.empty() : Optional.of(job.status());
+    }
+
+    /**
+     * All known jobs, oldest first
+     */
+    public List<JobStatus> listJobs() {
+        return orderedJobs().stream().map(Job::status).collect(Collectors.toList());
+    }
+
+    /**
+     * Cancel a queued or running job; documents already in flight finish, no further ones start
+     */
+    public boolean cancel(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            return false;
+        }
+        synchronized (job) {
+            if (job.state.isTerminal()) {
+                return false;
+            }
+            boolean queued = queue.remove(job);
+            terminate(job, JobState.CANCELLED);
+            if (queued) {
+                // A running job is released by its worker once in-flight documents finish
+                job.release();
+            }
+        }
+        evictFinishedJobs();
+        logger.info("Ingestion job cancelled: {}", jobId);
+        return true;
+    }
+
+    /**
+     * Change the priority of a job; a queued job is re-ordered immediately
+     */
+    public boolean setPriority(String jobId, int priority) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            return false;
+        }
+        synchronized (job) {
+            if (job.state.isTerminal()) {
+                return false;
+            }
+            boolean queued = queue.remove(job);
+            job.priority = priority;
+            if (queued) {
+                queue.add(job);
+            }
+            journal.append(event("PRIORITY", job.jobId, "priority", priority));
+        }
+        return true;
+    }
+
+    // Workers
+
+    private void runWorker() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Job job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            synchronized (job) {
+                if (job.state != JobState.QUEUED) {
+                    continue;
+                }
+                job.state = JobState.RUNNING;
+                job.startedAt = System.currentTimeMillis();
+                job.runStartNanos = System.nanoTime();
+                job.runCompletedDocuments.set(0);
+                job.runExtractedChunks.set(0);
+                journal.append(event("STARTED", job.jobId, "at", job.startedAt));
+            }
+
+            try {
+                List<Integer> pending = new ArrayList<>();
+                for (int i = 0; i < job.documents.size(); i++) {
+                    if (!job.outcomes.containsKey(i)) {
+                        pending.add(i);
+                    }
+                }
+                logger.info("Running ingestion job {}, pending documents: {}/{}",
+                        job.jobId, pending.size(), job.documents.size());
+
+                if (MODE_ENHANCED.equals(job.mode)) {
+                    runEnhanced(job, pending);
+                } else {
+                    runStandard(job, pending);
+                }
+            } catch (Exception e) {
+                if (!stopping) {
+                    logger.error("Ingestion job {} failed", job.jobId, e);
+                }
+            }
+
+            if (stopping || Thread.currentThread().isInterrupted()) {
+                // Not journaled as finished: replay finds the job unfinished and queues its pending documents again
+                logger.info("Ingestion job {} interrupted by shutdown, resuming after restart", job.jobId);
+                return;
+            }
+
+            synchronized (job) {
+                if (!job.state.isTerminal()) {
+                    boolean allFailed = job.failedDocuments() == job.documents.size();
+                    terminate(job, allFailed ? JobState.FAILED : JobState.COMPLETED);
+                }
+                job.release();
+            }
+            evictFinishedJobs();
+            JobStatus status = job.status();
+            logger.info("Ingestion job {} finished: {}, completed: {}, failed: {}",
+                    job.jobId, status.getState(), status.getCompletedDocuments(), status.getFailedDocuments());
+        }
+    }
+
+    /**
+     * Feed documents through the staged pipeline, keeping a bounded window in flight
+     */
+    private void runStandard(Job job, List<Integer> pending) {
+        int window = Math.max(1, properties.getIngestion().getJobDocumentWindow());
+        Deque<CompletableFuture<Void>> inFlight = new ArrayDeque<>();
+
+        for (int index : pending) {
+            if (job.state == JobState.CANCELLED || stopping) {
+                break;
+            }
+            if (inFlight.size() >= window) {
+                inFlight.poll().join();
+            }
+
+            JobDocument document = job.documents.get(index);
+            JobCheckpoint checkpoint = new JobCheckpoint(job, index);
+            CompletableFuture<IngestionPipelineService.IngestionResult> submitted = document.getPath() != null
+                    ? ingestionPipeline.submit(Path.of(document.getPath()), checkpoint)
+                    : ingestionPipeline.submit(document.toDocument(), checkpoint);
+            inFlight.add(submitted
+                    .handle((result, e) -> {
+                        if (e == null) {
+                            completeDocument(job, index, result.getDocumentId(),
+                                    result.getEntityCount(), result.getRelationshipCount());
+                        } else {
+                            failDocument(job, index, e);
+                        }
+                        return null;
+                    }));
+        }
+        inFlight.forEach(CompletableFuture::join);
+    }
+
+    /**
+     * Build documents one at a time with the enhanced builder
+     */
+    private void runEnhanced(Job job, List<Integer> pending) {
+        for (int index : pending) {
+            if (job.state == JobState.CANCELLED || stopping) {
+                break;
+            }
+            try {
+                // The enhanced builder works on the whole text, so files are loaded in full here
+                JobDocument document = job.documents.get(index);
+                DocumentNode documentNode = enhancedKnowledgeGraphService
+                        .buildEnhancedKnowledgeGraph(document.getPath() != null
+                                ? documentLoaderService.loadFromFile(Path.of(document.getPath()))
+                                : document.toDocument())
+                        .join();
+                completeDocument(job, index, documentNode.getId(), null, null);
+            } catch (Exception e) {
+                failDocument(job, index, e);
+            }
+        }
+    }
+
+    // Checkpoints
+
+    private void completeDocument(Job job, int index, Long documentId, Integer entityCount, Integer relationshipCount) {
+        DocumentOutcome outcome = new DocumentOutcome(index, job.documents.get(index).getName(), "COMPLETED",
+                documentId, entityCount, relationshipCount, null);
+        job.recordOutcome(outcome);
+        job.runCompletedDocuments.incrementAndGet();
+        journal.append(outcome.toEvent(job.jobId));
+    }
+
+    private void failDocument(Job job, int index, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (stopping || isInterruption(cause)) {
+            // Left pending so the document is ingested again when the job resumes
+            logger.info("Ingestion job {} interrupted on document {}", job.jobId, job.documents.get(index).getName());
+            return;
+        }
+        logger.error("Ingestion job {} failed on document {}", job.jobId, job.documents.get(index).getName(), cause);
+        DocumentOutcome outcome = new DocumentOutcome(index, job.documents.get(index).getName(), "FAILED",
+                null, null, null, String.valueOf(cause.getMessage()));
+        job.recordOutcome(outcome);
+        journal.append(outcome.toEvent(job.jobId));
+    }
+
+    private static boolean isInterruption(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void terminate(Job job, JobState state) {
+        job.state = state;
+        job.finishedAt = System.currentTimeMillis();
+        job.runEndNanos = System.nanoTime();
+        journal.append(event("FINISHED", job.jobId, "state", state.name(), "at", job.finishedAt));
+    }
+
+    /**
+     * Journals each chunk extraction of one job document and serves them back on resume
+     */
+    private class JobCheckpoint implements IngestionPipelineService.ExtractionCheckpoint {
+        private final Job job;
+        private final int index;
+
+        JobCheckpoint(Job job, int index) {
+            this.job = job;
+            this.index = index;
+        }
+
+        @Override
+        public void chunksPlanned(int count) {
+            job.plannedChunks.put(index, count);
+            journal.append(event("PLANNED", job.jobId, "document", index, "count", count));
+        }
+
+        @Override
+        public KnowledgeGraphService.ExtractionResult find(String chunkHash) {
+            Map<String, Object> recorded = job.chunkCheckpoints.getOrDefault(index, Map.of()).get(chunkHash);
+            if (recorded == null) {
+                return null;
+            }
+            job.reusedChunks.incrementAndGet();
+            return fromJson(recorded);
+        }
+
+        @Override
+        public void record(String chunkHash, KnowledgeGraphService.ExtractionResult extraction) {
+            Map<String, Object> json = toJson(extraction);
+            job.chunkCheckpoints.computeIfAbsent(index, key -> new ConcurrentHashMap<>()).put(chunkHash, json);
+            job.extractedChunks.incrementAndGet();
+            job.runExtractedChunks.incrementAndGet();
+            journal.append(event("CHUNK", job.jobId, "document", index, "hash", chunkHash, "extraction", json));
+        }
+    }
+
+    // Journal replay
+
+    @SuppressWarnings("unchecked")
+    private void replay(Map<String, Object> event) {
+        String jobId = (String) event.get("jobId");
+        if ("SUBMITTED".equals(event.get("event"))) {
+            List<JobDocument> documents = new ArrayList<>();
+            for (Map<String, Object> document : (List<Map<String, Object>>) event.get("documents")) {
+                documents.add(new JobDocument((String) document.get("name"), (String) document.get("text"),
+                        (String) document.get("path"), (Map<String, String>) document.get("metadata")));
+            }
+            Job job = new Job(jobId, (String) event.get("mode"), intValue(event.get("priority")),
+                    longValue(event.get("submittedAt")), sequence.incrementAndGet(), documents);
+            jobs.put(jobId, job);
+            return;
+        }
+
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            logger.warn("Ignoring journal event {} for unknown job {}", event.get("event"), jobId);
+            return;
+        }
+
+        switch ((String) event.get("event")) {
+            case "PRIORITY" -> job.priority = intValue(event.get("priority"));
+            case "STARTED" -> job.startedAt = longValue(event.get("at"));
+            case "PLANNED" -> job.plannedChunks.put(intValue(event.get("document")), intValue(event.get("count")));
+            case "CHUNK" -> {
+                job.chunkCheckpoints.computeIfAbsent(intValue(event.get("document")), key -> new ConcurrentHashMap<>())
+                        .put((String) event.get("hash"), (Map<String, Object>) event.get("extraction"));
+                job.extractedChunks.incrementAndGet();
+            }
+            case "DOCUMENT" -> job.recordOutcome(DocumentOutcome.fromEvent(event));
+            case "FINISHED" -> {
+                job.state = JobState.valueOf((String) event.get("state"));
+                job.finishedAt = longValue(event.get("at"));
+            }
+            default -> logger.warn("Ignoring unknown journal event {}", event.get("event"));
+        }
+    }
+
+    /**
+     * Forget the oldest finished jobs beyond the configured retention; the next compaction drops them from the journal
+     */
+    private void evictFinishedJobs() {
+        int retention = Math.max(0, properties.getIngestion().getFinishedJobRetention());
+        List<Job> finished = orderedJobs().stream()
+                .filter(job -> job.state.isTerminal())
+                .collect(Collectors.toList());
+        for (int i = 0; i < finished.size() - retention; i++) {
+            jobs.remove(finished.get(i).jobId);
+        }
+    }
+
+    /**
+     * Minimal events that rebuild every known job, used to compact the journal
+     */
+    private List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> events = new ArrayList<>();
+        orderedJobs().forEach(job -> events.addAll(job.toEvents()));
+        return events;
+    }
+
+    private List<Job> orderedJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparingLong(job -> job.sequence))
+                .collect(Collectors.toList());
+    }
+
+    private Map<String, Object> toJson(KnowledgeGraphService.ExtractionResult extraction) {
+        List<Map<String, Object>> entities = new ArrayList<>();
+        for (KnowledgeGraphService.EntityInfo entity : extraction.entities) {
+            Map<String, Object> json = new HashMap<>();
+            json.put("name", entity.name);
+            json.put("type", entity.type);
+            json.put("description", entity.description);
+            entities.add(json);
+        }
+        List<Map<String, Object>> relations = new ArrayList<>();
+        for (KnowledgeGraphService.RelationInfo relation : extraction.relations) {
+            Map<String, Object> json = new HashMap<>();
+            json.put("entity1", relation.entity1);
+            json.put("entity2", relation.entity2);
+            json.put("relationType", relation.relationType);
+            json.put("description", relation.description);
+            relations.add(json);
+        }
+        return Map.of("entities", entities, "relations", relations);
+    }
+
+    @SuppressWarnings("unchecked")
+    private KnowledgeGraphService.ExtractionResult fromJson(Map<String, Object> json) {
+        List<KnowledgeGraphService.EntityInfo> entities = new ArrayList<>();
+        for (Map<String, Object> entity : (List<Map<String, Object>>) json.get("entities")) {
+            entities.add(new KnowledgeGraphService.EntityInfo((String) entity.get("name"),
+                    (String) entity.get("type"), (String) entity.get("description")));
+        }
+        List<KnowledgeGraphService.RelationInfo> relations = new ArrayList<>();
+        for (Map<String, Object> relation : (List<Map<String, Object>>) json.get("relations")) {
+            relations.add(new KnowledgeGraphService.RelationInfo((String) relation.get("entity1"),
+                    (String) relation.get("entity2"), (String) relation.get("relationType"),
+                    (String) relation.get("description")));
+        }
+        return new KnowledgeGraphService.ExtractionResult(entities, relations);
+    }
+
+    private static Map<String, Object> event(String type, String jobId, Object... keyValues) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("event", type);
+        event.put("jobId", jobId);
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            event.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return event;
+    }
+
+    private static int intValue(Object value) {
+        return value != null ? ((Number) value).intValue() : 0;
+    }
+
+    private static long longValue(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    /**
+     * Job lifecycle states
+     */
+    public enum JobState {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED;
+
+        public boolean isTerminal() {
+            return this == COMPLETED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    /**
+     * One queued job with its journal-backed progress
+     */
+    private static class Job {
+        final String jobId;
+        final String mode;
+        final long submittedAt;
+        final long sequence;
+        volatile List<JobDocument> documents;
+        final Map<Integer, DocumentOutcome> outcomes = new ConcurrentHashMap<>();
+        final Map<Integer, Integer> plannedChunks = new ConcurrentHashMap<>();
+        final Map<Integer, Map<String, Map<String, Object>>> chunkCheckpoints = new ConcurrentHashMap<>();
+        final AtomicInteger extractedChunks = new AtomicInteger();
+        final AtomicInteger reusedChunks = new AtomicInteger();
+        final AtomicInteger runCompletedDocuments = new AtomicInteger();
+        final AtomicInteger runExtractedChunks = new AtomicInteger();
+        volatile int priority;
+        volatile JobState state = JobState.QUEUED;
+        volatile long startedAt;
+        volatile long finishedAt;
+        volatile long runStartNanos;
+        volatile long runEndNanos;
+
+        Job(String jobId, String mode, int priority, long submittedAt, long sequence, List<JobDocument> documents) {
+            this.jobId = jobId;
+            this.mode = mode;
+            this.priority = priority;
+            this.submittedAt = submittedAt;
+            this.sequence = sequence;
+            this.documents = documents;
+        }
+
+        void recordOutcome(DocumentOutcome outcome) {
+            outcomes.put(outcome.getIndex(), outcome);
+            // A finished document no longer needs its chunk checkpoints
+            chunkCheckpoints.remove(outcome.getIndex());
+        }
+
+        /**
+         * Drop document text and chunk checkpoints once the job is finished; only names and outcomes are kept
+         */
+        void release() {
+            documents = documents.stream()
+                    .map(document -> new JobDocument(document.getName(), null, document.getPath(),
+                            document.getMetadata()))
+                    .collect(Collectors.toList());
+            chunkCheckpoints.clear();
+        }
+
+        int failedDocuments() {
+            return (int) outcomes.values().stream().filter(outcome -> "FAILED".equals(outcome.getStatus())).count();
+        }
+
+        Map<String, Object> submittedEvent(boolean withText) {
+            List<Map<String, Object>> documentEvents = new ArrayList<>();
+            for (JobDocument document : documents) {
+                Map<String, Object> json = new LinkedHashMap<>();
+                json.put("name", document.getName());
+                json.put("text", withText ? document.getText() : null);
+                json.put("path", document.getPath());
+                json.put("metadata", document.getMetadata());
+                documentEvents.add(json);
+            }
+            return event("SUBMITTED", jobId, "mode", mode, "priority", priority,
+                    "submittedAt", submittedAt, "documents", documentEvents);
+        }
+
+        /**
+         * Minimal events that rebuild this job's current state
+         */
+        List<Map<String, Object>> toEvents() {
+            boolean terminal = state.isTerminal();
+            List<Map<String, Object>> events = new ArrayList<>();
+            events.add(submittedEvent(!terminal));
+            if (startedAt > 0) {
+                events.add(event("STARTED", jobId, "at", startedAt));
+            }
+            plannedChunks.forEach((index, count) -> events.add(event("PLANNED", jobId, "document", index, "count", count)));
+            if (!terminal) {
+                chunkCheckpoints.forEach((index, chunks) -> chunks.forEach((hash, extraction) ->
+                        events.add(event("CHUNK", jobId, "document", index, "hash", hash, "extraction", extraction))));
+            }
+            outcomes.values().stream()
+                    .sorted(Comparator.comparingInt(DocumentOutcome::getIndex))
+                    .forEach(outcome -> events.add(outcome.toEvent(jobId)));
+            if (terminal) {
+                events.add(event("FINISHED", jobId, "state", state.name(), "at", finishedAt));
+            }
+            return events;
+        }
+
+        JobStatus status() {
+            int completed = outcomes.size() - failedDocuments();
+            // Throughput covers the current (or last) run in this process
+            long end = state.isTerminal() ? runEndNanos : System.nanoTime();
+            double runSeconds = runStartNanos > 0 ? (end - runStartNanos) / 1_000_000_000.0 : 0;
+            List<DocumentOutcome> documentOutcomes = outcomes.values().stream()
+                    .sorted(Comparator.comparingInt(DocumentOutcome::getIndex))
+                    .collect(Collectors.toList());
+
+            return new JobStatus(jobId, mode, priority, state, submittedAt, startedAt, finishedAt,
+                    documents.size(), completed, failedDocuments(),
+                    plannedChunks.values().stream().mapToInt(Integer::intValue).sum(),
+                    extractedChunks.get(), reusedChunks.get(),
+                    runSeconds > 0 ? runCompletedDocuments.get() * 60.0 / runSeconds : 0.0,
+                    runSeconds > 0 ? runExtractedChunks.get() / runSeconds : 0.0,
+                    documentOutcomes);
+        }
+    }
+
+    /**
+     * One document of a job, kept with its text or file path so the job can resume after a restart
+     */
+    public static class JobDocument {
+        private final String name;
+        private final String text;
+        private final String path;
+        private final Map<String, String> metadata;
+
+        public JobDocument(String name, String text, Map<String, String> metadata) {
+            this(name, text, null, metadata);
+        }
+
+        JobDocument(String name, String text, String path, Map<String, String> metadata) {
+            this.name = name;
+            this.text = text;
+            this.path = path;
+            this.metadata = metadata != null ? metadata : Map.of();
+        }
+
+        public static JobDocument from(String name, Document document) {
+            return new JobDocument(name, document.text(), new HashMap<>(document.metadata().asMap()));
+        }
+
+        /**
+         * A file that is parsed when the job runs, as a stream when it is above the streaming threshold
+         */
+        public static JobDocument fromFile(Path file) {
+            return new JobDocument(file.toString(), null, file.toString(), Map.of("source", file.toString()));
+        }
+
+        Document toDocument() {
+            return Document.from(text, Metadata.from(new HashMap<>(metadata)));
+        }
+
+        // Getters
+        public String getName() { return name; }
+        public String getText() { return text; }
+        public String getPath() { return path; }
+        public Map<String, String> getMetadata() { return metadata; }
+    }
+
+    /**
+     * Checkpointed outcome of one job document
+     */
+    public static class DocumentOutcome {
+        private final int index;
+        private final String name;
+        private final String status;
+        private final Long documentId;
+        private final Integer entityCount;
+        private final Integer relationshipCount;
+        private final String error;
+
+        public DocumentOutcome(int index, String name, String status, Long documentId,
+                               Integer entityCount, Integer relationshipCount, String error) {
+            this.index = index;
+            this.name = name;
+            this.status = status;
+            this.documentId = documentId;
+            this.entityCount = entityCount;
+            this.relationshipCount = relationshipCount;
+            this.error = error;
+        }
+
+        Map<String, Object> toEvent(String jobId) {
+            return event("DOCUMENT", jobId, "document", index, "name", name, "status", status,
+                    "documentId", documentId, "entityCount", entityCount,
+                    "relationshipCount", relationshipCount, "error", error);
+        }
+
+        static DocumentOutcome fromEvent(Map<String, Object> event) {
+            return new DocumentOutcome(intValue(event.get("document")), (String) event.get("name"),
+                    (String) event.get("status"),
+                    event.get("documentId") != null ? longValue(event.get("documentId")) : null,
+                    event.get("entityCount") != null ? intValue(event.get("entityCount")) : null,
+                    event.get("relationshipCount") != null ? intValue(event.get("relationshipCount")) : null,
+                    (String) event.get("error"));
+        }
+
+        // Getters
+        public int getIndex() { return index; }
+        public String getName() { return name; }
+        public String getStatus() { return status; }
+        public Long getDocumentId() { return documentId; }
+        public Integer getEntityCount() { return entityCount; }
+        public Integer getRelationshipCount() { return relationshipCount; }
+        public String getError() { return error; }
+    }
+
+    /**
+     * Snapshot of a job's progress and throughput
+     */
+    public static class JobStatus {
+        private final String jobId;
+        private final String mode;
+        private final int priority;
+        private final JobState state;
+        private final long submittedAt;
+        private final long startedAt;
+        private final long finishedAt;
+        private final int totalDocuments;
+        private final int completedDocuments;
+        private final int failedDocuments;
+        private final int plannedChunks;
+        private final int extractedChunks;
+        private final int reusedChunks;
+        private final double documentsPerMinute;
+        private final double chunksPerSecond;
+        private final List<DocumentOutcome> documents;
+
+        public JobStatus(String jobId, String mode, int priority, JobState state, long submittedAt, long startedAt,
+                         long finishedAt, int totalDocuments, int completedDocuments, int failedDocuments,
+                         int plannedChunks, int extractedChunks, int reusedChunks,
+                         double documentsPerMinute, double chunksPerSecond, List<DocumentOutcome> documents) {
+            this.jobId = jobId;
+            this.mode = mode;
+            this.priority = priority;
+            this.state = state;
+            this.submittedAt = submittedAt;
+            this.startedAt = startedAt;
+            this.finishedAt = finishedAt;
+            this.totalDocuments = totalDocuments;
+            this.completedDocuments = completedDocuments;
+            this.failedDocuments = failedDocuments;
+            this.plannedChunks = plannedChunks;
+            this.extractedChunks = extractedChunks;
+            this.reusedChunks = reusedChunks;
+            this.documentsPerMinute = documentsPerMinute;
+            this.chunksPerSecond = chunksPerSecond;
+            this.documents = documents;
+        }
+
+        // Getters
+        public String getJobId() { return jobId; }
+        public String getMode() { return mode; }
+        public int getPriority() { return priority; }
+        public JobState getState() { return state; }
+        public long getSubmittedAt() { return submittedAt; }
+        public long getStartedAt() { return startedAt; }
+        public long getFinishedAt() { return finishedAt; }
+        public int getTotalDocuments() { return totalDocuments; }
+        public int getCompletedDocuments() { return completedDocuments; }
+        public int getFailedDocuments() { return failedDocuments; }
+        public int getPlannedChunks() { return plannedChunks; }
+        public int getExtractedChunks() { return extractedChunks; }
+        public int getReusedChunks() { return reusedChunks; }
+        public double getDocumentsPerMinute() { return documentsPerMinute; }
+        public double getChunksPerSecond() { return chunksPerSecond; }
+        public List<DocumentOutcome> getDocuments() { return documents; }
+    }
+}
@@ -0,0 +1,147 @@
+package com.graphrag.core.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Append-only ingestion job journal.
+ * One JSON event per line, flushed on every append; a torn last line from a crash is skipped on replay.
+ * Every {@code compactAfter} appends the journal is rewritten from a snapshot of the current job state.
+ */
+class IngestionJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionJournal.class);
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+    private final Supplier<List<Map<String, Object>>> snapshot;
+    private final int compactAfter;
+    private BufferedWriter writer;
+    private int appendsSinceCompaction;
+
+    IngestionJournal(Path path, ObjectMapper objectMapper, Supplier<List<Map<String, Object>>> snapshot,
+                     int compactAfter) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+        this.snapshot = snapshot;
+        this.compactAfter = compactAfter;
+    }
+
+    /**
+     * Read every event recorded so far
+     */
+    List<Map<String, Object>> replay() throws IOException {
+        List<Map<String, Object>> events = new ArrayList<>();
+        if (!Files.exists(path)) {
+            return events;
+        }
+
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                events.add(objectMapper.readValue(line, new TypeReference<Map<String, Object>>() {}));
+            } catch (IOException e) {
+                logger.warn("Skipping unreadable journal line {} in {}", lineNumber, path);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Replace the journal with the given events and open it for appending
+     */
+    synchronized void rewrite(List<Map<String, Object>> events) throws IOException {
+        close();
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        try (BufferedWriter out = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+            for (Map<String, Object> event : events) {
+                out.write(objectMapper.writeValueAsString(event));
+                out.newLine();
+            }
+        }
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        open();
+        appendsSinceCompaction = 0;
+    }
+
+    /**
+     * Rewrite the journal from the current job state; appends wait until it is done
+     */
+    synchronized void compact() throws IOException {
+        rewrite(snapshot.get());
+    }
+
+    /**
+     * Append one event; events appended after {@link #close} are dropped
+     */
+    synchronized void append(Map<String, Object> event) {
+        if (writer == null) {
+            // Closed on shutdown; the work behind a dropped event is redone when its job resumes
+            logger.warn("Ingestion journal {} is closed, dropping {} event", path, event.get("event"));
+            return;
+        }
+        try {
+            writer.write(objectMapper.writeValueAsString(event));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to append to ingestion journal " + path, e);
+        }
+
+        if (compactAfter > 0 && ++appendsSinceCompaction >= compactAfter) {
+            try {
+                compact();
+                logger.debug("Compacted ingestion journal {}", path);
+            } catch (IOException e) {
+                logger.warn("Failed to compact ingestion journal {}, continuing to append", path, e);
+                appendsSinceCompaction = 0;
+                if (writer == null) {
+                    try {
+                        open();
+                    } catch (IOException reopen) {
+                        throw new RuntimeException("Failed to reopen ingestion journal " + path, reopen);
+                    }
+                }
+            }
+        }
+    }
+
+    private void open() throws IOException {
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close ingestion journal {}", path, e);
+            }
+            writer = null;
+        }
+    }
+}
@@ -0,0 +1,511 @@
+package com.graphrag.core.service;
+
+import com.graphrag.common.config.GraphRagProperties;
+import com.graphrag.core.model.TextSpan;
+import com.graphrag.core.utils.ContentHashUtil;
+import com.graphrag.core.utils.EntityNameUtil;
+import com.graphrag.data.entity.DocumentNode;
+import com.graphrag.data.entity.EntityNode;
+import com.graphrag.data.service.GraphService;
+import dev.langchain4j.data.document.Document;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Staged Knowledge Graph Ingestion Pipeline
+ * load -> split -> extract -> resolve -> embed -> write, each stage with its own worker pool and a bounded
+ * queue in front of it. LLM extraction can run wide per segment; resolve gathers a document's segments so
+ * each unique entity is embedded and written once, and graph writes stay batched on a few workers.
+ * Files above the streaming threshold are parsed and split as a stream in the load stage, so their full text
+ * is never held in memory.
+ */
+@Service
+public class IngestionPipelineService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionPipelineService.class);
+
+    // Unchanged chunks of a streamed document are rewritten in batches of this many rows
+    private static final int STREAMED_ROW_BATCH = 256;
+
+    @Autowired
+    private GraphRagProperties properties;
+
+    @Autowired
+    private DocumentLoaderService documentLoaderService;
+
+    @Autowired
+    private TokenTextSplitterService tokenTextSplitterService;
+
+    @Autowired
+    private KnowledgeGraphService knowledgeGraphService;
+
+    @Autowired
+    private GraphService graphService;
+
+    @Autowired
+    private DocumentChunkService documentChunkService;
+
+    @Autowired
+    private EntityResolutionService entityResolutionService;
+
+    private PipelineStage<IngestionJob, IngestionJob> loadStage;
+    private PipelineStage<IngestionJob, SegmentWork> splitStage;
+    private PipelineStage<SegmentWork, SegmentWork> extractStage;
+    private PipelineStage<SegmentWork, DocumentWork> resolveStage;
+    private PipelineStage<DocumentWork, DocumentWork> embedStage;
+    private PipelineStage<DocumentWork, DocumentWork> writeStage;
+
+    @PostConstruct
+    public void start() {
+        GraphRagProperties.Ingestion config = properties.getIngestion();
+        int capacity = config.getQueueCapacity();
+
+        loadStage = new PipelineStage<>("load", config.getLoadParallelism(), 1, capacity,
+                batch -> batch.stream().map(this::load).filter(Objects::nonNull).collect(Collectors.toList()),
+                this::failJobs);
+        splitStage = new PipelineStage<>("split", config.getSplitParallelism(), 1, capacity,
+                batch -> batch.stream().flatMap(job -> split(job).stream()).collect(Collectors.toList()),
+                this::failJobs);
+        extractStage = new PipelineStage<>("extract", config.getExtractParallelism(), 1, capacity,
+                batch -> batch.stream().map(this::extract).collect(Collectors.toList()),
+                (batch, e) -> batch.forEach(work -> resolveStage.submit(work)));
+        resolveStage = new PipelineStage<>("resolve", config.getResolveParallelism(), 1, capacity,
+                batch -> batch.stream().map(this::resolve).filter(Objects::nonNull).collect(Collectors.toList()),
+                (batch, e) -> failJobs(batch.stream().map(work -> work.job).distinct().collect(Collectors.toList()), e));
+        embedStage = new PipelineStage<>("embed", config.getEmbedParallelism(), 1, capacity,
+                batch -> batch.stream().map(this::embed).collect(Collectors.toList()),
+                this::failDocuments);
+        writeStage = new PipelineStage<>("write", config.getWriteParallelism(), config.getWriteBatchSize(), capacity,
+                this::write, this::failDocuments);
+
+        // Start from the tail so every stage has a running consumer before anything is submitted
+        writeStage.start(work -> finish(work.job));
+        embedStage.start(writeStage::submit);
+        resolveStage.start(embedStage::submit);
+        extractStage.start(resolveStage::submit);
+        splitStage.start(extractStage::submit);
+        loadStage.start(splitStage::submit);
+
+        logger.info("Ingestion pipeline started, extract parallelism: {}, write parallelism: {}",
+                config.getExtractParallelism(), config.getWriteParallelism());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (PipelineStage<?, ?> stage : stages()) {
+            stage.shutdown();
+        }
+    }
+
+    /**
+     * Submit a loaded document for ingestion
+     */
+    public CompletableFuture<IngestionResult> submit(Document document) {
+        return submit(document, null);
+    }
+
+    /**
+     * Submit a loaded document, reusing and recording per-chunk extractions through {@code checkpoint}
+     */
+    CompletableFuture<IngestionResult> submit(Document document, ExtractionCheckpoint checkpoint) {
+        IngestionJob job = new IngestionJob(document, null);
+        job.checkpoint = checkpoint;
+        loadStage.submit(job);
+        return job.future;
+    }
+
+    /**
+     * Submit a file for ingestion; it is parsed in the load stage
+     */
+    public CompletableFuture<IngestionResult> submit(Path filePath) {
+        return submit(filePath, null);
+    }
+
+    /**
+     * Submit a file, reusing and recording per-chunk extractions through {@code checkpoint}
+     */
+    CompletableFuture<IngestionResult> submit(Path filePath, ExtractionCheckpoint checkpoint) {
+        IngestionJob job = new IngestionJob(null, filePath);
+        job.checkpoint = checkpoint;
+        loadStage.submit(job);
+        return job.future;
+    }
+
+    /**
+     * Per-stage throughput and queue metrics
+     */
+    public List<Map<String, Object>> getStageMetrics() {
+        return stages().stream().map(PipelineStage::getMetrics).collect(Collectors.toList());
+    }
+
+    private List<PipelineStage<?, ?>> stages() {
+        return List.of(loadStage, splitStage, extractStage, resolveStage, embedStage, writeStage);
+    }
+
+    // Stage processors
+
+    /**
+     * Parse a submitted file; a file above the streaming threshold is streamed straight to extract instead
+     */
+    private IngestionJob load(IngestionJob job) {
+        if (job.document == null) {
+            if (streams(job.filePath)) {
+                stream(job);
+                return null;
+            }
+            job.document = documentLoaderService.loadFromFile(job.filePath);
+        }
+        return job;
+    }
+
+    private boolean streams(Path filePath) {
+        long threshold = properties.getIngestion().getStreamingThresholdBytes();
+        try {
+            return threshold > 0 && Files.size(filePath) >= threshold;
+        } catch (IOException e) {
+            // Let the regular loader report the file
+            return false;
+        }
+    }
+
+    /**
+     * Split a large file while Tika parses it. New or changed segments go to extract as they are cut, blocking on
+     * its queue, so only segments in flight are held in memory. Unchanged ones are rewritten with their new
+     * offsets. An end-of-stream marker follows the last segment, so resolve releases the document only after
+     * the whole file has been read.
+     */
+    private void stream(IngestionJob job) {
+        job.streamed = true;
+        // Held by the end-of-stream marker
+        job.pendingSegments.set(1);
+
+        Set<String> stored = new HashSet<>();
+        Set<String> seen = new HashSet<>();
+        List<DocumentChunkService.Chunk> unchanged = new ArrayList<>();
+        int segments = documentLoaderService.loadStreaming(job.filePath, segment -> {
+            if (job.documentNode == null) {
+                job.documentNode = knowledgeGraphService.saveStreamedDocument(segment.text(), job.filePath.toString());
+                stored.addAll(graphService.findChunkHashes(job.documentNode.getId()));
+            }
+            String hash = ContentHashUtil.sha256(segment.text());
+            if (!seen.add(hash)) {
+                return;
+            }
+            DocumentChunkService.Chunk chunk = new DocumentChunkService.Chunk(hash,
+                    Integer.parseInt(segment.metadata().get("index")),
+                    Math.toIntExact(Long.parseLong(segment.metadata().get("start_offset"))),
+                    Math.toIntExact(Long.parseLong(segment.metadata().get("end_offset"))),
+                    segment.text());
+            if (stored.contains(hash)) {
+                unchanged.add(chunk);
+                if (unchanged.size() >= STREAMED_ROW_BATCH) {
+                    documentChunkService.writeChunks(job.documentNode, unchanged);
+                    unchanged.clear();
+                }
+            } else {
+                job.segmentCount++;
+                job.pendingSegments.incrementAndGet();
+                extractStage.submit(new SegmentWork(job, chunk));
+            }
+        });
+        if (job.documentNode == null) {
+            throw new IllegalStateException("No text extracted from " + job.filePath);
+        }
+        documentChunkService.writeChunks(job.documentNode, unchanged);
+
+        List<String> removed = stored.stream().filter(hash -> !seen.contains(hash)).collect(Collectors.toList());
+        job.chunkPlan = DocumentChunkService.ChunkPlan.streamed(removed);
+        if (job.checkpoint != null) {
+            job.checkpoint.chunksPlanned(job.segmentCount);
+        }
+        logger.info("Document streamed in {} segments, {} new or changed, {} removed: {}",
+                segments, job.segmentCount, removed.size(), job.documentNode.getTitle());
+        extractStage.submit(new SegmentWork(job, null));
+    }
+
+    private List<SegmentWork> split(IngestionJob job) {
+        job.documentNode = knowledgeGraphService.saveDocumentToDatabase(job.document);
+        List<TextSpan> spans = tokenTextSplitterService.split(job.document.text());
+        logger.info("Document split into {} segments: {}", spans.size(), job.documentNode.getTitle());
+
+        // Only new or changed chunks go on to extraction
+        job.chunkPlan = documentChunkService.planChunks(job.documentNode, spans);
+        List<DocumentChunkService.Chunk> changed = job.chunkPlan.getChanged();
+        job.segmentCount = changed.size();
+        job.pendingSegments.set(changed.size());
+        if (job.checkpoint != null) {
+            job.checkpoint.chunksPlanned(changed.size());
+        }
+        if (changed.isEmpty()) {
+            if (job.chunkPlan.hasChanges()) {
+                documentChunkService.applyChunkPlan(job.documentNode, job.chunkPlan, Set.of(), List.of());
+                finish(job);
+            } else {
+                logger.info("Document unchanged since last ingestion, skipping extraction: {}", job.documentNode.getTitle());
+                complete(job);
+            }
+        }
+        return changed.stream().map(chunk -> new SegmentWork(job, chunk)).collect(Collectors.toList());
+    }
+
+    private SegmentWork extract(SegmentWork work) {
+        if (work.chunk == null) {
+            return work;
+        }
+        ExtractionCheckpoint checkpoint = work.job.checkpoint;
+        String hash = work.chunk.getHash();
+        KnowledgeGraphService.ExtractionResult recorded = checkpoint != null ? checkpoint.find(hash) : null;
+        KnowledgeGraphService.ExtractionResult extraction = recorded != null ? recorded.forChunk(hash)
+                : knowledgeGraphService.extractFromText(work.chunk.getText()).forChunk(hash);
+        if (recorded == null && checkpoint != null) {
+            checkpoint.record(hash, extraction);
+        }
+
+        if (work.job.streamed) {
+            writeStreamedChunk(work.job, work.chunk);
+        }
+        work.extraction = extraction;
+        return work;
+    }
+
+    /**
+     * A streamed chunk is embedded and written once extracted, so its text can be dropped; its mentions follow
+     * in the write stage. Chunks written for a job that failed are retracted in {@link #failJobs}.
+     */
+    private void writeStreamedChunk(IngestionJob job, DocumentChunkService.Chunk chunk) {
+        documentChunkService.embedChunks(List.of(chunk));
+        synchronized (job) {
+            if (job.future.isDone()) {
+                return;
+            }
+            documentChunkService.writeChunks(job.documentNode, List.of(chunk));
+            job.writtenHashes.add(chunk.getHash());
+        }
+    }
+
+    /**
+     * Collect a segment's extraction; the last segment of a document releases the whole document
+     */
+    private DocumentWork resolve(SegmentWork work) {
+        IngestionJob job = work.job;
+        if (work.extraction != null) {
+            job.extractions.add(work.extraction);
+        } else if (work.chunk != null) {
+            job.failedSegments.incrementAndGet();
+        }
+
+        if (job.pendingSegments.decrementAndGet() > 0) {
+            return null;
+        }
+        return new DocumentWork(job, knowledgeGraphService.resolveEntities(new ArrayList<>(job.extractions)));
+    }
+
+    private DocumentWork embed(DocumentWork work) {
+        knowledgeGraphService.embedEntities(work.resolved.entities);
+        documentChunkService.embedChunks(
+                documentChunkService.extractedChunks(work.job.chunkPlan, work.resolved.extractedChunkHashes));
+        return work;
+    }
+
+    /**
+     * Resolve the batch's entities against the graph once, then write entities, links, relations and mentions
+     * pointed at the canonical entities
+     */
+    private List<DocumentWork> write(List<DocumentWork> batch) {
+        Map<String, EntityNode> entities = new LinkedHashMap<>();
+        for (DocumentWork work : batch) {
+            for (EntityNode entity : work.resolved.entities) {
+                entities.putIfAbsent(EntityNameUtil.key(entity.getName(), entity.getType()), entity);
+            }
+        }
+        EntityResolutionService.Resolution resolution =
+                entityResolutionService.resolve(new ArrayList<>(entities.values()), Map.of());
+
+        List<Map<String, Object>> relationships = new ArrayList<>();
+        for (DocumentWork work : batch) {
+            relationships.addAll(resolution.remap(resolution.remap(work.resolved.relationships,
+                    "entity1Name", "entity1Type"), "entity2Name", "entity2Type"));
+        }
+
+        graphService.mergeEntities(resolution.getEntities());
+        for (DocumentWork work : batch) {
+            graphService.createDocumentEntityRelationships(work.job.documentNode.getId(),
+                    resolution.canonicalOf(work.resolved.entities));
+        }
+        entityResolutionService.recordAliases(resolution);
+        graphService.createRelationships(relationships);
+        for (DocumentWork work : batch) {
+            documentChunkService.applyChunkPlan(work.job.documentNode, work.job.chunkPlan,
+                    work.resolved.extractedChunkHashes, resolution.remap(work.resolved.mentions, "name", "type"));
+        }
+        return batch;
+    }
+
+    // Job bookkeeping
+
+    private void failJobs(List<IngestionJob> jobs, Exception e) {
+        for (IngestionJob job : jobs) {
+            synchronized (job) {
+                if (job.future.isDone()) {
+                    continue;
+                }
+                if (!job.writtenHashes.isEmpty()) {
+                    // Without their mentions these chunks would pass as unchanged next time and never be extracted
+                    try {
+                        graphService.retractChunks(job.documentNode.getId(), new ArrayList<>(job.writtenHashes));
+                    } catch (Exception retractError) {
+                        logger.warn("Failed to retract chunks of failed document {}: {}",
+                                job.documentNode.getTitle(), retractError.getMessage());
+                    }
+                }
+                job.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void failDocuments(List<DocumentWork> batch, Exception e) {
+        failJobs(batch.stream().map(work -> work.job).collect(Collectors.toList()), e);
+    }
+
+    private void finish(IngestionJob job) {
+        try {
+            knowledgeGraphService.generateDocumentEmbedding(job.documentNode);
+            complete(job);
+        } catch (Exception e) {
+            job.future.completeExceptionally(e);
+        }
+    }
+
+    private void complete(IngestionJob job) {
+        try {
+            int entityCount = job.resolved != null ? job.resolved.entities.size() : 0;
+            int relationshipCount = job.resolved != null ? job.resolved.relationships.size() : 0;
+            int duplicateSegments = job.chunkPlan != null ? job.chunkPlan.getDuplicates().size() : 0;
+            IngestionResult result = new IngestionResult(job.documentNode.getId(), job.documentNode.getTitle(),
+                    job.segmentCount, job.failedSegments.get(), duplicateSegments, entityCount, relationshipCount,
+                    (System.nanoTime() - job.startNanos) / 1_000_000);
+            logger.info("Ingestion completed, document: {}, segments: {}, failed: {}, near-duplicate: {}, entities: {}, relationships: {}",
+                    result.getDocumentTitle(), result.getSegmentCount(), result.getFailedSegments(),
+                    result.getDuplicateSegments(), result.getEntityCount(), result.getRelationshipCount());
+            job.future.complete(result);
+        } catch (Exception e) {
+            job.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * One document moving through the pipeline
+     */
+    private static class IngestionJob {
+        final Path filePath;
+        final long startNanos = System.nanoTime();
+        final CompletableFuture<IngestionResult> future = new CompletableFuture<>();
+        final AtomicInteger pendingSegments = new AtomicInteger();
+        final AtomicInteger failedSegments = new AtomicInteger();
+        final Queue<KnowledgeGraphService.ExtractionResult> extractions = new ConcurrentLinkedQueue<>();
+        // Chunks of a streamed document written ahead of the write stage
+        final Set<String> writtenHashes = ConcurrentHashMap.newKeySet();
+        volatile Document document;
+        volatile DocumentNode documentNode;
+        volatile DocumentChunkService.ChunkPlan chunkPlan;
+        volatile KnowledgeGraphService.ResolvedEntities resolved;
+        volatile ExtractionCheckpoint checkpoint;
+        volatile int segmentCount;
+        volatile boolean streamed;
+
+        IngestionJob(Document document, Path filePath) {
+            this.document = document;
+            this.filePath = filePath;
+        }
+    }
+
+    /**
+     * One chunk moving through extract; a failed extraction reaches resolve with no result. A streamed document
+     * ends with a marker that has no chunk.
+     */
+    private static class SegmentWork {
+        final IngestionJob job;
+        final DocumentChunkService.Chunk chunk;
+        KnowledgeGraphService.ExtractionResult extraction;
+
+        SegmentWork(IngestionJob job, DocumentChunkService.Chunk chunk) {
+            this.job = job;
+            this.chunk = chunk;
+        }
+    }
+
+    /**
+     * One resolved document moving through embed and write
+     */
+    private static class DocumentWork {
+        final IngestionJob job;
+        final KnowledgeGraphService.ResolvedEntities resolved;
+
+        DocumentWork(IngestionJob job, KnowledgeGraphService.ResolvedEntities resolved) {
+            this.job = job;
+            this.resolved = resolved;
+            job.resolved = resolved;
+        }
+    }
+
+    /**
+     * Durable per-chunk extraction store, so a resumed document skips chunks already extracted
+     */
+    interface ExtractionCheckpoint {
+        void chunksPlanned(int count);
+
+        KnowledgeGraphService.ExtractionResult find(String chunkHash);
+
+        void record(String chunkHash, KnowledgeGraphService.ExtractionResult extraction);
+    }
+
+    /**
+     * Ingestion result for one document
+     */
+    public static class IngestionResult {
+        private final Long documentId;
+        private final String documentTitle;
+        private final int segmentCount;
+        private final int failedSegments;
+        private final int duplicateSegments;
+        private final int entityCount;
+        private final int relationshipCount;
+        private final long elapsedMillis;
+
+        public IngestionResult(Long documentId, String documentTitle, int segmentCount, int failedSegments,
+                               int duplicateSegments, int entityCount, int relationshipCount, long elapsedMillis) {
+            this.documentId = documentId;
+            this.documentTitle = documentTitle;
+            this.segmentCount = segmentCount;
+            this.failedSegments = failedSegments;
+            this.duplicateSegments = duplicateSegments;
+            this.entityCount = entityCount;
+            this.relationshipCount = relationshipCount;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        // Getters
+        public Long getDocumentId() { return documentId; }
+        public String getDocumentTitle() { return documentTitle; }
+        public int getSegmentCount() { return segmentCount; }
+        public int getFailedSegments() { return failedSegments; }
+        public int getDuplicateSegments() { return duplicateSegments; }
+        public int getEntityCount() { return entityCount; }
+        public int getRelationshipCount() { return relationshipCount; }
+        public long getElapsedMillis() { return elapsedMillis; }
+    }
+}
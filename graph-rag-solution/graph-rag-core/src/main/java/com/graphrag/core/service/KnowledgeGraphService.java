@@ -1,13 +1,12 @@
 package com.graphrag.core.service;
 
+import com.graphrag.common.config.GraphRagProperties;
+import com.graphrag.core.utils.ContentHashUtil;
+import com.graphrag.core.utils.EntityNameUtil;
 import com.graphrag.data.entity.DocumentNode;
 import com.graphrag.data.entity.EntityNode;
 import com.graphrag.data.service.DocumentService;
-import com.graphrag.data.service.EntityService;
-import com.graphrag.data.service.GraphService;
 import dev.langchain4j.data.document.Document;
-import dev.langchain4j.data.segment.TextSegment;
-import dev.langchain4j.model.chat.ChatLanguageModel;
 import dev.langchain4j.model.input.Prompt;
 import dev.langchain4j.model.input.PromptTemplate;
 import org.slf4j.Logger;
@@ -17,10 +16,14 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * Knowledge Graph Construction Service
@@ -31,22 +34,16 @@ public class KnowledgeGraphService {
     private static final Logger logger = LoggerFactory.getLogger(KnowledgeGraphService.class);
 
     @Autowired
-    private ChatLanguageModel chatLanguageModel;
+    private LlmGateway llmGateway;
 
     @Autowired
     private EmbeddingService embeddingService;
 
-    @Autowired
-    private TextSplitterService textSplitterService;
-
     @Autowired
     private DocumentService documentService;
 
     @Autowired
-    private EntityService entityService;
-
-    @Autowired
-    private GraphService graphService;
+    private GraphRagProperties properties;
 
     // Prompt template for entity and relation extraction
     private static final PromptTemplate ENTITY_EXTRACTION_TEMPLATE = PromptTemplate.from("""
@@ -70,60 +67,34 @@ public class KnowledgeGraphService {
             4. Ensure entity names are accurate and consistent
             """);
 
-    /**
-     * Build knowledge graph from document
-     */
-    public void buildKnowledgeGraphFromDocument(Document document) {
-        logger.info("Starting to build knowledge graph from document, source: {}", document.metadata().get("source"));
-
-        try {
-            // 1. Save document to database
-            DocumentNode documentNode = saveDocumentToDatabase(document);
-
-            // 2. Split document
-            List<TextSegment> segments = textSplitterService.splitDocumentOptimized(document);
-            logger.info("Document splitting completed, generated {} segments", segments.size());
-
-            // 3. Extract entities and relations for each segment
-            for (int i = 0; i < segments.size(); i++) {
-                TextSegment segment = segments.get(i);
-                logger.debug("Processing segment {}/{}", i + 1, segments.size());
-                
-                try {
-                    extractEntitiesAndRelations(segment, documentNode);
-                } catch (Exception e) {
-                    logger.error("Failed to process segment: {}", segment.text().substring(0, Math.min(100, segment.text().length())), e);
-                }
-            }
-
-            // 4. Generate document embedding
-            generateDocumentEmbedding(documentNode);
-
-            logger.info("Knowledge graph construction completed, document: {}", documentNode.getTitle());
-
-        } catch (Exception e) {
-            logger.error("Failed to build knowledge graph", e);
-            throw new RuntimeException("Knowledge graph construction failed", e);
-        }
-    }
-
     /**
      * Save document to database
      */
-    private DocumentNode saveDocumentToDatabase(Document document) {
+    DocumentNode saveDocumentToDatabase(Document document) {
         String title = extractTitle(document.text());
         String source = (String) document.metadata().get("source");
         
         DocumentNode documentNode = new DocumentNode(title, document.text(), source);
         documentNode.setMetadata(document.metadata().asMap().toString());
+        documentNode.setContentHash(ContentHashUtil.sha256(document.text()));
         
         return documentService.findOrCreateDocument(documentNode);
     }
 
+    /**
+     * Save a document streamed from a large file. Its first segment stands in for the content; the full text
+     * is only stored in its chunks, so the document has no content hash.
+     */
+    DocumentNode saveStreamedDocument(String firstSegment, String source) {
+        DocumentNode documentNode = new DocumentNode(extractTitle(firstSegment), firstSegment, source);
+        documentNode.setMetadata(Map.of("source", source).toString());
+        return documentService.findOrCreateDocument(documentNode);
+    }
+
     /**
      * Extract document title
      */
-    private String extractTitle(String text) {
+    static String extractTitle(String text) {
         // Simple title extraction logic, take first line or first 50 characters
         String[] lines = text.split("\n");
         if (lines.length > 0 && lines[0].length() < 100) {
@@ -134,58 +105,90 @@ public class KnowledgeGraphService {
     }
 
     /**
-     * Extract entities and relations from text segment
+     * Use LLM to extract entities and relations from a text segment; the view is copied only to render the prompt
      */
-    private void extractEntitiesAndRelations(TextSegment segment, DocumentNode documentNode) {
-        try {
-            // Use LLM to extract entities and relations
-            Prompt prompt = ENTITY_EXTRACTION_TEMPLATE.apply(Map.of("text", segment.text()));
-            String response = chatLanguageModel.generate(prompt.text());
-
-            // Parse LLM response
-            ExtractionResult result = parseExtractionResponse(response);
+    ExtractionResult extractFromText(CharSequence text) {
+        Prompt prompt = ENTITY_EXTRACTION_TEMPLATE.apply(Map.of("text", text.toString()));
+        String response = llmGateway.generate(prompt.text(), LlmGateway.Lane.BACKGROUND);
+        return parseExtractionResponse(response);
+    }
 
-            // Save entities
-            List<EntityNode> entities = new ArrayList<>();
+    /**
+     * Document-level entity resolution
+     * Merges mentions from all segments by normalised name and type, and points relations at the merged entities
+     */
+    ResolvedEntities resolveEntities(List<ExtractionResult> results) {
+        Map<String, EntityNode> entitiesByKey = new LinkedHashMap<>();
+        Map<String, EntityNode> entitiesByName = new HashMap<>();
+        Map<String, Map<String, Object>> chunkMentions = new LinkedHashMap<>();
+        Set<String> extractedChunkHashes = new HashSet<>();
+        for (ExtractionResult result : results) {
+            if (result.chunkHash != null) {
+                extractedChunkHashes.add(result.chunkHash);
+            }
             for (EntityInfo entityInfo : result.entities) {
-                EntityNode entity = entityService.findOrCreateEntity(entityInfo.name, entityInfo.type);
-                entity.setDescription(entityInfo.description);
-                
-                // Generate entity embedding
-                List<Double> embedding = embeddingService.embedText(entityInfo.name + " " + entityInfo.description);
-                entity.setEmbedding(embedding);
-                
-                entities.add(entityService.saveEntity(entity));
-                
-                // Create relationship between document and entity
-                graphService.createDocumentEntityRelationship(documentNode.getId(), entity.getName(), entity.getType());
+                if (entityInfo.name.isBlank()) {
+                    continue;
+                }
+                String entityKey = EntityNameUtil.key(entityInfo.name, entityInfo.type);
+                EntityNode entity = entitiesByKey.computeIfAbsent(entityKey,
+                        key -> new EntityNode(entityInfo.name, entityInfo.type, entityInfo.description));
+                // Keep the most detailed description seen across mentions
+                if (entityInfo.description.length() > entity.getDescription().length()) {
+                    entity.setDescription(entityInfo.description);
+                }
+                entitiesByName.putIfAbsent(EntityNameUtil.normalise(entityInfo.name), entity);
+
+                if (result.chunkHash != null) {
+                    chunkMentions.putIfAbsent(result.chunkHash + "|" + entityKey,
+                            Map.of("hash", result.chunkHash, "name", entity.getName(), "type", entity.getType()));
+                }
             }
+        }
 
-            // Save relations
+        Map<String, Map<String, Object>> relationships = new LinkedHashMap<>();
+        for (ExtractionResult result : results) {
             for (RelationInfo relationInfo : result.relations) {
-                graphService.createRelationship(
-                    relationInfo.entity1, getEntityType(relationInfo.entity1, entities),
-                    relationInfo.entity2, getEntityType(relationInfo.entity2, entities),
-                    relationInfo.relationType, relationInfo.description, 1.0
-                );
+                EntityNode source = entitiesByName.get(EntityNameUtil.normalise(relationInfo.entity1));
+                EntityNode target = entitiesByName.get(EntityNameUtil.normalise(relationInfo.entity2));
+
+                Map<String, Object> relationship = new HashMap<>();
+                relationship.put("entity1Name", source != null ? source.getName() : relationInfo.entity1);
+                relationship.put("entity1Type", source != null ? source.getType() : "Unknown");
+                relationship.put("entity2Name", target != null ? target.getName() : relationInfo.entity2);
+                relationship.put("entity2Type", target != null ? target.getType() : "Unknown");
+                relationship.put("relationshipType", relationInfo.relationType);
+                relationship.put("description", relationInfo.description);
+                relationship.put("weight", 1.0);
+
+                String key = relationship.get("entity1Name") + "|" + relationship.get("entity1Type") + "|"
+                        + relationInfo.relationType + "|"
+                        + relationship.get("entity2Name") + "|" + relationship.get("entity2Type");
+                relationships.putIfAbsent(key, relationship);
             }
-
-            logger.debug("Extraction completed - Entities: {}, Relations: {}", result.entities.size(), result.relations.size());
-
-        } catch (Exception e) {
-            logger.error("Failed to extract entities and relations", e);
         }
+
+        int mentions = results.stream().mapToInt(result -> result.entities.size()).sum();
+        logger.debug("Entity resolution - mentions: {}, unique entities: {}, relations: {}",
+                mentions, entitiesByKey.size(), relationships.size());
+        return new ResolvedEntities(new ArrayList<>(entitiesByKey.values()), new ArrayList<>(relationships.values()),
+                new ArrayList<>(chunkMentions.values()), extractedChunkHashes);
     }
 
     /**
-     * Get entity type
+     * Embed entities with batched embedAll calls
      */
-    private String getEntityType(String entityName, List<EntityNode> entities) {
-        return entities.stream()
-                .filter(e -> e.getName().equals(entityName))
-                .findFirst()
-                .map(EntityNode::getType)
-                .orElse("Unknown");
+    void embedEntities(List<EntityNode> entities) {
+        int batchSize = Math.max(1, properties.getIngestion().getEmbedBatchSize());
+        for (int from = 0; from < entities.size(); from += batchSize) {
+            List<EntityNode> batch = entities.subList(from, Math.min(entities.size(), from + batchSize));
+            List<List<Double>> embeddings = embeddingService.embedTexts(batch.stream()
+                    .map(entity -> entityEmbeddingText(entity.getName(), entity.getDescription()))
+                    .collect(Collectors.toList()));
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).setEmbedding(embeddings.get(i));
+            }
+        }
     }
 
     /**
@@ -252,13 +255,10 @@ public class KnowledgeGraphService {
     /**
      * Generate document embedding
      */
-    private void generateDocumentEmbedding(DocumentNode documentNode) {
+    void generateDocumentEmbedding(DocumentNode documentNode) {
         try {
-            // Generate embedding using document title and first 500 characters of content
-            String textForEmbedding = documentNode.getTitle() + "\n" + 
-                    documentNode.getContent().substring(0, Math.min(500, documentNode.getContent().length()));
-            
-            List<Double> embedding = embeddingService.embedText(textForEmbedding);
+            List<Double> embedding = embeddingService.embedText(
+                    documentEmbeddingText(documentNode.getTitle(), documentNode.getContent()));
             documentService.updateEmbedding(documentNode.getId(), embedding);
             
             logger.debug("Document embedding generation completed, document ID: {}", documentNode.getId());
@@ -267,18 +267,57 @@ public class KnowledgeGraphService {
         }
     }
 
+    /**
+     * Text a document is embedded from: title and first 500 characters of content
+     */
+    public static String documentEmbeddingText(String title, String content) {
+        return title + "\n" + content.substring(0, Math.min(500, content.length()));
+    }
+
+    /**
+     * Text an entity is embedded from: name and description
+     */
+    public static String entityEmbeddingText(String name, String description) {
+        return name + " " + description;
+    }
+
     // Inner data classes
-    private static class ExtractionResult {
+    static class ExtractionResult {
         final List<EntityInfo> entities;
         final List<RelationInfo> relations;
+        final String chunkHash;
 
         ExtractionResult(List<EntityInfo> entities, List<RelationInfo> relations) {
+            this(entities, relations, null);
+        }
+
+        ExtractionResult(List<EntityInfo> entities, List<RelationInfo> relations, String chunkHash) {
             this.entities = entities;
             this.relations = relations;
+            this.chunkHash = chunkHash;
+        }
+
+        ExtractionResult forChunk(String hash) {
+            return new ExtractionResult(entities, relations, hash);
+        }
+    }
+
+    static class ResolvedEntities {
+        final List<EntityNode> entities;
+        final List<Map<String, Object>> relationships;
+        final List<Map<String, Object>> mentions;
+        final Set<String> extractedChunkHashes;
+
+        ResolvedEntities(List<EntityNode> entities, List<Map<String, Object>> relationships,
+                         List<Map<String, Object>> mentions, Set<String> extractedChunkHashes) {
+            this.entities = entities;
+            this.relationships = relationships;
+            this.mentions = mentions;
+            this.extractedChunkHashes = extractedChunkHashes;
         }
     }
 
-    private static class EntityInfo {
+    static class EntityInfo {
         final String name;
         final String type;
         final String description;
@@ -290,7 +329,7 @@ public class KnowledgeGraphService {
         }
     }
 
-    private static class RelationInfo {
+    static class RelationInfo {
         final String entity1;
         final String entity2;
         final String relationType;
@@ -0,0 +1,364 @@
+package com.graphrag.core.service;
+
+import com.graphrag.common.config.GraphRagProperties;
+import com.graphrag.common.exception.GraphRagException;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shared LLM Gateway
+ * Every chat model call goes through here. Concurrency is limited by an AIMD controller: the limit grows by
+ * one per limit's worth of successful calls while it is saturated, and is cut multiplicatively on a rate-limit
+ * error or when model latency exceeds the target. Waiting calls queue in two lanes; interactive calls are
+ * granted first, with every {@code interactive-share}-th grant going to background work so ingestion still
+ * progresses under query load. Streaming calls hold their slot until the last token, and their time to first
+ * token is what the latency target is measured against.
+ */
+@Service
+public class LlmGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(LlmGateway.class);
+
+    /**
+     * Priority lanes
+     */
+    public enum Lane { INTERACTIVE, BACKGROUND }
+
+    @Autowired
+    private ChatLanguageModel chatLanguageModel;
+
+    @Autowired
+    private StreamingChatLanguageModel streamingChatLanguageModel;
+
+    @Autowired
+    private GraphRagProperties properties;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Lane, Deque<Waiter>> waiting = new EnumMap<>(Lane.class);
+    private final Map<Lane, LaneMetrics> metrics = new EnumMap<>(Lane.class);
+
+    private double limit;
+    private int inFlight;
+    private int interactiveGrantsInRow;
+    private long lastDecreaseNanos;
+
+    @PostConstruct
+    void init() {
+        for (Lane lane : Lane.values()) {
+            waiting.put(lane, new ArrayDeque<>());
+            metrics.put(lane, new LaneMetrics());
+        }
+        limit = config().getInitialConcurrency();
+    }
+
+    /**
+     * Generate a completion on the given lane, waiting for a concurrency slot first
+     */
+    public String generate(String prompt, Lane lane) {
+        LaneMetrics laneMetrics = metrics.get(lane);
+        laneMetrics.submitted.incrementAndGet();
+
+        long enqueuedAt = System.nanoTime();
+        acquire(lane);
+        long startedAt = System.nanoTime();
+        laneMetrics.recordWait(startedAt - enqueuedAt);
+
+        boolean succeeded = false;
+        boolean rateLimited = false;
+        try {
+            String response = chatLanguageModel.generate(prompt);
+            succeeded = true;
+            return response;
+        } catch (RuntimeException e) {
+            rateLimited = isRateLimit(e);
+            throw e;
+        } finally {
+            long modelNanos = System.nanoTime() - startedAt;
+            laneMetrics.recordCall(modelNanos, succeeded, rateLimited);
+            release(modelNanos, succeeded, rateLimited);
+        }
+    }
+
+    /**
+     * Stream a completion on the given lane. The caller blocks only until a concurrency slot is granted; tokens
+     * and completion are then delivered to the handler on the model client's thread.
+     */
+    public void stream(String prompt, Lane lane, StreamingResponseHandler<AiMessage> handler) {
+        LaneMetrics laneMetrics = metrics.get(lane);
+        laneMetrics.submitted.incrementAndGet();
+
+        long enqueuedAt = System.nanoTime();
+        acquire(lane);
+        long startedAt = System.nanoTime();
+        laneMetrics.recordWait(startedAt - enqueuedAt);
+
+        AtomicLong firstTokenAt = new AtomicLong();
+        AtomicBoolean finished = new AtomicBoolean();
+        StreamingResponseHandler<AiMessage> tracked = new StreamingResponseHandler<>() {
+            @Override
+            public void onNext(String token) {
+                firstTokenAt.compareAndSet(0, System.nanoTime());
+                handler.onNext(token);
+            }
+
+            @Override
+            public void onComplete(Response<AiMessage> response) {
+                finish(true, false);
+                handler.onComplete(response);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                finish(false, isRateLimit(error));
+                handler.onError(error);
+            }
+
+            private void finish(boolean succeeded, boolean rateLimited) {
+                if (finished.compareAndSet(false, true)) {
+                    long endedAt = System.nanoTime();
+                    long firstToken = firstTokenAt.get() != 0 ? firstTokenAt.get() : endedAt;
+                    laneMetrics.recordCall(endedAt - startedAt, succeeded, rateLimited);
+                    release(firstToken - startedAt, succeeded, rateLimited);
+                }
+            }
+        };
+
+        try {
+            streamingChatLanguageModel.generate(prompt, tracked);
+        } catch (RuntimeException e) {
+            tracked.onError(e);
+        }
+    }
+
+    /**
+     * Current limit, in-flight calls and per-lane queue wait versus model time
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        List<Map<String, Object>> lanes = new ArrayList<>();
+        lock.lock();
+        try {
+            result.put("concurrencyLimit", (int) limit);
+            result.put("concurrencyLimitExact", limit);
+            result.put("inFlight", inFlight);
+            for (Lane lane : Lane.values()) {
+                Map<String, Object> laneResult = metrics.get(lane).snapshot();
+                laneResult.put("lane", lane.name());
+                laneResult.put("queued", waiting.get(lane).size());
+                laneResult.put("queueLimit", queueLimit(lane));
+                lanes.add(laneResult);
+            }
+        } finally {
+            lock.unlock();
+        }
+        result.put("lanes", lanes);
+        return result;
+    }
+
+    // Admission
+
+    private void acquire(Lane lane) {
+        lock.lock();
+        try {
+            Deque<Waiter> queue = waiting.get(lane);
+            boolean ahead = lane == Lane.INTERACTIVE
+                    ? !queue.isEmpty()
+                    : !queue.isEmpty() || !waiting.get(Lane.INTERACTIVE).isEmpty();
+            if (!ahead && inFlight < permits()) {
+                inFlight++;
+                return;
+            }
+
+            if (queue.size() >= queueLimit(lane)) {
+                metrics.get(lane).rejected.incrementAndGet();
+                throw new GraphRagException("LLM_QUEUE_FULL", "LLM " + lane + " queue is full (" + queue.size() + ")");
+            }
+
+            Waiter waiter = new Waiter(lock.newCondition());
+            queue.addLast(waiter);
+            long remaining = TimeUnit.MILLISECONDS.toNanos(waitTimeoutMillis(lane));
+            try {
+                while (!waiter.granted) {
+                    if (remaining <= 0) {
+                        queue.remove(waiter);
+                        metrics.get(lane).rejected.incrementAndGet();
+                        throw new GraphRagException("LLM_QUEUE_TIMEOUT", "Timed out waiting for an LLM " + lane + " slot");
+                    }
+                    remaining = waiter.condition.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (waiter.granted) {
+                    inFlight--;
+                    dispatch();
+                } else {
+                    queue.remove(waiter);
+                }
+                throw new GraphRagException("LLM_QUEUE_INTERRUPTED", "Interrupted waiting for an LLM slot", e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long modelNanos, boolean succeeded, boolean rateLimited) {
+        lock.lock();
+        try {
+            boolean saturated = inFlight >= permits();
+            inFlight--;
+
+            GraphRagProperties.LlmGateway config = config();
+            long modelMillis = TimeUnit.NANOSECONDS.toMillis(modelNanos);
+            if (rateLimited || (succeeded && modelMillis > config.getLatencyTargetMillis())) {
+                decrease(rateLimited ? "rate limited" : "latency " + modelMillis + " ms");
+            } else if (succeeded && saturated) {
+                limit = Math.min(config.getMaxConcurrency(), limit + 1.0 / limit);
+            }
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Multiplicative decrease, at most once per latency target so one burst of slow calls counts once
+     */
+    private void decrease(String reason) {
+        GraphRagProperties.LlmGateway config = config();
+        long now = System.nanoTime();
+        if (now - lastDecreaseNanos < TimeUnit.MILLISECONDS.toNanos(config.getLatencyTargetMillis())) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        double previous = limit;
+        limit = Math.max(config.getMinConcurrency(), limit * config.getDecreaseFactor());
+        logger.info("LLM concurrency limit reduced {} -> {} ({})", String.format("%.2f", previous),
+                String.format("%.2f", limit), reason);
+    }
+
+    /**
+     * Hand free slots to waiting calls, interactive first
+     */
+    private void dispatch() {
+        while (inFlight < permits()) {
+            Waiter next = nextWaiter();
+            if (next == null) {
+                return;
+            }
+            next.granted = true;
+            inFlight++;
+            next.condition.signal();
+        }
+    }
+
+    private Waiter nextWaiter() {
+        Deque<Waiter> interactive = waiting.get(Lane.INTERACTIVE);
+        Deque<Waiter> background = waiting.get(Lane.BACKGROUND);
+        if (!interactive.isEmpty()
+                && (background.isEmpty() || interactiveGrantsInRow < config().getInteractiveShare())) {
+            interactiveGrantsInRow++;
+            return interactive.pollFirst();
+        }
+        if (!background.isEmpty()) {
+            interactiveGrantsInRow = 0;
+            return background.pollFirst();
+        }
+        return null;
+    }
+
+    private int permits() {
+        return Math.max(1, (int) limit);
+    }
+
+    private int queueLimit(Lane lane) {
+        return lane == Lane.INTERACTIVE ? config().getInteractiveQueueLimit() : config().getBackgroundQueueLimit();
+    }
+
+    private long waitTimeoutMillis(Lane lane) {
+        return lane == Lane.INTERACTIVE ? config().getInteractiveTimeoutMillis() : config().getBackgroundTimeoutMillis();
+    }
+
+    private GraphRagProperties.LlmGateway config() {
+        return properties.getLlmGateway();
+    }
+
+    private static boolean isRateLimit(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            String message = t.getMessage() != null ? t.getMessage().toLowerCase(Locale.ROOT) : "";
+            if (message.contains("429") || message.contains("rate limit") || message.contains("too many requests")
+                    || t.getClass().getSimpleName().contains("RateLimit")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Waiter {
+        final Condition condition;
+        boolean granted;
+
+        Waiter(Condition condition) {
+            this.condition = condition;
+        }
+    }
+
+    /**
+     * Per-lane counters; queue wait and model time are kept apart
+     */
+    private static class LaneMetrics {
+        final AtomicLong submitted = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong rateLimited = new AtomicLong();
+        final AtomicLong waitNanos = new AtomicLong();
+        final AtomicLong maxWaitNanos = new AtomicLong();
+        final AtomicLong modelNanos = new AtomicLong();
+        final AtomicLong maxModelNanos = new AtomicLong();
+
+        void recordWait(long nanos) {
+            waitNanos.addAndGet(nanos);
+            maxWaitNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        void recordCall(long nanos, boolean succeeded, boolean wasRateLimited) {
+            (succeeded ? completed : failed).incrementAndGet();
+            if (wasRateLimited) {
+                rateLimited.incrementAndGet();
+            }
+            modelNanos.addAndGet(nanos);
+            maxModelNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        Map<String, Object> snapshot() {
+            long calls = completed.get() + failed.get();
+            long admitted = submitted.get() - rejected.get();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("submitted", submitted.get());
+            result.put("rejected", rejected.get());
+            result.put("completed", completed.get());
+            result.put("failed", failed.get());
+            result.put("rateLimited", rateLimited.get());
+            result.put("avgQueueWaitMillis", admitted > 0 ? waitNanos.get() / 1_000_000.0 / admitted : 0.0);
+            result.put("maxQueueWaitMillis", maxWaitNanos.get() / 1_000_000.0);
+            result.put("avgModelMillis", calls > 0 ? modelNanos.get() / 1_000_000.0 / calls : 0.0);
+            result.put("maxModelMillis", maxModelNanos.get() / 1_000_000.0);
+            return result;
+        }
+    }
+}
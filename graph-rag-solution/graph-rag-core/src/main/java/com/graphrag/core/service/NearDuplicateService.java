@@ -0,0 +1,411 @@
+package com.graphrag.core.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graphrag.common.config.GraphRagProperties;
+import com.graphrag.core.utils.MinHashLsh;
+import com.graphrag.core.utils.SimHash;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Near-Duplicate Detection
+ * Keeps MinHash and SimHash fingerprints of every extracted chunk and ingested document in in-memory LSH
+ * indexes, persisted to disk. A new chunk is a near duplicate when an indexed chunk's estimated Jaccard
+ * similarity reaches the threshold and their SimHash fingerprints are within the allowed distance; such chunks
+ * reuse the source chunk's extraction instead of calling the LLM.
+ * Documents are keyed by their uid and chunks by {@code document_uid:hash}, matching how chunks are stored;
+ * internal graph ids are reused after deletion and would point at the wrong nodes.
+ */
+@Service
+public class NearDuplicateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NearDuplicateService.class);
+
+    private static final long LSH_SEED = 7L;
+
+    // Stored with the index; indexes keyed by anything else (such as internal ids) are not loaded
+    private static final String KEY_FORMAT = "uid";
+
+    @Autowired
+    private GraphRagProperties properties;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, Fingerprint> chunks = new ConcurrentHashMap<>();
+    private final Map<String, Fingerprint> documents = new ConcurrentHashMap<>();
+    private MinHashLsh<String> chunkIndex;
+    private MinHashLsh<String> documentIndex;
+
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private ScheduledExecutorService flushExecutor;
+
+    private final AtomicLong chunksChecked = new AtomicLong();
+    private final AtomicLong duplicateChunks = new AtomicLong();
+    private final AtomicLong documentsChecked = new AtomicLong();
+    private final AtomicLong duplicateDocuments = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        GraphRagProperties.Deduplication config = properties.getDeduplication();
+        chunkIndex = newIndex();
+        documentIndex = newIndex();
+        if (!config.getEnabled()) {
+            return;
+        }
+        load(Path.of(config.getIndexPath()));
+
+        if (config.getFlushIntervalSeconds() > 0) {
+            flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "near-duplicate-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flushExecutor.scheduleWithFixedDelay(this::flush, config.getFlushIntervalSeconds(),
+                    config.getFlushIntervalSeconds(), TimeUnit.SECONDS);
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.getDeduplication().getEnabled();
+    }
+
+    /**
+     * Whether duplicates are recorded and linked to their source, rather than skipped
+     */
+    public boolean isLinking() {
+        return "link".equalsIgnoreCase(properties.getDeduplication().getAction());
+    }
+
+    /**
+     * The most similar already-extracted chunk of another document for each chunk that is a near duplicate of one;
+     * the document's own chunks are never a source, since re-ingestion may be retracting them
+     */
+    public List<ChunkDuplicate> findDuplicateChunks(String documentUid, List<DocumentChunkService.Chunk> candidates) {
+        List<ChunkDuplicate> duplicates = new ArrayList<>();
+        String ownPrefix = documentUid + ":";
+        for (DocumentChunkService.Chunk chunk : candidates) {
+            chunksChecked.incrementAndGet();
+            Match match = bestMatch(chunkIndex, chunks, fingerprint(chunk.getText()), key -> key.startsWith(ownPrefix));
+            if (match != null) {
+                int separator = match.key.lastIndexOf(':');
+                duplicates.add(new ChunkDuplicate(chunk, match.key.substring(0, separator),
+                        match.key.substring(separator + 1), match.similarity));
+            }
+        }
+        duplicateChunks.addAndGet(duplicates.size());
+        return duplicates;
+    }
+
+    /**
+     * An ingested document the text is a near duplicate of, or null
+     */
+    public DocumentDuplicate findDuplicateDocument(String documentUid, CharSequence text) {
+        documentsChecked.incrementAndGet();
+        Match match = bestMatch(documentIndex, documents, fingerprint(text), documentUid::equals);
+        if (match == null) {
+            return null;
+        }
+        duplicateDocuments.incrementAndGet();
+        return new DocumentDuplicate(match.key, match.similarity);
+    }
+
+    /**
+     * Index chunks whose extraction has been written, so later chunks can reuse it
+     */
+    public void recordChunks(String documentUid, List<DocumentChunkService.Chunk> extracted) {
+        for (DocumentChunkService.Chunk chunk : extracted) {
+            index(chunkIndex, chunks, documentUid + ":" + chunk.getHash(), fingerprint(chunk.getText()));
+        }
+    }
+
+    public void recordDocument(String documentUid, CharSequence text) {
+        index(documentIndex, documents, documentUid, fingerprint(text));
+    }
+
+    /**
+     * Drop chunks retracted from the graph
+     */
+    public void removeChunks(String documentUid, List<String> hashes) {
+        for (String hash : hashes) {
+            String key = documentUid + ":" + hash;
+            if (chunks.remove(key) != null) {
+                chunkIndex.remove(key);
+                dirty.set(true);
+            }
+        }
+    }
+
+    /**
+     * Drop a deleted document and all of its chunks
+     */
+    public void removeDocument(String documentUid) {
+        String prefix = documentUid + ":";
+        List<String> keys = chunks.keySet().stream().filter(key -> key.startsWith(prefix)).collect(Collectors.toList());
+        for (String key : keys) {
+            chunks.remove(key);
+            chunkIndex.remove(key);
+        }
+        if (documents.remove(documentUid) != null) {
+            documentIndex.remove(documentUid);
+        }
+        dirty.set(true);
+    }
+
+    /**
+     * Drop every fingerprint, after the graph was cleared
+     */
+    public void clear() {
+        chunks.clear();
+        documents.clear();
+        chunkIndex.clear();
+        documentIndex.clear();
+        dirty.set(true);
+    }
+
+    /**
+     * Checked and duplicate counts; every duplicate chunk is one extraction call saved
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", isEnabled());
+        result.put("action", properties.getDeduplication().getAction());
+        result.put("indexedChunks", chunks.size());
+        result.put("indexedDocuments", documents.size());
+        result.put("chunksChecked", chunksChecked.get());
+        result.put("duplicateChunks", duplicateChunks.get());
+        result.put("llmCallsSaved", duplicateChunks.get());
+        result.put("documentsChecked", documentsChecked.get());
+        result.put("duplicateDocuments", duplicateDocuments.get());
+        return result;
+    }
+
+    /**
+     * Write the indexes to disk if they changed since the last flush
+     */
+    public void flush() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        GraphRagProperties.Deduplication config = properties.getDeduplication();
+        Path path = Path.of(config.getIndexPath());
+        Map<String, Object> stored = new LinkedHashMap<>();
+        stored.put("shingleSize", config.getShingleSize());
+        stored.put("permutations", config.getMinHashPermutations());
+        stored.put("bands", config.getLshBands());
+        stored.put("keys", KEY_FORMAT);
+        stored.put("documents", encode(documents));
+        stored.put("chunks", encode(chunks));
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            objectMapper.writeValue(temporary.toFile(), stored);
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Near-duplicate index written - documents: {}, chunks: {}", documents.size(), chunks.size());
+        } catch (IOException e) {
+            dirty.set(true);
+            logger.error("Failed to write near-duplicate index {}", path, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdownNow();
+        }
+        if (isEnabled()) {
+            flush();
+        }
+    }
+
+    // Fingerprints and index
+
+    private Match bestMatch(MinHashLsh<String> lsh, Map<String, Fingerprint> fingerprints, Fingerprint probe,
+                            Predicate<String> excluded) {
+        GraphRagProperties.Deduplication config = properties.getDeduplication();
+        Match best = null;
+        for (String key : lsh.candidates(probe.minHash)) {
+            Fingerprint candidate = fingerprints.get(key);
+            if (candidate == null || excluded.test(key)
+                    || SimHash.distance(probe.simHash, candidate.simHash) > config.getSimHashMaxDistance()) {
+                continue;
+            }
+            double similarity = MinHashLsh.similarity(probe.minHash, candidate.minHash);
+            if (similarity >= config.getJaccardThreshold() && (best == null || similarity > best.similarity)) {
+                best = new Match(key, similarity);
+            }
+        }
+        return best;
+    }
+
+    private void index(MinHashLsh<String> lsh, Map<String, Fingerprint> fingerprints, String key, Fingerprint fingerprint) {
+        if (fingerprints.put(key, fingerprint) != null) {
+            lsh.remove(key);
+        }
+        lsh.add(fingerprint.minHash, key);
+        dirty.set(true);
+    }
+
+    /**
+     * Fingerprints of the lower-cased text with whitespace runs collapsed, so formatting differences do not count
+     */
+    private Fingerprint fingerprint(CharSequence text) {
+        StringBuilder normalised = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = normalised.length() > 0;
+            } else {
+                if (space) {
+                    normalised.append(' ');
+                    space = false;
+                }
+                normalised.append(Character.toLowerCase(c));
+            }
+        }
+        String value = normalised.toString();
+        return new Fingerprint(chunkIndex.signature(value), SimHash.fingerprint(value));
+    }
+
+    private MinHashLsh<String> newIndex() {
+        GraphRagProperties.Deduplication config = properties.getDeduplication();
+        return new MinHashLsh<>(config.getShingleSize(), config.getMinHashPermutations(), config.getLshBands(), LSH_SEED);
+    }
+
+    /**
+     * Stored as {key: [simHash, minHash...]}
+     */
+    private static Map<String, long[]> encode(Map<String, Fingerprint> fingerprints) {
+        Map<String, long[]> encoded = new TreeMap<>();
+        fingerprints.forEach((key, fingerprint) -> {
+            long[] values = new long[fingerprint.minHash.length + 1];
+            values[0] = fingerprint.simHash;
+            for (int i = 0; i < fingerprint.minHash.length; i++) {
+                values[i + 1] = fingerprint.minHash[i];
+            }
+            encoded.put(key, values);
+        });
+        return encoded;
+    }
+
+    private void load(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        GraphRagProperties.Deduplication config = properties.getDeduplication();
+        try {
+            Map<String, Object> stored = objectMapper.readValue(path.toFile(), new TypeReference<Map<String, Object>>() {});
+            if (!config.getShingleSize().equals(stored.get("shingleSize"))
+                    || !config.getMinHashPermutations().equals(stored.get("permutations"))
+                    || !config.getLshBands().equals(stored.get("bands"))
+                    || !KEY_FORMAT.equals(stored.get("keys"))) {
+                logger.warn("Near-duplicate index {} was built with different settings, starting empty", path);
+                return;
+            }
+            decode(stored.get("documents"), documentIndex, documents);
+            decode(stored.get("chunks"), chunkIndex, chunks);
+            logger.info("Near-duplicate index loaded - documents: {}, chunks: {}", documents.size(), chunks.size());
+        } catch (Exception e) {
+            logger.warn("Unreadable near-duplicate index {}, starting empty: {}", path, e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void decode(Object stored, MinHashLsh<String> lsh, Map<String, Fingerprint> fingerprints) {
+        if (stored == null) {
+            return;
+        }
+        ((Map<String, List<Number>>) stored).forEach((key, values) -> {
+            int[] minHash = new int[values.size() - 1];
+            for (int i = 0; i < minHash.length; i++) {
+                minHash[i] = values.get(i + 1).intValue();
+            }
+            Fingerprint fingerprint = new Fingerprint(minHash, values.get(0).longValue());
+            fingerprints.put(key, fingerprint);
+            lsh.add(minHash, key);
+        });
+    }
+
+    // Inner data classes
+
+    private static class Fingerprint {
+        final int[] minHash;
+        final long simHash;
+
+        Fingerprint(int[] minHash, long simHash) {
+            this.minHash = minHash;
+            this.simHash = simHash;
+        }
+    }
+
+    private static class Match {
+        final String key;
+        final double similarity;
+
+        Match(String key, double similarity) {
+            this.key = key;
+            this.similarity = similarity;
+        }
+    }
+
+    /**
+     * A new chunk and the indexed chunk it nearly duplicates
+     */
+    public static class ChunkDuplicate {
+        private final DocumentChunkService.Chunk chunk;
+        private final String sourceDocumentUid;
+        private final String sourceHash;
+        private final double similarity;
+
+        public ChunkDuplicate(DocumentChunkService.Chunk chunk, String sourceDocumentUid, String sourceHash, double similarity) {
+            this.chunk = chunk;
+            this.sourceDocumentUid = sourceDocumentUid;
+            this.sourceHash = sourceHash;
+            this.similarity = similarity;
+        }
+
+        // Getters
+        public DocumentChunkService.Chunk getChunk() { return chunk; }
+        public String getSourceDocumentUid() { return sourceDocumentUid; }
+        public String getSourceHash() { return sourceHash; }
+        public double getSimilarity() { return similarity; }
+    }
+
+    /**
+     * The ingested document a new document nearly duplicates
+     */
+    public static class DocumentDuplicate {
+        private final String sourceDocumentUid;
+        private final double similarity;
+
+        public DocumentDuplicate(String sourceDocumentUid, double similarity) {
+            this.sourceDocumentUid = sourceDocumentUid;
+            this.similarity = similarity;
+        }
+
+        // Getters
+        public String getSourceDocumentUid() { return sourceDocumentUid; }
+        public double getSimilarity() { return similarity; }
+    }
+}
@@ -0,0 +1,146 @@
+package com.graphrag.core.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * One stage of the ingestion pipeline.
+ * Workers take items from a bounded input queue (up to {@code batchSize} at a time), process them and hand the
+ * outputs downstream; a full downstream queue blocks the workers, which is what bounds memory between stages.
+ */
+class PipelineStage<I, O> {
+
+    private static final Logger logger = LoggerFactory.getLogger(PipelineStage.class);
+
+    private final String name;
+    private final int parallelism;
+    private final int batchSize;
+    private final BlockingQueue<I> queue;
+    private final Function<List<I>, List<O>> processor;
+    private final BiConsumer<List<I>, Exception> errorHandler;
+
+    private final AtomicLong itemsIn = new AtomicLong();
+    private final AtomicLong itemsOut = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+
+    private ExecutorService workers;
+    private long startedAt;
+
+    PipelineStage(String name, int parallelism, int batchSize, int queueCapacity,
+                  Function<List<I>, List<O>> processor, BiConsumer<List<I>, Exception> errorHandler) {
+        this.name = name;
+        this.parallelism = Math.max(1, parallelism);
+        this.batchSize = Math.max(1, batchSize);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.processor = processor;
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Start the workers, sending every output to {@code downstream}
+     */
+    void start(Consumer<O> downstream) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "ingest-" + name + "-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        startedAt = System.nanoTime();
+        for (int i = 0; i < parallelism; i++) {
+            workers.submit(() -> runWorker(downstream));
+        }
+    }
+
+    /**
+     * Enqueue an item, blocking while the queue is full
+     */
+    void submit(I item) {
+        try {
+            queue.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while submitting to stage " + name, e);
+        }
+    }
+
+    void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    private void runWorker(Consumer<O> downstream) {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<I> batch = new ArrayList<>(batchSize);
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+
+            activeWorkers.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                List<O> outputs = processor.apply(batch);
+                itemsIn.addAndGet(batch.size());
+                batches.incrementAndGet();
+                busyNanos.addAndGet(System.nanoTime() - start);
+                for (O output : outputs) {
+                    downstream.accept(output);
+                }
+                itemsOut.addAndGet(outputs.size());
+            } catch (Exception e) {
+                itemsIn.addAndGet(batch.size());
+                failures.addAndGet(batch.size());
+                busyNanos.addAndGet(System.nanoTime() - start);
+                logger.error("Ingestion stage {} failed on {} item(s)", name, batch.size(), e);
+                errorHandler.accept(batch, e);
+            } finally {
+                activeWorkers.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Stage throughput and queue metrics
+     */
+    Map<String, Object> getMetrics() {
+        double elapsedSeconds = startedAt > 0 ? (System.nanoTime() - startedAt) / 1_000_000_000.0 : 0;
+        double busySeconds = busyNanos.get() / 1_000_000_000.0;
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("stage", name);
+        metrics.put("parallelism", parallelism);
+        metrics.put("batchSize", batchSize);
+        metrics.put("activeWorkers", activeWorkers.get());
+        metrics.put("queueSize", queue.size());
+        metrics.put("queueRemainingCapacity", queue.remainingCapacity());
+        metrics.put("itemsIn", itemsIn.get());
+        metrics.put("itemsOut", itemsOut.get());
+        metrics.put("batches", batches.get());
+        metrics.put("failures", failures.get());
+        metrics.put("itemsPerSecond", elapsedSeconds > 0 ? itemsIn.get() / elapsedSeconds : 0.0);
+        metrics.put("itemsPerBusySecond", busySeconds > 0 ? itemsIn.get() / busySeconds : 0.0);
+        return metrics;
+    }
+}
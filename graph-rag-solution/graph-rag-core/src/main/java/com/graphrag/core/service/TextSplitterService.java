@@ -2,13 +2,22 @@ package com.graphrag.core.service;
 
 import dev.langchain4j.data.document.Document;
 import dev.langchain4j.data.document.DocumentSplitter;
+import dev.langchain4j.data.document.Metadata;
 import dev.langchain4j.data.document.splitter.DocumentSplitters;
 import dev.langchain4j.data.segment.TextSegment;
+import com.graphrag.core.model.TextSpan;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * 文本分割服务
@@ -20,6 +29,9 @@ public class TextSplitterService {
 
     private final DocumentSplitter documentSplitter;
 
+    @Autowired
+    private EmbeddingService embeddingService;
+
     public TextSplitterService() {
         // 配置文档分割器
         this.documentSplitter = DocumentSplitters.recursive(
@@ -104,5 +116,274 @@ public class TextSplitterService {
         Document document = Document.from(text);
         return paragraphSplitter.split(document);
     }
-}
 
+    /**
+     * 流式分割：从 Reader 逐块读取，凑满一个块即按段落、句子、换行或空白边界切出并交给 sink，
+     * 内存占用只与块大小有关。片段元数据带有 index、start_offset、end_offset（在整个文本流中的字符偏移）。
+     *
+     * @return 片段数量
+     */
+    public int splitStreaming(Reader reader, int maxChunkSize, int overlap, Metadata metadata,
+                              Consumer<TextSegment> sink) throws IOException {
+        if (maxChunkSize <= 0 || overlap < 0 || overlap >= maxChunkSize) {
+            throw new IllegalArgumentException("无效的分割参数: maxChunkSize=" + maxChunkSize + ", overlap=" + overlap);
+        }
+
+        StringBuilder buffer = new StringBuilder(maxChunkSize * 2);
+        char[] chars = new char[8192];
+        long bufferOffset = 0;
+        int index = 0;
+        boolean eof = false;
+        while (!eof || buffer.length() > 0) {
+            // 1. 读取直至缓冲区超过一个块，才能判断剩余文本是否需要按边界切分
+            while (!eof && buffer.length() <= maxChunkSize) {
+                int read = reader.read(chars);
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    buffer.append(chars, 0, read);
+                }
+            }
+
+            // 2. 选取切分点，剩余文本不足一块时整体输出
+            int cut = buffer.length() <= maxChunkSize ? buffer.length() : findBoundary(buffer, 0, maxChunkSize);
+            if (!buffer.substring(0, cut).isBlank()) {
+                emitSegment(buffer, cut, bufferOffset, index++, metadata, sink);
+            }
+            if (cut >= buffer.length() && eof) {
+                break;
+            }
+
+            // 3. 保留重叠部分
+            int next = overlapStart(buffer, 0, cut, overlap);
+            buffer.delete(0, next);
+            bufferOffset += next;
+        }
+
+        logger.info("流式分割完成，生成 {} 个片段，共 {} 字符", index, bufferOffset + buffer.length());
+        return index;
+    }
+
+    /**
+     * 零拷贝分割：片段是对原文的 {@link TextSpan} 视图，记录在原文中的偏移，
+     * 只有在渲染提示词或写库时才复制文本。切分规则与流式分割相同。
+     */
+    public List<TextSpan> splitSpans(String text, int maxChunkSize, int overlap) {
+        if (maxChunkSize <= 0 || overlap < 0 || overlap >= maxChunkSize) {
+            throw new IllegalArgumentException("无效的分割参数: maxChunkSize=" + maxChunkSize + ", overlap=" + overlap);
+        }
+
+        List<TextSpan> spans = new ArrayList<>();
+        int start = 0;
+        while (start < text.length()) {
+            int cut = text.length() - start <= maxChunkSize ? text.length() : findBoundary(text, start, maxChunkSize);
+            TextSpan span = new TextSpan(text, start, cut, spans.size());
+            if (!span.isBlank()) {
+                spans.add(span);
+            }
+            if (cut >= text.length()) {
+                break;
+            }
+            start = overlapStart(text, start, cut, overlap);
+        }
+
+        logger.debug("零拷贝分割完成，长度: {}, 片段数: {}", text.length(), spans.size());
+        return spans;
+    }
+
+    /**
+     * 零拷贝分割，按文档长度选择与 {@link #splitDocumentOptimized} 相同的块大小和重叠
+     */
+    public List<TextSpan> splitSpansOptimized(String text) {
+        int length = text.length();
+        int chunkSize = length > 10000 ? 2000 : 1000;
+        int overlap = length > 10000 ? 300 : 200;
+        return splitSpans(text, chunkSize, overlap);
+    }
+
+    /**
+     * 按句分割，句末标点、换行后的空白归入前一句，返回覆盖整篇文本（开头空白除外）的句子视图
+     */
+    public List<TextSpan> splitSentences(String text) {
+        List<TextSpan> sentences = new ArrayList<>();
+        int length = text.length();
+        int start = 0;
+        while (start < length && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        for (int i = start; i < length; i++) {
+            char c = text.charAt(i);
+            boolean end = c == '\n' || c == '。' || c == '！' || c == '？' || c == '；'
+                    || ((c == '.' || c == '!' || c == '?') && (i + 1 == length || Character.isWhitespace(text.charAt(i + 1))));
+            if (!end) {
+                continue;
+            }
+            int cut = i + 1;
+            while (cut < length && Character.isWhitespace(text.charAt(cut))) {
+                cut++;
+            }
+            sentences.add(new TextSpan(text, start, cut, sentences.size()));
+            start = cut;
+            i = cut - 1;
+        }
+        if (start < length) {
+            sentences.add(new TextSpan(text, start, length, sentences.size()));
+        }
+        return sentences;
+    }
+
+    /**
+     * 语义分割：一次 embedAll 批量嵌入所有句子，在相邻句相似度低于给定百分位处断开。
+     * sizes 为各句大小（单位由调用方决定，如 token 数），每块不超过 maxSize，并尽量不小于 minSize（到达文末或
+     * 为满足 maxSize 而切开时例外）；单句超过 maxSize 时由调用方预先切开。块之间不重叠。
+     */
+    public List<TextSpan> splitSemantic(List<TextSpan> sentences, int[] sizes, int minSize, int maxSize,
+                                        double breakpointPercentile) {
+        List<TextSpan> chunks = new ArrayList<>();
+        int n = sentences.size();
+        if (n == 0) {
+            return chunks;
+        }
+
+        // 1. 批量嵌入，计算相邻句相似度
+        double[] similarities = new double[Math.max(0, n - 1)];
+        if (n > 1) {
+            List<List<Double>> embeddings = embeddingService.embedTexts(sentences.stream()
+                    .map(TextSpan::toString)
+                    .collect(Collectors.toList()));
+            for (int i = 0; i < n - 1; i++) {
+                similarities[i] = embeddingService.cosineSimilarity(embeddings.get(i), embeddings.get(i + 1));
+            }
+        }
+        double threshold = percentile(similarities, breakpointPercentile);
+
+        // 2. 顺序扫描：达到最小块大小后在低相似度处断开；将超过最大块大小时，回退到块内相似度最低的位置断开
+        List<int[]> ranges = new ArrayList<>();
+        int first = 0;
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            size += sizes[i];
+            if (i == n - 1) {
+                ranges.add(new int[]{first, i});
+                break;
+            }
+            if (size >= minSize && similarities[i] <= threshold) {
+                ranges.add(new int[]{first, i});
+                first = i + 1;
+                size = 0;
+                continue;
+            }
+            // 切开后的剩余部分加下一句仍可能超过最大块大小，继续切直到放得下
+            while (first <= i && size + sizes[i + 1] > maxSize) {
+                int cut = lowestSimilarity(similarities, sizes, first, i, minSize);
+                ranges.add(new int[]{first, cut});
+                first = cut + 1;
+                size = sum(sizes, first, i);
+            }
+        }
+
+        // 3. 文末不足最小块大小的尾块并入前一块
+        if (ranges.size() > 1) {
+            int[] last = ranges.get(ranges.size() - 1);
+            int[] previous = ranges.get(ranges.size() - 2);
+            if (sum(sizes, last[0], last[1]) < minSize && sum(sizes, previous[0], last[1]) <= maxSize) {
+                previous[1] = last[1];
+                ranges.remove(ranges.size() - 1);
+            }
+        }
+
+        for (int[] range : ranges) {
+            TextSpan from = sentences.get(range[0]);
+            TextSpan to = sentences.get(range[1]);
+            chunks.add(new TextSpan(from.getSource(), from.getStart(), to.getEnd(), chunks.size()));
+        }
+        logger.debug("语义分割完成，句子数: {}, 片段数: {}, 断点阈值: {}", n, chunks.size(), threshold);
+        return chunks;
+    }
+
+    /**
+     * [first, last] 内、块大小已达 minSize 的断点中相似度最低者；都未达到时在 last 处断开
+     */
+    private int lowestSimilarity(double[] similarities, int[] sizes, int first, int last, int minSize) {
+        int best = last;
+        double bestSimilarity = Double.MAX_VALUE;
+        int size = 0;
+        for (int k = first; k <= last; k++) {
+            size += sizes[k];
+            if (size >= minSize && similarities[k] < bestSimilarity) {
+                best = k;
+                bestSimilarity = similarities[k];
+            }
+        }
+        return best;
+    }
+
+    private static double percentile(double[] values, double percentile) {
+        if (values.length == 0) {
+            return -1.0;
+        }
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.floor(percentile / 100.0 * (sorted.length - 1));
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static int sum(int[] sizes, int from, int to) {
+        int total = 0;
+        for (int i = from; i <= to; i++) {
+            total += sizes[i];
+        }
+        return total;
+    }
+
+    /**
+     * 在 from 之后 [maxChunkSize / 2, maxChunkSize] 的范围内从后向前寻找段落、句末、换行、空白边界，返回绝对位置
+     */
+    private int findBoundary(CharSequence text, int from, int maxChunkSize) {
+        int max = from + maxChunkSize;
+        int min = from + maxChunkSize / 2;
+        for (int i = max; i > min; i--) {
+            if (i - from >= 2 && text.charAt(i - 1) == '\n' && text.charAt(i - 2) == '\n') {
+                return i;
+            }
+        }
+        for (int i = max; i > min; i--) {
+            char c = text.charAt(i - 1);
+            if (c == '。' || c == '！' || c == '？'
+                    || ((c == '.' || c == '!' || c == '?') && Character.isWhitespace(text.charAt(i)))) {
+                return i;
+            }
+        }
+        for (int i = max; i > min; i--) {
+            if (text.charAt(i - 1) == '\n') {
+                return i;
+            }
+        }
+        for (int i = max; i > min; i--) {
+            if (Character.isWhitespace(text.charAt(i - 1))) {
+                return i;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 下一块的起点：回退至多 overlap 个字符（不超过本块一半），并对齐到空白处，避免从单词中间开始
+     */
+    private int overlapStart(CharSequence text, int start, int cut, int overlap) {
+        int next = cut - Math.min(overlap, (cut - start) / 2);
+        while (next < cut && !Character.isWhitespace(text.charAt(next))) {
+            next++;
+        }
+        return Math.max(next, start + 1);
+    }
+
+    private void emitSegment(StringBuilder buffer, int end, long bufferOffset, int index, Metadata metadata,
+                             Consumer<TextSegment> sink) {
+        Metadata segmentMetadata = metadata != null ? metadata.copy() : new Metadata();
+        segmentMetadata.add("index", String.valueOf(index));
+        segmentMetadata.add("start_offset", String.valueOf(bufferOffset));
+        segmentMetadata.add("end_offset", String.valueOf(bufferOffset + end));
+        sink.accept(TextSegment.from(buffer.substring(0, end), segmentMetadata));
+    }
+}
@@ -0,0 +1,210 @@
+package com.graphrag.core.service;
+
+import com.graphrag.common.config.GraphRagProperties;
+import com.graphrag.core.model.TextSpan;
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Token Budget Text Splitter
+ * Measures chunks with the BPE encoding of the configured chat model (jtokkit, in process) and fills each chunk
+ * up to the target token budget from whole sentences, preferring to cut at a paragraph end, or cuts at semantic
+ * breakpoints when semantic chunking is enabled. Encodings are stateless, so documents are tokenised concurrently
+ * by the ingestion split stage workers.
+ */
+@Service
+public class TokenTextSplitterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenTextSplitterService.class);
+
+    @Autowired
+    private GraphRagProperties properties;
+
+    @Autowired
+    private TextSplitterService textSplitterService;
+
+    private Encoding encoding;
+
+    @PostConstruct
+    void init() {
+        EncodingRegistry registry = Encodings.newDefaultEncodingRegistry();
+        String model = properties.getLlm().getModel();
+        String fallback = properties.getChunking().getFallbackEncoding();
+        encoding = registry.getEncodingForModel(model)
+                .or(() -> registry.getEncoding(fallback))
+                .orElseThrow(() -> new IllegalStateException("Unknown tokenizer encoding: " + fallback));
+        logger.info("Token splitter using encoding {} for model {}", encoding.getName(), model);
+    }
+
+    /**
+     * Split the text by the configured strategy: semantic breakpoints, spans of at most {@code target-tokens}
+     * tokens, or characters when the token budget is disabled
+     */
+    public List<TextSpan> split(String text) {
+        GraphRagProperties.Chunking config = properties.getChunking();
+        if (config.getSemantic()) {
+            try {
+                return splitSemantic(text, config.getSemanticMinTokens(), config.getTargetTokens(),
+                        config.getSemanticBreakpointPercentile());
+            } catch (Exception e) {
+                logger.warn("Semantic chunking failed, falling back to token budget splitting: {}", e.getMessage());
+            }
+        }
+        if (!config.getTokenBudget()) {
+            return textSplitterService.splitSpansOptimized(text);
+        }
+        return split(text, config.getTargetTokens(), config.getOverlapTokens());
+    }
+
+    /**
+     * Semantic chunks of {@code minTokens} to {@code maxTokens} tokens, cut where adjacent sentences are least
+     * similar; over-long sentences are cut to the budget first
+     */
+    public List<TextSpan> splitSemantic(String text, int minTokens, int maxTokens, double breakpointPercentile) {
+        List<Unit> units = units(text, maxTokens);
+        List<TextSpan> sentences = new ArrayList<>(units.size());
+        int[] sizes = new int[units.size()];
+        for (int i = 0; i < units.size(); i++) {
+            Unit unit = units.get(i);
+            sentences.add(new TextSpan(text, unit.start, unit.end, i));
+            sizes[i] = unit.tokens;
+        }
+        return textSplitterService.splitSemantic(sentences, sizes, minTokens, maxTokens, breakpointPercentile);
+    }
+
+    /**
+     * Split the text into spans of at most {@code targetTokens} tokens, carrying up to {@code overlapTokens}
+     * tokens of trailing sentences into the next span
+     */
+    public List<TextSpan> split(String text, int targetTokens, int overlapTokens) {
+        if (targetTokens <= 0 || overlapTokens < 0 || overlapTokens >= targetTokens) {
+            throw new IllegalArgumentException("Invalid token budget: target=" + targetTokens + ", overlap=" + overlapTokens);
+        }
+
+        List<Unit> units = units(text, targetTokens);
+        List<TextSpan> spans = new ArrayList<>();
+        long totalTokens = 0;
+        int i = 0;
+        while (i < units.size()) {
+            int tokens = 0;
+            int j = i;
+            int paragraphCut = -1;
+            while (j < units.size() && (j == i || tokens + units.get(j).tokens <= targetTokens)) {
+                tokens += units.get(j).tokens;
+                if (units.get(j).paragraphEnd && tokens >= targetTokens / 2) {
+                    paragraphCut = j + 1;
+                }
+                j++;
+            }
+            // Prefer ending on a paragraph once the chunk is at least half full
+            if (j < units.size() && paragraphCut > i) {
+                j = paragraphCut;
+            }
+
+            TextSpan span = new TextSpan(text, units.get(i).start, units.get(j - 1).end, spans.size());
+            if (!span.isBlank()) {
+                spans.add(span);
+                for (int k = i; k < j; k++) {
+                    totalTokens += units.get(k).tokens;
+                }
+            }
+            if (j >= units.size()) {
+                break;
+            }
+
+            // Overlap whole trailing sentences, always leaving at least one sentence of progress
+            int next = j;
+            int carried = 0;
+            while (next - 1 > i && carried + units.get(next - 1).tokens <= overlapTokens) {
+                carried += units.get(next - 1).tokens;
+                next--;
+            }
+            i = next;
+        }
+
+        logger.debug("Token split completed, length: {}, spans: {}, avg tokens: {}", text.length(), spans.size(),
+                spans.isEmpty() ? 0 : totalTokens / spans.size());
+        return spans;
+    }
+
+    /**
+     * Number of tokens the configured model's tokenizer produces for the text
+     */
+    public int countTokens(CharSequence text) {
+        return encoding.countTokensOrdinary(text.toString());
+    }
+
+    /**
+     * Sentence units with their token counts; a sentence longer than the budget is cut at whitespace
+     */
+    private List<Unit> units(String text, int targetTokens) {
+        List<Unit> units = new ArrayList<>();
+        for (TextSpan sentence : textSplitterService.splitSentences(text)) {
+            // A blank line in the sentence's trailing whitespace marks the paragraph end
+            int newlines = 0;
+            for (int i = sentence.length() - 1; i >= 0 && Character.isWhitespace(sentence.charAt(i)); i--) {
+                if (sentence.charAt(i) == '\n') {
+                    newlines++;
+                }
+            }
+            addUnit(units, text, sentence.getStart(), sentence.getEnd(), newlines >= 2, targetTokens);
+        }
+        return units;
+    }
+
+    private void addUnit(List<Unit> units, String text, int start, int end, boolean paragraphEnd, int targetTokens) {
+        int tokens = encoding.countTokensOrdinary(text.substring(start, end));
+        while (tokens > targetTokens) {
+            // Shrink an estimated cut until the piece fits, then align it back to whitespace
+            int cut = start + (int) ((long) (end - start) * targetTokens / tokens);
+            int pieceTokens;
+            do {
+                int aligned = cut;
+                while (aligned > start + 1 && !Character.isWhitespace(text.charAt(aligned - 1))) {
+                    aligned--;
+                }
+                if (aligned > start + 1) {
+                    cut = aligned;
+                }
+                pieceTokens = encoding.countTokensOrdinary(text.substring(start, cut));
+                if (pieceTokens > targetTokens) {
+                    cut = start + Math.max(1, (cut - start) * 9 / 10);
+                }
+            } while (pieceTokens > targetTokens && cut - start > 1);
+            units.add(new Unit(start, cut, pieceTokens, false));
+            start = cut;
+            // Track the remainder by subtraction so a long sentence is tokenised once, not once per cut; BPE
+            // counts are not exactly additive across a cut, so the short final remainder is counted again
+            tokens -= pieceTokens;
+            if (tokens <= targetTokens) {
+                tokens = encoding.countTokensOrdinary(text.substring(start, end));
+            }
+        }
+        if (start < end) {
+            units.add(new Unit(start, end, tokens, paragraphEnd));
+        }
+    }
+
+    private static class Unit {
+        final int start;
+        final int end;
+        final int tokens;
+        final boolean paragraphEnd;
+
+        Unit(int start, int end, int tokens, boolean paragraphEnd) {
+            this.start = start;
+            this.end = end;
+            this.tokens = tokens;
+            this.paragraphEnd = paragraphEnd;
+        }
+    }
+}
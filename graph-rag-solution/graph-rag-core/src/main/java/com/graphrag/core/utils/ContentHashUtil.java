@@ -0,0 +1,82 @@
+package com.graphrag.core.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Content hashing for change detection during re-ingestion.
+ */
+public class ContentHashUtil {
+
+    /**
+     * Hex-encoded SHA-256 of the UTF-8 text
+     */
+    public static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Hex-encoded SHA-256 of the UTF-8 text, encoded in blocks so a text view is hashed without copying it.
+     * Gives the same digest as {@link #sha256(String)} for the same characters.
+     */
+    public static String sha256(CharSequence text) {
+        if (text instanceof String) {
+            return sha256((String) text);
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            CharBuffer in = CharBuffer.wrap(text);
+            ByteBuffer out = ByteBuffer.allocate(8 * 1024);
+            CoderResult result;
+            do {
+                result = encoder.encode(in, out, true);
+                digest.update(out.flip());
+                out.clear();
+            } while (result.isOverflow());
+            while (encoder.flush(out).isOverflow()) {
+                digest.update(out.flip());
+                out.clear();
+            }
+            digest.update(out.flip());
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Hex-encoded SHA-256 of a file's bytes, read in blocks
+     */
+    public static String sha256(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
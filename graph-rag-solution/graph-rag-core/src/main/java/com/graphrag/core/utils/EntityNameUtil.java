@@ -0,0 +1,43 @@
+package com.graphrag.core.utils;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalisation helpers for matching entity mentions by name and type.
+ */
+public class EntityNameUtil {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern LEGAL_SUFFIX = Pattern.compile(
+            "[\\s,.]+(inc|incorporated|corp|corporation|co|company|ltd|limited|llc|plc|gmbh|ag|sa)\\.?$");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * Trim, collapse whitespace and case-fold a name or type
+     */
+    public static String normalise(String value) {
+        return value == null ? "" : WHITESPACE.matcher(value.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Key identifying an entity by normalised name and type
+     */
+    public static String key(String name, String type) {
+        return normalise(name) + "|" + normalise(type);
+    }
+
+    /**
+     * Blocking form of a name for fuzzy matching: normalised, legal suffixes dropped, punctuation and spaces removed,
+     * so "Open AI", "OpenAI" and "OpenAI Inc." compact to the same text
+     */
+    public static String compact(String name) {
+        String value = normalise(name);
+        String previous;
+        do {
+            previous = value;
+            value = LEGAL_SUFFIX.matcher(value).replaceAll("");
+        } while (!value.equals(previous));
+        return NON_ALPHANUMERIC.matcher(value).replaceAll("");
+    }
+}
@@ -0,0 +1,208 @@
+package com.graphrag.core.utils;
+
+import java.util.*;
+
+/**
+ * Case-insensitive multi-keyword counter (Aho-Corasick automaton).
+ * Keywords are matched literally, so regex metacharacters in query words are ordinary characters. One scan of
+ * a text range counts the occurrences of every keyword without copying or lower-casing the text; like repeated
+ * {@code split}, a keyword's occurrences are counted without overlapping each other, and a keyword given twice
+ * counts twice.
+ * Immutable once built and safe to share between threads.
+ */
+public class KeywordMatcher {
+
+    private final char[][] transitionChars;
+    private final int[][] transitionTargets;
+    private final int[] failure;
+    private final int[][] outputs;
+    private final int[] keywordLengths;
+    private final int[] keywordWeights;
+    // Keywords that can overlap themselves ("aa", "abab") need their last match end tracked
+    private final boolean[] selfOverlapping;
+    private final boolean anySelfOverlapping;
+    private final int totalWeight;
+
+    private KeywordMatcher(List<String> keywords, int[] weights, List<Map<Character, Integer>> gotoTable,
+                           int[] failure, int[][] outputs) {
+        int states = gotoTable.size();
+        this.transitionChars = new char[states][];
+        this.transitionTargets = new int[states][];
+        for (int state = 0; state < states; state++) {
+            TreeMap<Character, Integer> sorted = new TreeMap<>(gotoTable.get(state));
+            char[] chars = new char[sorted.size()];
+            int[] targets = new int[sorted.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> entry : sorted.entrySet()) {
+                chars[i] = entry.getKey();
+                targets[i] = entry.getValue();
+                i++;
+            }
+            transitionChars[state] = chars;
+            transitionTargets[state] = targets;
+        }
+        this.failure = failure;
+        this.outputs = outputs;
+        this.keywordWeights = weights;
+        this.keywordLengths = new int[keywords.size()];
+        this.selfOverlapping = new boolean[keywords.size()];
+        boolean any = false;
+        int total = 0;
+        for (int k = 0; k < keywords.size(); k++) {
+            keywordLengths[k] = keywords.get(k).length();
+            selfOverlapping[k] = hasBorder(keywords.get(k));
+            any |= selfOverlapping[k];
+            total += weights[k];
+        }
+        this.anySelfOverlapping = any;
+        this.totalWeight = total;
+    }
+
+    /**
+     * Matcher for the whitespace-separated words of a query, lower-cased
+     */
+    public static KeywordMatcher forQuery(String query) {
+        List<String> words = new ArrayList<>();
+        for (String word : query.split("\\s+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return compile(words);
+    }
+
+    /**
+     * Matcher for the given keywords; empty keywords are ignored
+     */
+    public static KeywordMatcher compile(Collection<String> keywords) {
+        Map<String, Integer> weightByKeyword = new LinkedHashMap<>();
+        for (String keyword : keywords) {
+            String folded = fold(keyword);
+            if (!folded.isEmpty()) {
+                weightByKeyword.merge(folded, 1, Integer::sum);
+            }
+        }
+        List<String> unique = new ArrayList<>(weightByKeyword.keySet());
+        int[] weights = new int[unique.size()];
+        for (int k = 0; k < unique.size(); k++) {
+            weights[k] = weightByKeyword.get(unique.get(k));
+        }
+
+        // Trie
+        List<Map<Character, Integer>> gotoTable = new ArrayList<>();
+        List<List<Integer>> stateOutputs = new ArrayList<>();
+        gotoTable.add(new HashMap<>());
+        stateOutputs.add(new ArrayList<>());
+        for (int k = 0; k < unique.size(); k++) {
+            int state = 0;
+            for (char c : unique.get(k).toCharArray()) {
+                Integer next = gotoTable.get(state).get(c);
+                if (next == null) {
+                    next = gotoTable.size();
+                    gotoTable.get(state).put(c, next);
+                    gotoTable.add(new HashMap<>());
+                    stateOutputs.add(new ArrayList<>());
+                }
+                state = next;
+            }
+            stateOutputs.get(state).add(k);
+        }
+
+        // Failure links breadth-first, merging each state's outputs with its failure state's
+        int[] failure = new int[gotoTable.size()];
+        Deque<Integer> queue = new ArrayDeque<>(gotoTable.get(0).values());
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (Map.Entry<Character, Integer> entry : gotoTable.get(state).entrySet()) {
+                int child = entry.getValue();
+                int fallback = failure[state];
+                while (fallback != 0 && !gotoTable.get(fallback).containsKey(entry.getKey())) {
+                    fallback = failure[fallback];
+                }
+                Integer target = gotoTable.get(fallback).get(entry.getKey());
+                failure[child] = target != null && target != child ? target : 0;
+                stateOutputs.get(child).addAll(stateOutputs.get(failure[child]));
+                queue.add(child);
+            }
+        }
+
+        int[][] outputs = new int[gotoTable.size()][];
+        for (int state = 0; state < outputs.length; state++) {
+            outputs[state] = stateOutputs.get(state).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return new KeywordMatcher(unique, weights, gotoTable, failure, outputs);
+    }
+
+    /**
+     * Weighted occurrence count of all keywords in the text
+     */
+    public int count(CharSequence text) {
+        return count(text, 0, text.length());
+    }
+
+    /**
+     * Weighted occurrence count of all keywords in {@code text[start, end)}
+     */
+    public int count(CharSequence text, int start, int end) {
+        if (totalWeight == 0) {
+            return 0;
+        }
+        int[] lastEnd = anySelfOverlapping ? new int[keywordLengths.length] : null;
+        int state = 0;
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            int next = step(state, c);
+            while (next < 0 && state != 0) {
+                state = failure[state];
+                next = step(state, c);
+            }
+            state = next < 0 ? 0 : next;
+
+            for (int keyword : outputs[state]) {
+                if (lastEnd != null && selfOverlapping[keyword]) {
+                    int matchStart = i + 1 - keywordLengths[keyword];
+                    if (matchStart < lastEnd[keyword]) {
+                        continue;
+                    }
+                    lastEnd[keyword] = i + 1;
+                }
+                count += keywordWeights[keyword];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Number of keywords, counting repeats
+     */
+    public int keywordCount() {
+        return totalWeight;
+    }
+
+    private int step(int state, char c) {
+        char[] chars = transitionChars[state];
+        int index = Arrays.binarySearch(chars, c);
+        return index >= 0 ? transitionTargets[state][index] : -1;
+    }
+
+    private static String fold(String keyword) {
+        char[] chars = keyword.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Whether a proper prefix of the keyword is also its suffix, so two occurrences can overlap
+     */
+    private static boolean hasBorder(String keyword) {
+        for (int length = 1; length < keyword.length(); length++) {
+            if (keyword.regionMatches(0, keyword, keyword.length() - length, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,188 @@
+package com.graphrag.core.utils;
+
+import java.util.*;
+
+/**
+ * MinHash signatures over character shingles with an LSH band index.
+ * Texts whose shingle sets have Jaccard similarity above roughly (1/bands)^(1/rows) share a band bucket with
+ * high probability, so candidate lookup touches only a few buckets instead of every indexed text.
+ * Thread-safe; items are compared with equals/hashCode.
+ */
+public class MinHashLsh<T> {
+
+    private static final long PRIME = (1L << 31) - 1;
+
+    private final int shingleSize;
+    private final int bands;
+    private final int rows;
+    private final long[] a;
+    private final long[] b;
+
+    private final Map<Long, Set<T>> buckets = new HashMap<>();
+    private final Map<T, List<String>> texts = new HashMap<>();
+    private final Map<T, List<int[]>> signatures = new HashMap<>();
+
+    public MinHashLsh(int shingleSize, int permutations, int bands, long seed) {
+        if (bands <= 0 || permutations < bands) {
+            throw new IllegalArgumentException("permutations must be at least bands: " + permutations + " < " + bands);
+        }
+        this.shingleSize = Math.max(1, shingleSize);
+        this.bands = bands;
+        this.rows = permutations / bands;
+
+        Random random = new Random(seed);
+        int size = bands * rows;
+        this.a = new long[size];
+        this.b = new long[size];
+        for (int i = 0; i < size; i++) {
+            a[i] = 1 + random.nextInt((int) PRIME - 1);
+            b[i] = random.nextInt((int) PRIME);
+        }
+    }
+
+    /**
+     * MinHash signature of the text's character shingles
+     */
+    public int[] signature(String text) {
+        int[] signature = new int[a.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (int shingle : shingles(text)) {
+            long x = shingle & 0x7fffffffL;
+            for (int i = 0; i < signature.length; i++) {
+                int hash = (int) ((a[i] * x + b[i]) % PRIME);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Estimated Jaccard similarity of two signatures
+     */
+    public static double similarity(int[] left, int[] right) {
+        int equal = 0;
+        for (int i = 0; i < left.length; i++) {
+            if (left[i] == right[i]) {
+                equal++;
+            }
+        }
+        return left.length == 0 ? 0.0 : (double) equal / left.length;
+    }
+
+    /**
+     * Index the text under the item; an item may be indexed under several texts
+     */
+    public synchronized void add(String text, T item) {
+        if (text.isEmpty()) {
+            return;
+        }
+        List<String> itemTexts = texts.computeIfAbsent(item, key -> new ArrayList<>(1));
+        if (itemTexts.contains(text)) {
+            return;
+        }
+        itemTexts.add(text);
+        add(signature(text), item);
+    }
+
+    /**
+     * Index a precomputed signature under the item, for callers that keep signatures rather than texts
+     */
+    public synchronized void add(int[] signature, T item) {
+        signatures.computeIfAbsent(item, key -> new ArrayList<>(1)).add(signature);
+        for (long key : bandKeys(signature)) {
+            buckets.computeIfAbsent(key, k -> new HashSet<>()).add(item);
+        }
+    }
+
+    /**
+     * Remove the item from every bucket, returning the texts it was indexed under
+     */
+    public synchronized List<String> remove(T item) {
+        List<String> itemTexts = texts.remove(item);
+        List<int[]> itemSignatures = signatures.remove(item);
+        if (itemSignatures == null) {
+            return List.of();
+        }
+        for (int[] signature : itemSignatures) {
+            for (long key : bandKeys(signature)) {
+                Set<T> bucket = buckets.get(key);
+                if (bucket != null) {
+                    bucket.remove(item);
+                    if (bucket.isEmpty()) {
+                        buckets.remove(key);
+                    }
+                }
+            }
+        }
+        return itemTexts != null ? itemTexts : List.of();
+    }
+
+    /**
+     * Items sharing at least one band bucket with the text
+     */
+    public Set<T> candidates(String text) {
+        return text.isEmpty() ? new LinkedHashSet<>() : candidates(signature(text));
+    }
+
+    /**
+     * Items sharing at least one band bucket with the signature
+     */
+    public synchronized Set<T> candidates(int[] signature) {
+        Set<T> result = new LinkedHashSet<>();
+        for (long key : bandKeys(signature)) {
+            Set<T> bucket = buckets.get(key);
+            if (bucket != null) {
+                result.addAll(bucket);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Texts the item is indexed under
+     */
+    public synchronized List<String> textsOf(T item) {
+        return new ArrayList<>(texts.getOrDefault(item, List.of()));
+    }
+
+    public synchronized int size() {
+        return signatures.size();
+    }
+
+    public synchronized void clear() {
+        buckets.clear();
+        texts.clear();
+        signatures.clear();
+    }
+
+    private long[] bandKeys(int[] signature) {
+        long[] keys = new long[bands];
+        for (int band = 0; band < bands; band++) {
+            long key = band;
+            for (int row = 0; row < rows; row++) {
+                key = key * 1_000_003L + signature[band * rows + row];
+            }
+            keys[band] = key;
+        }
+        return keys;
+    }
+
+    private Set<Integer> shingles(String text) {
+        Set<Integer> shingles = new HashSet<>();
+        if (text.length() <= shingleSize) {
+            shingles.add(text.hashCode());
+            return shingles;
+        }
+        // Same value as substring(i, i + shingleSize).hashCode(), without allocating the substring
+        for (int i = 0; i + shingleSize <= text.length(); i++) {
+            int hash = 0;
+            for (int j = i; j < i + shingleSize; j++) {
+                hash = 31 * hash + text.charAt(j);
+            }
+            shingles.add(hash);
+        }
+        return shingles;
+    }
+}
@@ -0,0 +1,57 @@
+package com.graphrag.core.utils;
+
+/**
+ * 64-bit SimHash over word tokens.
+ * Near-identical texts get fingerprints a few bits apart, so the Hamming distance is a cheap check that
+ * complements MinHash on texts that differ only in a handful of words.
+ */
+public class SimHash {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Fingerprint of the text's lower-cased letter/digit tokens
+     */
+    public static long fingerprint(CharSequence text) {
+        int[] weights = new int[64];
+        long hash = FNV_OFFSET;
+        boolean inToken = false;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                hash = (hash ^ Character.toLowerCase(c)) * FNV_PRIME;
+                inToken = true;
+            } else if (inToken) {
+                long mixed = mix(hash);
+                for (int bit = 0; bit < 64; bit++) {
+                    weights[bit] += ((mixed >>> bit) & 1L) != 0 ? 1 : -1;
+                }
+                hash = FNV_OFFSET;
+                inToken = false;
+            }
+        }
+
+        long fingerprint = 0L;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Number of differing bits between two fingerprints
+     */
+    public static int distance(long left, long right) {
+        return Long.bitCount(left ^ right);
+    }
+
+    // Spread FNV's weak high bits (SplitMix64 finaliser)
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,102 @@
+package com.graphrag.core.algorithm;
+
+import com.graphrag.common.config.GraphRagProperties;
+import com.graphrag.core.service.TokenTextSplitterService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 上下文打包测试：token 预算、单位 token 价值与去冗余
+ */
+class ContextFusionAlgorithmTest {
+
+    private final ContextFusionAlgorithm fusion = new ContextFusionAlgorithm();
+    private final GraphRagProperties properties = new GraphRagProperties();
+
+    @BeforeEach
+    void setUp() {
+        // 按空格计词作为 token 数
+        TokenTextSplitterService tokenTextSplitterService = mock(TokenTextSplitterService.class);
+        when(tokenTextSplitterService.countTokens(any(CharSequence.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0, CharSequence.class).toString().split("\\s+").length);
+        ReflectionTestUtils.setField(fusion, "tokenTextSplitterService", tokenTextSplitterService);
+        ReflectionTestUtils.setField(fusion, "properties", properties);
+    }
+
+    @Test
+    void testPackedSegmentsFitBudgetInRankOrder() {
+        List<ContextFusionAlgorithm.ContextSegment> segments = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String type = i % 3 == 0 ? "entity" : "document";
+            segments.add(segment("segment" + i + " " + "filler ".repeat(1 + i % 4) + "topic" + i, type, 1.0 - i * 0.04));
+        }
+
+        List<ContextFusionAlgorithm.ContextSegment> packed = fusion.packSegments(segments, 40);
+
+        assertFalse(packed.isEmpty());
+        assertTrue(cost(packed) <= 40, "打包结果超出预算: " + cost(packed));
+        int previous = -1;
+        for (ContextFusionAlgorithm.ContextSegment segment : packed) {
+            int index = segments.indexOf(segment);
+            assertTrue(index > previous, "应保持原有排序");
+            previous = index;
+        }
+    }
+
+    @Test
+    void testPrefersRelevancePerToken() {
+        ContextFusionAlgorithm.ContextSegment verbose = segment(
+                "a long passage that says much the same thing in many more words than needed", "document", 0.9);
+        ContextFusionAlgorithm.ContextSegment concise = segment("short precise answer", "document", 0.8);
+
+        // 预算只容得下较长片段，或者短片段
+        assertEquals(List.of(concise), fusion.packSegments(List.of(verbose, concise), 26));
+        assertEquals(List.of(verbose, concise), fusion.packSegments(List.of(verbose, concise), 100));
+    }
+
+    @Test
+    void testRedundantSegmentIsPenalised() {
+        ContextFusionAlgorithm.ContextSegment first = segment("alpha beta gamma delta", "document", 0.9);
+        ContextFusionAlgorithm.ContextSegment copy = segment("alpha beta gamma delta", "document", 0.89);
+        ContextFusionAlgorithm.ContextSegment distinct = segment("epsilon zeta eta theta", "document", 0.8);
+        List<ContextFusionAlgorithm.ContextSegment> segments = List.of(first, copy, distinct);
+
+        // 预算为一个段标题加两个片段
+        assertEquals(List.of(first, distinct), fusion.packSegments(segments, 20));
+
+        properties.getRetrieval().setContextDiversityPenalty(0.0);
+        assertEquals(List.of(first, copy), fusion.packSegments(segments, 20));
+    }
+
+    @Test
+    void testNonPositiveBudgetKeepsEverything() {
+        List<ContextFusionAlgorithm.ContextSegment> segments = List.of(
+                segment("first segment", "document", 0.5),
+                segment("unscored entity", "entity", 0.0),
+                segment("some relation", "relation", 0.2));
+
+        assertEquals(segments, fusion.packSegments(segments, 0));
+        assertTrue(fusion.packSegments(List.of(), 100).isEmpty());
+    }
+
+    private static ContextFusionAlgorithm.ContextSegment segment(String content, String type, double relevance) {
+        return new ContextFusionAlgorithm.ContextSegment(content, type, relevance, Map.of());
+    }
+
+    /**
+     * 与打包时相同的计价：每行词数加 2，每个新段落标题 8
+     */
+    private static int cost(List<ContextFusionAlgorithm.ContextSegment> segments) {
+        return segments.stream().mapToInt(segment -> segment.getContent().split("\\s+").length + 2).sum()
+                + 8 * (int) segments.stream().map(ContextFusionAlgorithm.ContextSegment::getType).distinct().count();
+    }
+}
@@ -0,0 +1,39 @@
+package com.graphrag.core.algorithm;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 查询缓存键规范化测试
+ */
+class QueryUnderstandingAlgorithmTest {
+
+    @Test
+    void testEquivalentQueriesShareKey() {
+        String key = QueryUnderstandingAlgorithm.normalizeQuery("What is a knowledge graph?");
+        assertEquals("what is a knowledge graph", key);
+        assertEquals(key, QueryUnderstandingAlgorithm.normalizeQuery("  what is a  Knowledge Graph "));
+        assertEquals(key, QueryUnderstandingAlgorithm.normalizeQuery("What is a \"knowledge graph\"?!"));
+        // 全角标点经 NFKC 归一
+        assertEquals(QueryUnderstandingAlgorithm.normalizeQuery("什么是知识图谱?"),
+                QueryUnderstandingAlgorithm.normalizeQuery("什么是知识图谱？"));
+    }
+
+    @Test
+    void testSymbolsInsideTokensAreKept() {
+        String cpp = QueryUnderstandingAlgorithm.normalizeQuery("What is C++?");
+        String csharp = QueryUnderstandingAlgorithm.normalizeQuery("What is C#?");
+        String c = QueryUnderstandingAlgorithm.normalizeQuery("What is C?");
+        assertEquals("what is c++", cpp);
+        assertEquals("what is c#", csharp);
+        assertEquals("what is c", c);
+        assertEquals("node.js vs deno", QueryUnderstandingAlgorithm.normalizeQuery("(Node.js vs Deno)"));
+        assertEquals("compare a b", QueryUnderstandingAlgorithm.normalizeQuery("compare a - b"));
+    }
+
+    @Test
+    void testPunctuationOnlyQueryKeepsOriginalText() {
+        assertEquals("???", QueryUnderstandingAlgorithm.normalizeQuery(" ??? "));
+    }
+}
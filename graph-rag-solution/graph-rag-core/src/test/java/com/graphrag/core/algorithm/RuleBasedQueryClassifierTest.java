@@ -0,0 +1,133 @@
+package com.graphrag.core.algorithm;
+
+import com.graphrag.common.config.GraphRagProperties;
+import com.graphrag.core.service.EmbeddingService;
+import com.graphrag.data.service.GraphService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 本地查询分类器测试
+ */
+class RuleBasedQueryClassifierTest {
+
+    private static final List<String> TYPES = List.of("Factual Query", "Concept Explanation",
+            "Comparative Analysis", "List Query", "Reasoning Q&A");
+
+    private final RuleBasedQueryClassifier classifier = new RuleBasedQueryClassifier();
+    private final EmbeddingService embeddingService = mock(EmbeddingService.class);
+    private final GraphService graphService = mock(GraphService.class);
+
+    @BeforeEach
+    void setUp() {
+        when(embeddingService.cosineSimilarity(anyList(), anyList())).thenCallRealMethod();
+        ReflectionTestUtils.setField(classifier, "embeddingService", embeddingService);
+        ReflectionTestUtils.setField(classifier, "graphService", graphService);
+        ReflectionTestUtils.setField(classifier, "properties", new GraphRagProperties());
+    }
+
+    @Test
+    void testClassifyByRulesWithDictionaryEntities() {
+        loadDictionary("Neo4j", "PostgreSQL", "Graph", "Graph Database");
+
+        RuleBasedQueryClassifier.Classification comparison =
+                classifier.classify("Compare Neo4j and PostgreSQL", null);
+        assertEquals("Comparative Analysis", comparison.getQueryType());
+        assertEquals("Comparison Table", comparison.getExpectedAnswerType());
+        assertEquals(List.of("Neo4j", "PostgreSQL"), comparison.getKeyEntities());
+        assertEquals("Medium", comparison.getComplexity());
+        assertEquals(0.8, comparison.getConfidence(), 1e-9);
+
+        // 词典取最长匹配
+        RuleBasedQueryClassifier.Classification concept = classifier.classify("What is a graph database?", null);
+        assertEquals("Concept Explanation", concept.getQueryType());
+        assertEquals(List.of("Graph Database"), concept.getKeyEntities());
+        assertEquals("Simple", concept.getComplexity());
+        verifyNoInteractions(embeddingService);
+    }
+
+    @Test
+    void testUnknownCapitalisedTermsLowerConfidence() {
+        loadDictionary();
+
+        RuleBasedQueryClassifier.Classification known = classifier.classify("compare two databases", null);
+        RuleBasedQueryClassifier.Classification unknown = classifier.classify("Compare Neo4j and PostgreSQL", null);
+        assertEquals(known.getQueryType(), unknown.getQueryType());
+        assertTrue(unknown.getKeyEntities().isEmpty());
+        assertTrue(unknown.getConfidence() < known.getConfidence(), "未识别的专有名词应降低置信度");
+
+        RuleBasedQueryClassifier.Classification other = classifier.classify("tell me something", null);
+        assertEquals("Others", other.getQueryType());
+        assertEquals(0.3, other.getConfidence(), 1e-9);
+    }
+
+    @Test
+    void testClassifyByNearestPrototypeWhenNoRuleMatches() {
+        when(embeddingService.embedTexts(anyList())).thenReturn(prototypeVectors());
+
+        RuleBasedQueryClassifier.Classification classification =
+                classifier.classify("tell me something", oneHot(TYPES.indexOf("Reasoning Q&A")));
+        assertEquals("Reasoning Q&A", classification.getQueryType());
+        assertEquals(0.7, classification.getConfidence(), 1e-9);
+
+        classifier.classify("tell me more", oneHot(0));
+        verify(embeddingService, times(1)).embedTexts(anyList());
+    }
+
+    @Test
+    void testPrototypeFailureIsRetriedAfterBackoff() {
+        when(embeddingService.embedTexts(anyList()))
+                .thenThrow(new RuntimeException("embedding unavailable"))
+                .thenReturn(prototypeVectors());
+        List<Double> vector = oneHot(TYPES.indexOf("List Query"));
+
+        // 失败后仅用规则分类，退避期内不再重试
+        assertEquals("Others", classifier.classify("tell me something", vector).getQueryType());
+        assertEquals("Others", classifier.classify("tell me something", vector).getQueryType());
+        verify(embeddingService, times(1)).embedTexts(anyList());
+
+        // 退避到期后重新嵌入
+        ReflectionTestUtils.setField(classifier, "prototypesRetryAt", 0L);
+        assertEquals("List Query", classifier.classify("tell me something", vector).getQueryType());
+        verify(embeddingService, times(2)).embedTexts(anyList());
+    }
+
+    private void loadDictionary(String... names) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            rows.add(Map.of("id", (long) i, "name", names[i]));
+        }
+        when(graphService.findEntityPage(anyLong(), anyInt())).thenReturn(rows);
+        classifier.refreshDictionary();
+    }
+
+    /**
+     * 每个类型的样例问题嵌入为同一个单位向量
+     */
+    private static List<List<Double>> prototypeVectors() {
+        List<List<Double>> vectors = new ArrayList<>();
+        for (int type = 0; type < TYPES.size(); type++) {
+            for (int i = 0; i < 4; i++) {
+                vectors.add(oneHot(type));
+            }
+        }
+        return vectors;
+    }
+
+    private static List<Double> oneHot(int index) {
+        List<Double> vector = new ArrayList<>();
+        for (int i = 0; i < TYPES.size(); i++) {
+            vector.add(i == index ? 1.0 : 0.0);
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,104 @@
+package com.graphrag.core.service;
+
+import com.graphrag.data.entity.EntityNode;
+import com.graphrag.data.service.GraphService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 实体消解结果测试：关系行、提及行重映射到规范实体
+ */
+class EntityResolutionServiceTest {
+
+    @Test
+    void testRemapPointsRowsAtCanonicalEntities() {
+        EntityNode openAi = new EntityNode("Open AI", "Organization");
+        EntityNode python = new EntityNode("Python", "Technology");
+        EntityResolutionService.Resolution resolution = new EntityResolutionService.Resolution();
+        resolution.add(openAi, new EntityResolutionService.Canonical("OpenAI", "Organization"), List.of("Open AI"));
+        resolution.add(python, new EntityResolutionService.Canonical("Python", "Technology"), List.of("Python"));
+
+        List<Map<String, Object>> rows = List.of(
+                row("entity1Name", "open  ai", "entity1Type", "organization"),
+                row("entity1Name", "Python", "entity1Type", "Technology"),
+                row("entity1Name", "Unknown", "entity1Type", "Organization"));
+        List<Map<String, Object>> remapped = resolution.remap(rows, "entity1Name", "entity1Type");
+
+        assertEquals(3, remapped.size());
+        assertEquals("OpenAI", remapped.get(0).get("entity1Name"));
+        assertEquals("Organization", remapped.get(0).get("entity1Type"));
+        assertEquals("Python", remapped.get(1).get("entity1Name"));
+        assertSame(rows.get(2), remapped.get(2), "未命中的行原样保留");
+        assertEquals("open  ai", rows.get(0).get("entity1Name"), "原始行不被修改");
+        assertEquals(1, resolution.getMerged());
+    }
+
+    @Test
+    void testRemapWithoutMergesReturnsRows() {
+        EntityResolutionService.Resolution resolution = EntityResolutionService.Resolution.identity(
+                List.of(new EntityNode("Neo4j", "Technology")));
+        List<Map<String, Object>> rows = List.of(row("name", "Neo4j", "type", "Technology"));
+
+        assertSame(rows, resolution.remap(rows, "name", "type"));
+        assertEquals(0, resolution.getMerged());
+    }
+
+    @Test
+    void testCanonicalOfDeduplicatesOntoCanonicalNodes() {
+        EntityNode openAi = new EntityNode("Open AI", "Organization");
+        openAi.setDescription("extracted");
+        EntityNode openAiInc = new EntityNode("OpenAI Inc.", "Organization");
+        EntityNode neo4j = new EntityNode("Neo4j", "Technology");
+        EntityResolutionService.Canonical target = new EntityResolutionService.Canonical("OpenAI", "Organization");
+        EntityResolutionService.Resolution resolution = new EntityResolutionService.Resolution();
+        resolution.add(openAi, target, List.of("Open AI"));
+        resolution.add(openAiInc, target, List.of("OpenAI Inc."));
+        resolution.add(neo4j, new EntityResolutionService.Canonical("Neo4j", "Technology"), List.of("Neo4j"));
+
+        assertEquals(2, resolution.getEntities().size());
+        List<EntityNode> canonical = resolution.canonicalOf(List.of(openAi, openAiInc));
+        assertEquals(1, canonical.size());
+        assertEquals("OpenAI", canonical.get(0).getName());
+        assertNull(canonical.get(0).getDescription(), "已有规范实体保留自己的描述");
+
+        List<EntityNode> unknown = new ArrayList<>(List.of(new EntityNode("Cypher", "Technology")));
+        assertSame(unknown.get(0), resolution.canonicalOf(unknown).get(0));
+    }
+
+    @Test
+    void testUntypedEntityResolvesWithEmptyType() {
+        EntityNode untyped = new EntityNode("Graph RAG", null);
+        EntityResolutionService.Resolution resolution = new EntityResolutionService.Resolution();
+        resolution.add(untyped, new EntityResolutionService.Canonical("GraphRAG", null), List.of("Graph RAG"));
+
+        // 与 GraphService.mergeEntities 一致，无类型实体写为空类型
+        GraphService graphService = mock(GraphService.class);
+        EntityResolutionService service = new EntityResolutionService();
+        ReflectionTestUtils.setField(service, "graphService", graphService);
+        service.recordAliases(resolution);
+        verify(graphService).mergeEntityAliases(List.of(
+                Map.of("key", "graph rag|", "alias", "Graph RAG", "name", "GraphRAG", "type", "")));
+        assertEquals("", resolution.getEntities().get(0).getType());
+
+        List<Map<String, Object>> remapped = resolution.remap(
+                List.of(row("name", "graph  rag", "type", null)), "name", "type");
+        assertEquals("GraphRAG", remapped.get(0).get("name"));
+        assertEquals("", remapped.get(0).get("type"));
+    }
+
+    private static Map<String, Object> row(String nameField, String name, String typeField, String type) {
+        Map<String, Object> row = new HashMap<>();
+        row.put(nameField, name);
+        row.put(typeField, type);
+        row.put("relationshipType", "RELATED_TO");
+        return row;
+    }
+}
@@ -0,0 +1,114 @@
+package com.graphrag.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.graphrag.common.config.GraphRagProperties;
+import dev.langchain4j.data.document.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 摄取任务服务测试：关闭时中断的任务在重启后继续
+ */
+class IngestionJobServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testJobInterruptedByShutdownResumesAfterRestart() throws Exception {
+        Path journalPath = directory.resolve("jobs.journal");
+        CountDownLatch blocked = new CountDownLatch(1);
+        IngestionPipelineService pipeline = mock(IngestionPipelineService.class);
+        when(pipeline.submit(any(Document.class), any()))
+                .thenReturn(CompletableFuture.completedFuture(result(1L)))
+                .thenAnswer(invocation -> {
+                    // 与 PipelineStage.submit 一样：队列满时阻塞，被中断后抛出
+                    blocked.countDown();
+                    try {
+                        new CountDownLatch(1).await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException("Interrupted while submitting to stage load", e);
+                    }
+                    return null;
+                });
+
+        IngestionJobService service = service(journalPath, pipeline);
+        String jobId = service.submit(documents(), IngestionJobService.MODE_STANDARD, 0);
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+        service.shutdown();
+
+        // 未记录 FINISHED，被中断的文档也未记为失败
+        List<Map<String, Object>> events = new IngestionJournal(journalPath, new ObjectMapper(), List::of, 0).replay();
+        assertTrue(events.stream().noneMatch(event -> "FINISHED".equals(event.get("event"))));
+        assertEquals(List.of("COMPLETED"), events.stream()
+                .filter(event -> "DOCUMENT".equals(event.get("event")))
+                .map(event -> event.get("status"))
+                .toList());
+
+        IngestionPipelineService resumedPipeline = mock(IngestionPipelineService.class);
+        when(resumedPipeline.submit(any(Document.class), any()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(result(2L)));
+        IngestionJobService restarted = service(journalPath, resumedPipeline);
+        try {
+            IngestionJobService.JobStatus status = awaitFinished(restarted, jobId);
+            assertEquals(IngestionJobService.JobState.COMPLETED, status.getState());
+            assertEquals(3, status.getCompletedDocuments());
+            assertEquals(0, status.getFailedDocuments());
+            // 已完成的第一个文档不再重复摄取
+            verify(resumedPipeline, times(2)).submit(any(Document.class), any());
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    private static IngestionJobService service(Path journalPath, IngestionPipelineService pipeline) {
+        GraphRagProperties properties = new GraphRagProperties();
+        properties.getIngestion().setJobJournalPath(journalPath.toString());
+        properties.getIngestion().setJobWorkers(1);
+        properties.getIngestion().setJobDocumentWindow(1);
+
+        IngestionJobService service = new IngestionJobService();
+        ReflectionTestUtils.setField(service, "properties", properties);
+        ReflectionTestUtils.setField(service, "ingestionPipeline", pipeline);
+        service.start();
+        return service;
+    }
+
+    private static List<IngestionJobService.JobDocument> documents() {
+        return List.of(
+                new IngestionJobService.JobDocument("a.txt", "First document.", Map.of()),
+                new IngestionJobService.JobDocument("b.txt", "Second document.", Map.of()),
+                new IngestionJobService.JobDocument("c.txt", "Third document.", Map.of()));
+    }
+
+    private static IngestionPipelineService.IngestionResult result(Long documentId) {
+        return new IngestionPipelineService.IngestionResult(documentId, "title", 1, 0, 0, 1, 0, 1L);
+    }
+
+    private static IngestionJobService.JobStatus awaitFinished(IngestionJobService service, String jobId)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            IngestionJobService.JobStatus status = service.getStatus(jobId).orElseThrow();
+            if (status.getState().isTerminal()) {
+                return status;
+            }
+            Thread.sleep(20);
+        }
+        fail("Job did not finish: " + jobId);
+        return null;
+    }
+}
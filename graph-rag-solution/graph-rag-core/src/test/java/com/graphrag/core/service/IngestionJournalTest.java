@@ -0,0 +1,99 @@
+package com.graphrag.core.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 摄取任务日志测试：重放、残缺行跳过与压缩
+ */
+class IngestionJournalTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReplayReturnsAppendedEventsInOrder() throws Exception {
+        Path path = directory.resolve("jobs.journal");
+        IngestionJournal journal = new IngestionJournal(path, objectMapper, List::of, 0);
+        assertTrue(journal.replay().isEmpty(), "不存在的日志应重放为空");
+
+        journal.compact();
+        journal.append(event("SUBMITTED", "job-1", "priority", 5));
+        journal.append(event("STARTED", "job-1", "at", 1000L));
+        journal.append(event("DOCUMENT", "job-1", "status", "COMPLETED"));
+        journal.close();
+
+        List<Map<String, Object>> events = new IngestionJournal(path, objectMapper, List::of, 0).replay();
+        assertEquals(3, events.size());
+        assertEquals(List.of("SUBMITTED", "STARTED", "DOCUMENT"),
+                events.stream().map(event -> event.get("event")).toList());
+        assertEquals(5, events.get(0).get("priority"));
+        assertEquals("job-1", events.get(2).get("jobId"));
+    }
+
+    @Test
+    void testTornAndBlankLinesAreSkipped() throws Exception {
+        Path path = directory.resolve("jobs.journal");
+        String complete = objectMapper.writeValueAsString(event("SUBMITTED", "job-1"));
+        String later = objectMapper.writeValueAsString(event("STARTED", "job-1"));
+        // 崩溃时写了一半的最后一行
+        Files.writeString(path, complete + "\n\n" + "{\"event\":\"DOCU\n" + later + "\n" + "{\"event\":\"FINI",
+                StandardCharsets.UTF_8);
+
+        List<Map<String, Object>> events = new IngestionJournal(path, objectMapper, List::of, 0).replay();
+        assertEquals(List.of("SUBMITTED", "STARTED"), events.stream().map(event -> event.get("event")).toList());
+    }
+
+    @Test
+    void testCompactionRewritesFromSnapshotAndKeepsAppending() throws Exception {
+        Path path = directory.resolve("jobs.journal");
+        List<Map<String, Object>> snapshot = new ArrayList<>();
+        snapshot.add(event("SUBMITTED", "job-2"));
+        IngestionJournal journal = new IngestionJournal(path, objectMapper, () -> new ArrayList<>(snapshot), 3);
+        journal.compact();
+
+        journal.append(event("SUBMITTED", "job-1"));
+        journal.append(event("FINISHED", "job-1"));
+        assertEquals(3, journal.replay().size());
+
+        // 第三次追加触发压缩，日志只保留快照
+        snapshot.add(event("STARTED", "job-2"));
+        journal.append(event("STARTED", "job-2"));
+        List<Map<String, Object>> compacted = journal.replay();
+        assertEquals(List.of("SUBMITTED", "STARTED"), compacted.stream().map(event -> event.get("event")).toList());
+        assertTrue(compacted.stream().allMatch(event -> "job-2".equals(event.get("jobId"))));
+        assertFalse(Files.exists(directory.resolve("jobs.journal.compact")), "压缩临时文件应被替换");
+
+        // 压缩后继续追加，计数重新开始
+        journal.append(event("DOCUMENT", "job-2"));
+        assertEquals(3, journal.replay().size());
+        journal.close();
+
+        // 关闭后的追加被丢弃
+        journal.append(event("FINISHED", "job-2"));
+        assertEquals(3, journal.replay().size());
+    }
+
+    private static Map<String, Object> event(String type, String jobId, Object... keyValues) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("event", type);
+        event.put("jobId", jobId);
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            event.put((String) keyValues[i], keyValues[i + 1]);
+        }
+        return event;
+    }
+}
@@ -0,0 +1,181 @@
+package com.graphrag.core.service;
+
+import com.graphrag.common.config.GraphRagProperties;
+import com.graphrag.core.utils.ContentHashUtil;
+import com.graphrag.data.entity.DocumentNode;
+import com.graphrag.data.service.GraphService;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 摄取流水线测试：超过阈值的文件以流式解析，分块抽取后即写入
+ */
+class IngestionPipelineServiceTest {
+
+    private static final long DOCUMENT_ID = 7L;
+
+    @TempDir
+    Path directory;
+
+    private final IngestionPipelineService pipeline = new IngestionPipelineService();
+    private final GraphRagProperties properties = new GraphRagProperties();
+    private final DocumentLoaderService documentLoaderService = mock(DocumentLoaderService.class);
+    private final KnowledgeGraphService knowledgeGraphService = mock(KnowledgeGraphService.class);
+    private final GraphService graphService = mock(GraphService.class);
+    private final EntityResolutionService entityResolutionService = mock(EntityResolutionService.class);
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = Files.writeString(directory.resolve("large.txt"), "parsed by the mocked loader");
+        properties.getIngestion().setStreamingThresholdBytes(1L);
+
+        EmbeddingService embeddingService = mock(EmbeddingService.class);
+        when(embeddingService.embedTexts(anyList())).thenAnswer(invocation -> {
+            List<List<Double>> embeddings = new ArrayList<>();
+            for (Object ignored : invocation.getArgument(0, List.class)) {
+                embeddings.add(List.of(0.1, 0.2));
+            }
+            return embeddings;
+        });
+        NearDuplicateService nearDuplicateService = mock(NearDuplicateService.class);
+        DocumentChunkService documentChunkService = new DocumentChunkService();
+        ReflectionTestUtils.setField(documentChunkService, "graphService", graphService);
+        ReflectionTestUtils.setField(documentChunkService, "embeddingService", embeddingService);
+        ReflectionTestUtils.setField(documentChunkService, "properties", properties);
+        ReflectionTestUtils.setField(documentChunkService, "nearDuplicateService", nearDuplicateService);
+
+        DocumentNode documentNode = new DocumentNode("Large", "first", file.toString());
+        documentNode.setId(DOCUMENT_ID);
+        when(knowledgeGraphService.saveStreamedDocument(anyString(), anyString())).thenReturn(documentNode);
+        when(knowledgeGraphService.extractFromText(any()))
+                .thenReturn(new KnowledgeGraphService.ExtractionResult(List.of(), List.of()));
+        when(knowledgeGraphService.resolveEntities(anyList())).thenAnswer(invocation -> {
+            Set<String> hashes = new HashSet<>();
+            List<Map<String, Object>> mentions = new ArrayList<>();
+            for (Object result : invocation.getArgument(0, List.class)) {
+                String hash = ((KnowledgeGraphService.ExtractionResult) result).chunkHash;
+                hashes.add(hash);
+                mentions.add(new HashMap<>(Map.of("hash", hash, "name", "Neo4j", "type", "")));
+            }
+            return new KnowledgeGraphService.ResolvedEntities(List.of(), List.of(), mentions, hashes);
+        });
+        when(entityResolutionService.resolve(anyList(), anyMap()))
+                .thenAnswer(invocation -> EntityResolutionService.Resolution.identity(invocation.getArgument(0)));
+
+        ReflectionTestUtils.setField(pipeline, "properties", properties);
+        ReflectionTestUtils.setField(pipeline, "documentLoaderService", documentLoaderService);
+        ReflectionTestUtils.setField(pipeline, "knowledgeGraphService", knowledgeGraphService);
+        ReflectionTestUtils.setField(pipeline, "graphService", graphService);
+        ReflectionTestUtils.setField(pipeline, "documentChunkService", documentChunkService);
+        ReflectionTestUtils.setField(pipeline, "entityResolutionService", entityResolutionService);
+        pipeline.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testLargeFileIsStreamedAndOnlyChangedSegmentsExtracted() throws Exception {
+        List<String> texts = List.of("Unchanged opening segment.", "New middle segment.", "New closing segment.");
+        when(graphService.findChunkHashes(DOCUMENT_ID))
+                .thenReturn(List.of(ContentHashUtil.sha256(texts.get(0)), "stale"));
+        when(documentLoaderService.loadStreaming(eq(file), any())).thenAnswer(invocation -> {
+            Consumer<TextSegment> sink = invocation.getArgument(1);
+            for (int i = 0; i < texts.size(); i++) {
+                sink.accept(segment(texts.get(i), i));
+            }
+            return texts.size();
+        });
+
+        IngestionPipelineService.IngestionResult result = pipeline.submit(file).get(10, TimeUnit.SECONDS);
+
+        assertEquals(DOCUMENT_ID, result.getDocumentId());
+        assertEquals(2, result.getSegmentCount());
+        assertEquals(0, result.getFailedSegments());
+        verify(documentLoaderService, never()).loadFromFile(any());
+        verify(knowledgeGraphService).saveStreamedDocument(texts.get(0), file.toString());
+        verify(knowledgeGraphService, times(2)).extractFromText(any());
+        verify(knowledgeGraphService, never()).extractFromText(texts.get(0));
+
+        // 未变分块按批重写偏移，新分块各自在抽取后带向量写入
+        ArgumentCaptor<List<Map<String, Object>>> rows = ArgumentCaptor.forClass(List.class);
+        verify(graphService, atLeast(3)).mergeChunks(eq(DOCUMENT_ID), rows.capture());
+        Map<String, Map<String, Object>> written = new HashMap<>();
+        for (List<Map<String, Object>> batch : rows.getAllValues()) {
+            batch.forEach(row -> written.put((String) row.get("hash"), row));
+        }
+        assertEquals(3, written.size());
+        assertNull(written.get(ContentHashUtil.sha256(texts.get(0))).get("embedding"));
+        Map<String, Object> middle = written.get(ContentHashUtil.sha256(texts.get(1)));
+        assertEquals(List.of(0.1, 0.2), middle.get("embedding"));
+        assertEquals(1, middle.get("index"));
+        assertEquals(100, middle.get("start"));
+
+        ArgumentCaptor<List<Map<String, Object>>> mentions = ArgumentCaptor.forClass(List.class);
+        verify(graphService).createChunkMentions(eq(DOCUMENT_ID), mentions.capture());
+        assertEquals(2, mentions.getValue().size());
+        verify(graphService).retractChunks(DOCUMENT_ID, List.of("stale"));
+        verify(knowledgeGraphService).generateDocumentEmbedding(any());
+    }
+
+    @Test
+    void testChunksWrittenBeforeStreamFailureAreRetracted() throws Exception {
+        String text = "Segment written before the read error.";
+        CountDownLatch written = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            written.countDown();
+            return null;
+        }).when(graphService).mergeChunks(eq(DOCUMENT_ID), anyList());
+        when(documentLoaderService.loadStreaming(eq(file), any())).thenAnswer(invocation -> {
+            Consumer<TextSegment> sink = invocation.getArgument(1);
+            sink.accept(segment(text, 0));
+            assertTrue(written.await(10, TimeUnit.SECONDS));
+            throw new RuntimeException("文件加載失敗");
+        });
+
+        CompletableFuture<IngestionPipelineService.IngestionResult> future = pipeline.submit(file);
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertEquals("文件加載失敗", failure.getCause().getMessage());
+        // 只有分块、没有提及的文档下次会被当作未变，因此回收已写入的分块
+        verify(graphService).retractChunks(DOCUMENT_ID, List.of(ContentHashUtil.sha256(text)));
+        verify(graphService, never()).createChunkMentions(anyLong(), anyList());
+    }
+
+    private static TextSegment segment(String text, int index) {
+        Metadata metadata = new Metadata();
+        metadata.add("source", "large.txt");
+        metadata.add("index", String.valueOf(index));
+        metadata.add("start_offset", String.valueOf(index * 100));
+        metadata.add("end_offset", String.valueOf(index * 100 + text.length()));
+        return TextSegment.from(text, metadata);
+    }
+}
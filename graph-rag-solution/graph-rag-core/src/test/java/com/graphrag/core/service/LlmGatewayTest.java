@@ -0,0 +1,181 @@
+package com.graphrag.core.service;
+
+import com.graphrag.common.config.GraphRagProperties;
+import com.graphrag.common.exception.GraphRagException;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * LLM 网关测试：AIMD 并发上限调整与双通道授予顺序
+ */
+class LlmGatewayTest {
+
+    private GraphRagProperties properties;
+    private ChatLanguageModel chatLanguageModel;
+    private LlmGateway gateway;
+
+    @BeforeEach
+    void setUp() {
+        properties = new GraphRagProperties();
+        chatLanguageModel = mock(ChatLanguageModel.class);
+        gateway = new LlmGateway();
+        ReflectionTestUtils.setField(gateway, "properties", properties);
+        ReflectionTestUtils.setField(gateway, "chatLanguageModel", chatLanguageModel);
+    }
+
+    @Test
+    void testLimitGrowsOnlyWhileSaturated() {
+        properties.getLlmGateway().setInitialConcurrency(1);
+        gateway.init();
+        when(chatLanguageModel.generate(anyString())).thenReturn("ok");
+
+        assertEquals("ok", gateway.generate("p1", LlmGateway.Lane.INTERACTIVE));
+        assertEquals(2.0, limit(), 1e-9, "饱和时成功调用使上限加一");
+
+        gateway.generate("p2", LlmGateway.Lane.INTERACTIVE);
+        assertEquals(2.0, limit(), 1e-9, "未饱和时上限不变");
+    }
+
+    @Test
+    void testRateLimitCutsLimitMultiplicatively() {
+        properties.getLlmGateway().setInitialConcurrency(8);
+        properties.getLlmGateway().setDecreaseFactor(0.5);
+        gateway.init();
+        when(chatLanguageModel.generate(anyString())).thenThrow(new RuntimeException("HTTP 429 Too Many Requests"));
+
+        assertThrows(RuntimeException.class, () -> gateway.generate("p", LlmGateway.Lane.BACKGROUND));
+        assertEquals(4.0, limit(), 1e-9);
+        // 同一延迟目标窗口内的连续失败只下调一次
+        assertThrows(RuntimeException.class, () -> gateway.generate("p", LlmGateway.Lane.BACKGROUND));
+        assertEquals(4.0, limit(), 1e-9);
+        assertEquals(2L, lane("BACKGROUND").get("rateLimited"));
+    }
+
+    @Test
+    void testSlowCallCutsLimitButNotBelowMinimum() {
+        properties.getLlmGateway().setInitialConcurrency(2);
+        properties.getLlmGateway().setMinConcurrency(1);
+        properties.getLlmGateway().setDecreaseFactor(0.1);
+        properties.getLlmGateway().setLatencyTargetMillis(5L);
+        gateway.init();
+        when(chatLanguageModel.generate(anyString())).thenAnswer(invocation -> {
+            Thread.sleep(30);
+            return "slow";
+        });
+
+        gateway.generate("p", LlmGateway.Lane.INTERACTIVE);
+        assertEquals(1.0, limit(), 1e-9);
+    }
+
+    @Test
+    void testInteractiveGrantedFirstWithBackgroundShare() throws Exception {
+        properties.getLlmGateway().setInitialConcurrency(1);
+        properties.getLlmGateway().setMaxConcurrency(1);
+        properties.getLlmGateway().setInteractiveShare(2);
+        gateway.init();
+
+        CountDownLatch blockerStarted = new CountDownLatch(1);
+        CountDownLatch releaseBlocker = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        when(chatLanguageModel.generate(anyString())).thenAnswer(invocation -> {
+            String prompt = invocation.getArgument(0);
+            if (prompt.equals("blocker")) {
+                blockerStarted.countDown();
+                releaseBlocker.await(5, TimeUnit.SECONDS);
+            } else {
+                order.add(prompt);
+            }
+            return prompt;
+        });
+
+        List<Thread> threads = new ArrayList<>();
+        threads.add(start(() -> gateway.generate("blocker", LlmGateway.Lane.BACKGROUND)));
+        assertTrue(blockerStarted.await(5, TimeUnit.SECONDS));
+
+        threads.add(enqueue("b1", LlmGateway.Lane.BACKGROUND, 1, 0));
+        threads.add(enqueue("b2", LlmGateway.Lane.BACKGROUND, 2, 0));
+        threads.add(enqueue("i1", LlmGateway.Lane.INTERACTIVE, 2, 1));
+        threads.add(enqueue("i2", LlmGateway.Lane.INTERACTIVE, 2, 2));
+        threads.add(enqueue("i3", LlmGateway.Lane.INTERACTIVE, 2, 3));
+
+        releaseBlocker.countDown();
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+        assertEquals(List.of("i1", "i2", "b1", "i3", "b2"), order, "每 2 次交互授予后让出一次给后台");
+    }
+
+    @Test
+    void testFullQueueRejects() throws Exception {
+        properties.getLlmGateway().setInitialConcurrency(1);
+        properties.getLlmGateway().setMaxConcurrency(1);
+        properties.getLlmGateway().setInteractiveQueueLimit(1);
+        gateway.init();
+
+        CountDownLatch blockerStarted = new CountDownLatch(1);
+        CountDownLatch releaseBlocker = new CountDownLatch(1);
+        when(chatLanguageModel.generate(anyString())).thenAnswer(invocation -> {
+            if (invocation.getArgument(0).equals("blocker")) {
+                blockerStarted.countDown();
+                releaseBlocker.await(5, TimeUnit.SECONDS);
+            }
+            return "ok";
+        });
+
+        Thread blocker = start(() -> gateway.generate("blocker", LlmGateway.Lane.INTERACTIVE));
+        assertTrue(blockerStarted.await(5, TimeUnit.SECONDS));
+        Thread queued = enqueue("queued", LlmGateway.Lane.INTERACTIVE, 0, 1);
+
+        GraphRagException e = assertThrows(GraphRagException.class,
+                () -> gateway.generate("rejected", LlmGateway.Lane.INTERACTIVE));
+        assertEquals("LLM_QUEUE_FULL", e.getErrorCode());
+        assertEquals(1L, lane("INTERACTIVE").get("rejected"));
+
+        releaseBlocker.countDown();
+        blocker.join(5000);
+        queued.join(5000);
+    }
+
+    private Thread enqueue(String prompt, LlmGateway.Lane lane, int background, int interactive) throws InterruptedException {
+        Thread thread = start(() -> gateway.generate(prompt, lane));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (((Number) lane("BACKGROUND").get("queued")).intValue() != background
+                || ((Number) lane("INTERACTIVE").get("queued")).intValue() != interactive) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待入队超时: " + prompt);
+            Thread.sleep(5);
+        }
+        return thread;
+    }
+
+    private static Thread start(Runnable runnable) {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private double limit() {
+        return (double) gateway.getMetrics().get("concurrencyLimitExact");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> lane(String name) {
+        return ((List<Map<String, Object>>) gateway.getMetrics().get("lanes")).stream()
+                .filter(lane -> name.equals(lane.get("lane")))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,101 @@
+package com.graphrag.core.service;
+
+import com.graphrag.common.config.GraphRagProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 近重复检测测试：不以文档自身分块为来源，删除文档后清除其指纹，指纹以文档 uid 为键持久化
+ */
+class NearDuplicateServiceTest {
+
+    private static final String TEXT = "Neo4j stores entities and relations as a property graph, and Cypher queries "
+            + "traverse the graph to collect context for retrieval augmented generation.";
+
+    @TempDir
+    Path directory;
+
+    private NearDuplicateService service;
+
+    @BeforeEach
+    void setUp() {
+        GraphRagProperties properties = new GraphRagProperties();
+        properties.getDeduplication().setEnabled(false);
+        service = new NearDuplicateService();
+        ReflectionTestUtils.setField(service, "properties", properties);
+        service.init();
+    }
+
+    @Test
+    void testChunkOfAnotherDocumentIsDuplicate() {
+        service.recordChunks("doc-1", List.of(chunk("h1", TEXT)));
+
+        List<NearDuplicateService.ChunkDuplicate> duplicates =
+                service.findDuplicateChunks("doc-2", List.of(chunk("h2", TEXT + " ")));
+        assertEquals(1, duplicates.size());
+        assertEquals("doc-1", duplicates.get(0).getSourceDocumentUid());
+        assertEquals("h1", duplicates.get(0).getSourceHash());
+    }
+
+    @Test
+    void testOwnChunksAreNeverSources() {
+        service.recordChunks("doc-1", List.of(chunk("h1", TEXT)));
+
+        assertTrue(service.findDuplicateChunks("doc-1", List.of(chunk("h2", TEXT + " "))).isEmpty());
+    }
+
+    @Test
+    void testRemoveDocumentDropsItsFingerprints() {
+        service.recordChunks("doc-1", List.of(chunk("h1", TEXT)));
+        service.recordDocument("doc-1", TEXT);
+        service.recordChunks("doc-10", List.of(chunk("h3", "An unrelated chunk about cooking pasta with basil.")));
+
+        service.removeDocument("doc-1");
+
+        assertTrue(service.findDuplicateChunks("doc-2", List.of(chunk("h2", TEXT))).isEmpty());
+        assertNull(service.findDuplicateDocument("doc-2", TEXT));
+        assertEquals(1, service.getMetrics().get("indexedChunks"), "其他文档的分块应保留");
+    }
+
+    @Test
+    void testIndexIsReloadedByUidAndIdKeyedIndexIsDiscarded() throws Exception {
+        Path path = directory.resolve("near-duplicate-index.json");
+        NearDuplicateService written = persistentService(path);
+        written.recordChunks("doc-1", List.of(chunk("h1", TEXT)));
+        written.recordDocument("doc-1", TEXT);
+        written.shutdown();
+
+        NearDuplicateService reloaded = persistentService(path);
+        List<NearDuplicateService.ChunkDuplicate> duplicates =
+                reloaded.findDuplicateChunks("doc-2", List.of(chunk("h2", TEXT)));
+        assertEquals(1, duplicates.size());
+        assertEquals("doc-1", duplicates.get(0).getSourceDocumentUid());
+        assertEquals("doc-1", reloaded.findDuplicateDocument("doc-2", TEXT).getSourceDocumentUid());
+
+        // 旧版索引以内部 ID 为键，没有键格式标记，不再加载
+        Files.writeString(path, Files.readString(path).replace("\"keys\":\"uid\",", ""));
+        assertEquals(0, persistentService(path).getMetrics().get("indexedChunks"));
+    }
+
+    private static DocumentChunkService.Chunk chunk(String hash, String text) {
+        return new DocumentChunkService.Chunk(hash, 0, 0, text.length(), text);
+    }
+
+    private static NearDuplicateService persistentService(Path path) {
+        GraphRagProperties properties = new GraphRagProperties();
+        properties.getDeduplication().setIndexPath(path.toString());
+        properties.getDeduplication().setFlushIntervalSeconds(0);
+        NearDuplicateService service = new NearDuplicateService();
+        ReflectionTestUtils.setField(service, "properties", properties);
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,251 @@
+package com.graphrag.core.service;
+
+import com.graphrag.core.model.TextSpan;
+import dev.langchain4j.data.document.Metadata;
+import dev.langchain4j.data.segment.TextSegment;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 文本分割服务测试
+ */
+class TextSplitterServiceTest {
+
+    private final TextSplitterService splitter = new TextSplitterService();
+
+    @Test
+    void testSplitSpansAreViewsWithinBounds() {
+        String text = paragraphs(40);
+        List<TextSpan> spans = splitter.splitSpans(text, 300, 60);
+
+        assertTrue(spans.size() > 1);
+        for (int i = 0; i < spans.size(); i++) {
+            TextSpan span = spans.get(i);
+            assertSame(text, span.getSource(), "片段应是原文视图");
+            assertEquals(i, span.getIndex());
+            assertTrue(span.length() <= 300, "片段超过最大长度: " + span.length());
+            assertEquals(text.substring(span.getStart(), span.getEnd()), span.toString());
+            assertFalse(span.isBlank());
+        }
+        assertEquals(0, spans.get(0).getStart());
+        assertEquals(text.length(), spans.get(spans.size() - 1).getEnd());
+    }
+
+    @Test
+    void testSpanSubSequenceStaysWithinSpan() {
+        TextSpan span = new TextSpan("before|inside|after", 7, 13, 0);
+        TextSpan sub = span.subSequence(1, 4);
+        assertEquals("nsi", sub.toString());
+        assertEquals(8, sub.getStart());
+        assertEquals("", span.subSequence(6, 6).toString());
+
+        // 超出片段但仍在原文之内的范围也必须拒绝
+        assertThrows(IndexOutOfBoundsException.class, () -> span.subSequence(-1, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> span.subSequence(2, 7));
+        assertThrows(IndexOutOfBoundsException.class, () -> span.subSequence(4, 3));
+    }
+
+    @Test
+    void testSplitSpansCoverTextWithBoundedOverlap() {
+        String text = paragraphs(40);
+        List<TextSpan> spans = splitter.splitSpans(text, 300, 60);
+
+        for (int i = 1; i < spans.size(); i++) {
+            TextSpan previous = spans.get(i - 1);
+            TextSpan current = spans.get(i);
+            assertTrue(current.getStart() > previous.getStart(), "片段起点应递增");
+            assertTrue(current.getStart() <= previous.getEnd(), "相邻片段之间不应有缺口");
+            assertTrue(previous.getEnd() - current.getStart() <= 60, "重叠不应超过 overlap");
+        }
+    }
+
+    @Test
+    void testSplitSpansPreferSentenceAndParagraphBoundaries() {
+        String text = paragraphs(40);
+        for (TextSpan span : splitter.splitSpans(text, 300, 0)) {
+            if (span.getEnd() < text.length()) {
+                char last = text.charAt(span.getEnd() - 1);
+                assertTrue(last == '\n' || last == '.', "应在段落或句末切分: " + last);
+            }
+        }
+    }
+
+    @Test
+    void testSplitSpansShortAndBlankText() {
+        List<TextSpan> spans = splitter.splitSpans("short text", 300, 60);
+        assertEquals(1, spans.size());
+        assertEquals("short text", spans.get(0).toString());
+
+        assertTrue(splitter.splitSpans("", 300, 60).isEmpty());
+        assertTrue(splitter.splitSpans("   \n\n  ", 300, 60).isEmpty());
+    }
+
+    @Test
+    void testSplitSpansRejectInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> splitter.splitSpans("text", 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> splitter.splitSpans("text", 100, 100));
+        assertThrows(IllegalArgumentException.class, () -> splitter.splitSpans("text", 100, -1));
+    }
+
+    @Test
+    void testSplitStreamingMatchesSplitSpans() throws Exception {
+        String text = paragraphs(40) + "   \n\n";
+        // 每次只读出几个字符，覆盖跨多次读取的缓冲
+        Reader reader = new FilterReader(new StringReader(text)) {
+            @Override
+            public int read(char[] chars, int offset, int length) throws IOException {
+                return super.read(chars, offset, Math.min(length, 7));
+            }
+        };
+        Metadata metadata = new Metadata();
+        metadata.add("source", "large.txt");
+        List<TextSegment> segments = new ArrayList<>();
+
+        int count = splitter.splitStreaming(reader, 300, 60, metadata, segments::add);
+
+        List<TextSpan> spans = splitter.splitSpans(text, 300, 60);
+        assertEquals(spans.size(), count);
+        assertEquals(spans.size(), segments.size());
+        for (int i = 0; i < spans.size(); i++) {
+            TextSegment segment = segments.get(i);
+            assertEquals(spans.get(i).toString(), segment.text());
+            assertEquals(String.valueOf(i), segment.metadata().get("index"));
+            assertEquals(String.valueOf(spans.get(i).getStart()), segment.metadata().get("start_offset"));
+            assertEquals(String.valueOf(spans.get(i).getEnd()), segment.metadata().get("end_offset"));
+            assertEquals("large.txt", segment.metadata().get("source"));
+        }
+    }
+
+    @Test
+    void testSplitSentencesKeepTrailingWhitespaceAndCoverText() {
+        String text = "  First sentence. Second one!  第三句。Version 3.14 is out?\nLast line without end";
+        List<String> sentences = splitter.splitSentences(text).stream()
+                .map(TextSpan::toString)
+                .collect(Collectors.toList());
+
+        assertEquals(List.of("First sentence. ", "Second one!  ", "第三句。", "Version 3.14 is out?\n",
+                "Last line without end"), sentences);
+        assertEquals(text.trim(), String.join("", sentences));
+        assertTrue(splitter.splitSentences("   ").isEmpty());
+    }
+
+    @Test
+    void testSplitSemanticBreaksAtTopicChange() {
+        EmbeddingService embeddingService = embeddingService();
+        ReflectionTestUtils.setField(splitter, "embeddingService", embeddingService);
+        String text = "Neo4j stores the graph. Cypher queries the graph. Graph nodes hold entities. "
+                + "Boil the pasta. Salt the water. Serve the pasta hot.";
+        List<TextSpan> sentences = splitter.splitSentences(text);
+        when(embeddingService.embedTexts(anyList())).thenAnswer(invocation -> {
+            List<String> texts = invocation.getArgument(0);
+            return texts.stream()
+                    .map(sentence -> sentence.contains("raph") ? List.of(1.0, 0.0) : List.of(0.0, 1.0))
+                    .collect(Collectors.toList());
+        });
+
+        int[] sizes = new int[sentences.size()];
+        Arrays.fill(sizes, 10);
+        List<TextSpan> chunks = splitter.splitSemantic(sentences, sizes, 20, 100, 20);
+
+        assertEquals(2, chunks.size());
+        assertEquals("Neo4j stores the graph. Cypher queries the graph. Graph nodes hold entities. ",
+                chunks.get(0).toString());
+        assertEquals("Boil the pasta. Salt the water. Serve the pasta hot.", chunks.get(1).toString());
+        verify(embeddingService, times(1)).embedTexts(anyList());
+    }
+
+    @Test
+    void testSplitSemanticRespectsSizeBounds() {
+        EmbeddingService embeddingService = embeddingService();
+        ReflectionTestUtils.setField(splitter, "embeddingService", embeddingService);
+        Random random = new Random(11);
+        String text = sentencesText(60);
+        List<TextSpan> sentences = splitter.splitSentences(text);
+        when(embeddingService.embedTexts(anyList())).thenAnswer(invocation -> {
+            List<List<Double>> embeddings = new ArrayList<>();
+            for (int i = 0; i < ((List<?>) invocation.getArgument(0)).size(); i++) {
+                embeddings.add(List.of(random.nextDouble(), random.nextDouble(), random.nextDouble()));
+            }
+            return embeddings;
+        });
+
+        int[] sizes = new int[sentences.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = 5 + random.nextInt(20);
+        }
+        List<TextSpan> chunks = splitter.splitSemantic(sentences, sizes, 40, 100, 25);
+
+        int next = 0;
+        for (int c = 0; c < chunks.size(); c++) {
+            TextSpan chunk = chunks.get(c);
+            assertEquals(sentences.get(next).getStart(), chunk.getStart(), "块之间不应有缺口或重叠");
+            int size = 0;
+            while (next < sentences.size() && sentences.get(next).getEnd() <= chunk.getEnd()) {
+                size += sizes[next++];
+            }
+            assertTrue(size <= 100, "块超过最大大小: " + size);
+            if (c < chunks.size() - 1) {
+                assertTrue(size >= 40, "块小于最小大小: " + size);
+            }
+        }
+        assertEquals(sentences.size(), next);
+        assertTrue(splitter.splitSemantic(List.of(), new int[0], 40, 100, 25).isEmpty());
+    }
+
+    @Test
+    void testSplitSemanticKeepsCuttingUntilNextSentenceFits() {
+        EmbeddingService embeddingService = embeddingService();
+        ReflectionTestUtils.setField(splitter, "embeddingService", embeddingService);
+        List<TextSpan> sentences = splitter.splitSentences("One. Two. Three. Four.");
+        // 相邻句相似度约为 0.54、0.98、0.17：前两句之间最低，全局最低在第三句之后
+        double[] angles = {0.0, 1.0, 1.2, 2.6};
+        when(embeddingService.embedTexts(anyList())).thenReturn(Arrays.stream(angles)
+                .mapToObj(angle -> List.of(Math.cos(angle), Math.sin(angle)))
+                .collect(Collectors.toList()));
+
+        int[] sizes = {1, 6, 5, 2};
+        List<TextSpan> chunks = splitter.splitSemantic(sentences, sizes, 1, 10, 0);
+
+        // 在第一句后切开仍剩 6 + 5 > 10，需再切一次，不能得到 11 的块
+        assertEquals(List.of("One. ", "Two. ", "Three. ", "Four."),
+                chunks.stream().map(TextSpan::toString).collect(Collectors.toList()));
+    }
+
+    private static EmbeddingService embeddingService() {
+        EmbeddingService embeddingService = mock(EmbeddingService.class);
+        when(embeddingService.cosineSimilarity(anyList(), anyList())).thenCallRealMethod();
+        return embeddingService;
+    }
+
+    private static String sentencesText(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append("Sentence ").append(i).append(" mentions entity ").append(i % 9).append(". ");
+        }
+        return text.toString();
+    }
+
+    private static String paragraphs(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int p = 0; p < count; p++) {
+            text.append("Paragraph ").append(p).append(" talks about graph retrieval. ")
+                    .append("It links entities and chunks in Neo4j. ")
+                    .append("Vector search finds the seed nodes.\n\n");
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,99 @@
+package com.graphrag.core.service;
+
+import com.graphrag.common.config.GraphRagProperties;
+import com.graphrag.core.model.TextSpan;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按 token 预算分割测试
+ */
+class TokenTextSplitterServiceTest {
+
+    private TokenTextSplitterService splitter;
+
+    @BeforeEach
+    void setUp() {
+        splitter = new TokenTextSplitterService();
+        ReflectionTestUtils.setField(splitter, "properties", new GraphRagProperties());
+        ReflectionTestUtils.setField(splitter, "textSplitterService", new TextSplitterService());
+        splitter.init();
+    }
+
+    @Test
+    void testSpansStayWithinTokenBudget() {
+        String text = sentences(300);
+        List<TextSpan> spans = splitter.split(text, 128, 16);
+
+        assertTrue(spans.size() > 1);
+        for (int i = 0; i < spans.size(); i++) {
+            TextSpan span = spans.get(i);
+            assertEquals(i, span.getIndex());
+            assertTrue(splitter.countTokens(span) <= 128, "片段超出 token 预算: " + splitter.countTokens(span));
+        }
+        assertEquals(0, spans.get(0).getStart());
+        assertEquals(text.length(), spans.get(spans.size() - 1).getEnd());
+    }
+
+    @Test
+    void testOverlapCarriesWholeSentencesWithoutGaps() {
+        String text = sentences(300);
+        List<TextSpan> spans = splitter.split(text, 128, 32);
+
+        for (int i = 1; i < spans.size(); i++) {
+            TextSpan previous = spans.get(i - 1);
+            TextSpan current = spans.get(i);
+            assertTrue(current.getStart() > previous.getStart(), "每个片段至少前进一句");
+            assertTrue(current.getStart() <= previous.getEnd(), "相邻片段之间不应有缺口");
+            assertTrue(splitter.countTokens(text.substring(current.getStart(), Math.max(current.getStart(), previous.getEnd()))) <= 32,
+                    "重叠不应超过 overlap");
+        }
+    }
+
+    @Test
+    void testLongSentenceIsCutToBudget() {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sentence.append("token").append(i % 97).append(' ');
+        }
+        String text = sentence.toString();
+        List<TextSpan> spans = splitter.split(text, 100, 0);
+
+        assertTrue(spans.size() > 100);
+        int covered = 0;
+        for (TextSpan span : spans) {
+            assertTrue(splitter.countTokens(span) <= 100, "长句切片超出预算: " + splitter.countTokens(span));
+            assertEquals(covered, span.getStart(), "无重叠时片段应首尾相接");
+            covered = span.getEnd();
+        }
+        assertEquals(text.length(), covered);
+    }
+
+    @Test
+    void testShortAndInvalidInput() {
+        List<TextSpan> spans = splitter.split("One short sentence.", 128, 16);
+        assertEquals(1, spans.size());
+        assertEquals("One short sentence.", spans.get(0).toString());
+        assertTrue(splitter.split("", 128, 16).isEmpty());
+
+        assertThrows(IllegalArgumentException.class, () -> splitter.split("text", 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> splitter.split("text", 64, 64));
+    }
+
+    private static String sentences(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append("Sentence ").append(i).append(" relates entity ").append(i % 13)
+                    .append(" to the knowledge graph. ");
+            if (i % 7 == 6) {
+                text.append("\n\n");
+            }
+        }
+        return text.toString();
+    }
+}
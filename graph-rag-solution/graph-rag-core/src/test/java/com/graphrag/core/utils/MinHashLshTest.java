@@ -0,0 +1,60 @@
+package com.graphrag.core.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MinHash LSH 测试：相似文本进入同一分桶，删除后不再命中
+ */
+class MinHashLshTest {
+
+    private static final String TEXT = "graph retrieval augmented generation over a neo4j knowledge graph";
+
+    @Test
+    void testSignatureSimilarityTracksJaccard() {
+        MinHashLsh<String> lsh = new MinHashLsh<>(3, 128, 32, 7L);
+
+        assertArrayEquals(lsh.signature(TEXT), lsh.signature(TEXT));
+        assertEquals(1.0, MinHashLsh.similarity(lsh.signature(TEXT), lsh.signature(TEXT)));
+        double near = MinHashLsh.similarity(lsh.signature(TEXT), lsh.signature(TEXT + "s"));
+        double far = MinHashLsh.similarity(lsh.signature(TEXT), lsh.signature("completely unrelated sentence about cooking"));
+        assertTrue(near > 0.8, "近似文本相似度: " + near);
+        assertTrue(far < 0.2, "无关文本相似度: " + far);
+    }
+
+    @Test
+    void testCandidatesFindSimilarTextsOnly() {
+        MinHashLsh<String> lsh = new MinHashLsh<>(3, 128, 32, 7L);
+        lsh.add(TEXT, "doc-1");
+        lsh.add("completely unrelated sentence about cooking pasta at home", "doc-2");
+
+        Set<String> candidates = lsh.candidates(TEXT.replace("neo4j", "Neo4j"));
+        assertTrue(candidates.contains("doc-1"));
+        assertFalse(candidates.contains("doc-2"));
+        assertTrue(lsh.candidates("").isEmpty());
+    }
+
+    @Test
+    void testRemoveDropsItemFromBuckets() {
+        MinHashLsh<String> lsh = new MinHashLsh<>(3, 128, 32, 7L);
+        lsh.add(TEXT, "doc-1");
+        lsh.add(TEXT, "doc-1");
+        lsh.add("openai", "doc-1");
+
+        assertEquals(1, lsh.size());
+        assertEquals(List.of(TEXT, "openai"), lsh.textsOf("doc-1"));
+        assertEquals(List.of(TEXT, "openai"), lsh.remove("doc-1"));
+        assertTrue(lsh.candidates(TEXT).isEmpty());
+        assertEquals(0, lsh.size());
+        assertEquals(List.of(), lsh.remove("doc-1"));
+    }
+
+    @Test
+    void testPermutationsMustCoverBands() {
+        assertThrows(IllegalArgumentException.class, () -> new MinHashLsh<String>(3, 8, 16, 1L));
+    }
+}
@@ -0,0 +1,41 @@
+package com.graphrag.core.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SimHash 测试：近似文本指纹汉明距离小，无关文本距离大
+ */
+class SimHashTest {
+
+    private static final String TEXT = "Neo4j stores entities and relations as a property graph, and Cypher queries "
+            + "traverse the graph to collect context for retrieval augmented generation over many documents";
+
+    @Test
+    void testFingerprintIgnoresCaseAndPunctuation() {
+        assertEquals(SimHash.fingerprint(TEXT), SimHash.fingerprint(TEXT.toUpperCase()));
+        assertEquals(SimHash.fingerprint("graph, rag; retrieval"), SimHash.fingerprint("graph rag retrieval"));
+        assertEquals(0, SimHash.distance(SimHash.fingerprint(TEXT), SimHash.fingerprint(TEXT)));
+    }
+
+    @Test
+    void testNearDuplicatesAreCloserThanUnrelatedTexts() {
+        long original = SimHash.fingerprint(TEXT);
+        long edited = SimHash.fingerprint(TEXT.replace("many documents", "several documents"));
+        long unrelated = SimHash.fingerprint("Boil water, add salt and cook the pasta for nine minutes before serving "
+                + "it with tomato sauce, basil and grated cheese at the dinner table");
+
+        int near = SimHash.distance(original, edited);
+        int far = SimHash.distance(original, unrelated);
+        assertTrue(near <= 8, "近似文本距离: " + near);
+        assertTrue(far > 16, "无关文本距离: " + far);
+    }
+
+    @Test
+    void testDistanceCountsDifferingBits() {
+        assertEquals(0, SimHash.distance(0L, 0L));
+        assertEquals(64, SimHash.distance(0L, -1L));
+        assertEquals(2, SimHash.distance(0b1010L, 0b0000L));
+    }
+}
@@ -0,0 +1,124 @@
+package com.graphrag.performance;
+
+import com.graphrag.core.utils.KeywordMatcher;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 关键词评分微基准：逐词 split 评分与单遍多关键词匹配对比
+ */
+class KeywordScoringBenchmarkTest {
+
+    private static final String[] VOCABULARY = {
+            "graph", "database", "neo4j", "query", "entity", "relation", "vector", "embedding", "index",
+            "retrieval", "context", "answer", "model", "token", "chunk", "document", "cypher", "node"
+    };
+
+    private static final String QUERY = "How does Neo4j graph retrieval combine vector index and entity relation context";
+
+    @Test
+    void testScoresMatchLegacySplitScoring() {
+        List<String> paragraphs = paragraphs(200, 7);
+        List<String> keywords = Arrays.asList(QUERY.toLowerCase().split("\\s+"));
+        KeywordMatcher matcher = KeywordMatcher.forQuery(QUERY);
+
+        for (String paragraph : paragraphs) {
+            assertEquals(legacyScore(paragraph, keywords), matcher.count(paragraph));
+        }
+
+        // 关键词重复、自身重叠和大小写
+        assertEquals(2, KeywordMatcher.forQuery("aa").count("aaaaa"));
+        assertEquals(4, KeywordMatcher.forQuery("graph graph").count("Graph GRAPH"));
+        assertEquals(3, KeywordMatcher.forQuery("graph graphs").count("graphs graph"));
+    }
+
+    @Test
+    void testRegexMetacharactersAreLiteral() {
+        KeywordMatcher matcher = KeywordMatcher.forQuery("c++ (graph) a.b");
+        assertEquals(3, matcher.count("C++ and (graph) and a.b, not axb"));
+        assertEquals(0, KeywordMatcher.forQuery("   ").count("anything"));
+    }
+
+    @Test
+    void testKeywordScoringPerformance_LargeDocument() {
+        List<String> paragraphs = paragraphs(5000, 42);
+        List<String> keywords = Arrays.asList(QUERY.toLowerCase().split("\\s+"));
+
+        // 预热
+        for (int i = 0; i < 2; i++) {
+            legacyTopParagraphs(paragraphs, keywords);
+            matcherTopParagraphs(paragraphs, QUERY);
+        }
+
+        long legacyStart = System.nanoTime();
+        List<String> legacyTop = legacyTopParagraphs(paragraphs, keywords);
+        long legacyMillis = (System.nanoTime() - legacyStart) / 1_000_000;
+
+        long matcherStart = System.nanoTime();
+        List<String> matcherTop = matcherTopParagraphs(paragraphs, QUERY);
+        long matcherMillis = (System.nanoTime() - matcherStart) / 1_000_000;
+
+        System.out.printf("关键词评分基准 - 段落: %d, 关键词: %d, split 评分: %d ms, 单遍匹配: %d ms%n",
+                paragraphs.size(), keywords.size(), legacyMillis, matcherMillis);
+
+        assertEquals(legacyTop, matcherTop, "两种评分应选出相同的段落");
+    }
+
+    /**
+     * 原实现：每个关键词编译为正则切分段落，且在排序比较器中反复评分
+     */
+    private static List<String> legacyTopParagraphs(List<String> paragraphs, List<String> keywords) {
+        return paragraphs.stream()
+                .sorted((p1, p2) -> Integer.compare(legacyScore(p2, keywords), legacyScore(p1, keywords)))
+                .limit(3)
+                .collect(Collectors.toList());
+    }
+
+    private static int legacyScore(String paragraph, List<String> keywords) {
+        String lowerParagraph = paragraph.toLowerCase();
+        return (int) keywords.stream()
+                .mapToLong(keyword -> lowerParagraph.split(keyword, -1).length - 1)
+                .sum();
+    }
+
+    /**
+     * 新实现：编译一次匹配器，每个段落只评分一次后排序
+     */
+    private static List<String> matcherTopParagraphs(List<String> paragraphs, String query) {
+        KeywordMatcher matcher = KeywordMatcher.forQuery(query);
+        List<int[]> scored = new ArrayList<>(paragraphs.size());
+        for (int i = 0; i < paragraphs.size(); i++) {
+            scored.add(new int[]{i, matcher.count(paragraphs.get(i))});
+        }
+        scored.sort((s1, s2) -> Integer.compare(s2[1], s1[1]));
+        List<String> top = new ArrayList<>();
+        for (int i = 0; i < 3 && i < scored.size(); i++) {
+            top.add(paragraphs.get(scored.get(i)[0]));
+        }
+        return top;
+    }
+
+    private static List<String> paragraphs(int count, long seed) {
+        Random random = new Random(seed);
+        List<String> paragraphs = new ArrayList<>(count);
+        for (int p = 0; p < count; p++) {
+            StringBuilder paragraph = new StringBuilder();
+            int words = 40 + random.nextInt(80);
+            for (int w = 0; w < words; w++) {
+                String word = random.nextInt(4) == 0
+                        ? VOCABULARY[random.nextInt(VOCABULARY.length)]
+                        : "filler" + random.nextInt(500);
+                paragraph.append(random.nextInt(10) == 0 ? word.toUpperCase() : word).append(' ');
+            }
+            paragraphs.add(paragraph.toString());
+        }
+        return paragraphs;
+    }
+}
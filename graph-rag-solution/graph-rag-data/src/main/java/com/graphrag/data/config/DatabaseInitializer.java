@@ -1,5 +1,6 @@
 package com.graphrag.data.config;
 
+import com.graphrag.common.config.GraphRagProperties;
 import com.graphrag.data.service.GraphService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,13 +21,20 @@ public class DatabaseInitializer implements CommandLineRunner {
     @Autowired
     private GraphService graphService;
 
+    @Autowired
+    private GraphRagProperties properties;
+
     @Override
     public void run(String... args) throws Exception {
         logger.info("开始初始化 Neo4j 数据库...");
         
         try {
-            // 初始化数据库约束和索引
-            graphService.initializeDatabase();
+            // 初始化数据库约束和索引；首次批量导入时推迟到数据导入之后由 BulkImportService 创建
+            if (Boolean.TRUE.equals(properties.getBulkImport().getDeferSchema())) {
+                logger.info("已启用批量导入模式，跳过约束和索引创建");
+            } else {
+                graphService.initializeDatabase();
+            }
             
             // 打印数据库统计信息
             var stats = graphService.getDatabaseStats();
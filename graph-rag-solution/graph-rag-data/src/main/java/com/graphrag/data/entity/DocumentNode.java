@@ -30,6 +30,12 @@ public class DocumentNode {
     @Property("metadata")
     private String metadata;
 
+    @Property("content_hash")
+    private String contentHash;
+
+    @Property("uid")                     // 稳定 ID，内部 ID 删除后可能被复用
+    private String uid;
+
     @Property("embedding")
     private List<Double> embedding;
 
@@ -92,6 +98,22 @@ public class DocumentNode {
         this.metadata = metadata;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getUid() {
+        return uid;
+    }
+
+    public void setUid(String uid) {
+        this.uid = uid;
+    }
+
     public List<Double> getEmbedding() {
         return embedding;
     }
@@ -0,0 +1,212 @@
+package com.graphrag.data.service;
+
+import com.graphrag.common.config.GraphRagProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 批量导入服务
+ * 用于首次大规模建图：抽取结果先流式写入 CSV（见 {@link BulkImportWriter}），再通过分批事务的 LOAD CSV
+ * 或 neo4j-admin import 一次性导入；initializeDatabase 中的约束和索引在数据导入后才创建。
+ */
+@Service
+public class BulkImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkImportService.class);
+
+    private static final String EMBEDDING = """
+        CASE WHEN row.`embedding:double[]` IS NULL THEN null
+             ELSE [x IN split(row.`embedding:double[]`, ';') | toFloat(x)] END""";
+
+    @Autowired
+    private GraphService graphService;
+
+    @Autowired
+    private GraphRagProperties properties;
+
+    /**
+     * 在配置的目录下打开 CSV 写入器
+     */
+    public BulkImportWriter openWriter() {
+        return openWriter(Path.of(properties.getBulkImport().getDirectory()));
+    }
+
+    /**
+     * 在指定目录下打开 CSV 写入器
+     */
+    public BulkImportWriter openWriter(Path directory) {
+        logger.info("打开批量导入写入器: {}", directory.toAbsolutePath());
+        return new BulkImportWriter(directory);
+    }
+
+    /**
+     * 通过 LOAD CSV + CALL { ... } IN TRANSACTIONS 导入目录下的 CSV，然后创建约束和索引。
+     * CSV 必须位于 Neo4j 可读取的位置，graph-rag.bulk-import.load-url 为其 URL 前缀（默认指向 import 目录）。
+     */
+    public Map<String, Object> loadWithCypher(Path directory) {
+        long start = System.currentTimeMillis();
+        logger.info("开始批量导入: {}", directory.toAbsolutePath());
+
+        // 1. 节点，使用 CREATE，导入前库中应无同类数据
+        loadFile(directory, BulkImportWriter.DOCUMENTS_FILE, """
+            CREATE (:Document {import_id: row.`import_id:ID(Document)`, title: row.title, content: row.content,
+                               source: row.source, content_hash: row.content_hash, embedding: %s,
+                               created_at: localdatetime(), updated_at: localdatetime()})
+            """.formatted(EMBEDDING));
+        loadFile(directory, BulkImportWriter.ENTITIES_FILE, """
+            CREATE (:Entity {import_id: row.`import_id:ID(Entity)`, name: row.name, type: row.type,
+                             description: row.description, embedding: %s,
+                             created_at: localdatetime(), updated_at: localdatetime()})
+            """.formatted(EMBEDDING));
+        loadFile(directory, BulkImportWriter.CHUNKS_FILE, """
+            CREATE (:Chunk {import_id: row.`import_id:ID(Chunk)`, hash: row.hash,
+                            chunk_index: toInteger(row.`chunk_index:int`),
+                            start_offset: toInteger(row.`start_offset:int`),
+                            end_offset: toInteger(row.`end_offset:int`),
+                            text: row.text, embedding: %s, created_at: localdatetime()})
+            """.formatted(EMBEDDING));
+
+        // 2. 仅为关系导入所需的 import_id 建索引
+        createImportIdIndexes();
+
+        // 3. 关系
+        loadFile(directory, BulkImportWriter.CONTAINS_FILE, """
+            MATCH (d:Document {import_id: row.`:START_ID(Document)`})
+            MATCH (e:Entity {import_id: row.`:END_ID(Entity)`})
+            CREATE (d)-[:CONTAINS]->(e)
+            """);
+        loadFile(directory, BulkImportWriter.HAS_CHUNK_FILE, """
+            MATCH (d:Document {import_id: row.`:START_ID(Document)`})
+            MATCH (c:Chunk {import_id: row.`:END_ID(Chunk)`})
+            CREATE (d)-[:HAS_CHUNK]->(c)
+            """);
+        loadFile(directory, BulkImportWriter.MENTIONS_FILE, """
+            MATCH (c:Chunk {import_id: row.`:START_ID(Chunk)`})
+            MATCH (e:Entity {import_id: row.`:END_ID(Entity)`})
+            CREATE (c)-[:MENTIONS]->(e)
+            """);
+        for (Path file : relationshipFiles(directory)) {
+            String type = BulkImportWriter.relationshipType(file.getFileName().toString());
+            loadFile(directory, file.getFileName().toString(), """
+                MATCH (e1:Entity {import_id: row.`:START_ID(Entity)`})
+                MATCH (e2:Entity {import_id: row.`:END_ID(Entity)`})
+                CREATE (e1)-[:`%s` {description: row.description, weight: toFloat(row.`weight:double`),
+                                    created_at: localdatetime()}]->(e2)
+                """.formatted(type.replace("`", "``")));
+        }
+
+        // 4. 补齐文档 uid 和分块的 document_uid，并创建约束和索引
+        finishImport();
+
+        Map<String, Object> result = new LinkedHashMap<>(graphService.getDatabaseStats());
+        result.put("elapsedMillis", System.currentTimeMillis() - start);
+        logger.info("批量导入完成: {}", result);
+        return result;
+    }
+
+    /**
+     * 生成离线导入命令；需在数据库停止时对空库执行，之后再调用 {@link #finishImport()}
+     */
+    public String adminImportCommand(Path directory, String database) {
+        Path dir = directory.toAbsolutePath();
+        List<String> command = new ArrayList<>();
+        command.add("neo4j-admin database import full " + database);
+        command.add("--multiline-fields=true");
+        command.add("--array-delimiter=';'");
+        Map<String, String> nodeFiles = new LinkedHashMap<>();
+        nodeFiles.put("Document", BulkImportWriter.DOCUMENTS_FILE);
+        nodeFiles.put("Entity", BulkImportWriter.ENTITIES_FILE);
+        nodeFiles.put("Chunk", BulkImportWriter.CHUNKS_FILE);
+        nodeFiles.forEach((label, file) -> {
+            if (Files.exists(dir.resolve(file))) {
+                command.add("--nodes=" + label + "=" + dir.resolve(file));
+            }
+        });
+        for (String file : List.of(BulkImportWriter.CONTAINS_FILE, BulkImportWriter.HAS_CHUNK_FILE,
+                BulkImportWriter.MENTIONS_FILE)) {
+            if (Files.exists(dir.resolve(file))) {
+                command.add("--relationships=" + dir.resolve(file));
+            }
+        }
+        for (Path file : relationshipFiles(dir)) {
+            command.add("--relationships=" + file);
+        }
+        return String.join(" \\\n  ", command);
+    }
+
+    /**
+     * 导入后处理：文档 uid 取稳定的导入 ID，分块的 document_uid 指向文档 uid，随后创建 initializeDatabase 中的约束和索引
+     */
+    public void finishImport() {
+        int rows = properties.getBulkImport().getTransactionRows();
+        graphService.executeCypherAutoCommit("""
+            MATCH (d:Document)
+            WHERE d.uid IS NULL
+            CALL { WITH d SET d.uid = coalesce(d.import_id, randomUUID()) } IN TRANSACTIONS OF %d ROWS
+            """.formatted(rows), Map.of());
+        graphService.executeCypherAutoCommit("""
+            MATCH (d:Document)-[:HAS_CHUNK]->(c:Chunk)
+            WHERE c.document_uid IS NULL
+            CALL { WITH d, c SET c.document_uid = d.uid } IN TRANSACTIONS OF %d ROWS
+            """.formatted(rows), Map.of());
+
+        graphService.initializeDatabase();
+        graphService.bumpGraphVersion();
+        logger.info("批量导入后处理完成");
+    }
+
+    private void loadFile(Path directory, String file, String statement) {
+        if (!Files.exists(directory.resolve(file))) {
+            logger.info("跳过不存在的导入文件: {}", file);
+            return;
+        }
+
+        String cypher = """
+            LOAD CSV WITH HEADERS FROM $url AS row
+            CALL {
+              WITH row
+            %s
+            } IN TRANSACTIONS OF %d ROWS
+            """.formatted(statement, properties.getBulkImport().getTransactionRows());
+
+        long start = System.currentTimeMillis();
+        graphService.executeCypherAutoCommit(cypher, Map.of("url", properties.getBulkImport().getLoadUrl() + file));
+        logger.info("导入文件完成: {}，耗时 {} ms", file, System.currentTimeMillis() - start);
+    }
+
+    private void createImportIdIndexes() {
+        for (String label : List.of("Document", "Entity", "Chunk")) {
+            graphService.executeCypherAutoCommit(
+                    "CREATE INDEX %s_import_id IF NOT EXISTS FOR (n:%s) ON (n.import_id)"
+                            .formatted(label.toLowerCase(), label), Map.of());
+        }
+        graphService.executeCypherAutoCommit("CALL db.awaitIndexes(600)", Map.of());
+    }
+
+    private List<Path> relationshipFiles(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.startsWith(BulkImportWriter.RELATIONSHIPS_PREFIX) && name.endsWith(".csv");
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取批量导入目录失败: " + directory, e);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.graphrag.data.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 批量导入 CSV 写入器
+ * 以流式方式把抽取结果写成节点和关系 CSV 文件，表头同时兼容 LOAD CSV 与 neo4j-admin import。
+ * 节点使用由内容推导的稳定 ID，同一实体或文档重复写入时只保留第一次。
+ */
+public class BulkImportWriter implements AutoCloseable {
+
+    static final String DOCUMENTS_FILE = "documents.csv";
+    static final String ENTITIES_FILE = "entities.csv";
+    static final String CHUNKS_FILE = "chunks.csv";
+    static final String CONTAINS_FILE = "contains.csv";
+    static final String HAS_CHUNK_FILE = "has_chunk.csv";
+    static final String MENTIONS_FILE = "mentions.csv";
+    static final String RELATIONSHIPS_PREFIX = "relationships_";
+
+    static final String DOCUMENTS_HEADER = "import_id:ID(Document),title,content,source,content_hash,embedding:double[]";
+    static final String ENTITIES_HEADER = "import_id:ID(Entity),name,type,description,embedding:double[]";
+    static final String CHUNKS_HEADER = "import_id:ID(Chunk),hash,chunk_index:int,start_offset:int,end_offset:int,text,embedding:double[]";
+    static final String CONTAINS_HEADER = ":START_ID(Document),:END_ID(Entity),:TYPE";
+    static final String HAS_CHUNK_HEADER = ":START_ID(Document),:END_ID(Chunk),:TYPE";
+    static final String MENTIONS_HEADER = ":START_ID(Chunk),:END_ID(Entity),:TYPE";
+    static final String RELATIONSHIPS_HEADER = ":START_ID(Entity),:END_ID(Entity),:TYPE,description,weight:double";
+
+    private final Path directory;
+    private final Map<String, BufferedWriter> writers = new LinkedHashMap<>();
+    private final Map<String, Long> rowCounts = new LinkedHashMap<>();
+    private final Set<String> writtenNodes = new HashSet<>();
+    private final Set<String> writtenRelationships = new HashSet<>();
+
+    BulkImportWriter(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法创建批量导入目录: " + directory, e);
+        }
+    }
+
+    /**
+     * 写入文档节点，返回其稳定 ID（由标题推导，与 document_title 唯一约束一致）
+     */
+    public synchronized String addDocument(String title, String content, String source, String contentHash,
+                                           List<Double> embedding) {
+        String id = documentId(title);
+        if (writtenNodes.add(id)) {
+            writeRow(DOCUMENTS_FILE, DOCUMENTS_HEADER, id, title, content, source, contentHash, array(embedding));
+        }
+        return id;
+    }
+
+    /**
+     * 写入实体节点，返回其稳定 ID（由规范化名称和类型推导）
+     */
+    public synchronized String addEntity(String name, String type, String description, List<Double> embedding) {
+        String id = entityId(name, type);
+        if (writtenNodes.add(id)) {
+            writeRow(ENTITIES_FILE, ENTITIES_HEADER, id, name, type, description, array(embedding));
+        }
+        return id;
+    }
+
+    /**
+     * 写入分块节点及文档-分块关系，返回分块稳定 ID
+     */
+    public synchronized String addChunk(String documentId, String hash, int index, int startOffset, int endOffset,
+                                        String text, List<Double> embedding) {
+        String id = "c-" + sha256(documentId + "|" + hash);
+        if (writtenNodes.add(id)) {
+            writeRow(CHUNKS_FILE, CHUNKS_HEADER, id, hash, index, startOffset, endOffset, text, array(embedding));
+            writeRow(HAS_CHUNK_FILE, HAS_CHUNK_HEADER, documentId, id, "HAS_CHUNK");
+        }
+        return id;
+    }
+
+    /**
+     * 写入文档-实体 CONTAINS 关系
+     */
+    public synchronized void addDocumentEntity(String documentId, String entityId) {
+        if (writtenRelationships.add(documentId + "|CONTAINS|" + entityId)) {
+            writeRow(CONTAINS_FILE, CONTAINS_HEADER, documentId, entityId, "CONTAINS");
+        }
+    }
+
+    /**
+     * 写入分块-实体 MENTIONS 关系
+     */
+    public synchronized void addMention(String chunkId, String entityId) {
+        if (writtenRelationships.add(chunkId + "|MENTIONS|" + entityId)) {
+            writeRow(MENTIONS_FILE, MENTIONS_HEADER, chunkId, entityId, "MENTIONS");
+        }
+    }
+
+    /**
+     * 写入实体间关系；关系类型与 GraphService.createRelationships 一致，原样使用、跳过空类型，
+     * 每种类型单独一个文件，文件名为类型的十六进制编码
+     */
+    public synchronized void addRelationship(String sourceEntityId, String targetEntityId, String relationshipType,
+                                             String description, double weight) {
+        if (relationshipType == null || relationshipType.isBlank()) {
+            return;
+        }
+        if (writtenRelationships.add(sourceEntityId + "|" + relationshipType + "|" + targetEntityId)) {
+            writeRow(relationshipFile(relationshipType), RELATIONSHIPS_HEADER,
+                    sourceEntityId, targetEntityId, relationshipType, description, weight);
+        }
+    }
+
+    /**
+     * 该标题的文档是否已写入
+     */
+    public synchronized boolean containsDocument(String title) {
+        return writtenNodes.contains(documentId(title));
+    }
+
+    /**
+     * 该名称和类型的实体是否已写入
+     */
+    public synchronized boolean containsEntity(String name, String type) {
+        return writtenNodes.contains(entityId(name, type));
+    }
+
+    /**
+     * 各文件已写入的行数
+     */
+    public synchronized Map<String, Long> getRowCounts() {
+        return new LinkedHashMap<>(rowCounts);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (BufferedWriter writer : writers.values()) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("关闭批量导入文件失败", e);
+            }
+        }
+        writers.clear();
+    }
+
+    // 稳定 ID
+
+    static String documentId(String title) {
+        return "d-" + sha256(title);
+    }
+
+    /**
+     * 与 EntityNameUtil.key 相同的规范化：名称和类型都去首尾空白、折叠空白并转小写
+     */
+    static String entityId(String name, String type) {
+        return "e-" + sha256(normalise(name) + "|" + normalise(type));
+    }
+
+    static String relationshipFile(String type) {
+        return RELATIONSHIPS_PREFIX + HexFormat.of().formatHex(type.getBytes(StandardCharsets.UTF_8)) + ".csv";
+    }
+
+    static String relationshipType(String fileName) {
+        String hex = fileName.substring(RELATIONSHIPS_PREFIX.length(), fileName.length() - ".csv".length());
+        return new String(HexFormat.of().parseHex(hex), StandardCharsets.UTF_8);
+    }
+
+    private static String normalise(String value) {
+        return value == null ? "" : value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    // CSV 输出
+
+    private void writeRow(String file, String header, Object... values) {
+        try {
+            BufferedWriter writer = writers.get(file);
+            if (writer == null) {
+                writer = Files.newBufferedWriter(directory.resolve(file), StandardCharsets.UTF_8);
+                writer.write(header);
+                writer.newLine();
+                writers.put(file, writer);
+            }
+
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                line.append(field(values[i]));
+            }
+            writer.write(line.toString());
+            writer.newLine();
+            rowCounts.merge(file, 1L, Long::sum);
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入批量导入文件失败: " + file, e);
+        }
+    }
+
+    /**
+     * 字符串一律加引号并转义内部引号；null 写为空字段，导入后即为缺失属性
+     */
+    private static String field(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Number) {
+            return value.toString();
+        }
+        return "\"" + value.toString().replace("\"", "\"\"") + "\"";
+    }
+
+    private static String array(List<Double> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        return values.stream().map(String::valueOf).collect(Collectors.joining(";"));
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 /**
  * 文档服务
@@ -24,12 +25,19 @@ public class DocumentService {
     @Autowired
     private DocumentRepository documentRepository;
 
+    @Autowired
+    private GraphService graphService;
+
     /**
      * 保存文档
      */
     public DocumentNode saveDocument(DocumentNode document) {
+        if (document.getUid() == null) {
+            document.setUid(UUID.randomUUID().toString());
+        }
         document.setUpdatedAt(LocalDateTime.now());
         DocumentNode saved = documentRepository.save(document);
+        graphService.bumpGraphVersion();
         logger.info("保存文档成功，ID: {}, 标题: {}", saved.getId(), saved.getTitle());
         return saved;
     }
@@ -45,8 +53,17 @@ public class DocumentService {
             
             // 更新內容和元數據（如果有變化）
             boolean needUpdate = false;
-            if (!existingDoc.getContent().equals(document.getContent())) {
+            boolean assignUid = existingDoc.getUid() == null;
+            if (assignUid) {
+                existingDoc.setUid(UUID.randomUUID().toString());
+                needUpdate = true;
+            }
+            if (!sameContent(existingDoc, document)) {
                 existingDoc.setContent(document.getContent());
+                existingDoc.setContentHash(document.getContentHash());
+                needUpdate = true;
+            } else if (existingDoc.getContentHash() == null && document.getContentHash() != null) {
+                existingDoc.setContentHash(document.getContentHash());
                 needUpdate = true;
             }
             if (document.getMetadata() != null && !document.getMetadata().equals(existingDoc.getMetadata())) {
@@ -61,8 +78,13 @@ public class DocumentService {
             if (needUpdate) {
                 existingDoc.setUpdatedAt(LocalDateTime.now());
                 existingDoc = documentRepository.save(existingDoc);
+                graphService.bumpGraphVersion();
                 logger.info("更新現有文檔，ID: {}", existingDoc.getId());
             }
+            if (assignUid) {
+                // 舊版分塊以內部 ID 為鍵，改為以文檔 uid 為鍵
+                graphService.rekeyChunks(existingDoc.getId());
+            }
             
             return existingDoc;
         } else {
@@ -71,6 +93,16 @@ public class DocumentService {
         }
     }
 
+    /**
+     * 比较文档内容：两边都有内容哈希时只比较哈希，否则比较全文
+     */
+    private boolean sameContent(DocumentNode existing, DocumentNode document) {
+        if (existing.getContentHash() != null && document.getContentHash() != null) {
+            return existing.getContentHash().equals(document.getContentHash());
+        }
+        return existing.getContent().equals(document.getContent());
+    }
+
     /**
      * 根据ID查找文档
      */
@@ -117,7 +149,9 @@ public class DocumentService {
             DocumentNode document = optionalDoc.get();
             document.setEmbedding(embedding);
             document.setUpdatedAt(LocalDateTime.now());
-            return documentRepository.save(document);
+            document = documentRepository.save(document);
+            graphService.bumpGraphVersion();
+            return document;
         }
         throw new RuntimeException("文档不存在，ID: " + id);
     }
@@ -126,7 +160,9 @@ public class DocumentService {
      * 删除文档
      */
     public void deleteDocument(Long id) {
-        documentRepository.deleteById(id);   
+        graphService.deleteDocumentChunks(id);
+        documentRepository.deleteById(id);
+        graphService.bumpGraphVersion();
         logger.info("删除文档成功，ID: {}", id);
     }
 
@@ -150,6 +186,7 @@ public class DocumentService {
     public List<DocumentNode> saveAll(List<DocumentNode> documents) {
         documents.forEach(doc -> doc.setUpdatedAt(LocalDateTime.now()));
         List<DocumentNode> saved = documentRepository.saveAll(documents);
+        graphService.bumpGraphVersion();
         logger.info("批量保存文档成功，数量: {}", saved.size());
         return saved;
     }
@@ -24,12 +24,16 @@ public class EntityService {
     @Autowired
     private EntityRepository entityRepository;
 
+    @Autowired
+    private GraphService graphService;
+
     /**
      * 保存实体
      */
     public EntityNode saveEntity(EntityNode entity) {
         entity.setUpdatedAt(LocalDateTime.now());
         EntityNode saved = entityRepository.save(entity);
+        graphService.bumpGraphVersion();
         logger.info("保存实体成功，ID: {}, 名称: {}, 类型: {}", saved.getId(), saved.getName(), saved.getType());
         return saved;
     }
@@ -122,7 +126,9 @@ public class EntityService {
             EntityNode entity = optionalEntity.get();
             entity.setEmbedding(embedding);
             entity.setUpdatedAt(LocalDateTime.now());
-            return entityRepository.save(entity);
+            entity = entityRepository.save(entity);
+            graphService.bumpGraphVersion();
+            return entity;
         }
         throw new RuntimeException("实体不存在，ID: " + id);
     }
@@ -132,6 +138,7 @@ public class EntityService {
      */
     public void deleteEntity(Long id) {
         entityRepository.deleteById(id);
+        graphService.bumpGraphVersion();
         logger.info("删除实体成功，ID: {}", id);
     }
 
@@ -148,6 +155,7 @@ public class EntityService {
     public List<EntityNode> saveAll(List<EntityNode> entities) {
         entities.forEach(entity -> entity.setUpdatedAt(LocalDateTime.now()));
         List<EntityNode> saved = entityRepository.saveAll(entities);
+        graphService.bumpGraphVersion();
         logger.info("批量保存实体成功，数量: {}", saved.size());
         return saved;
     }
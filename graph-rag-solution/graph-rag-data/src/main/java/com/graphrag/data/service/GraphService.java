@@ -1,5 +1,7 @@
 package com.graphrag.data.service;
 
+import com.graphrag.common.config.GraphRagProperties;
+import com.graphrag.data.entity.EntityNode;
 import org.neo4j.driver.Driver;
 import org.neo4j.driver.Session;
 import org.neo4j.driver.Transaction;
@@ -8,8 +10,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 图数据库操作服务
@@ -19,9 +25,19 @@ public class GraphService {
 
     private static final Logger logger = LoggerFactory.getLogger(GraphService.class);
 
+    private static final int FILTERED_CHUNK_OVERSAMPLING = 10;
+
     @Autowired
     private Driver driver;
 
+    @Autowired
+    private GraphRagProperties properties;
+
+    /**
+     * 图版本号，每次写操作后递增，用于使依赖图内容的缓存失效
+     */
+    private final AtomicLong graphVersion = new AtomicLong();
+
     /**
      * 执行 Cypher 查询
      */
@@ -46,12 +62,40 @@ public class GraphService {
                 tx.run(cypher, parameters);
                 return null;
             });
+            graphVersion.incrementAndGet();
         } catch (Exception e) {
             logger.error("执行 Cypher 写操作失败: {}", cypher, e);
             throw new RuntimeException("写操作执行失败", e);
         }
     }
 
+    /**
+     * 在自动提交事务中执行 Cypher，用于 CALL { ... } IN TRANSACTIONS 等不能运行在显式事务内的语句
+     */
+    public void executeCypherAutoCommit(String cypher, Map<String, Object> parameters) {
+        try (Session session = driver.session()) {
+            session.run(cypher, parameters).consume();
+            graphVersion.incrementAndGet();
+        } catch (Exception e) {
+            logger.error("执行自动提交 Cypher 失败: {}", cypher, e);
+            throw new RuntimeException("写操作执行失败", e);
+        }
+    }
+
+    /**
+     * 获取当前图版本号
+     */
+    public long getGraphVersion() {
+        return graphVersion.get();
+    }
+
+    /**
+     * 递增图版本号（绕过 executeCypherWrite 的写入路径需手动调用）
+     */
+    public long bumpGraphVersion() {
+        return graphVersion.incrementAndGet();
+    }
+
     /**
      * 创建实体之间的关系
      */
@@ -86,7 +130,7 @@ public class GraphService {
      */
     public void createDocumentEntityRelationship(Long documentId, String entityName, String entityType) {
         String cypher = """
-            MATCH (d:Document) WHERE d.id = $documentId
+            MATCH (d:Document) WHERE id(d) = $documentId
             MERGE (e:Entity {name: $entityName, type: $entityType})
             MERGE (d)-[r:CONTAINS]->(e)
             SET r.created_at = datetime()
@@ -102,6 +146,437 @@ public class GraphService {
         logger.info("创建文档-实体关系成功: Document[{}] -> Entity[{}]", documentId, entityName);
     }
 
+    /**
+     * 分批执行 UNWIND 写操作，每批 rows 在一个独立事务中提交
+     */
+    public void executeCypherWriteBatch(String cypher, Map<String, Object> parameters, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        int batchSize = Math.max(1, properties.getNeo4j().getWriteBatchSize());
+        try (Session session = driver.session()) {
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                Map<String, Object> batchParameters = new HashMap<>(parameters);
+                batchParameters.put("rows", rows.subList(from, Math.min(rows.size(), from + batchSize)));
+
+                session.writeTransaction(tx -> {
+                    tx.run(cypher, batchParameters);
+                    return null;
+                });
+                graphVersion.incrementAndGet();
+            }
+        } catch (Exception e) {
+            logger.error("执行批量 Cypher 写操作失败: {}", cypher, e);
+            throw new RuntimeException("批量写操作执行失败", e);
+        }
+    }
+
+    /**
+     * 批量合并实体（按名称和类型 MERGE，更新描述和嵌入向量）
+     */
+    public void mergeEntities(List<EntityNode> entities) {
+        mergeEntities(entities, false);
+    }
+
+    /**
+     * 批量合并实体，validated 为 true 时标记实体已通过 LLM 校验
+     */
+    public void mergeEntities(List<EntityNode> entities, boolean validated) {
+        String cypher = """
+            UNWIND $rows AS row
+            MERGE (e:Entity {name: row.name, type: row.type})
+            ON CREATE SET e.created_at = localdatetime()
+            SET e.description = coalesce(row.description, e.description),
+                e.embedding = coalesce(row.embedding, e.embedding),
+                e.validated_at = CASE WHEN $validated THEN localdatetime() ELSE e.validated_at END,
+                e.updated_at = localdatetime()
+            """;
+
+        List<Map<String, Object>> rows = new ArrayList<>(entities.size());
+        for (EntityNode entity : entities) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("name", entity.getName());
+            row.put("type", entity.getType() != null ? entity.getType() : "");
+            row.put("description", entity.getDescription());
+            row.put("embedding", entity.getEmbedding());
+            rows.add(row);
+        }
+
+        executeCypherWriteBatch(cypher, Map.of("validated", validated), rows);
+        logger.info("批量合并实体成功，数量: {}", rows.size());
+    }
+
+    /**
+     * 查找已通过校验的实体（按名称和类型）
+     */
+    public List<Map<String, Object>> findValidatedEntities(List<EntityNode> entities) {
+        String cypher = """
+            UNWIND $rows AS row
+            MATCH (e:Entity {name: row.name, type: row.type})
+            WHERE e.validated_at IS NOT NULL
+            RETURN e.name AS name, e.type AS type, e.description AS description
+            """;
+
+        List<Map<String, Object>> rows = new ArrayList<>(entities.size());
+        for (EntityNode entity : entities) {
+            rows.add(Map.of("name", entity.getName(), "type", entity.getType() != null ? entity.getType() : ""));
+        }
+
+        return executeCypher(cypher, Map.of("rows", rows));
+    }
+
+    /**
+     * 批量创建实体之间的关系
+     * 每行包含 entity1Name, entity1Type, entity2Name, entity2Type, relationshipType, description, weight；
+     * 关系类型无法参数化，因此按类型分组，每种类型一条 UNWIND 语句
+     */
+    public void createRelationships(List<Map<String, Object>> relationships) {
+        Map<String, List<Map<String, Object>>> rowsByType = new LinkedHashMap<>();
+        for (Map<String, Object> relationship : relationships) {
+            String relationshipType = (String) relationship.get("relationshipType");
+            if (relationshipType == null || relationshipType.isBlank()) {
+                logger.warn("跳过缺少关系类型的关系: {} -> {}", relationship.get("entity1Name"), relationship.get("entity2Name"));
+                continue;
+            }
+            Map<String, Object> row = new HashMap<>(relationship);
+            row.putIfAbsent("description", "");
+            row.putIfAbsent("weight", 1.0);
+            rowsByType.computeIfAbsent(relationshipType, type -> new ArrayList<>()).add(row);
+        }
+
+        for (Map.Entry<String, List<Map<String, Object>>> entry : rowsByType.entrySet()) {
+            String cypher = """
+                UNWIND $rows AS row
+                MERGE (e1:Entity {name: row.entity1Name, type: row.entity1Type})
+                MERGE (e2:Entity {name: row.entity2Name, type: row.entity2Type})
+                MERGE (e1)-[r:`%s`]->(e2)
+                SET r.description = row.description,
+                    r.weight = row.weight,
+                    r.created_at = coalesce(r.created_at, datetime()),
+                    r.updated_at = datetime()
+                """.formatted(entry.getKey().replace("`", "``"));
+
+            executeCypherWriteBatch(cypher, Map.of(), entry.getValue());
+        }
+        logger.info("批量创建关系成功，数量: {}, 关系类型数: {}", relationships.size(), rowsByType.size());
+    }
+
+    /**
+     * 批量创建文档与实体的关系
+     */
+    public void createDocumentEntityRelationships(Long documentId, List<EntityNode> entities) {
+        String cypher = """
+            MATCH (d:Document) WHERE id(d) = $documentId
+            UNWIND $rows AS row
+            MERGE (e:Entity {name: row.name, type: row.type})
+            MERGE (d)-[r:CONTAINS]->(e)
+            SET r.created_at = datetime()
+            """;
+
+        List<Map<String, Object>> rows = new ArrayList<>(entities.size());
+        for (EntityNode entity : entities) {
+            rows.add(Map.of("name", entity.getName(), "type", entity.getType() != null ? entity.getType() : ""));
+        }
+
+        executeCypherWriteBatch(cypher, Map.of("documentId", documentId), rows);
+        logger.info("批量创建文档-实体关系成功: Document[{}] -> {} 个实体", documentId, rows.size());
+    }
+
+    /**
+     * 按别名键查找别名索引指向的规范实体，返回 key, name, type
+     */
+    public List<Map<String, Object>> findAliasTargets(List<String> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        String cypher = """
+            UNWIND $keys AS key
+            MATCH (a:EntityAlias {key: key})-[:ALIAS_OF]->(e:Entity)
+            RETURN key, e.name AS name, e.type AS type
+            """;
+        return executeCypher(cypher, Map.of("keys", keys));
+    }
+
+    /**
+     * 批量写入别名索引，每行包含 key, alias, name, type；别名已指向其他实体时改为指向当前实体
+     */
+    public void mergeEntityAliases(List<Map<String, Object>> aliases) {
+        String cypher = """
+            UNWIND $rows AS row
+            MATCH (e:Entity {name: row.name, type: row.type})
+            MERGE (a:EntityAlias {key: row.key})
+            ON CREATE SET a.alias = row.alias, a.created_at = localdatetime()
+            WITH a, e
+            OPTIONAL MATCH (a)-[old:ALIAS_OF]->(other:Entity)
+            WHERE other <> e
+            DELETE old
+            MERGE (a)-[:ALIAS_OF]->(e)
+            """;
+
+        executeCypherWriteBatch(cypher, Map.of(), aliases);
+        logger.debug("批量写入实体别名成功，数量: {}", aliases.size());
+    }
+
+    /**
+     * 获取全部别名及其规范实体，返回 alias, name, type
+     */
+    public List<Map<String, Object>> findAllAliases() {
+        String cypher = """
+            MATCH (a:EntityAlias)-[:ALIAS_OF]->(e:Entity)
+            RETURN a.alias AS alias, e.name AS name, e.type AS type
+            """;
+        return executeCypher(cypher, Map.of());
+    }
+
+    /**
+     * 按内部 ID 分页获取实体，返回 id, name, type
+     */
+    public List<Map<String, Object>> findEntityPage(long afterId, int limit) {
+        String cypher = """
+            MATCH (e:Entity)
+            WHERE id(e) > $afterId
+            RETURN id(e) AS id, e.name AS name, e.type AS type
+            ORDER BY id(e)
+            LIMIT $limit
+            """;
+        return executeCypher(cypher, Map.of("afterId", afterId, "limit", limit));
+    }
+
+    /**
+     * 按名称和类型批量获取实体向量及连接度，返回 name, type, embedding, degree
+     */
+    public List<Map<String, Object>> findEntityEmbeddings(List<Map<String, Object>> entities) {
+        if (entities.isEmpty()) {
+            return List.of();
+        }
+        String cypher = """
+            UNWIND $rows AS row
+            MATCH (e:Entity {name: row.name, type: row.type})
+            RETURN e.name AS name, e.type AS type, e.embedding AS embedding,
+                   COUNT { (e)--() } AS degree
+            """;
+        return executeCypher(cypher, Map.of("rows", entities));
+    }
+
+    /**
+     * 将重复实体合并到规范实体：关系（含别名、文档和分块关系）改指向规范实体，属性以规范实体为准，
+     * 随后删除合并产生的自环
+     */
+    public void mergeDuplicateEntity(String canonicalName, String canonicalType,
+                                     String duplicateName, String duplicateType) {
+        String cypher = """
+            MATCH (canonical:Entity {name: $canonicalName, type: $canonicalType})
+            MATCH (duplicate:Entity {name: $duplicateName, type: $duplicateType})
+            WHERE canonical <> duplicate
+            CALL apoc.refactor.mergeNodes([canonical, duplicate], {properties: 'discard', mergeRels: true})
+            YIELD node
+            SET node.updated_at = localdatetime()
+            WITH node
+            OPTIONAL MATCH (node)-[loop]->(node)
+            DELETE loop
+            """;
+
+        executeCypherWrite(cypher, Map.of(
+            "canonicalName", canonicalName,
+            "canonicalType", canonicalType,
+            "duplicateName", duplicateName,
+            "duplicateType", duplicateType
+        ));
+        logger.info("合并重复实体: {}({}) -> {}({})", duplicateName, duplicateType, canonicalName, canonicalType);
+    }
+
+    /**
+     * 获取文档已入库分块的哈希
+     */
+    public List<String> findChunkHashes(Long documentId) {
+        String cypher = """
+            MATCH (d:Document)-[:HAS_CHUNK]->(c:Chunk)
+            WHERE id(d) = $documentId
+            RETURN c.hash AS hash
+            """;
+
+        List<String> hashes = new ArrayList<>();
+        for (Map<String, Object> row : executeCypher(cypher, Map.of("documentId", documentId))) {
+            hashes.add((String) row.get("hash"));
+        }
+        return hashes;
+    }
+
+    /**
+     * 查找仍存在的分块，每行包含 documentUid, hash，返回存在的行
+     */
+    public List<Map<String, Object>> findExistingChunks(List<Map<String, Object>> rows) {
+        String cypher = """
+            UNWIND $rows AS row
+            MATCH (c:Chunk {document_uid: row.documentUid, hash: row.hash})
+            RETURN row.documentUid AS documentUid, row.hash AS hash
+            """;
+
+        return executeCypher(cypher, Map.of("rows", rows));
+    }
+
+    /**
+     * 批量合并文档分块，每行包含 hash, index, start, end, text, embedding（可为空，保留已有向量）
+     */
+    public void mergeChunks(Long documentId, List<Map<String, Object>> chunks) {
+        String cypher = """
+            MATCH (d:Document) WHERE id(d) = $documentId
+            UNWIND $rows AS row
+            MERGE (c:Chunk {document_uid: d.uid, hash: row.hash})
+            ON CREATE SET c.created_at = localdatetime()
+            SET c.chunk_index = row.index,
+                c.start_offset = row.start,
+                c.end_offset = row.end,
+                c.text = row.text,
+                c.embedding = coalesce(row.embedding, c.embedding),
+                c.updated_at = localdatetime()
+            MERGE (d)-[:HAS_CHUNK]->(c)
+            """;
+
+        executeCypherWriteBatch(cypher, Map.of("documentId", documentId), chunks);
+        logger.info("批量合并分块成功: Document[{}] -> {} 个分块", documentId, chunks.size());
+    }
+
+    /**
+     * 分块向量相似性搜索（chunk_embedding_index），documentIds 为空时搜索全部文档；
+     * 按文档过滤在近邻查询之后进行，因此过滤时多取 FILTERED_CHUNK_OVERSAMPLING 倍候选
+     */
+    public List<Map<String, Object>> findSimilarChunks(List<Double> queryEmbedding, List<Long> documentIds,
+                                                       double threshold, int limit) {
+        // 余弦向量索引的 score 为 (1 + cos) / 2，换算回余弦相似度后与阈值比较
+        String cypher = """
+            CALL db.index.vector.queryNodes('chunk_embedding_index', $candidates, $queryEmbedding)
+            YIELD node AS c, score
+            WITH c, 2 * score - 1 AS similarity
+            WHERE similarity > $threshold
+            MATCH (d:Document)-[:HAS_CHUNK]->(c)
+            WHERE $documentIds IS NULL OR id(d) IN $documentIds
+            RETURN id(d) AS documentId, d.title AS title, d.source AS source,
+                   c.hash AS hash, c.chunk_index AS chunkIndex,
+                   c.start_offset AS startOffset, c.end_offset AS endOffset,
+                   c.text AS text, similarity
+            ORDER BY similarity DESC
+            LIMIT $limit
+            """;
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("queryEmbedding", queryEmbedding);
+        parameters.put("documentIds", documentIds);
+        parameters.put("threshold", threshold);
+        parameters.put("candidates", documentIds == null ? limit : limit * FILTERED_CHUNK_OVERSAMPLING);
+        parameters.put("limit", limit);
+        return executeCypher(cypher, parameters);
+    }
+
+    /**
+     * 批量创建分块与实体的 MENTIONS 关系，每行包含 hash, name, type
+     */
+    public void createChunkMentions(Long documentId, List<Map<String, Object>> mentions) {
+        String cypher = """
+            MATCH (d:Document) WHERE id(d) = $documentId
+            UNWIND $rows AS row
+            MATCH (c:Chunk {document_uid: d.uid, hash: row.hash})
+            MATCH (e:Entity {name: row.name, type: row.type})
+            MERGE (c)-[:MENTIONS]->(e)
+            """;
+
+        executeCypherWriteBatch(cypher, Map.of("documentId", documentId), mentions);
+        logger.info("批量创建分块-实体关系成功: Document[{}] -> {} 个提及", documentId, mentions.size());
+    }
+
+    /**
+     * 批量将近重复分块链接到已入库的源分块，并复用源分块的实体提及，
+     * 每行包含 hash, sourceDocumentUid, sourceHash, similarity
+     */
+    public void linkNearDuplicateChunks(Long documentId, List<Map<String, Object>> rows) {
+        String cypher = """
+            MATCH (d:Document) WHERE id(d) = $documentId
+            UNWIND $rows AS row
+            MATCH (c:Chunk {document_uid: d.uid, hash: row.hash})
+            MATCH (src:Chunk {document_uid: row.sourceDocumentUid, hash: row.sourceHash})
+            MERGE (c)-[l:NEAR_DUPLICATE_OF]->(src)
+            SET l.similarity = row.similarity
+            WITH d, c, src
+            MATCH (src)-[:MENTIONS]->(e:Entity)
+            MERGE (c)-[:MENTIONS]->(e)
+            MERGE (d)-[r:CONTAINS]->(e)
+            ON CREATE SET r.created_at = datetime()
+            """;
+
+        executeCypherWriteBatch(cypher, Map.of("documentId", documentId), rows);
+        logger.info("批量链接近重复分块成功: Document[{}] -> {} 个分块", documentId, rows.size());
+    }
+
+    /**
+     * 将文档链接到与其近重复的已入库文档
+     */
+    public void linkNearDuplicateDocument(Long documentId, String sourceDocumentUid, double similarity) {
+        String cypher = """
+            MATCH (d:Document) WHERE id(d) = $documentId
+            MATCH (src:Document {uid: $sourceDocumentUid})
+            MERGE (d)-[l:NEAR_DUPLICATE_OF]->(src)
+            SET l.similarity = $similarity
+            """;
+
+        executeCypherWrite(cypher, Map.of("documentId", documentId, "sourceDocumentUid", sourceDocumentUid,
+                "similarity", similarity));
+        logger.info("链接近重复文档: Document[{}] -> Document[uid={}], 相似度: {}", documentId, sourceDocumentUid, similarity);
+    }
+
+    /**
+     * 删除已移除的分块，并撤回不再被任何剩余分块提及的文档-实体关系
+     */
+    public void retractChunks(Long documentId, List<String> hashes) {
+        String deleteChunks = """
+            MATCH (d:Document) WHERE id(d) = $documentId
+            UNWIND $rows AS row
+            MATCH (c:Chunk {document_uid: d.uid, hash: row.hash})
+            DETACH DELETE c
+            """;
+
+        List<Map<String, Object>> rows = new ArrayList<>(hashes.size());
+        for (String hash : hashes) {
+            rows.add(Map.of("hash", hash));
+        }
+        executeCypherWriteBatch(deleteChunks, Map.of("documentId", documentId), rows);
+
+        String retractLinks = """
+            MATCH (d:Document)-[r:CONTAINS]->(e:Entity)
+            WHERE id(d) = $documentId
+              AND NOT EXISTS { MATCH (d)-[:HAS_CHUNK]->(:Chunk)-[:MENTIONS]->(e) }
+            DELETE r
+            """;
+        executeCypherWrite(retractLinks, Map.of("documentId", documentId));
+        logger.info("撤回分块成功: Document[{}] -> {} 个分块", documentId, hashes.size());
+    }
+
+    /**
+     * 删除文档的全部分块（在删除文档之前调用）
+     */
+    public void deleteDocumentChunks(Long documentId) {
+        String cypher = """
+            MATCH (d:Document)-[:HAS_CHUNK]->(c:Chunk)
+            WHERE id(d) = $documentId
+            DETACH DELETE c
+            """;
+        executeCypherWrite(cypher, Map.of("documentId", documentId));
+        logger.info("删除文档分块: Document[{}]", documentId);
+    }
+
+    /**
+     * 将文档的分块改为以文档 uid 为键（旧版分块以内部 ID 为键）
+     */
+    public void rekeyChunks(Long documentId) {
+        String cypher = """
+            MATCH (d:Document)-[:HAS_CHUNK]->(c:Chunk)
+            WHERE id(d) = $documentId AND d.uid IS NOT NULL
+            SET c.document_uid = d.uid
+            REMOVE c.document_id
+            """;
+        executeCypherWrite(cypher, Map.of("documentId", documentId));
+    }
+
     /**
      * 创建向量索引
      */
@@ -134,7 +609,8 @@ public class GraphService {
         // 创建唯一约束
         String[] constraints = {
             "CREATE CONSTRAINT entity_name_type IF NOT EXISTS FOR (e:Entity) REQUIRE (e.name, e.type) IS UNIQUE",
-            "CREATE CONSTRAINT document_title IF NOT EXISTS FOR (d:Document) REQUIRE d.title IS UNIQUE"
+            "CREATE CONSTRAINT document_title IF NOT EXISTS FOR (d:Document) REQUIRE d.title IS UNIQUE",
+            "CREATE CONSTRAINT entity_alias_key IF NOT EXISTS FOR (a:EntityAlias) REQUIRE a.key IS UNIQUE"
         };
 
         for (String constraint : constraints) {
@@ -150,7 +626,9 @@ public class GraphService {
         String[] indexes = {
             "CREATE INDEX entity_name IF NOT EXISTS FOR (e:Entity) ON (e.name)",
             "CREATE INDEX entity_type IF NOT EXISTS FOR (e:Entity) ON (e.type)",
-            "CREATE INDEX document_source IF NOT EXISTS FOR (d:Document) ON (d.source)"
+            "CREATE INDEX document_source IF NOT EXISTS FOR (d:Document) ON (d.source)",
+            "CREATE INDEX document_uid IF NOT EXISTS FOR (d:Document) ON (d.uid)",
+            "CREATE INDEX chunk_document_uid_hash IF NOT EXISTS FOR (c:Chunk) ON (c.document_uid, c.hash)"
         };
 
         for (String index : indexes) {
@@ -165,6 +643,7 @@ public class GraphService {
         // 创建向量索引
         createVectorIndex("document_embedding_index", "Document", "embedding", 1536);
         createVectorIndex("entity_embedding_index", "Entity", "embedding", 1536);
+        createVectorIndex("chunk_embedding_index", "Chunk", "embedding", 1536);
 
         logger.info("数据库初始化完成");
     }